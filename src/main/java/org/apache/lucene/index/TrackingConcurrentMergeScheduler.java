@@ -41,6 +41,8 @@ public class TrackingConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final CounterMetric currentMerges = new CounterMetric();
     private final CounterMetric currentMergesNumDocs = new CounterMetric();
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
+    private final CounterMetric totalThrottledMerges = new CounterMetric();
+    private final CounterMetric totalThrottledMergesSizeInBytes = new CounterMetric();
 
     public TrackingConcurrentMergeScheduler(ESLogger logger) {
         super();
@@ -75,6 +77,21 @@ public class TrackingConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         return currentMergesSizeInBytes.count();
     }
 
+    public long totalThrottledMerges() {
+        return totalThrottledMerges.count();
+    }
+
+    public long totalThrottledMergesSizeInBytes() {
+        return totalThrottledMergesSizeInBytes.count();
+    }
+
+    /**
+     * Is the IO of the provided merge going to be throttled, only used for stats.
+     */
+    protected boolean isThrottled(MergePolicy.OneMerge merge) {
+        return false;
+    }
+
     @Override
     protected void doMerge(MergePolicy.OneMerge merge) throws IOException {
         int totalNumDocs = merge.totalNumDocs();
@@ -83,6 +100,10 @@ public class TrackingConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         currentMerges.inc();
         currentMergesNumDocs.inc(totalNumDocs);
         currentMergesSizeInBytes.inc(totalSizeInBytes);
+        if (isThrottled(merge)) {
+            totalThrottledMerges.inc();
+            totalThrottledMergesSizeInBytes.inc(totalSizeInBytes);
+        }
         if (logger.isTraceEnabled()) {
             logger.trace("merge [{}] starting..., merging [{}] segments, [{}] docs, [{}] size, into [{}] estimated_size", merge.info == null ? "_na_" : merge.info.name, merge.segments.size(), totalNumDocs, new ByteSizeValue(totalSizeInBytes), new ByteSizeValue(merge.estimatedMergeBytes));
         }
@@ -38,6 +38,8 @@ public class TrackingSerialMergeScheduler extends MergeScheduler {
     private final CounterMetric currentMerges = new CounterMetric();
     private final CounterMetric currentMergesNumDocs = new CounterMetric();
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
+    private final CounterMetric totalThrottledMerges = new CounterMetric();
+    private final CounterMetric totalThrottledMergesSizeInBytes = new CounterMetric();
 
     public TrackingSerialMergeScheduler(ESLogger logger) {
         this.logger = logger;
@@ -71,6 +73,21 @@ public class TrackingSerialMergeScheduler extends MergeScheduler {
         return currentMergesSizeInBytes.count();
     }
 
+    public long totalThrottledMerges() {
+        return totalThrottledMerges.count();
+    }
+
+    public long totalThrottledMergesSizeInBytes() {
+        return totalThrottledMergesSizeInBytes.count();
+    }
+
+    /**
+     * Is the IO of the provided merge going to be throttled, only used for stats.
+     */
+    protected boolean isThrottled(MergePolicy.OneMerge merge) {
+        return false;
+    }
+
     /**
      * Just do the merges in sequence. We do this
      * "synchronized" so that even if the application is using
@@ -93,6 +110,10 @@ public class TrackingSerialMergeScheduler extends MergeScheduler {
             currentMerges.inc();
             currentMergesNumDocs.inc(totalNumDocs);
             currentMergesSizeInBytes.inc(totalSizeInBytes);
+            if (isThrottled(merge)) {
+                totalThrottledMerges.inc();
+                totalThrottledMergesSizeInBytes.inc(totalSizeInBytes);
+            }
 
             // sadly, segment name is not available since mergeInit is called from merge itself...
             if (logger.isTraceEnabled()) {
@@ -1,5 +1,6 @@
 package org.apache.lucene.store;
 
+import org.apache.lucene.index.MergePolicy;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.RateLimiter;
@@ -41,6 +42,10 @@ public class StoreRateLimiting {
 
     private volatile Type type;
 
+    private volatile ByteSizeValue maxRate = new ByteSizeValue(0);
+
+    private volatile long smallMergeSizeInBytes;
+
     public StoreRateLimiting() {
 
     }
@@ -50,7 +55,12 @@ public class StoreRateLimiting {
         return actualRateLimiter;
     }
 
+    public ByteSizeValue getMaxRate() {
+        return maxRate;
+    }
+
     public void setMaxRate(ByteSizeValue rate) {
+        this.maxRate = rate;
         if (rate.bytes() <= 0) {
             actualRateLimiter = null;
         } else if (actualRateLimiter == null) {
@@ -62,6 +72,25 @@ public class StoreRateLimiting {
         }
     }
 
+    /**
+     * Merges estimated to be smaller than this size are never throttled, so they don't wait behind
+     * large merges, and the segment count is kept low.
+     */
+    public void setSmallMergeSize(ByteSizeValue smallMergeSize) {
+        this.smallMergeSizeInBytes = smallMergeSize.bytes();
+    }
+
+    public ByteSizeValue getSmallMergeSize() {
+        return new ByteSizeValue(smallMergeSizeInBytes);
+    }
+
+    /**
+     * Should the outputs of the provided merge be rate limited.
+     */
+    public boolean isThrottled(MergePolicy.OneMerge merge) {
+        return type != Type.NONE && actualRateLimiter != null && merge.estimatedMergeBytes >= smallMergeSizeInBytes;
+    }
+
     public Type getType() {
         return type;
     }
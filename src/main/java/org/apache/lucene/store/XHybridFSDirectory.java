@@ -0,0 +1,75 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.lucene.store;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A file system directory that memory maps the files with the provided extensions, and reads the
+ * others using NIO. Writes (and their rate limiting) are the same as {@link XNIOFSDirectory}.
+ */
+public class XHybridFSDirectory extends XNIOFSDirectory {
+
+    private final ImmutableSet<String> mmapExtensions;
+
+    private final MMapDirectory mmapDirectory;
+
+    public XHybridFSDirectory(File path, LockFactory lockFactory, StoreRateLimiting.Provider rateLimitingProvider, StoreRateLimiting.Listener rateListener,
+                              Set<String> mmapExtensions) throws IOException {
+        super(path, lockFactory, rateLimitingProvider, rateListener);
+        this.mmapExtensions = ImmutableSet.copyOf(mmapExtensions);
+        // only used to open inputs, locking is done by this directory
+        this.mmapDirectory = new MMapDirectory(path, NoLockFactory.getNoLockFactory());
+    }
+
+    public ImmutableSet<String> mmapExtensions() {
+        return this.mmapExtensions;
+    }
+
+    @Override
+    public IndexInput openInput(String name, int bufferSize) throws IOException {
+        if (mmapExtensions.contains(extension(name))) {
+            ensureOpen();
+            return mmapDirectory.openInput(name, bufferSize);
+        }
+        return super.openInput(name, bufferSize);
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            mmapDirectory.close();
+        }
+    }
+
+    private static String extension(String name) {
+        int i = name.lastIndexOf('.');
+        if (i == -1) {
+            return "";
+        }
+        return name.substring(i + 1);
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.lucene.store;
 
+import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.TrackingMergeScheduler;
 import org.elasticsearch.common.RateLimiter;
 
@@ -47,7 +48,12 @@ public class XSimpleFSDirectory extends SimpleFSDirectory {
         if (type == StoreRateLimiting.Type.NONE || limiter == null) {
             return super.createOutput(name);
         }
-        if (TrackingMergeScheduler.getCurrentMerge() != null) {
+        MergePolicy.OneMerge merge = TrackingMergeScheduler.getCurrentMerge();
+        if (merge != null) {
+            if (!rateLimiting.isThrottled(merge)) {
+                // small merges are not throttled, so they don't pile up behind large ones
+                return super.createOutput(name);
+            }
             // we are mering, and type is either MERGE or ALL, rate limit...
             ensureOpen();
             ensureCanWrite(name);
@@ -0,0 +1,192 @@
+package org.apache.lucene.store.bytebuffer;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A byte buffer allocator that carves the small and large buffers out of larger slabs, recycling
+ * released buffers of each size class for later allocations (across all the directories sharing it).
+ * <p/>
+ * <p>The total size of the slabs allocated is bounded by a budget. Once reached, allocations that
+ * can't be served from released buffers fail with an {@link IOException} instead of running the
+ * process out of (direct) memory. Slabs are never given back until the allocator is closed, so the
+ * reserved size is the high water mark of the memory used.
+ */
+public class SlabByteBufferAllocator implements ByteBufferAllocator {
+
+    private final boolean direct;
+
+    private final long maxSizeInBytes;
+
+    private final SizeClass small;
+
+    private final SizeClass large;
+
+    private final AtomicLong reservedInBytes = new AtomicLong();
+
+    private final AtomicLong usedInBytes = new AtomicLong();
+
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+    /**
+     * @param direct                 If set to true, will allocate direct buffers (off heap).
+     * @param smallBufferSizeInBytes The size (in bytes) of the small buffer allocation.
+     * @param largeBufferSizeInBytes The size (in bytes) of the large buffer allocation.
+     * @param slabSizeInBytes        The size (in bytes) of each slab buffers are carved from.
+     * @param maxSizeInBytes         The maximum size (in bytes) of all the slabs allocated.
+     */
+    public SlabByteBufferAllocator(boolean direct, int smallBufferSizeInBytes, int largeBufferSizeInBytes,
+                                   int slabSizeInBytes, long maxSizeInBytes) {
+        this.direct = direct;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.small = new SizeClass(smallBufferSizeInBytes, slabSizeInBytes);
+        // same sized buffers share a single size class, so released buffers are reused by both types
+        this.large = largeBufferSizeInBytes == smallBufferSizeInBytes ? small : new SizeClass(largeBufferSizeInBytes, slabSizeInBytes);
+    }
+
+    /**
+     * The maximum size (in bytes) of all the slabs allocated.
+     */
+    public long maxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * The size (in bytes) of the slabs allocated so far.
+     */
+    public long reservedSizeInBytes() {
+        return reservedInBytes.get();
+    }
+
+    /**
+     * The size (in bytes) of the buffers currently handed out.
+     */
+    public long usedSizeInBytes() {
+        return usedInBytes.get();
+    }
+
+    @Override
+    public int sizeInBytes(Type type) {
+        return type == Type.SMALL ? small.bufferSizeInBytes : large.bufferSizeInBytes;
+    }
+
+    @Override
+    public ByteBuffer allocate(Type type) throws IOException {
+        SizeClass sizeClass = type == Type.SMALL ? small : large;
+        ByteBuffer buffer = sizeClass.free.poll();
+        if (buffer == null) {
+            buffer = sizeClass.carve();
+        }
+        usedInBytes.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        SizeClass sizeClass;
+        if (buffer.capacity() == small.bufferSizeInBytes) {
+            sizeClass = small;
+        } else if (buffer.capacity() == large.bufferSizeInBytes) {
+            sizeClass = large;
+        } else {
+            // not our allocation...
+            return;
+        }
+        usedInBytes.addAndGet(-buffer.capacity());
+        buffer.clear();
+        sizeClass.free.offer(buffer);
+    }
+
+    @Override
+    public void close() {
+        small.close();
+        large.close();
+        synchronized (slabs) {
+            // only clean the slabs if no buffer carved from them is still referenced
+            if (usedInBytes.get() == 0) {
+                for (ByteBuffer slab : slabs) {
+                    Cleaner.clean(slab);
+                }
+            }
+            slabs.clear();
+        }
+        reservedInBytes.set(0);
+    }
+
+    private ByteBuffer allocateSlab(int sizeInBytes) throws IOException {
+        long reserved = reservedInBytes.addAndGet(sizeInBytes);
+        if (maxSizeInBytes >= 0 && reserved > maxSizeInBytes) {
+            reservedInBytes.addAndGet(-sizeInBytes);
+            throw new IOException("failed to allocate [" + sizeInBytes + "] bytes, reached the max size of [" + maxSizeInBytes + "] bytes");
+        }
+        ByteBuffer slab;
+        try {
+            slab = direct ? ByteBuffer.allocateDirect(sizeInBytes) : ByteBuffer.allocate(sizeInBytes);
+        } catch (OutOfMemoryError e) {
+            reservedInBytes.addAndGet(-sizeInBytes);
+            throw new IOException("failed to allocate [" + sizeInBytes + "] bytes slab: " + e.getMessage());
+        }
+        synchronized (slabs) {
+            slabs.add(slab);
+        }
+        return slab;
+    }
+
+    private class SizeClass {
+
+        final int bufferSizeInBytes;
+
+        final int buffersPerSlab;
+
+        final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<ByteBuffer>();
+
+        private ByteBuffer currentSlab;
+
+        private int nextBuffer;
+
+        SizeClass(int bufferSizeInBytes, int slabSizeInBytes) {
+            this.bufferSizeInBytes = bufferSizeInBytes;
+            this.buffersPerSlab = Math.max(1, slabSizeInBytes / bufferSizeInBytes);
+        }
+
+        synchronized ByteBuffer carve() throws IOException {
+            if (currentSlab == null || nextBuffer == buffersPerSlab) {
+                currentSlab = allocateSlab(bufferSizeInBytes * buffersPerSlab);
+                nextBuffer = 0;
+            }
+            ByteBuffer slice = currentSlab.duplicate();
+            slice.position(nextBuffer * bufferSizeInBytes);
+            slice.limit((nextBuffer + 1) * bufferSizeInBytes);
+            nextBuffer++;
+            return slice.slice();
+        }
+
+        synchronized void close() {
+            free.clear();
+            currentSlab = null;
+            nextBuffer = 0;
+        }
+    }
+}
@@ -45,6 +45,7 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
     private boolean refresh = false;
     private boolean flush = false;
     private boolean warmer = false;
+    private boolean queryCache = false;
     private String[] types = null;
     private String[] groups = null;
 
@@ -61,6 +62,7 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         refresh = true;
         flush = true;
         warmer = true;
+        queryCache = true;
         types = null;
         groups = null;
         return this;
@@ -79,6 +81,7 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         refresh = false;
         flush = false;
         warmer = false;
+        queryCache = false;
         types = null;
         groups = null;
         return this;
@@ -195,6 +198,15 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         return this.warmer;
     }
 
+    public IndicesStatsRequest queryCache(boolean queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    public boolean queryCache() {
+        return this.queryCache;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -207,6 +219,7 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         out.writeBoolean(flush);
         out.writeBoolean(refresh);
         out.writeBoolean(warmer);
+        out.writeBoolean(queryCache);
         if (types == null) {
             out.writeVInt(0);
         } else {
@@ -237,6 +250,7 @@ public class IndicesStatsRequest extends BroadcastOperationRequest<IndicesStatsR
         flush = in.readBoolean();
         refresh = in.readBoolean();
         warmer = in.readBoolean();
+        queryCache = in.readBoolean();
         int size = in.readVInt();
         if (size > 0) {
             types = new String[size];
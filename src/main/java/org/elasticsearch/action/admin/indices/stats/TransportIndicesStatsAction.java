@@ -39,6 +39,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.service.InternalIndexService;
 import org.elasticsearch.index.shard.service.InternalIndexShard;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
@@ -54,11 +55,14 @@ public class TransportIndicesStatsAction extends TransportBroadcastOperationActi
 
     private final IndicesService indicesService;
 
+    private final IndicesQueryCache indicesQueryCache;
+
     @Inject
     public TransportIndicesStatsAction(Settings settings, ThreadPool threadPool, ClusterService clusterService, TransportService transportService,
-                                       IndicesService indicesService) {
+                                       IndicesService indicesService, IndicesQueryCache indicesQueryCache) {
         super(settings, threadPool, clusterService, transportService);
         this.indicesService = indicesService;
+        this.indicesQueryCache = indicesQueryCache;
     }
 
     @Override
@@ -172,6 +176,9 @@ public class TransportIndicesStatsAction extends TransportBroadcastOperationActi
         if (request.request.warmer()) {
             stats.stats.warmer = indexShard.warmerStats();
         }
+        if (request.request.queryCache()) {
+            stats.stats.queryCache = indicesQueryCache.stats(indexShard.shardId());
+        }
 
         return stats;
     }
@@ -72,13 +72,16 @@ public class GatewaySnapshotStatus {
 
     final long indexSize;
 
+    final long snapshottedIndexSize;
+
     final int expectedNumberOfOperations;
 
-    public GatewaySnapshotStatus(Stage stage, long startTime, long time, long indexSize, int expectedNumberOfOperations) {
+    public GatewaySnapshotStatus(Stage stage, long startTime, long time, long indexSize, long snapshottedIndexSize, int expectedNumberOfOperations) {
         this.stage = stage;
         this.startTime = startTime;
         this.time = time;
         this.indexSize = indexSize;
+        this.snapshottedIndexSize = snapshottedIndexSize;
         this.expectedNumberOfOperations = expectedNumberOfOperations;
     }
 
@@ -114,6 +117,17 @@ public class GatewaySnapshotStatus {
         return indexSize();
     }
 
+    /**
+     * The size of the index files uploaded so far by the snapshot.
+     */
+    public ByteSizeValue snapshottedIndexSize() {
+        return new ByteSizeValue(snapshottedIndexSize);
+    }
+
+    public ByteSizeValue getSnapshottedIndexSize() {
+        return snapshottedIndexSize();
+    }
+
     public int expectedNumberOfOperations() {
         return expectedNumberOfOperations;
     }
@@ -283,6 +283,8 @@ public class IndicesStatusResponse extends BroadcastOperationResponse implements
                         builder.startObject(Fields.INDEX);
                         builder.field(Fields.SIZE, gatewaySnapshotStatus.indexSize());
                         builder.field(Fields.SIZE_IN_BYTES, gatewaySnapshotStatus.indexSize().bytes());
+                        builder.field(Fields.SNAPSHOTTED_SIZE, gatewaySnapshotStatus.snapshottedIndexSize());
+                        builder.field(Fields.SNAPSHOTTED_SIZE_IN_BYTES, gatewaySnapshotStatus.snapshottedIndexSize().bytes());
                         builder.endObject();
 
                         builder.startObject(Fields.TRANSLOG);
@@ -337,6 +339,8 @@ public class IndicesStatusResponse extends BroadcastOperationResponse implements
         static final XContentBuilderString EXPECTED_RECOVERED_SIZE_IN_BYTES = new XContentBuilderString("expected_recovered_size_in_bytes");
         static final XContentBuilderString RECOVERED_SIZE = new XContentBuilderString("recovered_size");
         static final XContentBuilderString RECOVERED_SIZE_IN_BYTES = new XContentBuilderString("recovered_size_in_bytes");
+        static final XContentBuilderString SNAPSHOTTED_SIZE = new XContentBuilderString("snapshotted_size");
+        static final XContentBuilderString SNAPSHOTTED_SIZE_IN_BYTES = new XContentBuilderString("snapshotted_size_in_bytes");
         static final XContentBuilderString RECOVERED = new XContentBuilderString("recovered");
         static final XContentBuilderString GATEWAY_RECOVERY = new XContentBuilderString("gateway_recovery");
         static final XContentBuilderString GATEWAY_SNAPSHOT = new XContentBuilderString("gateway_snapshot");
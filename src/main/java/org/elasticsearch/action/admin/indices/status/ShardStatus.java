@@ -298,6 +298,7 @@ public class ShardStatus extends BroadcastShardOperationResponse {
             out.writeVLong(gatewaySnapshotStatus.startTime);
             out.writeVLong(gatewaySnapshotStatus.time);
             out.writeVLong(gatewaySnapshotStatus.indexSize);
+            out.writeVLong(gatewaySnapshotStatus.snapshottedIndexSize);
             out.writeVInt(gatewaySnapshotStatus.expectedNumberOfOperations());
         }
 
@@ -349,7 +350,7 @@ public class ShardStatus extends BroadcastShardOperationResponse {
 
         if (in.readBoolean()) {
             gatewaySnapshotStatus = new GatewaySnapshotStatus(GatewaySnapshotStatus.Stage.fromValue(in.readByte()),
-                    in.readVLong(), in.readVLong(), in.readVLong(), in.readVInt());
+                    in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong(), in.readVInt());
         }
 
         if (in.readBoolean()) {
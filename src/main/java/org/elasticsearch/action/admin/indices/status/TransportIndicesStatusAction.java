@@ -260,7 +260,7 @@ public class TransportIndicesStatusAction extends TransportBroadcastOperationAct
                         break;
                 }
                 shardStatus.gatewaySnapshotStatus = new GatewaySnapshotStatus(stage, snapshotStatus.startTime(), snapshotStatus.time(),
-                        snapshotStatus.index().totalSize(), snapshotStatus.translog().expectedNumberOfOperations());
+                        snapshotStatus.index().totalSize(), snapshotStatus.index().currentFilesSize(), snapshotStatus.translog().expectedNumberOfOperations());
             }
         }
 
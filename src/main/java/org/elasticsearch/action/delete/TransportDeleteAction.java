@@ -142,6 +142,11 @@ public class TransportDeleteAction extends TransportShardReplicationOperationAct
         return true;
     }
 
+    @Override
+    protected boolean coalesceReplicaRequests() {
+        return true;
+    }
+
     @Override
     protected DeleteRequest newRequestInstance() {
         return new DeleteRequest();
@@ -140,6 +140,11 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
         return true;
     }
 
+    @Override
+    protected boolean coalesceReplicaRequests() {
+        return true;
+    }
+
     @Override
     protected IndexRequest newRequestInstance() {
         return new IndexRequest();
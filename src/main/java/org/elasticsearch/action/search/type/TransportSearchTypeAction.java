@@ -34,6 +34,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.trove.ExtTIntArrayList;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
@@ -149,19 +150,31 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
             if (localOperations > 0) {
                 if (request.operationThreading() == SearchOperationThreading.SINGLE_THREAD) {
                     request.beforeLocalFork();
-                    threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
-                        @Override
-                        public void run() {
-                            for (final ShardIterator shardIt : shardsIts) {
-                                final ShardRouting shard = shardIt.firstOrNull();
-                                if (shard != null) {
-                                    if (shard.currentNodeId().equals(nodes.localNodeId())) {
-                                        performFirstPhase(shardIt);
+                    try {
+                        threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                for (final ShardIterator shardIt : shardsIts) {
+                                    final ShardRouting shard = shardIt.firstOrNull();
+                                    if (shard != null) {
+                                        if (shard.currentNodeId().equals(nodes.localNodeId())) {
+                                            performFirstPhase(shardIt);
+                                        }
                                     }
                                 }
                             }
+                        });
+                    } catch (EsRejectedExecutionException e) {
+                        // the local search executor is at capacity, move on to the other copies of the local shards
+                        for (final ShardIterator shardIt : shardsIts) {
+                            final ShardRouting shard = shardIt.firstOrNull();
+                            if (shard != null) {
+                                if (shard.currentNodeId().equals(nodes.localNodeId())) {
+                                    onFirstPhaseResult(shardIt.nextOrNull(), shardIt, e);
+                                }
+                            }
                         }
-                    });
+                    }
                 } else {
                     boolean localAsync = request.operationThreading() == SearchOperationThreading.THREAD_PER_SHARD;
                     if (localAsync) {
@@ -172,12 +185,17 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
                         if (shard != null) {
                             if (shard.currentNodeId().equals(nodes.localNodeId())) {
                                 if (localAsync) {
-                                    threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            performFirstPhase(shardIt);
-                                        }
-                                    });
+                                    try {
+                                        threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                performFirstPhase(shardIt);
+                                            }
+                                        });
+                                    } catch (EsRejectedExecutionException e) {
+                                        // the local search executor is at capacity, move on to the next copy
+                                        onFirstPhaseResult(shardIt.nextOrNull(), shardIt, e);
+                                    }
                                 } else {
                                     performFirstPhase(shardIt);
                                 }
@@ -0,0 +1,356 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.support.replication;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces the replica requests destined to a replica shard on a node. Only one batch is in flight at a
+ * time per replica shard, operations performed on the primary in the meantime are coalesced into the next
+ * batch, so the operations reach the replica in order, and batches get larger as the load increases without
+ * delaying operations when the load is low.
+ * <p/>
+ * Nodes that don't know the batch action (answering with an {@link ActionNotFoundTransportException}) are
+ * remembered, and their operations are sent one by one using the regular replica action.
+ */
+public class ReplicaRequestCoalescer<R extends TransportRequest> {
+
+    /**
+     * Notified once the operation was executed on the replica.
+     */
+    public static interface Listener {
+
+        /**
+         * Called once the replica executed the operation, with its failure message, if any.
+         */
+        void onResponse(@Nullable String failure);
+
+        /**
+         * Called when the operation (or the batch it is part of) could not be executed on the replica.
+         */
+        void onFailure(TransportException exp);
+    }
+
+    private final TransportService transportService;
+
+    private final String replicaAction;
+
+    private final String batchAction;
+
+    private final TransportRequestOptions options;
+
+    private final int maxOperations;
+
+    private final ConcurrentMap<String, ShardQueue> queues = ConcurrentCollections.newConcurrentMap();
+
+    private final Set<String> nodesWithoutBatchAction = ConcurrentCollections.newConcurrentSet();
+
+    public ReplicaRequestCoalescer(TransportService transportService, String replicaAction, String batchAction,
+                                   TransportRequestOptions options, int maxOperations) {
+        this.transportService = transportService;
+        this.replicaAction = replicaAction;
+        this.batchAction = batchAction;
+        this.options = options;
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Sends the replica request to the replica shard on the provided node.
+     */
+    public void send(DiscoveryNode node, ShardId shardId, R request, Listener listener) {
+        if (nodesWithoutBatchAction.contains(node.id())) {
+            sendSingle(node, new PendingOperation<R>(request, listener));
+            return;
+        }
+        PendingOperation<R> operation = new PendingOperation<R>(request, listener);
+        String key = node.id() + "/" + shardId.index().name() + "/" + shardId.id();
+        while (true) {
+            ShardQueue queue = queues.get(key);
+            if (queue == null) {
+                queue = new ShardQueue(key, node);
+                ShardQueue existing = queues.putIfAbsent(key, queue);
+                if (existing != null) {
+                    queue = existing;
+                }
+            }
+            if (queue.add(operation)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Is the node known to not support the batch action.
+     */
+    public boolean batchUnsupported(String nodeId) {
+        return nodesWithoutBatchAction.contains(nodeId);
+    }
+
+    private void sendSingle(DiscoveryNode node, final PendingOperation<R> operation) {
+        transportService.sendRequest(node, replicaAction, operation.request, options, new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+            @Override
+            public void handleResponse(TransportResponse.Empty response) {
+                operation.listener.onResponse(null);
+            }
+
+            @Override
+            public void handleException(TransportException exp) {
+                operation.listener.onFailure(exp);
+            }
+        });
+    }
+
+    static class PendingOperation<R> {
+
+        final R request;
+
+        final Listener listener;
+
+        PendingOperation(R request, Listener listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * The operations waiting to be sent to a replica shard on a node.
+     */
+    class ShardQueue {
+
+        private final String key;
+
+        private final DiscoveryNode node;
+
+        private final List<PendingOperation<R>> pending = new ArrayList<PendingOperation<R>>();
+
+        private boolean inFlight;
+
+        private boolean closed;
+
+        ShardQueue(String key, DiscoveryNode node) {
+            this.key = key;
+            this.node = node;
+        }
+
+        /**
+         * Adds the operation, returns <tt>false</tt> if this queue went idle and was removed, in which
+         * case the operation should be added to a fresh instance.
+         */
+        boolean add(PendingOperation<R> operation) {
+            List<PendingOperation<R>> batch;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                pending.add(operation);
+                if (inFlight) {
+                    return true;
+                }
+                inFlight = true;
+                batch = drain();
+            }
+            send(batch);
+            return true;
+        }
+
+        private void sendNext() {
+            List<PendingOperation<R>> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    // nothing is waiting, remove ourselves so queues of relocated shards or left nodes don't pile up
+                    inFlight = false;
+                    closed = true;
+                    queues.remove(key, this);
+                    return;
+                }
+                batch = drain();
+            }
+            send(batch);
+        }
+
+        private List<PendingOperation<R>> drain() {
+            int size = Math.min(pending.size(), maxOperations);
+            List<PendingOperation<R>> batch = new ArrayList<PendingOperation<R>>(pending.subList(0, size));
+            pending.subList(0, size).clear();
+            return batch;
+        }
+
+        private void send(final List<PendingOperation<R>> batch) {
+            if (nodesWithoutBatchAction.contains(node.id())) {
+                fallback(batch);
+                return;
+            }
+            List<R> requests = new ArrayList<R>(batch.size());
+            for (PendingOperation<R> operation : batch) {
+                requests.add(operation.request);
+            }
+            transportService.sendRequest(node, batchAction, new BatchRequest<R>(requests), options, new BaseTransportResponseHandler<BatchResponse>() {
+                @Override
+                public BatchResponse newInstance() {
+                    return new BatchResponse();
+                }
+
+                @Override
+                public void handleResponse(BatchResponse response) {
+                    try {
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).listener.onResponse(response.failures[i]);
+                        }
+                    } finally {
+                        sendNext();
+                    }
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    if (exp.unwrapCause() instanceof ActionNotFoundTransportException) {
+                        // the node doesn't know about batches, nothing was executed, send the operations one by one
+                        nodesWithoutBatchAction.add(node.id());
+                        fallback(batch);
+                        return;
+                    }
+                    try {
+                        for (PendingOperation<R> operation : batch) {
+                            operation.listener.onFailure(exp);
+                        }
+                    } finally {
+                        sendNext();
+                    }
+                }
+
+                @Override
+                public String executor() {
+                    return ThreadPool.Names.SAME;
+                }
+            });
+        }
+
+        private void fallback(List<PendingOperation<R>> batch) {
+            for (PendingOperation<R> operation : batch) {
+                sendSingle(node, operation);
+            }
+            // operations added after the node was marked go through send(), drain what this queue still holds
+            sendNext();
+        }
+    }
+
+    /**
+     * Creates the replica request instances a batch is read into.
+     */
+    public static interface RequestFactory<R extends TransportRequest> {
+
+        R newRequest();
+    }
+
+    /**
+     * The replica requests of a batch. The receiving side reads them into the instances created by the
+     * provided {@link RequestFactory}.
+     */
+    public static class BatchRequest<R extends TransportRequest> extends TransportRequest {
+
+        private RequestFactory<R> factory;
+
+        private List<R> requests;
+
+        public BatchRequest(RequestFactory<R> factory) {
+            this.factory = factory;
+        }
+
+        BatchRequest(List<R> requests) {
+            this.requests = requests;
+        }
+
+        public List<R> requests() {
+            return requests;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            int size = in.readVInt();
+            requests = new ArrayList<R>(size);
+            for (int i = 0; i < size; i++) {
+                R request = factory.newRequest();
+                request.readFrom(in);
+                requests.add(request);
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(requests.size());
+            for (R request : requests) {
+                request.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * The result of executing a batch on the replica.
+     */
+    public static class BatchResponse extends TransportResponse {
+
+        // the failure message of each operation, null if it succeeded (or the failure can be ignored)
+        private String[] failures;
+
+        BatchResponse() {
+        }
+
+        public BatchResponse(String[] failures) {
+            this.failures = failures;
+        }
+
+        public String[] failures() {
+            return failures;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            failures = new String[in.readVInt()];
+            for (int i = 0; i < failures.length; i++) {
+                failures[i] = in.readOptionalString();
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(failures.length);
+            for (String failure : failures) {
+                out.writeOptionalString(failure);
+            }
+        }
+    }
+}
@@ -39,6 +39,8 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.engine.DocumentAlreadyExistsException;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -51,6 +53,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -76,9 +79,13 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
 
     final String transportAction;
     final String transportReplicaAction;
+    final String transportReplicaBatchAction;
     final String executor;
     final boolean checkWriteConsistency;
 
+    @Nullable
+    final ReplicaRequestCoalescer<ReplicaOperationRequest> replicaRequestCoalescer;
+
     protected TransportShardReplicationOperationAction(Settings settings, TransportService transportService,
                                                        ClusterService clusterService, IndicesService indicesService,
                                                        ThreadPool threadPool, ShardStateAction shardStateAction) {
@@ -90,14 +97,23 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
 
         this.transportAction = transportAction();
         this.transportReplicaAction = transportReplicaAction();
+        this.transportReplicaBatchAction = transportReplicaAction + "/batch";
         this.executor = executor();
         this.checkWriteConsistency = checkWriteConsistency();
 
         transportService.registerHandler(transportAction, new OperationTransportHandler());
         transportService.registerHandler(transportReplicaAction, new ReplicaOperationTransportHandler());
+        transportService.registerHandler(transportReplicaBatchAction, new BatchedReplicaOperationTransportHandler());
 
         this.transportOptions = transportOptions();
 
+        if (coalesceReplicaRequests() && settings.getAsBoolean("action.replication.coalesce.enabled", true)) {
+            this.replicaRequestCoalescer = new ReplicaRequestCoalescer<ReplicaOperationRequest>(transportService, transportReplicaAction, transportReplicaBatchAction,
+                    transportOptions, settings.getAsInt("action.replication.coalesce.max_operations", 128));
+        } else {
+            this.replicaRequestCoalescer = null;
+        }
+
         this.defaultReplicationType = ReplicationType.fromString(settings.get("action.replication_type", "sync"));
         this.defaultWriteConsistencyLevel = WriteConsistencyLevel.fromString(settings.get("action.write_consistency", "quorum"));
     }
@@ -157,6 +173,14 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
         return false;
     }
 
+    /**
+     * Should replica requests sent to the same replica shard be coalesced into batches while a previous batch
+     * is still in flight. Defaults to <tt>false</tt>, meant for actions with small and frequent replica requests.
+     */
+    protected boolean coalesceReplicaRequests() {
+        return false;
+    }
+
     private String transportReplicaAction() {
         return transportAction() + "/replica";
     }
@@ -249,6 +273,12 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
             return executor;
         }
 
+        @Override
+        public boolean isForceExecution() {
+            // the operation was already performed on the primary, rejecting it would fail the replica
+            return true;
+        }
+
         @Override
         public void messageReceived(final ReplicaOperationRequest request, final TransportChannel channel) throws Exception {
             shardOperationOnReplica(request);
@@ -256,6 +286,47 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
         }
     }
 
+    class BatchedReplicaOperationTransportHandler extends BaseTransportRequestHandler<ReplicaRequestCoalescer.BatchRequest<ReplicaOperationRequest>> {
+
+        @Override
+        public ReplicaRequestCoalescer.BatchRequest<ReplicaOperationRequest> newInstance() {
+            return new ReplicaRequestCoalescer.BatchRequest<ReplicaOperationRequest>(new ReplicaRequestCoalescer.RequestFactory<ReplicaOperationRequest>() {
+                @Override
+                public ReplicaOperationRequest newRequest() {
+                    return new ReplicaOperationRequest();
+                }
+            });
+        }
+
+        @Override
+        public String executor() {
+            return executor;
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            // the operations were already performed on the primary, rejecting the batch would fail the replica
+            return true;
+        }
+
+        @Override
+        public void messageReceived(final ReplicaRequestCoalescer.BatchRequest<ReplicaOperationRequest> request, final TransportChannel channel) throws Exception {
+            // operations are executed in the order they were performed on the primary
+            List<ReplicaOperationRequest> requests = request.requests();
+            String[] failures = new String[requests.size()];
+            for (int i = 0; i < failures.length; i++) {
+                try {
+                    shardOperationOnReplica(requests.get(i));
+                } catch (Exception e) {
+                    if (!ignoreReplicaException(e)) {
+                        failures[i] = detailedMessage(e);
+                    }
+                }
+            }
+            channel.sendResponse(new ReplicaRequestCoalescer.BatchResponse(failures));
+        }
+    }
+
     protected class PrimaryOperationRequest implements Streamable {
 
         public int shardId;
@@ -425,12 +496,17 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                 if (shard.currentNodeId().equals(nodes.localNodeId())) {
                     if (request.operationThreaded()) {
                         request.beforeLocalFork();
-                        threadPool.executor(executor).execute(new Runnable() {
-                            @Override
-                            public void run() {
-                                performOnPrimary(shard.id(), fromClusterEvent, shard, clusterState);
-                            }
-                        });
+                        try {
+                            threadPool.executor(executor).execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    performOnPrimary(shard.id(), fromClusterEvent, shard, clusterState);
+                                }
+                            });
+                        } catch (EsRejectedExecutionException e) {
+                            // the executor is at capacity, push back on the caller
+                            listener.onFailure(e);
+                        }
                     } else {
                         performOnPrimary(shard.id(), fromClusterEvent, shard, clusterState);
                     }
@@ -630,6 +706,34 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
             final ReplicaOperationRequest shardRequest = new ReplicaOperationRequest(shardIt.shardId().id(), response.replicaRequest());
             if (!nodeId.equals(nodes.localNodeId())) {
                 DiscoveryNode node = nodes.get(nodeId);
+                if (replicaRequestCoalescer != null) {
+                    replicaRequestCoalescer.send(node, shardIt.shardId(), shardRequest, new ReplicaRequestCoalescer.Listener() {
+                        @Override
+                        public void onResponse(@Nullable String failure) {
+                            if (failure != null) {
+                                logger.warn("Failed to perform " + transportAction + " on replica " + shardIt.shardId() + ", message [" + failure + "]");
+                                shardStateAction.shardFailed(shard, "Failed to perform [" + transportAction + "] on replica, message [" + failure + "]");
+                            }
+                            finishIfPossible();
+                        }
+
+                        @Override
+                        public void onFailure(TransportException exp) {
+                            if (!ignoreReplicaException(exp.unwrapCause())) {
+                                logger.warn("Failed to perform " + transportAction + " on replica " + shardIt.shardId(), exp);
+                                shardStateAction.shardFailed(shard, "Failed to perform [" + transportAction + "] on replica, message [" + detailedMessage(exp) + "]");
+                            }
+                            finishIfPossible();
+                        }
+
+                        private void finishIfPossible() {
+                            if (counter.decrementAndGet() == 0) {
+                                listener.onResponse(response.response());
+                            }
+                        }
+                    });
+                    return;
+                }
                 transportService.sendRequest(node, transportReplicaAction, shardRequest, transportOptions, new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
                     @Override
                     public void handleResponse(TransportResponse.Empty vResponse) {
@@ -654,7 +758,12 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
             } else {
                 if (request.operationThreaded()) {
                     request.beforeLocalFork();
-                    threadPool.executor(executor).execute(new Runnable() {
+                    threadPool.executor(executor).execute(new AbstractRunnable() {
+                        @Override
+                        public boolean isForceExecution() {
+                            return true;
+                        }
+
                         @Override
                         public void run() {
                             try {
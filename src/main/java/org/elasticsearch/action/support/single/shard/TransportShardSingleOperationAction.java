@@ -31,10 +31,13 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
@@ -53,6 +56,8 @@ public abstract class TransportShardSingleOperationAction<Request extends Single
     final String transportShardAction;
     final String executor;
 
+    private volatile ResponseCollectorService responseCollectorService;
+
     protected TransportShardSingleOperationAction(Settings settings, ThreadPool threadPool, ClusterService clusterService, TransportService transportService) {
         super(settings, threadPool);
         this.clusterService = clusterService;
@@ -66,6 +71,11 @@ public abstract class TransportShardSingleOperationAction<Request extends Single
         transportService.registerHandler(transportShardAction, new ShardTransportHandler());
     }
 
+    @Inject(optional = true)
+    public void setResponseCollectorService(@Nullable ResponseCollectorService responseCollectorService) {
+        this.responseCollectorService = responseCollectorService;
+    }
+
     @Override
     protected void doExecute(Request request, ActionListener<Response> listener) {
         new AsyncSingleAction(request, listener).start();
@@ -149,17 +159,22 @@ public abstract class TransportShardSingleOperationAction<Request extends Single
             if (shardRouting.currentNodeId().equals(nodes.localNodeId())) {
                 if (request.operationThreaded()) {
                     request.beforeLocalFork();
-                    threadPool.executor(executor).execute(new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                Response response = shardOperation(request, shardRouting.id());
-                                listener.onResponse(response);
-                            } catch (Exception e) {
-                                onFailure(shardRouting, e);
+                    try {
+                        threadPool.executor(executor).execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    Response response = shardOperation(request, shardRouting.id());
+                                    listener.onResponse(response);
+                                } catch (Exception e) {
+                                    onFailure(shardRouting, e);
+                                }
                             }
-                        }
-                    });
+                        });
+                    } catch (EsRejectedExecutionException e) {
+                        // the local executor is at capacity, try the next copy
+                        onFailure(shardRouting, e);
+                    }
                 } else {
                     try {
                         final Response response = shardOperation(request, shardRouting.id());
@@ -169,7 +184,12 @@ public abstract class TransportShardSingleOperationAction<Request extends Single
                     }
                 }
             } else {
-                DiscoveryNode node = nodes.get(shardRouting.currentNodeId());
+                final DiscoveryNode node = nodes.get(shardRouting.currentNodeId());
+                final ResponseCollectorService collector = responseCollectorService;
+                final long startTime = System.nanoTime();
+                if (collector != null) {
+                    collector.onRequest(node.id());
+                }
                 transportService.sendRequest(node, transportShardAction, new ShardSingleOperationRequest(request, shardRouting.id()), new BaseTransportResponseHandler<Response>() {
 
                     @Override
@@ -184,11 +204,17 @@ public abstract class TransportShardSingleOperationAction<Request extends Single
 
                     @Override
                     public void handleResponse(final Response response) {
+                        if (collector != null) {
+                            collector.onResponse(node.id(), System.nanoTime() - startTime, response);
+                        }
                         listener.onResponse(response);
                     }
 
                     @Override
                     public void handleException(TransportException exp) {
+                        if (collector != null) {
+                            collector.onFailure(node.id());
+                        }
                         onFailure(shardRouting, exp);
                     }
                 });
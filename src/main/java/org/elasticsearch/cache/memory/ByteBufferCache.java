@@ -22,6 +22,7 @@ package org.elasticsearch.cache.memory;
 import org.apache.lucene.store.bytebuffer.ByteBufferAllocator;
 import org.apache.lucene.store.bytebuffer.CachingByteBufferAllocator;
 import org.apache.lucene.store.bytebuffer.PlainByteBufferAllocator;
+import org.apache.lucene.store.bytebuffer.SlabByteBufferAllocator;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.ImmutableSettings;
@@ -45,6 +46,9 @@ public class ByteBufferCache extends AbstractComponent implements ByteBufferAllo
     private final ByteSizeValue smallCacheSize;
     private final ByteSizeValue largeCacheSize;
 
+    private final ByteSizeValue slabSize;
+    private final ByteSizeValue maxSize;
+
     private final ByteBufferAllocator allocator;
 
     public ByteBufferCache() {
@@ -70,16 +74,21 @@ public class ByteBufferCache extends AbstractComponent implements ByteBufferAllo
         this.largeBufferSize = componentSettings.getAsBytesSize("large_buffer_size", new ByteSizeValue(1, ByteSizeUnit.MB));
         this.smallCacheSize = componentSettings.getAsBytesSize("small_cache_size", new ByteSizeValue(10, ByteSizeUnit.MB));
         this.largeCacheSize = componentSettings.getAsBytesSize("large_cache_size", new ByteSizeValue(500, ByteSizeUnit.MB));
+        this.slabSize = componentSettings.getAsBytesSize("slab_size", new ByteSizeValue(32, ByteSizeUnit.MB));
+        // when set, buffers are carved out of slabs, bounded by the max size across all the shards on the node
+        this.maxSize = componentSettings.getAsBytesSize("max_size", new ByteSizeValue(-1));
 
-        if (smallCacheSize.bytes() == 0 || largeCacheSize.bytes() == 0) {
+        if (maxSize.bytes() > 0) {
+            this.allocator = new SlabByteBufferAllocator(direct, (int) smallBufferSize.bytes(), (int) largeBufferSize.bytes(), (int) slabSize.bytes(), maxSize.bytes());
+        } else if (smallCacheSize.bytes() == 0 || largeCacheSize.bytes() == 0) {
             this.allocator = new PlainByteBufferAllocator(direct, (int) smallBufferSize.bytes(), (int) largeBufferSize.bytes());
         } else {
             this.allocator = new CachingByteBufferAllocator(direct, (int) smallBufferSize.bytes(), (int) largeBufferSize.bytes(), (int) smallCacheSize.bytes(), (int) largeCacheSize.bytes());
         }
 
         if (logger.isDebugEnabled()) {
-            logger.debug("using bytebuffer cache with small_buffer_size [{}], large_buffer_size [{}], small_cache_size [{}], large_cache_size [{}], direct [{}]",
-                    smallBufferSize, largeBufferSize, smallCacheSize, largeCacheSize, direct);
+            logger.debug("using bytebuffer cache with small_buffer_size [{}], large_buffer_size [{}], small_cache_size [{}], large_cache_size [{}], slab_size [{}], max_size [{}], direct [{}]",
+                    smallBufferSize, largeBufferSize, smallCacheSize, largeCacheSize, slabSize, maxSize, direct);
         }
     }
 
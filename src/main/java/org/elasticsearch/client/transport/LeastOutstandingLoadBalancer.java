@@ -0,0 +1,85 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.client.transport;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends requests to the node with the lowest expected wait, that is its number of in flight requests
+ * (plus the one being sent) weighted by its average response time. Nodes with the same score are used
+ * in turn.
+ */
+public class LeastOutstandingLoadBalancer implements TransportClientLoadBalancer {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public int select(ImmutableList<DiscoveryNode> nodes, Map<String, TransportClientNodeStats> stats) {
+        int size = nodes.size();
+        int round = counter.getAndIncrement() & Integer.MAX_VALUE;
+        if (size == 1) {
+            return 0;
+        }
+
+        // nodes we don't have a response time for yet are assumed to be average
+        double latencySum = 0;
+        int latencyCount = 0;
+        for (int i = 0; i < size; i++) {
+            TransportClientNodeStats nodeStats = stats.get(nodes.get(i).id());
+            if (nodeStats != null && nodeStats.latencyInNanos() >= 0) {
+                latencySum += nodeStats.latencyInNanos();
+                latencyCount++;
+            }
+        }
+        double defaultLatency = latencyCount == 0 ? 1 : Math.max(1, latencySum / latencyCount);
+
+        double[] scores = new double[size];
+        double bestScore = Double.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < size; i++) {
+            TransportClientNodeStats nodeStats = stats.get(nodes.get(i).id());
+            if (nodeStats == null) {
+                scores[i] = defaultLatency;
+            } else {
+                double latency = nodeStats.latencyInNanos() < 0 ? defaultLatency : Math.max(1, nodeStats.latencyInNanos());
+                scores[i] = (nodeStats.inFlight() + 1) * latency;
+            }
+            if (scores[i] < bestScore) {
+                bestScore = scores[i];
+                ties = 1;
+            } else if (scores[i] == bestScore) {
+                ties++;
+            }
+        }
+
+        // use the nodes with the best score in turn
+        int tie = round % ties;
+        for (int i = 0; i < size; i++) {
+            if (scores[i] == bestScore && tie-- == 0) {
+                return i;
+            }
+        }
+        return round % size;
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.client.transport;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.action.*;
 import org.elasticsearch.action.bulk.BulkRequest;
@@ -205,6 +206,13 @@ public class TransportClient extends AbstractClient {
         return nodesService.listedNodes();
     }
 
+    /**
+     * Returns the requests stats (in flight requests, response time) of the connected nodes, by node id.
+     */
+    public ImmutableMap<String, TransportClientNodeStats> nodesRequestStats() {
+        return nodesService.nodesRequestStats();
+    }
+
     /**
      * Adds a transport address that will be used to connect to.
      * <p/>
@@ -0,0 +1,41 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.client.transport;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import java.util.Map;
+
+/**
+ * Selects the node a transport client request is sent to. Set using <tt>client.transport.load_balancer</tt>,
+ * either <tt>round_robin</tt>, <tt>least_outstanding</tt> (the default) or a class name.
+ */
+public interface TransportClientLoadBalancer {
+
+    /**
+     * Returns the index of the node the request should be sent to. If the node can't be connected to, the
+     * request is retried on the following nodes in the list.
+     *
+     * @param nodes The connected nodes, never empty
+     * @param stats The request stats of the nodes, by node id (missing for nodes no request was sent to yet)
+     */
+    int select(ImmutableList<DiscoveryNode> nodes, Map<String, TransportClientNodeStats> stats);
+}
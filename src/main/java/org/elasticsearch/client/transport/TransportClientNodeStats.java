@@ -0,0 +1,119 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.client.transport;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests statistics the transport client keeps for each node it is connected to.
+ */
+public class TransportClientNodeStats {
+
+    private static final double ALPHA = 0.3;
+
+    private final String nodeId;
+
+    private final CounterMetric inFlight = new CounterMetric();
+    private final CounterMetric total = new CounterMetric();
+    private final CounterMetric failures = new CounterMetric();
+
+    private volatile double latency = -1;
+
+    public TransportClientNodeStats(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    void onRequest() {
+        inFlight.inc();
+        total.inc();
+    }
+
+    void onResponse(long tookInNanos) {
+        inFlight.dec();
+        synchronized (this) {
+            latency = latency < 0 ? tookInNanos : ALPHA * tookInNanos + (1 - ALPHA) * latency;
+        }
+    }
+
+    void onFailure() {
+        inFlight.dec();
+        failures.inc();
+    }
+
+    public String nodeId() {
+        return this.nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId();
+    }
+
+    /**
+     * The number of requests sent to the node that did not complete yet.
+     */
+    public long inFlight() {
+        return inFlight.count();
+    }
+
+    public long getInFlight() {
+        return inFlight();
+    }
+
+    /**
+     * The total number of requests sent to the node.
+     */
+    public long total() {
+        return total.count();
+    }
+
+    public long getTotal() {
+        return total();
+    }
+
+    /**
+     * The number of requests sent to the node that failed.
+     */
+    public long failures() {
+        return failures.count();
+    }
+
+    public long getFailures() {
+        return failures();
+    }
+
+    /**
+     * The exponentially weighted moving average of the node response time in nanoseconds, <tt>-1</tt>
+     * if no response was received yet.
+     */
+    public double latencyInNanos() {
+        return latency;
+    }
+
+    public TimeValue latency() {
+        return latency < 0 ? null : new TimeValue((long) latency, TimeUnit.NANOSECONDS);
+    }
+
+    public TimeValue getLatency() {
+        return latency();
+    }
+}
@@ -20,9 +20,11 @@
 package org.elasticsearch.client.transport;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.cluster.node.info.NodesInfoAction;
@@ -42,8 +44,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.unit.TimeValue.timeValueSeconds;
@@ -76,7 +80,9 @@ public class TransportClientNodesService extends AbstractComponent {
 
     private volatile ScheduledFuture nodesSamplerFuture;
 
-    private final AtomicInteger randomNodeGenerator = new AtomicInteger();
+    private final TransportClientLoadBalancer loadBalancer;
+
+    private final ConcurrentMap<String, TransportClientNodeStats> nodeStats = ConcurrentCollections.newConcurrentMap();
 
     private final boolean ignoreClusterName;
 
@@ -98,6 +104,19 @@ public class TransportClientNodesService extends AbstractComponent {
             logger.debug("node_sampler_interval[" + nodesSamplerInterval + "]");
         }
 
+        String loadBalancerType = componentSettings.get("load_balancer", "least_outstanding");
+        if ("least_outstanding".equals(loadBalancerType)) {
+            this.loadBalancer = new LeastOutstandingLoadBalancer();
+        } else if ("round_robin".equals(loadBalancerType)) {
+            this.loadBalancer = new RoundRobinLoadBalancer();
+        } else {
+            try {
+                this.loadBalancer = componentSettings.getAsClass("load_balancer", TransportClientLoadBalancer.class).newInstance();
+            } catch (Exception e) {
+                throw new ElasticSearchIllegalArgumentException("failed to create load balancer [" + loadBalancerType + "]", e);
+            }
+        }
+
         if (componentSettings.getAsBoolean("sniff", false)) {
             this.nodesSampler = new SniffNodesSampler();
         } else {
@@ -125,6 +144,20 @@ public class TransportClientNodesService extends AbstractComponent {
         return this.listedNodes;
     }
 
+    /**
+     * The requests stats of the connected nodes, by node id.
+     */
+    public ImmutableMap<String, TransportClientNodeStats> nodesRequestStats() {
+        ImmutableMap.Builder<String, TransportClientNodeStats> builder = ImmutableMap.builder();
+        for (DiscoveryNode node : nodes) {
+            TransportClientNodeStats stats = nodeStats.get(node.id());
+            if (stats != null) {
+                builder.put(node.id(), stats);
+            }
+        }
+        return builder.build();
+    }
+
     public TransportClientNodesService addTransportAddresses(TransportAddress... transportAddresses) {
         synchronized (transportMutex) {
             List<TransportAddress> filtered = Lists.newArrayListWithExpectedSize(transportAddresses.length);
@@ -178,11 +211,7 @@ public class TransportClientNodesService extends AbstractComponent {
         if (nodes.isEmpty()) {
             throw new NoNodeAvailableException();
         }
-        int index = randomNodeGenerator.incrementAndGet();
-        if (index < 0) {
-            index = 0;
-            randomNodeGenerator.set(0);
-        }
+        int index = loadBalancer.select(nodes, nodeStats);
         for (int i = 0; i < nodes.size(); i++) {
             DiscoveryNode node = nodes.get((index + i) % nodes.size());
             try {
@@ -201,36 +230,96 @@ public class TransportClientNodesService extends AbstractComponent {
         if (nodes.isEmpty()) {
             throw new NoNodeAvailableException();
         }
-        int index = randomNodeGenerator.incrementAndGet();
-        if (index < 0) {
-            index = 0;
-            randomNodeGenerator.set(0);
+        int index = loadBalancer.select(nodes, nodeStats);
+        new RetryListener<Response>(callback, listener, nodes, index, nodeStats).execute();
+    }
+
+    private void pruneNodeStats(ImmutableList<DiscoveryNode> nodes) {
+        Set<String> nodeIds = Sets.newHashSet();
+        for (DiscoveryNode node : nodes) {
+            nodeIds.add(node.id());
         }
-        RetryListener<Response> retryListener = new RetryListener<Response>(callback, listener, nodes, index);
-        try {
-            callback.doWithNode(nodes.get((index) % nodes.size()), retryListener);
-        } catch (ElasticSearchException e) {
-            if (e.unwrapCause() instanceof ConnectTransportException) {
-                retryListener.onFailure(e);
-            } else {
-                throw e;
+        nodeStats.keySet().retainAll(nodeIds);
+    }
+
+    /**
+     * Keeps track of the in flight requests and the response time of a node. The request is accounted for
+     * as completed only once, even if it both fails to be sent and gets notified.
+     */
+    public static class TrackingListener<Response> implements ActionListener<Response> {
+        private final TransportClientNodeStats stats;
+        private final ActionListener<Response> listener;
+        private final long startTime;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        public TrackingListener(TransportClientNodeStats stats, ActionListener<Response> listener) {
+            this.stats = stats;
+            this.listener = listener;
+            this.startTime = System.nanoTime();
+            stats.onRequest();
+        }
+
+        @Override
+        public void onResponse(Response response) {
+            if (completed.compareAndSet(false, true)) {
+                stats.onResponse(System.nanoTime() - startTime);
+            }
+            listener.onResponse(response);
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            failed();
+            listener.onFailure(e);
+        }
+
+        /**
+         * Accounts for the request as failed, without notifying the listener.
+         */
+        void failed() {
+            if (completed.compareAndSet(false, true)) {
+                stats.onFailure();
             }
         }
     }
 
+    /**
+     * Sends a request to the selected node, and retries it on the following nodes in the list when they can't
+     * be connected to. Each attempt is tracked in the stats of the node it is sent to.
+     */
     public static class RetryListener<Response> implements ActionListener<Response> {
         private final NodeListenerCallback<Response> callback;
         private final ActionListener<Response> listener;
         private final ImmutableList<DiscoveryNode> nodes;
         private final int index;
+        private final ConcurrentMap<String, TransportClientNodeStats> nodeStats;
 
         private volatile int i;
 
-        public RetryListener(NodeListenerCallback<Response> callback, ActionListener<Response> listener, ImmutableList<DiscoveryNode> nodes, int index) {
+        public RetryListener(NodeListenerCallback<Response> callback, ActionListener<Response> listener, ImmutableList<DiscoveryNode> nodes, int index,
+                             ConcurrentMap<String, TransportClientNodeStats> nodeStats) {
             this.callback = callback;
             this.listener = listener;
             this.nodes = nodes;
             this.index = index;
+            this.nodeStats = nodeStats;
+        }
+
+        /**
+         * Sends the request to the selected node. Failures other than connect ones are thrown.
+         */
+        public void execute() throws ElasticSearchException {
+            TrackingListener<Response> trackingListener = track(nodes.get(index % nodes.size()));
+            try {
+                callback.doWithNode(nodes.get(index % nodes.size()), trackingListener);
+            } catch (ElasticSearchException e) {
+                if (e.unwrapCause() instanceof ConnectTransportException) {
+                    trackingListener.onFailure(e);
+                } else {
+                    trackingListener.failed();
+                    throw e;
+                }
+            }
         }
 
         @Override
@@ -245,9 +334,12 @@ public class TransportClientNodesService extends AbstractComponent {
                 if (i == nodes.size()) {
                     listener.onFailure(new NoNodeAvailableException());
                 } else {
+                    DiscoveryNode node = nodes.get((index + i) % nodes.size());
+                    TrackingListener<Response> trackingListener = track(node);
                     try {
-                        callback.doWithNode(nodes.get((index + i) % nodes.size()), this);
+                        callback.doWithNode(node, trackingListener);
                     } catch (Exception e1) {
+                        trackingListener.failed();
                         // retry the next one...
                         onFailure(e);
                     }
@@ -256,6 +348,18 @@ public class TransportClientNodesService extends AbstractComponent {
                 listener.onFailure(e);
             }
         }
+
+        private TrackingListener<Response> track(DiscoveryNode node) {
+            TransportClientNodeStats stats = nodeStats.get(node.id());
+            if (stats == null) {
+                stats = new TransportClientNodeStats(node.id());
+                TransportClientNodeStats existing = nodeStats.putIfAbsent(node.id(), stats);
+                if (existing != null) {
+                    stats = existing;
+                }
+            }
+            return new TrackingListener<Response>(stats, this);
+        }
     }
 
     public void close() {
@@ -326,6 +430,7 @@ public class TransportClientNodesService extends AbstractComponent {
                 }
             }
             nodes = new ImmutableList.Builder<DiscoveryNode>().addAll(newNodes).build();
+            pruneNodeStats(nodes);
         }
     }
 
@@ -439,6 +544,7 @@ public class TransportClientNodesService extends AbstractComponent {
                 }
             }
             nodes = new ImmutableList.Builder<DiscoveryNode>().addAll(newNodes).build();
+            pruneNodeStats(nodes);
         }
     }
 
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.UnmodifiableIterator;
 import jsr166y.ThreadLocalRandom;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -206,6 +207,38 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
         return new PlainShardIterator(shardId, activeShards);
     }
 
+    /**
+     * Returns an iterator over the active shards, ordered by the rank of the node they are allocated on.
+     * Shards on nodes with the same rank are rotated like with {@link #activeShardsRandomIt()}.
+     */
+    public ShardIterator activeShardsRankedIt(ResponseCollectorService collector) {
+        int size = activeShards.size();
+        if (size <= 1) {
+            return activeShardsRandomIt();
+        }
+        int index = Math.abs(counter.getAndIncrement());
+        ShardRouting[] ordered = new ShardRouting[size];
+        double[] ranks = new double[size];
+        for (int i = 0; i < size; i++) {
+            ordered[i] = activeShards.get((index + i) % size);
+            ranks[i] = collector.rank(ordered[i].currentNodeId());
+        }
+        // stable insertion sort, there are only a few copies of a shard
+        for (int i = 1; i < size; i++) {
+            ShardRouting shard = ordered[i];
+            double rank = ranks[i];
+            int j = i - 1;
+            while (j >= 0 && ranks[j] > rank) {
+                ordered[j + 1] = ordered[j];
+                ranks[j + 1] = ranks[j];
+                j--;
+            }
+            ordered[j + 1] = shard;
+            ranks[j + 1] = rank;
+        }
+        return new PlainShardIterator(shardId, Arrays.asList(ordered));
+    }
+
     public ShardIterator activeShardsIt(int index) {
         return new PlainShardIterator(shardId, activeShards, index);
     }
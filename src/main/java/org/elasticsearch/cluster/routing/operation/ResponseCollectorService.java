@@ -0,0 +1,176 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.operation;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportConnectionListener;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentMap;
+
+/**
+ * Collects, on the coordinating node, the response time, the number of outstanding requests and the
+ * queue size reported by each node executing shard level search and get requests. Nodes are ranked
+ * based on those (lower is better) so the fastest and least loaded copy of a shard can be picked.
+ */
+public class ResponseCollectorService extends AbstractComponent implements TransportConnectionListener {
+
+    /**
+     * The response header used by the executing node to report the size of its thread pool queue.
+     */
+    public static final String QUEUE_SIZE_HEADER = "_queue_size";
+
+    private final double alpha;
+
+    private final ConcurrentMap<String, NodeStatistics> nodes = newConcurrentMap();
+
+    @Inject
+    public ResponseCollectorService(Settings settings) {
+        super(settings);
+        this.alpha = componentSettings.getAsDouble("ewma_alpha", 0.3d);
+    }
+
+    @Inject(optional = true)
+    public void setTransportService(@Nullable TransportService transportService) {
+        if (transportService != null) {
+            transportService.addConnectionListener(this);
+        }
+    }
+
+    /**
+     * Marks a request as sent to the given node.
+     */
+    public void onRequest(String nodeId) {
+        nodeStatistics(nodeId).onRequest();
+    }
+
+    /**
+     * Records a successful response from the given node, reading the queue size it reported from the
+     * response headers.
+     */
+    public void onResponse(String nodeId, long tookInNanos, TransportResponse response) {
+        Integer queueSize = response.getHeader(QUEUE_SIZE_HEADER);
+        nodeStatistics(nodeId).onResponse(tookInNanos, queueSize == null ? -1 : queueSize, alpha);
+    }
+
+    /**
+     * Records a failed request to the given node.
+     */
+    public void onFailure(String nodeId) {
+        nodeStatistics(nodeId).onFailure();
+    }
+
+    /**
+     * The rank of the node, lower is better. Nodes we know nothing about rank first so they get a chance
+     * to be used.
+     */
+    public double rank(String nodeId) {
+        NodeStatistics statistics = nodes.get(nodeId);
+        if (statistics == null) {
+            return 0;
+        }
+        return statistics.rank();
+    }
+
+    @Override
+    public void onNodeConnected(DiscoveryNode node) {
+    }
+
+    @Override
+    public void onNodeDisconnected(DiscoveryNode node) {
+        nodes.remove(node.id());
+    }
+
+    /**
+     * Reports the queue size of the given thread pool in the response headers, to be used by the
+     * coordinating node when ranking nodes.
+     */
+    public static <T extends TransportResponse> T putQueueSize(T response, ThreadPool threadPool, String executorName) {
+        Executor executor = threadPool.executor(executorName);
+        if (executor instanceof ThreadPoolExecutor) {
+            response.putHeader(QUEUE_SIZE_HEADER, ((ThreadPoolExecutor) executor).getQueue().size());
+        }
+        return response;
+    }
+
+    private NodeStatistics nodeStatistics(String nodeId) {
+        NodeStatistics statistics = nodes.get(nodeId);
+        if (statistics == null) {
+            statistics = new NodeStatistics();
+            NodeStatistics existing = nodes.putIfAbsent(nodeId, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    static class NodeStatistics {
+
+        private int outstanding;
+        private double responseTime = -1;
+        private double queueSize;
+
+        synchronized void onRequest() {
+            outstanding++;
+        }
+
+        synchronized void onResponse(long tookInNanos, int reportedQueueSize, double alpha) {
+            if (outstanding > 0) {
+                outstanding--;
+            }
+            if (responseTime < 0) {
+                responseTime = tookInNanos;
+            } else {
+                responseTime = alpha * tookInNanos + (1 - alpha) * responseTime;
+            }
+            if (reportedQueueSize >= 0) {
+                queueSize = alpha * reportedQueueSize + (1 - alpha) * queueSize;
+            }
+        }
+
+        synchronized void onFailure() {
+            if (outstanding > 0) {
+                outstanding--;
+            }
+        }
+
+        synchronized double rank() {
+            if (responseTime < 0) {
+                // no response yet, try it once, but don't pile up requests on it until it answers
+                return outstanding == 0 ? 0 : Double.MAX_VALUE;
+            }
+            // the response time is penalized by the (cubic) estimated queue on the node, so a node
+            // that is slow because it is busy is avoided quicker than a node that is simply slower
+            double estimatedQueue = 1 + outstanding + queueSize;
+            return responseTime * estimatedQueue * estimatedQueue * estimatedQueue;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
 import org.elasticsearch.cluster.routing.operation.OperationRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.hash.HashFunction;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.common.Nullable;
@@ -57,12 +58,18 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
 
     private final AwarenessAllocationDecider awarenessAllocationDecider;
 
+    private final ResponseCollectorService responseCollectorService;
+
+    private final boolean adaptiveReplicaSelection;
+
     @Inject
-    public PlainOperationRouting(Settings indexSettings, HashFunction hashFunction, AwarenessAllocationDecider awarenessAllocationDecider) {
+    public PlainOperationRouting(Settings indexSettings, HashFunction hashFunction, AwarenessAllocationDecider awarenessAllocationDecider, ResponseCollectorService responseCollectorService) {
         super(indexSettings);
         this.hashFunction = hashFunction;
         this.useType = indexSettings.getAsBoolean("cluster.routing.operation.use_type", false);
         this.awarenessAllocationDecider = awarenessAllocationDecider;
+        this.responseCollectorService = responseCollectorService;
+        this.adaptiveReplicaSelection = indexSettings.getAsBoolean("cluster.routing.operation.adaptive_replica_selection", true);
     }
 
     @Override
@@ -192,6 +199,9 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
         if (preference == null) {
             String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
             if (awarenessAttributes.length == 0) {
+                if (adaptiveReplicaSelection) {
+                    return indexShard.activeShardsRankedIt(responseCollectorService);
+                }
                 return indexShard.activeShardsRandomIt();
             } else {
                 return indexShard.preferAttributesActiveShardsIt(awarenessAttributes, nodes);
@@ -222,6 +232,9 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
                 if (index == -1 || index == preference.length() - 1) {
                     String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
                     if (awarenessAttributes.length == 0) {
+                        if (adaptiveReplicaSelection) {
+                            return indexShard.activeShardsRankedIt(responseCollectorService);
+                        }
                         return indexShard.activeShardsRandomIt();
                     } else {
                         return indexShard.preferAttributesActiveShardsIt(awarenessAttributes, nodes);
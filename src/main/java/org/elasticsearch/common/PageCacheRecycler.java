@@ -0,0 +1,151 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A node wide recycler of fixed size byte pages. Pages are first looked up in a small per thread stack,
+ * and then in a bounded shared queue. Pages are strongly referenced so the pool does not vanish under
+ * GC pressure, the retention is instead bounded based on the heap size.
+ */
+public class PageCacheRecycler {
+
+    public static final int PAGE_SIZE = 16 * 1024;
+
+    public static int THREAD_LOCAL_LIMIT = 16; // number of pages cached per thread
+    public static int SHARED_LIMIT; // number of pages cached in the shared pool
+
+    static {
+        // guess the maximum number of pooled pages based on the heap size
+        long maxHeap = JvmInfo.jvmInfo().mem().heapMax().bytes();
+        long maxPooled;
+        if (maxHeap < ByteSizeValue.parseBytesSizeValue("500mb").bytes()) {
+            maxPooled = ByteSizeValue.parseBytesSizeValue("1mb").bytes();
+        } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("1gb").bytes()) {
+            maxPooled = ByteSizeValue.parseBytesSizeValue("4mb").bytes();
+        } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("4gb").bytes()) {
+            maxPooled = ByteSizeValue.parseBytesSizeValue("10mb").bytes();
+        } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("10gb").bytes()) {
+            maxPooled = ByteSizeValue.parseBytesSizeValue("25mb").bytes();
+        } else {
+            maxPooled = ByteSizeValue.parseBytesSizeValue("50mb").bytes();
+        }
+        SHARED_LIMIT = (int) (maxPooled / PAGE_SIZE);
+    }
+
+    static class LocalPages {
+        final byte[][] pages = new byte[THREAD_LOCAL_LIMIT][];
+        int size;
+    }
+
+    private static final ThreadLocal<LocalPages> localPages = new ThreadLocal<LocalPages>() {
+        @Override
+        protected LocalPages initialValue() {
+            return new LocalPages();
+        }
+    };
+
+    private static final Queue<byte[]> sharedPages = ConcurrentCollections.newQueue();
+    private static final AtomicInteger sharedCount = new AtomicInteger();
+
+    private static final CounterMetric hits = new CounterMetric();
+    private static final CounterMetric misses = new CounterMetric();
+
+    /**
+     * Returns a page of {@link #PAGE_SIZE} bytes, its content is undefined.
+     */
+    public static byte[] popPage() {
+        LocalPages local = localPages.get();
+        if (local.size > 0) {
+            byte[] page = local.pages[--local.size];
+            local.pages[local.size] = null;
+            hits.inc();
+            return page;
+        }
+        byte[] page = sharedPages.poll();
+        if (page != null) {
+            sharedCount.decrementAndGet();
+            hits.inc();
+            return page;
+        }
+        misses.inc();
+        return new byte[PAGE_SIZE];
+    }
+
+    /**
+     * Returns a page to the pool, the page must not be used by the caller anymore.
+     */
+    public static void pushPage(byte[] page) {
+        if (page.length != PAGE_SIZE) {
+            return;
+        }
+        LocalPages local = localPages.get();
+        if (local.size < local.pages.length) {
+            local.pages[local.size++] = page;
+            return;
+        }
+        if (sharedCount.incrementAndGet() > SHARED_LIMIT) {
+            sharedCount.decrementAndGet();
+        } else {
+            sharedPages.add(page);
+        }
+    }
+
+    /**
+     * Clears the shared pool and the pages cached by the calling thread.
+     */
+    public static void clear() {
+        LocalPages local = localPages.get();
+        Arrays.fill(local.pages, null);
+        local.size = 0;
+        while (sharedPages.poll() != null) {
+            sharedCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * The number of page requests that were served from the pool.
+     */
+    public static long hits() {
+        return hits.count();
+    }
+
+    /**
+     * The number of page requests that required allocating a new page.
+     */
+    public static long misses() {
+        return misses.count();
+    }
+
+    /**
+     * The number of pages currently held by the shared pool.
+     */
+    public static long pooled() {
+        return sharedCount.get();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import com.google.common.base.Charsets;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.transport.netty.ChannelBufferStreamInputFactory;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A bytes reference over a list of fixed size pages, avoiding the need to have the content in a single
+ * contiguous array. {@link #array()} is supported, but requires to copy the pages into a single array.
+ */
+public class PagedBytesReference implements BytesReference {
+
+    private final byte[][] pages;
+    private final int pageSize;
+    private final int offset;
+    private final int length;
+
+    private BytesArray materialized;
+
+    public PagedBytesReference(byte[][] pages, int pageSize, int offset, int length) {
+        this.pages = pages;
+        this.pageSize = pageSize;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public byte get(int index) {
+        int position = offset + index;
+        return pages[position / pageSize][position % pageSize];
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from < 0 || (from + length) > this.length) {
+            throw new ElasticSearchIllegalArgumentException("can't slice a buffer with length [" + this.length + "], with slice parameters from [" + from + "], length [" + length + "]");
+        }
+        int start = offset + from;
+        int pageOffset = start % pageSize;
+        if (pageOffset + length <= pageSize) {
+            return new BytesArray(pages[start / pageSize], pageOffset, length);
+        }
+        return new PagedBytesReference(pages, pageSize, start, length);
+    }
+
+    @Override
+    public StreamInput streamInput() {
+        return ChannelBufferStreamInputFactory.create(toChannelBuffer());
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        int position = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            int pageOffset = position % pageSize;
+            int toWrite = Math.min(remaining, pageSize - pageOffset);
+            os.write(pages[position / pageSize], pageOffset, toWrite);
+            position += toWrite;
+            remaining -= toWrite;
+        }
+    }
+
+    @Override
+    public byte[] toBytes() {
+        return toBytesArray().toBytes();
+    }
+
+    @Override
+    public BytesArray toBytesArray() {
+        if (materialized == null) {
+            materialized = copyBytesArray();
+        }
+        return materialized;
+    }
+
+    @Override
+    public BytesArray copyBytesArray() {
+        byte[] copy = new byte[length];
+        int position = offset;
+        int copied = 0;
+        while (copied < length) {
+            int pageOffset = position % pageSize;
+            int toCopy = Math.min(length - copied, pageSize - pageOffset);
+            System.arraycopy(pages[position / pageSize], pageOffset, copy, copied, toCopy);
+            position += toCopy;
+            copied += toCopy;
+        }
+        return new BytesArray(copy);
+    }
+
+    @Override
+    public ChannelBuffer toChannelBuffer() {
+        if (length == 0) {
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+        int firstPage = offset / pageSize;
+        int lastPage = (offset + length - 1) / pageSize;
+        ChannelBuffer[] buffers = new ChannelBuffer[lastPage - firstPage + 1];
+        int position = offset;
+        int remaining = length;
+        for (int i = 0; i < buffers.length; i++) {
+            int pageOffset = position % pageSize;
+            int toWrap = Math.min(remaining, pageSize - pageOffset);
+            buffers[i] = ChannelBuffers.wrappedBuffer(pages[position / pageSize], pageOffset, toWrap);
+            position += toWrap;
+            remaining -= toWrap;
+        }
+        return ChannelBuffers.wrappedBuffer(buffers);
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        return toBytesArray().array();
+    }
+
+    @Override
+    public int arrayOffset() {
+        return toBytesArray().arrayOffset();
+    }
+
+    @Override
+    public String toUtf8() {
+        if (length == 0) {
+            return "";
+        }
+        return toBytesArray().toUtf8();
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.io;
 
+import org.elasticsearch.common.PageCacheRecycler;
 import org.elasticsearch.common.io.stream.CachedStreamInput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
 
@@ -27,5 +28,6 @@ public class CachedStreams {
     public static void clear() {
         CachedStreamInput.clear();
         CachedStreamOutput.clear();
+        PageCacheRecycler.clear();
     }
 }
\ No newline at end of file
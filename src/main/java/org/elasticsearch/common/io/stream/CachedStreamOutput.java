@@ -36,16 +36,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CachedStreamOutput {
 
     private static Entry newEntry() {
-        BytesStreamOutput bytes = new BytesStreamOutput();
+        PagedBytesStreamOutput bytes = new PagedBytesStreamOutput();
         HandlesStreamOutput handles = new HandlesStreamOutput(bytes);
         return new Entry(bytes, handles);
     }
 
     public static class Entry {
-        private final BytesStreamOutput bytes;
+        private final PagedBytesStreamOutput bytes;
         private final HandlesStreamOutput handles;
 
-        Entry(BytesStreamOutput bytes, HandlesStreamOutput handles) {
+        Entry(PagedBytesStreamOutput bytes, HandlesStreamOutput handles) {
             this.bytes = bytes;
             this.handles = handles;
         }
@@ -56,6 +56,15 @@ public class CachedStreamOutput {
             handles.clear();
         }
 
+        /**
+         * Resets the entry and returns all the pages held by it to the page recycler.
+         */
+        public void release() {
+            bytes.release();
+            handles.setOut(bytes);
+            handles.clear();
+        }
+
         public BytesStreamOutput bytes() {
             return bytes;
         }
@@ -76,61 +85,35 @@ public class CachedStreamOutput {
         }
     }
 
-    static class SoftWrapper<T> {
-        private SoftReference<T> ref;
-
-        public SoftWrapper() {
-        }
-
-        public void set(T ref) {
-            this.ref = new SoftReference<T>(ref);
-        }
-
-        public T get() {
-            return ref == null ? null : ref.get();
-        }
-
-        public void clear() {
-            ref = null;
-        }
-    }
-
-    private static final SoftWrapper<Queue<Entry>> cache = new SoftWrapper<Queue<Entry>>();
+    private static final Queue<Entry> cache = ConcurrentCollections.newQueue();
     private static final AtomicInteger counter = new AtomicInteger();
-    public static int BYTES_LIMIT = 1 * 1024 * 1024; // don't cache entries that are bigger than that...
     public static int COUNT_LIMIT = 100; // number of concurrent entries cached
 
     static {
-        // guess the maximum size per entry and the maximum number of entries based on the heap size
+        // guess the maximum number of entries based on the heap size, each cached entry only
+        // retains its first page, larger buffers are returned to the page recycler
         long maxHeap = JvmInfo.jvmInfo().mem().heapMax().bytes();
         if (maxHeap < ByteSizeValue.parseBytesSizeValue("500mb").bytes()) {
-            BYTES_LIMIT = (int) ByteSizeValue.parseBytesSizeValue("500kb").bytes();
             COUNT_LIMIT = 10;
         } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("1gb").bytes()) {
-            BYTES_LIMIT = (int) ByteSizeValue.parseBytesSizeValue("1mb").bytes();
             COUNT_LIMIT = 20;
-        } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("4gb").bytes()) {
-            BYTES_LIMIT = (int) ByteSizeValue.parseBytesSizeValue("2mb").bytes();
-            COUNT_LIMIT = 50;
         } else if (maxHeap < ByteSizeValue.parseBytesSizeValue("10gb").bytes()) {
-            BYTES_LIMIT = (int) ByteSizeValue.parseBytesSizeValue("5mb").bytes();
             COUNT_LIMIT = 50;
         } else {
-            BYTES_LIMIT = (int) ByteSizeValue.parseBytesSizeValue("10mb").bytes();
             COUNT_LIMIT = 100;
         }
     }
 
     public static void clear() {
-        cache.clear();
+        Entry entry;
+        while ((entry = cache.poll()) != null) {
+            counter.decrementAndGet();
+            entry.release();
+        }
     }
 
     public static Entry popEntry() {
-        Queue<Entry> ref = cache.get();
-        if (ref == null) {
-            return newEntry();
-        }
-        Entry entry = ref.poll();
+        Entry entry = cache.poll();
         if (entry == null) {
             return newEntry();
         }
@@ -140,20 +123,12 @@ public class CachedStreamOutput {
     }
 
     public static void pushEntry(Entry entry) {
-        entry.reset();
-        if (entry.bytes().bytes().length() > BYTES_LIMIT) {
-            return;
-        }
-        Queue<Entry> ref = cache.get();
-        if (ref == null) {
-            ref = ConcurrentCollections.newQueue();
-            counter.set(0);
-            cache.set(ref);
-        }
         if (counter.incrementAndGet() > COUNT_LIMIT) {
             counter.decrementAndGet();
+            entry.release();
         } else {
-            ref.add(entry);
+            entry.reset();
+            cache.add(entry);
         }
     }
 
@@ -0,0 +1,132 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.io.stream;
+
+import org.elasticsearch.common.PageCacheRecycler;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.PagedBytesReference;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link BytesStreamOutput} that writes into fixed size pages obtained from the {@link PageCacheRecycler},
+ * so growing the stream never copies the already written bytes. {@link #reset()} keeps the first page around
+ * for reuse, while {@link #release()} returns all pages to the recycler.
+ */
+public class PagedBytesStreamOutput extends BytesStreamOutput {
+
+    private static final int PAGE_SIZE = PageCacheRecycler.PAGE_SIZE;
+
+    private byte[][] pages = new byte[4][];
+    private int pageCount;
+
+    public PagedBytesStreamOutput() {
+        super(0);
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException();
+        }
+        seek((int) position);
+    }
+
+    @Override
+    public void seek(int seekTo) {
+        ensureCapacity(seekTo);
+        count = seekTo;
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+        ensureCapacity(count + 1);
+        pages[count / PAGE_SIZE][count % PAGE_SIZE] = b;
+        count++;
+    }
+
+    @Override
+    public void skip(int length) {
+        ensureCapacity(count + length);
+        count += length;
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        ensureCapacity(count + length);
+        while (length > 0) {
+            int pageOffset = count % PAGE_SIZE;
+            int toCopy = Math.min(length, PAGE_SIZE - pageOffset);
+            System.arraycopy(b, offset, pages[count / PAGE_SIZE], pageOffset, toCopy);
+            count += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    /**
+     * Resets the stream, returning all pages but the first one to the recycler.
+     */
+    @Override
+    public void reset() {
+        count = 0;
+        releasePages(1);
+    }
+
+    /**
+     * Resets the stream and returns all its pages to the recycler.
+     */
+    public void release() {
+        count = 0;
+        releasePages(0);
+    }
+
+    @Override
+    public BytesReference bytes() {
+        if (count == 0) {
+            return BytesArray.EMPTY;
+        }
+        if (count <= PAGE_SIZE) {
+            return new BytesArray(pages[0], 0, count);
+        }
+        return new PagedBytesReference(Arrays.copyOf(pages, pageCount), PAGE_SIZE, 0, count);
+    }
+
+    private void ensureCapacity(int capacity) {
+        while (pageCount * PAGE_SIZE < capacity) {
+            if (pageCount == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length << 1);
+            }
+            pages[pageCount++] = PageCacheRecycler.popPage();
+        }
+    }
+
+    private void releasePages(int keep) {
+        while (pageCount > keep) {
+            PageCacheRecycler.pushPage(pages[--pageCount]);
+            pages[pageCount] = null;
+        }
+    }
+}
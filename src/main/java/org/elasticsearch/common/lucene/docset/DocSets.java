@@ -22,11 +22,14 @@ package org.elasticsearch.common.lucene.docset;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.OpenBitSet;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.RamUsage;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  */
@@ -144,7 +147,37 @@ public class DocSets {
             return new OpenBitDocSet((OpenBitSet) set);
         }
 
-        // work with the iterator...
+        // work with the iterator, keeping sparse sets as sorted doc ids, an int per doc costs
+        // as much as 32 bits of a bit set
+        int sparseThreshold = reader.maxDoc() >>> 5;
+        if (sparseThreshold > 0) {
+            int[] docs = new int[Math.min(sparseThreshold, 16)];
+            int size = 0;
+            docs[size++] = doc;
+            while ((doc = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                if (size == docs.length) {
+                    if (size == sparseThreshold) {
+                        break;
+                    }
+                    docs = Arrays.copyOf(docs, Math.min(sparseThreshold, ArrayUtil.oversize(size + 1, RamUsage.NUM_BYTES_INT)));
+                }
+                docs[size++] = doc;
+            }
+            if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+                return new SortedIntDocSet(size == docs.length ? docs : Arrays.copyOf(docs, size), reader.maxDoc());
+            }
+            // too dense, move what we have so far to a bit set
+            FixedBitSet fixedBitSet = new FixedBitSet(reader.maxDoc());
+            for (int i = 0; i < size; i++) {
+                fixedBitSet.set(docs[i]);
+            }
+            fixedBitSet.set(doc);
+            while ((doc = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                fixedBitSet.set(doc);
+            }
+            return new FixedBitDocSet(fixedBitSet);
+        }
+
         FixedBitSet fixedBitSet = new FixedBitSet(reader.maxDoc());
         fixedBitSet.set(doc);
         while ((doc = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
@@ -0,0 +1,130 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.docset;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.elasticsearch.common.RamUsage;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A doc set backed by a sorted array of doc ids. Takes less memory than a bit set
+ * when less than one doc out of 32 in the segment matches.
+ */
+public class SortedIntDocSet extends DocSet {
+
+    private final int[] docs;
+
+    private final int maxDoc;
+
+    /**
+     * @param docs   The sorted doc ids, the array is used as is and its length is the number of docs
+     * @param maxDoc The max doc of the segment the doc ids belong to
+     */
+    public SortedIntDocSet(int[] docs, int maxDoc) {
+        this.docs = docs;
+        this.maxDoc = maxDoc;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return maxDoc;
+    }
+
+    public int[] docs() {
+        return docs;
+    }
+
+    @Override
+    public boolean get(int doc) {
+        return Arrays.binarySearch(docs, doc) >= 0;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() throws IOException {
+        return new SortedIntIterator(docs);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return docs.length * RamUsage.NUM_BYTES_INT + RamUsage.NUM_BYTES_ARRAY_HEADER + RamUsage.NUM_BYTES_INT /* maxDoc */;
+    }
+
+    static class SortedIntIterator extends DocIdSetIterator {
+
+        private final int[] docs;
+
+        private int index = -1;
+
+        private int doc = -1;
+
+        SortedIntIterator(int[] docs) {
+            this.docs = docs;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            if (++index >= docs.length) {
+                return doc = NO_MORE_DOCS;
+            }
+            return doc = docs[index];
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            // gallop from the current position, then binary search the last step
+            int low = index + 1;
+            int step = 1;
+            int high = low;
+            while (high < docs.length && docs[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high >= docs.length) {
+                high = docs.length - 1;
+            }
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            index = low;
+            if (index >= docs.length) {
+                return doc = NO_MORE_DOCS;
+            }
+            return doc = docs[index];
+        }
+    }
+}
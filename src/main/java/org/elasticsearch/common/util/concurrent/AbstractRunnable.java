@@ -0,0 +1,34 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+/**
+ * A runnable that can ask to be executed even when the executor it is submitted to is at capacity, for
+ * work that must not be rejected, like replica operations, or the handling of responses.
+ */
+public abstract class AbstractRunnable implements Runnable {
+
+    /**
+     * Should the runnable be queued even if the executor queue is full. Defaults to <tt>false</tt>.
+     */
+    public boolean isForceExecution() {
+        return false;
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.common.util.concurrent;
 
 import org.elasticsearch.common.metrics.CounterMetric;
 
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
@@ -31,8 +32,15 @@ public class EsAbortPolicy implements XRejectedExecutionHandler {
 
     @Override
     public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        if (r instanceof AbstractRunnable && ((AbstractRunnable) r).isForceExecution() && !executor.isShutdown()) {
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            if (queue instanceof SizeBlockingQueue) {
+                ((SizeBlockingQueue<Runnable>) queue).forcePut(r);
+                return;
+            }
+        }
         rejected.inc();
-        throw new EsRejectedExecutionException("rejected execution of [" + r.getClass().getName() + "]");
+        throw new EsRejectedExecutionException("rejected execution of [" + r + "]");
     }
 
     @Override
@@ -19,13 +19,36 @@
 
 package org.elasticsearch.common.util.concurrent;
 
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * An extension to thread pool executor, allowing (in the future) to add specific additional stats to it.
+ * An extension to thread pool executor, keeping track of the time tasks spend in the queue and executing.
+ * <p/>
+ * When set with a target queue time (see {@link #targetQueueTime(long, int, int, int, int)}), and backed by
+ * a {@link SizeBlockingQueue}, the capacity of the queue is periodically adjusted so that, given the rate at
+ * which tasks are executed, a task at the tail of a full queue waits about the target time (Little's law).
  */
 public class EsThreadPoolExecutor extends ThreadPoolExecutor {
 
+    // queue time in microseconds
+    private final HistogramMetric queueTime = new HistogramMetric();
+
+    private final MeanMetric executionTime = new MeanMetric();
+
+    private volatile long targetQueueTimeNanos = -1;
+    private volatile int minQueueSize;
+    private volatile int maxQueueSize;
+    private volatile int resizeFrequency;
+    private volatile int resizeStep;
+
+    private final AtomicInteger tasksSinceResize = new AtomicInteger();
+    private final AtomicLong executionNanosSinceResize = new AtomicLong();
+
     public EsThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, new EsAbortPolicy());
     }
@@ -33,4 +56,120 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
     public EsThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
     }
+
+    /**
+     * Adjusts the queue capacity (between <tt>minQueueSize</tt> and <tt>maxQueueSize</tt>, by at most
+     * <tt>resizeStep</tt> each time) every <tt>resizeFrequency</tt> executed tasks, so a queued task waits
+     * about <tt>targetQueueTimeNanos</tt>. Only applies when the queue is a {@link SizeBlockingQueue}.
+     */
+    public void targetQueueTime(long targetQueueTimeNanos, int minQueueSize, int maxQueueSize, int resizeFrequency, int resizeStep) {
+        this.minQueueSize = minQueueSize;
+        this.maxQueueSize = maxQueueSize;
+        this.resizeFrequency = resizeFrequency;
+        this.resizeStep = resizeStep;
+        this.targetQueueTimeNanos = targetQueueTimeNanos;
+    }
+
+    /**
+     * The histogram of time, in microseconds, tasks waited in the queue before being executed.
+     */
+    public HistogramMetric queueTime() {
+        return queueTime;
+    }
+
+    /**
+     * The time, in nanoseconds, tasks took to execute.
+     */
+    public MeanMetric executionTime() {
+        return executionTime;
+    }
+
+    /**
+     * The capacity of the queue, <tt>-1</tt> if it can't be determined.
+     */
+    public int queueCapacity() {
+        BlockingQueue<Runnable> queue = getQueue();
+        if (queue instanceof SizeBlockingQueue) {
+            return ((SizeBlockingQueue<Runnable>) queue).capacity();
+        }
+        return -1;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedRunnable(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        if (r instanceof TimedRunnable) {
+            TimedRunnable timed = (TimedRunnable) r;
+            timed.startTime = System.nanoTime();
+            queueTime.inc(TimeUnit.NANOSECONDS.toMicros(timed.startTime - timed.creationTime));
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        if (r instanceof TimedRunnable) {
+            long took = System.nanoTime() - ((TimedRunnable) r).startTime;
+            executionTime.inc(took);
+            if (targetQueueTimeNanos > 0) {
+                executionNanosSinceResize.addAndGet(took);
+                if (tasksSinceResize.incrementAndGet() >= resizeFrequency) {
+                    resizeQueue();
+                }
+            }
+        }
+    }
+
+    private void resizeQueue() {
+        int tasks = tasksSinceResize.getAndSet(0);
+        long executionNanos = executionNanosSinceResize.getAndSet(0);
+        BlockingQueue<Runnable> queue = getQueue();
+        if (tasks <= 0 || executionNanos <= 0 || !(queue instanceof SizeBlockingQueue)) {
+            return;
+        }
+        SizeBlockingQueue<Runnable> sizeQueue = (SizeBlockingQueue<Runnable>) queue;
+        // tasks are consumed at poolSize / avg execution time, so that is how many can be queued to be started within the target
+        double averageExecutionNanos = ((double) executionNanos) / tasks;
+        long desired = (long) (targetQueueTimeNanos * getMaximumPoolSize() / averageExecutionNanos);
+        int current = sizeQueue.capacity();
+        long capacity = Math.max(current - resizeStep, Math.min(current + resizeStep, desired));
+        capacity = Math.max(minQueueSize, Math.min(maxQueueSize, capacity));
+        if (capacity != current) {
+            sizeQueue.capacity((int) capacity);
+        }
+    }
+
+    static class TimedRunnable extends AbstractRunnable {
+
+        final Runnable runnable;
+
+        final long creationTime;
+
+        long startTime;
+
+        TimedRunnable(Runnable runnable) {
+            this.runnable = runnable;
+            this.creationTime = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return runnable instanceof AbstractRunnable && ((AbstractRunnable) runnable).isForceExecution();
+        }
+
+        @Override
+        public String toString() {
+            return runnable.toString();
+        }
+    }
 }
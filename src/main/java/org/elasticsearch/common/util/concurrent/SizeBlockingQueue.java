@@ -0,0 +1,275 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A blocking queue with a capacity that can be changed while in use, and that can be forced to accept
+ * elements above its capacity (see {@link #forcePut(Object)}). Backed by an unbounded blocking queue.
+ * <p/>
+ * Blocking insertions ({@link #put(Object)}, {@link #offer(Object, long, TimeUnit)}) wait on a condition
+ * that removals only signal when someone is actually waiting, so the non blocking paths used by the
+ * executors stay lock free.
+ */
+public class SizeBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final BlockingQueue<E> queue;
+
+    private volatile int capacity;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public SizeBlockingQueue(BlockingQueue<E> queue, int capacity) {
+        assert capacity >= 0;
+        this.queue = queue;
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Changes the capacity, elements already queued above the new capacity are kept.
+     */
+    public void capacity(int capacity) {
+        this.capacity = capacity;
+        signalNotFull();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> it = queue.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return it.next();
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                released(1);
+            }
+        };
+    }
+
+    @Override
+    public E peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public E poll() {
+        E e = queue.poll();
+        if (e != null) {
+            released(1);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = queue.poll(timeout, unit);
+        if (e != null) {
+            released(1);
+        }
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = queue.take();
+        released(1);
+        return e;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        boolean removed = queue.remove(o);
+        if (removed) {
+            released(1);
+        }
+        return removed;
+    }
+
+    /**
+     * Adds the element, regardless of the capacity of the queue.
+     */
+    public void forcePut(E e) {
+        size.incrementAndGet();
+        if (!queue.offer(e)) {
+            size.decrementAndGet();
+            throw new EsRejectedExecutionException("failed to force put into the queue");
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (!reserve()) {
+            return false;
+        }
+        if (!queue.offer(e)) {
+            released(1);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        waiting.incrementAndGet();
+        try {
+            lock.lockInterruptibly();
+            try {
+                while (!reserve()) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!queue.offer(e)) {
+            released(1);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        waiting.incrementAndGet();
+        try {
+            lock.lockInterruptibly();
+            try {
+                while (!reserve()) {
+                    notFull.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        boolean added = false;
+        try {
+            queue.put(e);
+            added = true;
+        } finally {
+            if (!added) {
+                released(1);
+            }
+        }
+    }
+
+    /**
+     * Takes a slot for a new element, <tt>false</tt> if the queue is at capacity.
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void released(int count) {
+        if (count > 0) {
+            size.addAndGet(-count);
+            signalNotFull();
+        }
+    }
+
+    private void signalNotFull() {
+        // waiters register before checking the capacity under the lock, so they can't miss this signal
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size.get());
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        int drained = queue.drainTo(c);
+        released(drained);
+        return drained;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int drained = queue.drainTo(c, maxElements);
+        released(drained);
+        return drained;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return queue.contains(o);
+    }
+}
@@ -165,6 +165,11 @@ public class LocalAllocateDangledIndices extends AbstractComponent {
         public String executor() {
             return ThreadPool.Names.SAME;
         }
+
+        @Override
+        public boolean isForceExecution() {
+            return false;
+        }
     }
 
     static class AllocateDangledRequest extends TransportRequest {
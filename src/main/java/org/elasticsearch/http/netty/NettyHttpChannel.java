@@ -19,13 +19,18 @@
 
 package org.elasticsearch.http.netty;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpException;
+import org.elasticsearch.http.netty.pipelining.OrderedDownstreamChannelEvent;
+import org.elasticsearch.http.netty.pipelining.OrderedUpstreamMessageEvent;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingXContentRestResponse;
 import org.elasticsearch.rest.XContentRestResponse;
+import org.elasticsearch.rest.action.support.RestXContentBuilder;
 import org.elasticsearch.rest.support.RestUtils;
 import org.elasticsearch.transport.netty.NettyTransport;
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -45,50 +50,41 @@ public class NettyHttpChannel implements HttpChannel {
     private final NettyHttpServerTransport transport;
     private final Channel channel;
     private final org.jboss.netty.handler.codec.http.HttpRequest request;
+    @Nullable
+    private final OrderedUpstreamMessageEvent orderedUpstreamMessageEvent;
+    private int subsequence;
 
-    public NettyHttpChannel(NettyHttpServerTransport transport, Channel channel, org.jboss.netty.handler.codec.http.HttpRequest request) {
+    public NettyHttpChannel(NettyHttpServerTransport transport, Channel channel, org.jboss.netty.handler.codec.http.HttpRequest request,
+                            @Nullable OrderedUpstreamMessageEvent orderedUpstreamMessageEvent) {
         this.transport = transport;
         this.channel = channel;
         this.request = request;
+        this.orderedUpstreamMessageEvent = orderedUpstreamMessageEvent;
     }
 
     @Override
     public void sendResponse(RestResponse response) {
-
-        // Decide whether to close the connection or not.
         boolean http10 = request.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
-        boolean close =
-                HttpHeaders.Values.CLOSE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)) ||
-                        (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)));
 
-        // Build the response object.
-        HttpResponseStatus status = getStatus(response.status());
-        org.jboss.netty.handler.codec.http.HttpResponse resp;
-        if (http10) {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
-            if (!close) {
-                resp.addHeader(HttpHeaders.Names.CONNECTION, "Keep-Alive");
+        if (response instanceof StreamingXContentRestResponse) {
+            StreamingXContentRestResponse streamingResponse = (StreamingXContentRestResponse) response;
+            // chunked transfer encoding is only supported from HTTP 1.1
+            if (!http10 && streamingResponse.canStream()) {
+                sendStreamingResponse(streamingResponse);
+                return;
             }
-        } else {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
-        }
-        if (RestUtils.isBrowser(request.getHeader(HttpHeaders.Names.USER_AGENT))) {
-            if (transport.settings().getAsBoolean("http.cors.enabled", true)) {
-                // Add support for cross-origin Ajax requests (CORS)
-                resp.addHeader("Access-Control-Allow-Origin", transport.settings().get("http.cors.allow-origin", "*"));
-                if (request.getMethod() == HttpMethod.OPTIONS) {
-                    // Allow Ajax requests based on the CORS "preflight" request
-                    resp.addHeader("Access-Control-Max-Age", transport.settings().getAsInt("http.cors.max-age", 1728000));
-                    resp.addHeader("Access-Control-Allow-Methods", transport.settings().get("http.cors.allow-methods", "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
-                    resp.addHeader("Access-Control-Allow-Headers", transport.settings().get("http.cors.allow-headers", "X-Requested-With, Content-Type, Content-Length"));
-                }
+            try {
+                response = streamingResponse.buffered();
+            } catch (IOException e) {
+                throw new HttpException("Failed to convert response to bytes", e);
             }
         }
 
-        String opaque = request.getHeader("X-Opaque-Id");
-        if (opaque != null) {
-            resp.addHeader("X-Opaque-Id", opaque);
-        }
+        // Decide whether to close the connection or not.
+        boolean close = shouldClose(http10);
+
+        // Build the response object.
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(response.status(), http10, close);
 
         // Convert the response content to a ChannelBuffer.
         ChannelFutureListener releaseContentListener = null;
@@ -132,6 +128,99 @@ public class NettyHttpChannel implements HttpChannel {
 
         resp.setHeader(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buf.readableBytes()));
 
+        // Write the response.
+        ChannelFuture future = write(resp, true);
+        if (releaseContentListener != null) {
+            future.addListener(releaseContentListener);
+        }
+
+        // Close the connection after the write operation is done if necessary.
+        if (close) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Sends the response using chunked transfer encoding, writing the content to the channel as it is
+     * generated. Once the headers are sent, a failure can only be signaled by closing the connection.
+     */
+    private void sendStreamingResponse(StreamingXContentRestResponse response) {
+        boolean close = shouldClose(false);
+
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(response.status(), false, close);
+        resp.setChunked(true);
+        resp.setHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        resp.setHeader(HttpHeaders.Names.CONTENT_TYPE, response.contentType());
+        write(resp, false);
+
+        NettyHttpChunkedOutputStream out = new NettyHttpChunkedOutputStream(this, channel, (int) transport.streamingChunkSize.bytes(), transport.streamingWriteTimeout);
+        try {
+            XContentBuilder builder = RestXContentBuilder.restContentBuilder(response.request(), out);
+            response.writeContent(builder);
+            // closing the builder ignores write failures, flush what the generator buffered beforehand
+            builder.flush();
+            out.close();
+            builder.close();
+        } catch (Exception e) {
+            transport.logger().debug("failed to stream response, closing connection", e);
+            channel.close();
+            return;
+        }
+
+        // Close the connection after the write operation is done if necessary.
+        if (close) {
+            out.lastFuture().addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Writes (part of) the response, going through the pipelining ordering when the connection uses it.
+     *
+     * @param last Is this the last write of the response
+     */
+    ChannelFuture write(Object message, boolean last) {
+        if (orderedUpstreamMessageEvent == null) {
+            return channel.write(message);
+        }
+        OrderedDownstreamChannelEvent event = new OrderedDownstreamChannelEvent(orderedUpstreamMessageEvent, subsequence++, last, message);
+        channel.getPipeline().sendDownstream(event);
+        return event.getFuture();
+    }
+
+    private boolean shouldClose(boolean http10) {
+        return HttpHeaders.Values.CLOSE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)) ||
+                (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(request.getHeader(HttpHeaders.Names.CONNECTION)));
+    }
+
+    private org.jboss.netty.handler.codec.http.HttpResponse newResponse(RestStatus restStatus, boolean http10, boolean close) {
+        HttpResponseStatus status = getStatus(restStatus);
+        org.jboss.netty.handler.codec.http.HttpResponse resp;
+        if (http10) {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
+            if (!close) {
+                resp.addHeader(HttpHeaders.Names.CONNECTION, "Keep-Alive");
+            }
+        } else {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        }
+        if (RestUtils.isBrowser(request.getHeader(HttpHeaders.Names.USER_AGENT))) {
+            if (transport.settings().getAsBoolean("http.cors.enabled", true)) {
+                // Add support for cross-origin Ajax requests (CORS)
+                resp.addHeader("Access-Control-Allow-Origin", transport.settings().get("http.cors.allow-origin", "*"));
+                if (request.getMethod() == HttpMethod.OPTIONS) {
+                    // Allow Ajax requests based on the CORS "preflight" request
+                    resp.addHeader("Access-Control-Max-Age", transport.settings().getAsInt("http.cors.max-age", 1728000));
+                    resp.addHeader("Access-Control-Allow-Methods", transport.settings().get("http.cors.allow-methods", "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
+                    resp.addHeader("Access-Control-Allow-Headers", transport.settings().get("http.cors.allow-headers", "X-Requested-With, Content-Type, Content-Length"));
+                }
+            }
+        }
+
+        String opaque = request.getHeader("X-Opaque-Id");
+        if (opaque != null) {
+            resp.addHeader("X-Opaque-Id", opaque);
+        }
+
         if (transport.resetCookies) {
             String cookieString = request.getHeader(HttpHeaders.Names.COOKIE);
             if (cookieString != null) {
@@ -147,17 +236,7 @@ public class NettyHttpChannel implements HttpChannel {
                 }
             }
         }
-
-        // Write the response.
-        ChannelFuture future = channel.write(resp);
-        if (releaseContentListener != null) {
-            future.addListener(releaseContentListener);
-        }
-
-        // Close the connection after the write operation is done if necessary.
-        if (close) {
-            future.addListener(ChannelFutureListener.CLOSE);
-        }
+        return resp;
     }
 
     private HttpResponseStatus getStatus(RestStatus status) {
@@ -0,0 +1,155 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * An output stream writing to a channel as http chunks of (up to) a fixed size. Writing blocks while
+ * the channel is not writable, or while too many chunks are waiting to be written (for example when
+ * held back behind the responses to previous pipelined requests), so a slow client does not cause the
+ * whole response to pile up in memory. Writing fails if the client does not read the response for longer
+ * than the write timeout, so a stalled client does not hold the writing thread forever.
+ */
+public class NettyHttpChunkedOutputStream extends OutputStream {
+
+    static final int MAX_PENDING_CHUNKS = 16;
+
+    private final NettyHttpChannel httpChannel;
+
+    private final Channel channel;
+
+    private final Queue<ChannelFuture> pendingFutures = new ArrayDeque<ChannelFuture>();
+
+    private final int chunkSize;
+
+    private final TimeValue writeTimeout;
+
+    private byte[] buffer;
+
+    private int count;
+
+    private ChannelFuture lastFuture;
+
+    private boolean closed;
+
+    public NettyHttpChunkedOutputStream(NettyHttpChannel httpChannel, Channel channel, int chunkSize, TimeValue writeTimeout) {
+        this.httpChannel = httpChannel;
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.writeTimeout = writeTimeout;
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunkSize) {
+            writeChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chunkSize) {
+                writeChunk();
+            }
+            int toCopy = Math.min(len, chunkSize - count);
+            System.arraycopy(b, off, buffer, count, toCopy);
+            count += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // chunks are written once full, flushing the generator should not cause small chunks to be sent
+    }
+
+    /**
+     * Writes what is left and the last chunk, ending the response.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (count > 0) {
+            writeChunk();
+        }
+        lastFuture = httpChannel.write(HttpChunk.LAST_CHUNK, true);
+    }
+
+    /**
+     * The future of the last write done to the channel, <tt>null</tt> if nothing was written.
+     */
+    public ChannelFuture lastFuture() {
+        return lastFuture;
+    }
+
+    private void writeChunk() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("channel closed while streaming the response");
+        }
+        // the buffer is handed over to netty, start a new one for the next chunk
+        lastFuture = httpChannel.write(new DefaultHttpChunk(ChannelBuffers.wrappedBuffer(buffer, 0, count)), false);
+        buffer = new byte[chunkSize];
+        count = 0;
+        pendingFutures.add(lastFuture);
+        while (!pendingFutures.isEmpty() && pendingFutures.peek().isDone()) {
+            checkSuccess(pendingFutures.poll());
+        }
+        if (!channel.isWritable()) {
+            // the client doesn't keep up, wait for what we wrote so far to be flushed
+            await(lastFuture);
+            checkSuccess(lastFuture);
+            pendingFutures.clear();
+        } else if (pendingFutures.size() > MAX_PENDING_CHUNKS) {
+            ChannelFuture oldest = pendingFutures.poll();
+            await(oldest);
+            checkSuccess(oldest);
+        }
+    }
+
+    private void await(ChannelFuture future) throws IOException {
+        if (!future.awaitUninterruptibly(writeTimeout.millis())) {
+            throw new IOException("timed out after [" + writeTimeout + "] waiting for the client to read the response");
+        }
+    }
+
+    private void checkSuccess(ChannelFuture future) throws IOException {
+        if (!future.isSuccess()) {
+            throw new IOException("failed to write response chunk", future.getCause());
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.http.netty;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.netty.NettyStaticSetup;
 import org.elasticsearch.common.netty.OpenChannelsHandler;
 import org.elasticsearch.common.network.NetworkService;
@@ -33,8 +34,10 @@ import org.elasticsearch.common.transport.NetworkExceptionHelper;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.http.*;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.http.netty.pipelining.HttpPipeliningHandler;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 import org.elasticsearch.transport.BindTransportException;
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -68,6 +71,9 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
     final ByteSizeValue maxInitialLineLength;
     final ByteSizeValue maxHeaderSize;
     final ByteSizeValue maxChunkSize;
+    final ByteSizeValue streamingChunkSize;
+
+    final TimeValue streamingWriteTimeout;
 
     private final int workerCount;
 
@@ -79,6 +85,10 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
 
     final boolean resetCookies;
 
+    final boolean pipelining;
+
+    final int pipeliningMaxInFlight;
+
     private final String port;
 
     private final String bindHost;
@@ -120,6 +130,10 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         ByteSizeValue maxContentLength = componentSettings.getAsBytesSize("max_content_length", settings.getAsBytesSize("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB)));
         this.maxChunkSize = componentSettings.getAsBytesSize("max_chunk_size", settings.getAsBytesSize("http.max_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
         this.maxHeaderSize = componentSettings.getAsBytesSize("max_header_size", settings.getAsBytesSize("http.max_header_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
+        this.pipelining = componentSettings.getAsBoolean("pipelining", settings.getAsBoolean("http.pipelining", true));
+        this.pipeliningMaxInFlight = componentSettings.getAsInt("pipelining.max_in_flight", settings.getAsInt("http.pipelining.max_in_flight", 100));
+        this.streamingChunkSize = componentSettings.getAsBytesSize("streaming_chunk_size", settings.getAsBytesSize("http.streaming_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB)));
+        this.streamingWriteTimeout = componentSettings.getAsTime("streaming_write_timeout", settings.getAsTime("http.streaming_write_timeout", TimeValue.timeValueSeconds(30)));
         this.maxInitialLineLength = componentSettings.getAsBytesSize("max_initial_line_length", settings.getAsBytesSize("http.max_initial_line_length", new ByteSizeValue(4, ByteSizeUnit.KB)));
         // don't reset cookies by default, since I don't think we really need to
         // note, parsing cookies was fixed in netty 3.5.1 regarding stack allocation, but still, currently, we don't need cookies
@@ -167,6 +181,10 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
                 maxChunkSize, maxHeaderSize, maxInitialLineLength, this.maxContentLength, receivePredictorMin, receivePredictorMax);
     }
 
+    ESLogger logger() {
+        return logger;
+    }
+
     public Settings settings() {
         return this.settings;
     }
@@ -349,6 +367,9 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             if (transport.compression) {
                 pipeline.addLast("encoder_compress", new HttpContentCompressor(transport.compressionLevel));
             }
+            if (transport.pipelining) {
+                pipeline.addLast("pipelining", new HttpPipeliningHandler(transport.pipeliningMaxInFlight));
+            }
             pipeline.addLast("handler", requestHandler);
             return pipeline;
         }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty.pipelining;
+
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Implements HTTP pipelining ordering. Requests received on the connection are numbered and handed
+ * over as {@link OrderedUpstreamMessageEvent}s so they can be executed concurrently, their responses,
+ * sent back as {@link OrderedDownstreamChannelEvent}s, are held until all the responses to the previous
+ * requests have been written. Once <tt>maxInFlight</tt> requests are waiting for a response, reading
+ * from the connection is suspended until one of them completes. When the connection closes, the
+ * responses still held (and any sent afterwards) are failed so that writers waiting on them are released.
+ */
+public class HttpPipeliningHandler extends SimpleChannelHandler {
+
+    private static final Comparator<OrderedDownstreamChannelEvent> ORDER = new Comparator<OrderedDownstreamChannelEvent>() {
+        @Override
+        public int compare(OrderedDownstreamChannelEvent o1, OrderedDownstreamChannelEvent o2) {
+            int delta = o1.getSequence() - o2.getSequence();
+            if (delta == 0) {
+                delta = o1.getSubsequence() - o2.getSubsequence();
+            }
+            return delta;
+        }
+    };
+
+    private final int maxInFlight;
+
+    private final PriorityQueue<OrderedDownstreamChannelEvent> holdingQueue = new PriorityQueue<OrderedDownstreamChannelEvent>(16, ORDER);
+
+    private int sequence;
+
+    private int nextRequiredSequence;
+
+    private int nextRequiredSubsequence;
+
+    private int inFlight;
+
+    private boolean suspended;
+
+    private boolean closed;
+
+    public HttpPipeliningHandler(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        Object msg = e.getMessage();
+        if (msg instanceof HttpRequest) {
+            OrderedUpstreamMessageEvent event;
+            synchronized (this) {
+                event = new OrderedUpstreamMessageEvent(sequence++, e.getChannel(), msg, e.getRemoteAddress());
+                if (++inFlight >= maxInFlight && !suspended) {
+                    suspended = true;
+                    ctx.getChannel().setReadable(false);
+                }
+            }
+            ctx.sendUpstream(event);
+        } else {
+            ctx.sendUpstream(e);
+        }
+    }
+
+    @Override
+    public void handleDownstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        if (!(e instanceof OrderedDownstreamChannelEvent)) {
+            super.handleDownstream(ctx, e);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                e.getFuture().setFailure(new ClosedChannelException());
+                return;
+            }
+            holdingQueue.add((OrderedDownstreamChannelEvent) e);
+            while (!holdingQueue.isEmpty()) {
+                OrderedDownstreamChannelEvent next = holdingQueue.peek();
+                if (next.getSequence() != nextRequiredSequence || next.getSubsequence() != nextRequiredSubsequence) {
+                    break;
+                }
+                holdingQueue.poll();
+                ctx.sendDownstream(next);
+                if (next.isLast()) {
+                    nextRequiredSequence++;
+                    nextRequiredSubsequence = 0;
+                    if (--inFlight < maxInFlight && suspended) {
+                        suspended = false;
+                        ctx.getChannel().setReadable(true);
+                    }
+                } else {
+                    nextRequiredSubsequence++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        List<OrderedDownstreamChannelEvent> held;
+        synchronized (this) {
+            closed = true;
+            held = new ArrayList<OrderedDownstreamChannelEvent>(holdingQueue);
+            holdingQueue.clear();
+        }
+        // fail outside of the lock, listeners might write back to the channel
+        for (OrderedDownstreamChannelEvent event : held) {
+            event.getFuture().setFailure(new ClosedChannelException());
+        }
+        super.channelClosed(ctx, e);
+    }
+}
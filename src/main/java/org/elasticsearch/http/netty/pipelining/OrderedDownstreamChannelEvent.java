@@ -0,0 +1,66 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty.pipelining;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DownstreamMessageEvent;
+
+/**
+ * A (part of a) response to a request received on a pipelining connection. A response is made of one
+ * or more events (the response itself and its chunks) numbered by their subsequence, the last one
+ * completing the response.
+ */
+public class OrderedDownstreamChannelEvent extends DownstreamMessageEvent {
+
+    private final OrderedUpstreamMessageEvent orderedUpstreamMessageEvent;
+
+    private final int subsequence;
+
+    private final boolean last;
+
+    public OrderedDownstreamChannelEvent(OrderedUpstreamMessageEvent orderedUpstreamMessageEvent, int subsequence, boolean last, Object message) {
+        this(orderedUpstreamMessageEvent, Channels.future(orderedUpstreamMessageEvent.getChannel()), subsequence, last, message);
+    }
+
+    public OrderedDownstreamChannelEvent(OrderedUpstreamMessageEvent orderedUpstreamMessageEvent, ChannelFuture future, int subsequence, boolean last, Object message) {
+        super(orderedUpstreamMessageEvent.getChannel(), future, message, orderedUpstreamMessageEvent.getRemoteAddress());
+        this.orderedUpstreamMessageEvent = orderedUpstreamMessageEvent;
+        this.subsequence = subsequence;
+        this.last = last;
+    }
+
+    public OrderedUpstreamMessageEvent getOrderedUpstreamMessageEvent() {
+        return orderedUpstreamMessageEvent;
+    }
+
+    public int getSequence() {
+        return orderedUpstreamMessageEvent.getSequence();
+    }
+
+    public int getSubsequence() {
+        return subsequence;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+}
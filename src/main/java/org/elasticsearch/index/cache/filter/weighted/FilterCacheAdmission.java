@@ -0,0 +1,119 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.filter.weighted;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides if the doc set of a filter that is not cached yet should be cached for a segment. Filters are only
+ * admitted once they have been executed on the segment <tt>minFrequency</tt> times, or <tt>minFrequencyCostly</tt>
+ * times if they are costly, so one off filters don't evict the ones that are actually reused.
+ * <p/>
+ * A filter is costly when building its doc id set took longer than <tt>costlyThreshold</tt>, or when the doc id
+ * set is lazy (not cacheable as is, like the field data based ones): those are evaluated document by document
+ * every time they are iterated, so the time it took to create them says nothing about their cost.
+ * <p/>
+ * Usages are tracked per segment (bounded to <tt>historySize</tt> filters each), and dropped with the segment.
+ */
+public class FilterCacheAdmission {
+
+    private final int minFrequency;
+
+    private final int minFrequencyCostly;
+
+    private final long costlyThresholdInNanos;
+
+    private final int historySize;
+
+    private final ConcurrentMap<Object, Cache<Object, FilterUsage>> usages = ConcurrentCollections.newConcurrentMap();
+
+    public FilterCacheAdmission(int minFrequency, int minFrequencyCostly, long costlyThresholdInNanos, int historySize) {
+        this.minFrequency = minFrequency;
+        this.minFrequencyCostly = minFrequencyCostly;
+        this.costlyThresholdInNanos = costlyThresholdInNanos;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Records an execution of the filter on the segment, and returns <tt>true</tt> if its doc id set should
+     * now be cached.
+     */
+    public boolean admit(Object readerKey, Object filterKey, @Nullable DocIdSet docIdSet, long tookInNanos) {
+        boolean costly = tookInNanos >= costlyThresholdInNanos || (docIdSet != null && !docIdSet.isCacheable());
+        if ((costly ? minFrequencyCostly : minFrequency) <= 1) {
+            return true;
+        }
+        Cache<Object, FilterUsage> readerUsages = usages.get(readerKey);
+        if (readerUsages == null) {
+            readerUsages = CacheBuilder.newBuilder().maximumSize(historySize).build();
+            Cache<Object, FilterUsage> existing = usages.putIfAbsent(readerKey, readerUsages);
+            if (existing != null) {
+                readerUsages = existing;
+            }
+        }
+        FilterUsage usage = readerUsages.getIfPresent(filterKey);
+        if (usage == null) {
+            usage = new FilterUsage();
+            FilterUsage existing = readerUsages.asMap().putIfAbsent(filterKey, usage);
+            if (existing != null) {
+                usage = existing;
+            }
+        }
+        if (costly) {
+            usage.costly = true;
+        }
+        int frequency = usage.count.incrementAndGet();
+        if (frequency >= (usage.costly ? minFrequencyCostly : minFrequency)) {
+            readerUsages.invalidate(filterKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the usages tracked for the segment.
+     */
+    public void clear(Object readerKey) {
+        usages.remove(readerKey);
+    }
+
+    public void clear() {
+        usages.clear();
+    }
+
+    /**
+     * The number of segments with tracked usages.
+     */
+    public int trackedReaders() {
+        return usages.size();
+    }
+
+    static class FilterUsage {
+        final AtomicInteger count = new AtomicInteger();
+        volatile boolean costly;
+    }
+}
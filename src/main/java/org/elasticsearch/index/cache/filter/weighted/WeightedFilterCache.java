@@ -28,6 +28,7 @@ import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.docset.DocSet;
 import org.elasticsearch.common.lucene.docset.DocSets;
@@ -35,6 +36,7 @@ import org.elasticsearch.common.lucene.search.NoCacheFilter;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
@@ -56,10 +58,24 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
     final CounterMetric evictionsMetric = new CounterMetric();
     final MeanMetric totalMetric = new MeanMetric();
 
+    // null when admission is disabled (the default), filters are then cached on first use
+    @Nullable
+    final FilterCacheAdmission admission;
+
     @Inject
     public WeightedFilterCache(Index index, @IndexSettings Settings indexSettings, IndicesFilterCache indicesFilterCache) {
         super(index, indexSettings);
         this.indicesFilterCache = indicesFilterCache;
+        if (indexSettings.getAsBoolean("index.cache.filter.admission.enabled", false)) {
+            int minFrequency = indexSettings.getAsInt("index.cache.filter.admission.min_frequency", 5);
+            int minFrequencyCostly = indexSettings.getAsInt("index.cache.filter.admission.min_frequency_costly", 2);
+            TimeValue costlyThreshold = indexSettings.getAsTime("index.cache.filter.admission.costly_threshold", TimeValue.timeValueMillis(1));
+            int historySize = indexSettings.getAsInt("index.cache.filter.admission.history_size", 1000);
+            logger.debug("using filter cache admission with min_frequency [{}], min_frequency_costly [{}], costly_threshold [{}], history_size [{}]", minFrequency, minFrequencyCostly, costlyThreshold, historySize);
+            this.admission = new FilterCacheAdmission(minFrequency, minFrequencyCostly, costlyThreshold.nanos(), historySize);
+        } else {
+            this.admission = null;
+        }
         indicesFilterCache.addRemovalListener(index.name(), this);
     }
 
@@ -77,6 +93,9 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
     @Override
     public void clear(String reason) {
         logger.debug("full cache clear, reason [{}]", reason);
+        if (admission != null) {
+            admission.clear();
+        }
         for (Object readerKey : seenReaders.keySet()) {
             Boolean removed = seenReaders.remove(readerKey);
             if (removed == null) {
@@ -102,6 +121,10 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
         }
         seenReadersCount.dec();
         indicesFilterCache.addReaderKeyToClean(reader.getCoreCacheKey());
+        // don't keep the segment around through the usages of its filters
+        if (admission != null) {
+            admission.clear(reader.getCoreCacheKey());
+        }
     }
 
     @Override
@@ -153,6 +176,7 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
 
             DocSet cacheValue = innerCache.getIfPresent(cacheKey);
             if (cacheValue == null) {
+                // we also need to see the reader before tracking usages, so they get cleaned when it closes
                 if (!cache.seenReaders.containsKey(reader.getCoreCacheKey())) {
                     Boolean previous = cache.seenReaders.putIfAbsent(reader.getCoreCacheKey(), Boolean.TRUE);
                     if (previous == null && (reader instanceof SegmentReader)) {
@@ -161,7 +185,18 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
                     }
                 }
 
-                cacheValue = DocSets.cacheable(reader, filter.getDocIdSet(reader));
+                DocIdSet docIdSet;
+                if (cache.admission != null) {
+                    long time = System.nanoTime();
+                    docIdSet = filter.getDocIdSet(reader);
+                    if (!cache.admission.admit(reader.getCoreCacheKey(), filterKey, docIdSet, System.nanoTime() - time)) {
+                        return docIdSet;
+                    }
+                } else {
+                    docIdSet = filter.getDocIdSet(reader);
+                }
+
+                cacheValue = DocSets.cacheable(reader, docIdSet);
                 // we might put the same one concurrently, that's fine, it will be replaced and the removal
                 // will be called
                 cache.totalMetric.inc(cacheValue.sizeInBytes());
@@ -20,9 +20,12 @@
 package org.elasticsearch.index.field.data;
 
 import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ThreadLocals;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -42,6 +45,15 @@ public abstract class FieldData<Doc extends DocFieldData> {
 
     private long sizeInBytes = -1;
 
+    /**
+     * The maximum number of rollups cached per field data.
+     */
+    public static final int MAX_ROLLUPS = 32;
+
+    private final ConcurrentMap<String, Object> rollups = ConcurrentCollections.newConcurrentMap();
+
+    private final AtomicLong rollupsSizeInBytes = new AtomicLong();
+
     protected FieldData(String fieldName) {
         this.fieldName = fieldName;
     }
@@ -59,15 +71,45 @@ public abstract class FieldData<Doc extends DocFieldData> {
         return docFieldData;
     }
 
+    /**
+     * The size of this field data, including the rollups cached with it.
+     */
     public long sizeInBytes() {
         if (sizeInBytes == -1) {
             sizeInBytes = computeSizeInBytes();
         }
-        return sizeInBytes;
+        return sizeInBytes + rollupsSizeInBytes.get();
     }
 
     protected abstract long computeSizeInBytes();
 
+    /**
+     * Returns the rollup cached under the provided key, <tt>null</tt> if there is none. A rollup is an
+     * aggregation computed once over all the docs of the segment, and it lives as long as the field data
+     * it was computed from does.
+     */
+    public Object rollup(String key) {
+        return rollups.get(key);
+    }
+
+    /**
+     * Caches a rollup computed over all the docs of the segment, see {@link #rollup(String)}. The provided
+     * size is accounted for in {@link #sizeInBytes()}. Once {@link #MAX_ROLLUPS} rollups are cached, or if
+     * one is already cached under the key, the rollup is not cached.
+     *
+     * @return <tt>true</tt> if the rollup got cached
+     */
+    public boolean cacheRollup(String key, Object rollup, long sizeInBytes) {
+        if (rollups.size() >= MAX_ROLLUPS) {
+            return false;
+        }
+        if (rollups.putIfAbsent(key, rollup) != null) {
+            return false;
+        }
+        rollupsSizeInBytes.addAndGet(sizeInBytes);
+        return true;
+    }
+
     protected abstract Doc createFieldData();
 
     /**
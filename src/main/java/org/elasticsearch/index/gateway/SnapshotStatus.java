@@ -19,6 +19,8 @@
 
 package org.elasticsearch.index.gateway;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  *
  */
@@ -88,6 +90,7 @@ public class SnapshotStatus {
 
         private int numberOfFiles;
         private long totalSize;
+        private AtomicLong currentFilesSize = new AtomicLong();
 
         public long startTime() {
             return this.startTime;
@@ -117,6 +120,14 @@ public class SnapshotStatus {
         public long totalSize() {
             return totalSize;
         }
+
+        public long currentFilesSize() {
+            return this.currentFilesSize.get();
+        }
+
+        public void addCurrentFilesSize(long updatedSize) {
+            this.currentFilesSize.addAndGet(updatedSize);
+        }
     }
 
     public static class Translog {
@@ -22,6 +22,7 @@ package org.elasticsearch.index.gateway.blobstore;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IndexInput;
@@ -35,6 +36,7 @@ import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.lucene.store.ThreadSafeInputStreamIndexInput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
 import org.elasticsearch.index.gateway.*;
 import org.elasticsearch.index.settings.IndexSettings;
@@ -52,8 +54,11 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -83,6 +88,12 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
 
     private volatile SnapshotStatus currentSnapshotStatus;
 
+    // the commit points as of the last successful snapshot, saves reading them back from the blob store
+    private volatile CommitPoints lastCommitPoints;
+
+    // files fully uploaded by snapshots that failed before writing their commit point, reused if unchanged
+    private final ConcurrentMap<String, CommitPoint.FileInfo> uploadedFiles = ConcurrentCollections.newConcurrentMap();
+
     protected BlobStoreIndexShardGateway(ShardId shardId, @IndexSettings Settings indexSettings, ThreadPool threadPool, IndexGateway indexGateway,
                                          IndexShard indexShard, Store store) {
         super(shardId, indexSettings);
@@ -215,7 +226,11 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
             CommitPoint.FileInfo fileInfo = commitPoints.findPhysicalIndexFile(fileName);
             if (fileInfo == null || !fileInfo.isSame(md) || !commitPointFileExistsInBlobs(fileInfo, blobs)) {
                 // commit point file does not exists in any commit point, or has different length, or does not fully exists in the listed blobs
-                snapshotRequired = true;
+                // check if a previous snapshot that failed already uploaded it
+                fileInfo = uploadedFiles.get(fileName);
+                if (fileInfo == null || !fileInfo.isSame(md) || !commitPointFileExistsInBlobs(fileInfo, blobs)) {
+                    snapshotRequired = true;
+                }
             }
 
             if (snapshotRequired) {
@@ -323,6 +338,8 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
         } catch (Exception e) {
             throw new IndexShardGatewaySnapshotFailedException(shardId, "Failed to write commit point", e);
         }
+        // all the uploaded files are now referenced by the commit point
+        uploadedFiles.clear();
 
         // delete all files that are not referenced by any commit point
         // build a new CommitPoint, that includes this one and all the saved ones
@@ -334,6 +351,7 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
             }
         }
         CommitPoints newCommitPoints = new CommitPoints(newCommitPointsList);
+        lastCommitPoints = newCommitPoints;
         // first, go over and delete all the commit points
         for (String blobName : blobs.keySet()) {
             if (!blobName.startsWith("commit-")) {
@@ -747,6 +765,8 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
 
         final long fNumberOfChunks = numberOfChunks;
         final AtomicLong counter = new AtomicLong(numberOfChunks);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final SnapshotStatus.Index indexStatus = currentSnapshotStatus.index();
         for (long i = 0; i < fNumberOfChunks; i++) {
             final long partNumber = i;
 
@@ -763,7 +783,8 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
                 }
 
                 final IndexInput fIndexInput = indexInput;
-                blobContainer.writeBlob(blobName, is, is.actualSizeToRead(), new ImmutableBlobContainer.WriterListener() {
+                final long partSize = is.actualSizeToRead();
+                blobContainer.writeBlob(blobName, is, partSize, new ImmutableBlobContainer.WriterListener() {
                     @Override
                     public void onCompleted() {
                         try {
@@ -771,7 +792,11 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
                         } catch (IOException e) {
                             // ignore
                         }
+                        indexStatus.addCurrentFilesSize(partSize);
                         if (counter.decrementAndGet() == 0) {
+                            if (!failed.get()) {
+                                uploadedFiles.put(fileInfo.physicalName(), fileInfo);
+                            }
                             latch.countDown();
                         }
                     }
@@ -783,6 +808,7 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
                         } catch (IOException e) {
                             // ignore
                         }
+                        failed.set(true);
                         failures.add(t);
                         if (counter.decrementAndGet() == 0) {
                             latch.countDown();
@@ -840,6 +866,26 @@ public abstract class BlobStoreIndexShardGateway extends AbstractIndexShardCompo
     }
 
     private CommitPoints buildCommitPoints(ImmutableMap<String, BlobMetaData> blobs) {
+        CommitPoints cachedCommitPoints = lastCommitPoints;
+        if (cachedCommitPoints != null) {
+            // reuse the commit points we wrote last if they are still the ones listed
+            Set<String> commitPointNames = Sets.newHashSet();
+            for (String name : blobs.keySet()) {
+                if (name.startsWith("commit-")) {
+                    commitPointNames.add(name);
+                }
+            }
+            boolean same = commitPointNames.size() == cachedCommitPoints.commits().size();
+            for (CommitPoint commitPoint : cachedCommitPoints) {
+                if (!commitPointNames.contains(commitPoint.name())) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return cachedCommitPoints;
+            }
+        }
         List<CommitPoint> commitPoints = Lists.newArrayList();
         for (String name : blobs.keySet()) {
             if (name.startsWith("commit-")) {
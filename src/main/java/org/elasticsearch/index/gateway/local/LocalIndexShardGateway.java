@@ -45,6 +45,7 @@ import org.elasticsearch.index.translog.fs.FsTranslog;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -57,6 +58,8 @@ import java.util.concurrent.ScheduledFuture;
  */
 public class LocalIndexShardGateway extends AbstractIndexShardComponent implements IndexShardGateway {
 
+    private static final int TRANSLOG_BUFFER_SIZE = 64 * 1024;
+
     private final ThreadPool threadPool;
 
     private final InternalIndexShard indexShard;
@@ -193,10 +196,15 @@ public class LocalIndexShardGateway extends AbstractIndexShardComponent implemen
 
         recoveryStatus.translog().startTime(System.currentTimeMillis());
         recoveryStatus.updateStage(RecoveryStatus.Stage.TRANSLOG);
+        // no need to sync each replayed operation, the recovering translog is only deleted after the final flush
+        boolean syncOnEachOperation = syncInterval.millis() == 0;
+        if (syncOnEachOperation) {
+            indexShard.translog().syncOnEachOperation(false);
+        }
         FileInputStream fs = null;
         try {
             fs = new FileInputStream(recoveringTranslogFile);
-            InputStreamStreamInput si = new InputStreamStreamInput(fs);
+            InputStreamStreamInput si = new InputStreamStreamInput(new BufferedInputStream(fs, TRANSLOG_BUFFER_SIZE));
             while (true) {
                 Translog.Operation operation;
                 try {
@@ -227,6 +235,9 @@ public class LocalIndexShardGateway extends AbstractIndexShardComponent implemen
             throw new IndexShardGatewayRecoveryException(shardId, "failed to recover shard", e);
         } finally {
             Closeables.closeQuietly(fs);
+            if (syncOnEachOperation) {
+                indexShard.translog().syncOnEachOperation(true);
+            }
         }
         indexShard.performRecoveryFinalization(true);
 
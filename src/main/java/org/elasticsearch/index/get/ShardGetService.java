@@ -22,6 +22,7 @@ package org.elasticsearch.index.get;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Fieldable;
 import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.document.ResetFieldSelector;
@@ -29,6 +30,7 @@ import org.elasticsearch.common.lucene.uid.UidField;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.*;
@@ -46,6 +48,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -187,6 +190,7 @@ public class ShardGetService extends AbstractIndexShardComponent {
                     sourceRequested = false;
                 } else {
                     Map<String, Object> sourceAsMap = null;
+                    Map<String, Object> filteredSource = null;
                     SearchLookup searchLookup = null;
                     for (String field : gFields) {
                         if (field.equals("_source")) {
@@ -232,15 +236,16 @@ public class ShardGetService extends AbstractIndexShardComponent {
                                     // ignore
                                 }
                             } else {
-                                if (searchLookup == null) {
-                                    searchLookup = new SearchLookup(mapperService, indexCache.fieldData(), new String[]{type});
-                                    searchLookup.source().setNextSource(source.source);
+                                if (filteredSource == null) {
+                                    SourceLookup sourceLookup = new SourceLookup();
+                                    sourceLookup.setNextSource(source.source);
+                                    filteredSource = sourceLookup.filter(sourceFieldsIncludes(gFields), Strings.EMPTY_ARRAY);
                                 }
 
                                 FieldMapper<?> x = docMapper.mappers().smartNameFieldMapper(field);
                                 // only if the field is stored or source is enabled we should add it..
                                 if (docMapper.sourceMapper().enabled() || x == null || x.stored()) {
-                                    value = searchLookup.source().extractValue(field);
+                                    value = XContentMapValues.extractValue(field, filteredSource);
                                     if (x != null && value instanceof String) {
                                         value = x.valueFromString((String) value);
                                     }
@@ -324,6 +329,7 @@ public class ShardGetService extends AbstractIndexShardComponent {
         // now, go and do the script thingy if needed
         if (gFields != null && gFields.length > 0) {
             SearchLookup searchLookup = null;
+            Map<String, Object> filteredSource = null;
             for (String field : gFields) {
                 Object value = null;
                 if (field.contains("_source.") || field.contains("doc[")) {
@@ -345,12 +351,13 @@ public class ShardGetService extends AbstractIndexShardComponent {
                 } else {
                     FieldMappers x = docMapper.mappers().smartName(field);
                     if (x == null || !x.mapper().stored()) {
-                        if (searchLookup == null) {
-                            searchLookup = new SearchLookup(mapperService, indexCache.fieldData(), new String[]{type});
-                            searchLookup.setNextReader(docIdAndVersion.reader);
-                            searchLookup.setNextDocId(docIdAndVersion.docId);
+                        if (filteredSource == null) {
+                            SourceLookup sourceLookup = new SourceLookup();
+                            sourceLookup.setNextReader(docIdAndVersion.reader);
+                            sourceLookup.setNextDocId(docIdAndVersion.docId);
+                            filteredSource = sourceLookup.filter(sourceFieldsIncludes(gFields), Strings.EMPTY_ARRAY);
                         }
-                        value = searchLookup.source().extractValue(field);
+                        value = XContentMapValues.extractValue(field, filteredSource);
                     }
                 }
 
@@ -404,4 +411,20 @@ public class ShardGetService extends AbstractIndexShardComponent {
         }
         return source;
     }
+
+    /**
+     * The source paths of the requested fields, so only those get parsed out of the source, ignoring
+     * fields that are scripts. A field can be an object (or an array of objects), in which case all of
+     * its inner fields are included as well.
+     */
+    private static String[] sourceFieldsIncludes(String[] gFields) {
+        List<String> includes = new ArrayList<String>(gFields.length * 2);
+        for (String field : gFields) {
+            if (!field.equals(SourceFieldMapper.NAME) && !field.contains("_source.") && !field.contains("doc[")) {
+                includes.add(field);
+                includes.add(field + ".*");
+            }
+        }
+        return includes.toArray(new String[includes.size()]);
+    }
 }
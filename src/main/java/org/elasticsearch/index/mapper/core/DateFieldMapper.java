@@ -237,47 +237,61 @@ public class DateFieldMapper extends NumberFieldMapper<Long> {
 
     @Override
     public Query fieldQuery(String value, @Nullable QueryParseContext context) {
-        long now = context == null ? System.currentTimeMillis() : context.nowInMillis();
-        long lValue = dateMathParser.parse(value, now);
+        long lValue = parseDateMath(value, context);
         return NumericRangeQuery.newLongRange(names.indexName(), precisionStep,
                 lValue, lValue, true, true);
     }
 
     @Override
     public Query rangeQuery(String lowerTerm, String upperTerm, boolean includeLower, boolean includeUpper, @Nullable QueryParseContext context) {
-        long now = context == null ? System.currentTimeMillis() : context.nowInMillis();
         return NumericRangeQuery.newLongRange(names.indexName(), precisionStep,
-                lowerTerm == null ? null : dateMathParser.parse(lowerTerm, now),
-                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? dateMathParser.parseUpperInclusive(upperTerm, now) : dateMathParser.parse(upperTerm, now),
+                lowerTerm == null ? null : parseDateMath(lowerTerm, context),
+                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? parseUpperInclusiveDateMath(upperTerm, context) : parseDateMath(upperTerm, context),
                 includeLower, includeUpper);
     }
 
     @Override
     public Filter fieldFilter(String value, @Nullable QueryParseContext context) {
-        long now = context == null ? System.currentTimeMillis() : context.nowInMillis();
-        long lValue = dateMathParser.parse(value, now);
+        long lValue = parseDateMath(value, context);
         return NumericRangeFilter.newLongRange(names.indexName(), precisionStep,
                 lValue, lValue, true, true);
     }
 
     @Override
     public Filter rangeFilter(String lowerTerm, String upperTerm, boolean includeLower, boolean includeUpper, @Nullable QueryParseContext context) {
-        long now = context == null ? System.currentTimeMillis() : context.nowInMillis();
         return NumericRangeFilter.newLongRange(names.indexName(), precisionStep,
-                lowerTerm == null ? null : dateMathParser.parse(lowerTerm, now),
-                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? dateMathParser.parseUpperInclusive(upperTerm, now) : dateMathParser.parse(upperTerm, now),
+                lowerTerm == null ? null : parseDateMath(lowerTerm, context),
+                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? parseUpperInclusiveDateMath(upperTerm, context) : parseDateMath(upperTerm, context),
                 includeLower, includeUpper);
     }
 
     @Override
     public Filter rangeFilter(FieldDataCache fieldDataCache, String lowerTerm, String upperTerm, boolean includeLower, boolean includeUpper, @Nullable QueryParseContext context) {
-        long now = context == null ? System.currentTimeMillis() : context.nowInMillis();
         return NumericRangeFieldDataFilter.newLongRange(fieldDataCache, names.indexName(),
-                lowerTerm == null ? null : dateMathParser.parse(lowerTerm, now),
-                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? dateMathParser.parseUpperInclusive(upperTerm, now) : dateMathParser.parse(upperTerm, now),
+                lowerTerm == null ? null : parseDateMath(lowerTerm, context),
+                upperTerm == null ? null : (includeUpper && parseUpperInclusive) ? parseUpperInclusiveDateMath(upperTerm, context) : parseDateMath(upperTerm, context),
                 includeLower, includeUpper);
     }
 
+    private long parseDateMath(String value, @Nullable QueryParseContext context) {
+        return dateMathParser.parse(value, now(value, context));
+    }
+
+    private long parseUpperInclusiveDateMath(String value, @Nullable QueryParseContext context) {
+        return dateMathParser.parseUpperInclusive(value, now(value, context));
+    }
+
+    /**
+     * Only resolves the request time when the expression refers to it, asking the context for it marks
+     * the request as time dependent (and so not cacheable).
+     */
+    private long now(String value, @Nullable QueryParseContext context) {
+        if (context == null || !value.startsWith("now")) {
+            return System.currentTimeMillis();
+        }
+        return context.nowInMillis();
+    }
+
     @Override
     public Filter nullValueFilter() {
         if (nullValue == null) {
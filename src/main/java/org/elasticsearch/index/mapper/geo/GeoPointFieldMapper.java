@@ -19,10 +19,12 @@
 
 package org.elasticsearch.index.mapper.geo;
 
+import com.spatial4j.core.context.SpatialContext;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.lucene.spatial.prefix.tree.GeohashPrefixTree;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
@@ -69,6 +71,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         public static final String LON_SUFFIX = "." + LON;
         public static final String GEOHASH = "geohash";
         public static final String GEOHASH_SUFFIX = "." + GEOHASH;
+        public static final String GEOHASH_PREFIX = "geohash_prefix";
     }
 
     public static class Defaults {
@@ -76,6 +79,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         public static final Field.Store STORE = Field.Store.NO;
         public static final boolean ENABLE_LATLON = false;
         public static final boolean ENABLE_GEOHASH = false;
+        public static final boolean ENABLE_GEOHASH_PREFIX = false;
         public static final int PRECISION = GeoHashUtils.PRECISION;
         public static final boolean NORMALIZE_LAT = true;
         public static final boolean NORMALIZE_LON = true;
@@ -89,6 +93,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
         private boolean enableGeoHash = Defaults.ENABLE_GEOHASH;
 
+        private boolean enableGeohashPrefix = Defaults.ENABLE_GEOHASH_PREFIX;
+
         private boolean enableLatLon = Defaults.ENABLE_LATLON;
 
         private Integer precisionStep;
@@ -117,6 +123,11 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
             return this;
         }
 
+        public Builder enableGeohashPrefix(boolean enableGeohashPrefix) {
+            this.enableGeohashPrefix = enableGeohashPrefix;
+            return this;
+        }
+
         public Builder enableLatLon(boolean enableLatLon) {
             this.enableLatLon = enableLatLon;
             return this;
@@ -161,14 +172,14 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                 lonMapper = (DoubleFieldMapper) lonMapperBuilder.includeInAll(false).store(store).build(context);
             }
             StringFieldMapper geohashMapper = null;
-            if (enableGeoHash) {
+            if (enableGeoHash || enableGeohashPrefix) {
                 geohashMapper = stringField(Names.GEOHASH).index(Field.Index.NOT_ANALYZED).includeInAll(false).omitNorms(true).indexOptions(IndexOptions.DOCS_ONLY).build(context);
             }
             context.path().remove();
 
             context.path().pathType(origPathType);
 
-            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash, precisionStep, precision,
+            return new GeoPointFieldMapper(name, pathType, enableLatLon, enableGeoHash || enableGeohashPrefix, enableGeohashPrefix, precisionStep, precision,
                     latMapper, lonMapper, geohashMapper, geoStringMapper,
                     validateLon, validateLat, normalizeLon, normalizeLat);
         }
@@ -190,6 +201,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
                     builder.enableLatLon(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("geohash")) {
                     builder.enableGeoHash(XContentMapValues.nodeBooleanValue(fieldNode));
+                } else if (fieldName.equals(Names.GEOHASH_PREFIX)) {
+                    builder.enableGeohashPrefix(XContentMapValues.nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("precision_step")) {
                     builder.precisionStep(XContentMapValues.nodeIntegerValue(fieldNode));
                 } else if (fieldName.equals("geohash_precision")) {
@@ -222,6 +235,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
     private final boolean enableGeoHash;
 
+    private final boolean enableGeohashPrefix;
+
     private final Integer precisionStep;
 
     private final int precision;
@@ -232,6 +247,8 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
 
     private final StringFieldMapper geohashMapper;
 
+    private final GeohashPrefixTree geohashPrefixTree;
+
     private final GeoStringFieldMapper geoStringMapper;
 
     private final boolean validateLon;
@@ -240,7 +257,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
     private final boolean normalizeLon;
     private final boolean normalizeLat;
 
-    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, Integer precisionStep, int precision,
+    public GeoPointFieldMapper(String name, ContentPath.Type pathType, boolean enableLatLon, boolean enableGeoHash, boolean enableGeohashPrefix, Integer precisionStep, int precision,
                                DoubleFieldMapper latMapper, DoubleFieldMapper lonMapper, StringFieldMapper geohashMapper, GeoStringFieldMapper geoStringMapper,
                                boolean validateLon, boolean validateLat,
                                boolean normalizeLon, boolean normalizeLat) {
@@ -248,6 +265,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         this.pathType = pathType;
         this.enableLatLon = enableLatLon;
         this.enableGeoHash = enableGeoHash;
+        this.enableGeohashPrefix = enableGeohashPrefix;
         this.precisionStep = precisionStep;
         this.precision = precision;
 
@@ -255,6 +273,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         this.lonMapper = lonMapper;
         this.geoStringMapper = geoStringMapper;
         this.geohashMapper = geohashMapper;
+        this.geohashPrefixTree = enableGeohashPrefix ? new GeohashPrefixTree(SpatialContext.GEO, precision) : null;
 
         this.geoStringMapper.geoMapper = this;
 
@@ -282,6 +301,26 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         return enableLatLon;
     }
 
+    public StringFieldMapper geohashMapper() {
+        return geohashMapper;
+    }
+
+    /**
+     * Returns <tt>true</tt> if all the prefixes of the geohash are indexed, allowing to lookup
+     * the docs within a geohash cell with a single term (see {@link #geohashPrefixTree()}).
+     */
+    public boolean isEnableGeohashPrefix() {
+        return enableGeohashPrefix;
+    }
+
+    /**
+     * The prefix tree matching the indexed geohash prefixes, <tt>null</tt> if geohash prefixes
+     * are not enabled.
+     */
+    public GeohashPrefixTree geohashPrefixTree() {
+        return geohashPrefixTree;
+    }
+
     @Override
     public void parse(ParseContext context) throws IOException {
         ContentPath.Type origPathType = context.path().pathType();
@@ -395,8 +434,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         context.externalValue(Double.toString(lat) + ',' + Double.toString(lon));
         geoStringMapper.parse(context);
         if (enableGeoHash) {
-            context.externalValue(GeoHashUtils.encode(lat, lon, precision));
-            geohashMapper.parse(context);
+            parseGeohashField(context, GeoHashUtils.encode(lat, lon, precision));
         }
         if (enableLatLon) {
             context.externalValue(lat);
@@ -432,8 +470,7 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         context.externalValue(Double.toString(lat) + ',' + Double.toString(lon));
         geoStringMapper.parse(context);
         if (enableGeoHash) {
-            context.externalValue(geohash);
-            geohashMapper.parse(context);
+            parseGeohashField(context, geohash);
         }
         if (enableLatLon) {
             context.externalValue(lat);
@@ -443,6 +480,18 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         }
     }
 
+    private void parseGeohashField(ParseContext context, String geohash) throws IOException {
+        // the full geohash goes first, so it remains the first value of the field
+        context.externalValue(geohash);
+        geohashMapper.parse(context);
+        if (enableGeohashPrefix) {
+            for (int i = 1; i < geohash.length(); i++) {
+                context.externalValue(geohash.substring(0, i));
+                geohashMapper.parse(context);
+            }
+        }
+    }
+
     @Override
     public void close() {
         if (latMapper != null) {
@@ -493,6 +542,9 @@ public class GeoPointFieldMapper implements Mapper, ArrayValueMapperParser {
         if (enableGeoHash != Defaults.ENABLE_GEOHASH) {
             builder.field("geohash", enableGeoHash);
         }
+        if (enableGeohashPrefix != Defaults.ENABLE_GEOHASH_PREFIX) {
+            builder.field(Names.GEOHASH_PREFIX, enableGeohashPrefix);
+        }
         if (geoStringMapper.store() != Defaults.STORE) {
             builder.field("store", geoStringMapper.store().name().toLowerCase());
         }
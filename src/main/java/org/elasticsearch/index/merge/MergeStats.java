@@ -42,12 +42,15 @@ public class MergeStats implements Streamable, ToXContent {
     private long current;
     private long currentNumDocs;
     private long currentSizeInBytes;
+    private long totalThrottled;
+    private long totalThrottledSizeInBytes;
 
     public MergeStats() {
 
     }
 
-    public void add(long totalMerges, long totalMergeTime, long totalNumDocs, long totalSizeInBytes, long currentMerges, long currentNumDocs, long currentSizeInBytes) {
+    public void add(long totalMerges, long totalMergeTime, long totalNumDocs, long totalSizeInBytes, long currentMerges, long currentNumDocs, long currentSizeInBytes,
+                    long totalThrottled, long totalThrottledSizeInBytes) {
         this.total += totalMerges;
         this.totalTimeInMillis += totalMergeTime;
         this.totalNumDocs += totalNumDocs;
@@ -55,6 +58,8 @@ public class MergeStats implements Streamable, ToXContent {
         this.current += currentMerges;
         this.currentNumDocs += currentNumDocs;
         this.currentSizeInBytes += currentSizeInBytes;
+        this.totalThrottled += totalThrottled;
+        this.totalThrottledSizeInBytes += totalThrottledSizeInBytes;
     }
 
     public void add(MergeStats mergeStats) {
@@ -68,6 +73,8 @@ public class MergeStats implements Streamable, ToXContent {
         this.current += mergeStats.current;
         this.currentNumDocs += mergeStats.currentNumDocs;
         this.currentSizeInBytes += mergeStats.currentSizeInBytes;
+        this.totalThrottled += mergeStats.totalThrottled;
+        this.totalThrottledSizeInBytes += mergeStats.totalThrottledSizeInBytes;
     }
 
     /**
@@ -122,6 +129,21 @@ public class MergeStats implements Streamable, ToXContent {
         return new ByteSizeValue(currentSizeInBytes);
     }
 
+    /**
+     * The total number of merges that had their IO throttled.
+     */
+    public long totalThrottled() {
+        return this.totalThrottled;
+    }
+
+    public long totalThrottledSizeInBytes() {
+        return this.totalThrottledSizeInBytes;
+    }
+
+    public ByteSizeValue totalThrottledSize() {
+        return new ByteSizeValue(totalThrottledSizeInBytes);
+    }
+
     public static MergeStats readMergeStats(StreamInput in) throws IOException {
         MergeStats stats = new MergeStats();
         stats.readFrom(in);
@@ -141,6 +163,9 @@ public class MergeStats implements Streamable, ToXContent {
         builder.field(Fields.TOTAL_DOCS, totalNumDocs);
         builder.field(Fields.TOTAL_SIZE, totalSize().toString());
         builder.field(Fields.TOTAL_SIZE_IN_BYTES, totalSizeInBytes);
+        builder.field(Fields.TOTAL_THROTTLED, totalThrottled);
+        builder.field(Fields.TOTAL_THROTTLED_SIZE, totalThrottledSize().toString());
+        builder.field(Fields.TOTAL_THROTTLED_SIZE_IN_BYTES, totalThrottledSizeInBytes);
         builder.endObject();
         return builder;
     }
@@ -157,6 +182,9 @@ public class MergeStats implements Streamable, ToXContent {
         static final XContentBuilderString TOTAL_DOCS = new XContentBuilderString("total_docs");
         static final XContentBuilderString TOTAL_SIZE = new XContentBuilderString("total_size");
         static final XContentBuilderString TOTAL_SIZE_IN_BYTES = new XContentBuilderString("total_size_in_bytes");
+        static final XContentBuilderString TOTAL_THROTTLED = new XContentBuilderString("total_throttled");
+        static final XContentBuilderString TOTAL_THROTTLED_SIZE = new XContentBuilderString("total_throttled_size");
+        static final XContentBuilderString TOTAL_THROTTLED_SIZE_IN_BYTES = new XContentBuilderString("total_throttled_size_in_bytes");
     }
 
     @Override
@@ -168,6 +196,8 @@ public class MergeStats implements Streamable, ToXContent {
         current = in.readVLong();
         currentNumDocs = in.readVLong();
         currentSizeInBytes = in.readVLong();
+        totalThrottled = in.readVLong();
+        totalThrottledSizeInBytes = in.readVLong();
     }
 
     @Override
@@ -179,5 +209,7 @@ public class MergeStats implements Streamable, ToXContent {
         out.writeVLong(current);
         out.writeVLong(currentNumDocs);
         out.writeVLong(currentSizeInBytes);
+        out.writeVLong(totalThrottled);
+        out.writeVLong(totalThrottledSizeInBytes);
     }
 }
\ No newline at end of file
@@ -30,6 +30,7 @@ import org.elasticsearch.index.merge.policy.EnableMergePolicy;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.IndexStore;
 
 import java.io.IOException;
 import java.util.Set;
@@ -43,11 +44,14 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
     private final int maxThreadCount;
     private final int maxMergeCount;
 
+    private final IndexStore indexStore;
+
     private Set<CustomConcurrentMergeScheduler> schedulers = new CopyOnWriteArraySet<CustomConcurrentMergeScheduler>();
 
     @Inject
-    public ConcurrentMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings) {
+    public ConcurrentMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings, IndexStore indexStore) {
         super(shardId, indexSettings);
+        this.indexStore = indexStore;
 
         // TODO LUCENE MONITOR this will change in Lucene 4.0
         this.maxThreadCount = componentSettings.getAsInt("max_thread_count", Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() / 2)));
@@ -69,7 +73,8 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
         MergeStats mergeStats = new MergeStats();
         for (CustomConcurrentMergeScheduler scheduler : schedulers) {
             mergeStats.add(scheduler.totalMerges(), scheduler.totalMergeTime(), scheduler.totalMergeNumDocs(), scheduler.totalMergeSizeInBytes(),
-                    scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes());
+                    scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes(),
+                    scheduler.totalThrottledMerges(), scheduler.totalThrottledMergesSizeInBytes());
         }
         return mergeStats;
     }
@@ -116,6 +121,11 @@ public class ConcurrentMergeSchedulerProvider extends AbstractIndexShardComponen
             return thread;
         }
 
+        @Override
+        protected boolean isThrottled(MergePolicy.OneMerge merge) {
+            return provider.indexStore != null && provider.indexStore.rateLimiting().isThrottled(merge);
+        }
+
         @Override
         protected void handleMergeException(Throwable exc) {
             logger.warn("failed to merge", exc);
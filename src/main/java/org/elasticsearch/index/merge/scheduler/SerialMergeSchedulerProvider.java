@@ -21,6 +21,7 @@ package org.elasticsearch.index.merge.scheduler;
 
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.index.TrackingSerialMergeScheduler;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -32,6 +33,7 @@ import org.elasticsearch.index.merge.policy.EnableMergePolicy;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.IndexStore;
 
 import java.io.IOException;
 import java.util.Set;
@@ -42,11 +44,14 @@ import java.util.concurrent.CopyOnWriteArraySet;
  */
 public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent implements MergeSchedulerProvider {
 
+    private final IndexStore indexStore;
+
     private Set<CustomSerialMergeScheduler> schedulers = new CopyOnWriteArraySet<CustomSerialMergeScheduler>();
 
     @Inject
-    public SerialMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings) {
+    public SerialMergeSchedulerProvider(ShardId shardId, @IndexSettings Settings indexSettings, IndexStore indexStore) {
         super(shardId, indexSettings);
+        this.indexStore = indexStore;
         logger.trace("using [serial] merge scheduler");
     }
 
@@ -62,7 +67,8 @@ public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent im
         MergeStats mergeStats = new MergeStats();
         for (CustomSerialMergeScheduler scheduler : schedulers) {
             mergeStats.add(scheduler.totalMerges(), scheduler.totalMergeTime(), scheduler.totalMergeNumDocs(), scheduler.totalMergeSizeInBytes(),
-                    scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes());
+                    scheduler.currentMerges(), scheduler.currentMergesNumDocs(), scheduler.currentMergesSizeInBytes(),
+                    scheduler.totalThrottledMerges(), scheduler.totalThrottledMergesSizeInBytes());
         }
         return mergeStats;
     }
@@ -99,6 +105,11 @@ public class SerialMergeSchedulerProvider extends AbstractIndexShardComponent im
             }
         }
 
+        @Override
+        protected boolean isThrottled(MergePolicy.OneMerge merge) {
+            return provider.indexStore != null && provider.indexStore.rateLimiting().isThrottled(merge);
+        }
+
         @Override
         public void close() {
             super.close();
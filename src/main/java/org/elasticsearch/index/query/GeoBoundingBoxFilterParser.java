@@ -181,6 +181,9 @@ public class GeoBoundingBoxFilterParser implements FilterParser {
             filter = IndexedGeoBoundingBoxFilter.create(topLeft, bottomRight, geoMapper);
         } else if ("memory".equals(type)) {
             filter = new InMemoryGeoBoundingBoxFilter(topLeft, bottomRight, fieldName, parseContext.indexCache().fieldData());
+            if (geoMapper.isEnableGeohashPrefix()) {
+                filter = GeohashCellFilter.boundingBox(geoMapper, topLeft, bottomRight, filter);
+            }
         } else {
             throw new QueryParsingException(parseContext.index(), "geo bounding box type [" + type + "] not supported, either 'indexed' or 'memory' are allowed");
         }
@@ -184,6 +184,9 @@ public class GeoDistanceFilterParser implements FilterParser {
         fieldName = mapper.names().indexName();
 
         Filter filter = new GeoDistanceFilter(lat, lon, distance, geoDistance, fieldName, geoMapper, parseContext.indexCache().fieldData(), optimizeBbox);
+        if (geoMapper.isEnableGeohashPrefix()) {
+            filter = GeohashCellFilter.distance(geoMapper, lat, lon, distance, geoDistance, filter);
+        }
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
         }
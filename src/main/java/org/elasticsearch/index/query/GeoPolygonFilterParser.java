@@ -30,6 +30,7 @@ import org.elasticsearch.index.mapper.geo.GeoPointFieldDataType;
 import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
 import org.elasticsearch.index.search.geo.GeoHashUtils;
 import org.elasticsearch.index.search.geo.GeoPolygonFilter;
+import org.elasticsearch.index.search.geo.GeohashCellFilter;
 import org.elasticsearch.index.search.geo.GeoUtils;
 import org.elasticsearch.index.search.geo.Point;
 
@@ -175,9 +176,14 @@ public class GeoPolygonFilterParser implements FilterParser {
         if (mapper.fieldDataType() != GeoPointFieldDataType.TYPE) {
             throw new QueryParsingException(parseContext.index(), "field [" + fieldName + "] is not a geo_point field");
         }
+        GeoPointFieldMapper geoMapper = ((GeoPointFieldMapper.GeoStringFieldMapper) mapper).geoMapper();
         fieldName = mapper.names().indexName();
 
-        Filter filter = new GeoPolygonFilter(points.toArray(new Point[points.size()]), fieldName, parseContext.indexCache().fieldData());
+        Point[] polygon = points.toArray(new Point[points.size()]);
+        Filter filter = new GeoPolygonFilter(polygon, fieldName, parseContext.indexCache().fieldData());
+        if (geoMapper.isEnableGeohashPrefix()) {
+            filter = GeohashCellFilter.polygon(geoMapper, polygon, filter);
+        }
         if (cache) {
             filter = parseContext.cacheFilter(filter, cacheKey);
         }
@@ -0,0 +1,368 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.geo;
+
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.SpatialRelation;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.OpenBitSet;
+import org.elasticsearch.common.lucene.docset.DocSet;
+import org.elasticsearch.common.lucene.docset.DocSets;
+import org.elasticsearch.common.lucene.docset.OpenBitDocSet;
+import org.elasticsearch.common.lucene.spatial.prefix.tree.Node;
+import org.elasticsearch.common.lucene.spatial.prefix.tree.SpatialPrefixTree;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.mapper.geo.GeoPointFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter that first resolves the docs of a geo_point field by looking up the geohash cells covering
+ * the filtered shape, using the geohash prefixes indexed when <tt>geohash_prefix</tt> is enabled.
+ * <p/>
+ * Docs falling in cells that are fully within the shape match without further checks, while docs
+ * falling in boundary cells are verified using the provided (field data based) filter. This
+ * avoids iterating the field data of every doc in the segment.
+ */
+public class GeohashCellFilter extends Filter {
+
+    /**
+     * The fraction of the shape size used as the size of the smallest (boundary) cells.
+     */
+    public static final double DISTANCE_ERROR_PCT = 0.025d;
+
+    /**
+     * Relates a cell to the filtered shape.
+     */
+    public static interface CellRelation {
+
+        /**
+         * Returns {@link SpatialRelation#WITHIN} if the cell is fully within the shape,
+         * {@link SpatialRelation#DISJOINT} if it is outside of it, and {@link SpatialRelation#INTERSECTS}
+         * otherwise. It is always fine to return {@link SpatialRelation#INTERSECTS}.
+         */
+        SpatialRelation relate(double minLat, double minLon, double maxLat, double maxLon);
+    }
+
+    private final String fieldName;
+
+    private final String[] withinCells;
+
+    private final String[] boundaryCells;
+
+    private final Filter verifyFilter;
+
+    /**
+     * @param fieldName     The index name of the geohash field (indexed with all its prefixes)
+     * @param prefixTree    The prefix tree matching the indexed geohash prefixes
+     * @param relation      The relation of cells with the filtered shape
+     * @param bbox          The bounding box of the shape, as <tt>[minLat, minLon, maxLat, maxLon]</tt>
+     * @param verifyFilter  The filter used to check the docs falling in boundary cells
+     */
+    public GeohashCellFilter(String fieldName, SpatialPrefixTree prefixTree, CellRelation relation, double[] bbox, Filter verifyFilter) {
+        this.fieldName = fieldName;
+        this.verifyFilter = verifyFilter;
+
+        double size = Math.max(bbox[2] - bbox[0], bbox[3] - bbox[1]);
+        int detailLevel = prefixTree.getLevelForDistance(size * DISTANCE_ERROR_PCT);
+        List<String> within = new ArrayList<String>();
+        List<String> boundary = new ArrayList<String>();
+        collectCells(prefixTree.getWorldNode(), detailLevel, relation, within, boundary);
+        this.withinCells = within.toArray(new String[within.size()]);
+        this.boundaryCells = boundary.toArray(new String[boundary.size()]);
+    }
+
+    private static void collectCells(Node node, int detailLevel, CellRelation relation, List<String> within, List<String> boundary) {
+        for (Node cell : node.getSubCells(null)) {
+            Rectangle rect = cell.getShape().getBoundingBox();
+            SpatialRelation rel = relation.relate(rect.getMinY(), rect.getMinX(), rect.getMaxY(), rect.getMaxX());
+            if (rel == SpatialRelation.DISJOINT) {
+                continue;
+            }
+            if (rel == SpatialRelation.WITHIN) {
+                within.add(cell.getTokenString());
+            } else if (cell.getLevel() >= detailLevel) {
+                boundary.add(cell.getTokenString());
+            } else {
+                collectCells(cell, detailLevel, relation, within, boundary);
+            }
+        }
+    }
+
+    public String fieldName() {
+        return this.fieldName;
+    }
+
+    public Filter verifyFilter() {
+        return this.verifyFilter;
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(IndexReader reader) throws IOException {
+        OpenBitSet matched = new OpenBitSet(reader.maxDoc());
+        OpenBitSet candidates = new OpenBitSet(reader.maxDoc());
+        boolean hasMatched = false;
+        boolean hasCandidates = false;
+        Term template = new Term(fieldName);
+        TermDocs termDocs = reader.termDocs();
+        try {
+            for (String cell : withinCells) {
+                termDocs.seek(template.createTerm(cell));
+                while (termDocs.next()) {
+                    matched.fastSet(termDocs.doc());
+                    hasMatched = true;
+                }
+            }
+            for (String cell : boundaryCells) {
+                termDocs.seek(template.createTerm(cell));
+                while (termDocs.next()) {
+                    candidates.fastSet(termDocs.doc());
+                    hasCandidates = true;
+                }
+            }
+        } finally {
+            termDocs.close();
+        }
+
+        if (hasCandidates) {
+            DocIdSet verifySet = verifyFilter.getDocIdSet(reader);
+            if (verifySet != null) {
+                DocSet verifyDocSet = DocSets.convert(reader, verifySet);
+                for (int doc = candidates.nextSetBit(0); doc != -1; doc = candidates.nextSetBit(doc + 1)) {
+                    if (verifyDocSet.get(doc)) {
+                        matched.fastSet(doc);
+                        hasMatched = true;
+                    }
+                }
+            }
+        }
+        if (!hasMatched) {
+            return null;
+        }
+        return new OpenBitDocSet(matched);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        GeohashCellFilter that = (GeohashCellFilter) o;
+
+        if (!fieldName.equals(that.fieldName)) return false;
+        if (!verifyFilter.equals(that.verifyFilter)) return false;
+        if (!Arrays.equals(withinCells, that.withinCells)) return false;
+        if (!Arrays.equals(boundaryCells, that.boundaryCells)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = fieldName.hashCode();
+        result = 31 * result + verifyFilter.hashCode();
+        result = 31 * result + Arrays.hashCode(withinCells);
+        result = 31 * result + Arrays.hashCode(boundaryCells);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "GeohashCellFilter(" + fieldName + ", within " + withinCells.length + ", boundary " + boundaryCells.length + ", " + verifyFilter + ")";
+    }
+
+    /**
+     * Wraps the provided field data based bounding box filter with a cell lookup.
+     */
+    public static Filter boundingBox(GeoPointFieldMapper mapper, Point topLeft, Point bottomRight, Filter verifyFilter) {
+        double width = topLeft.lon > bottomRight.lon ? (180 - topLeft.lon) + (bottomRight.lon + 180) : bottomRight.lon - topLeft.lon;
+        return create(mapper, boundingBoxRelation(topLeft, bottomRight),
+                new double[]{bottomRight.lat, topLeft.lon, topLeft.lat, topLeft.lon + width}, verifyFilter);
+    }
+
+    private static CellRelation boundingBoxRelation(Point topLeft, Point bottomRight) {
+        final double top = topLeft.lat;
+        final double bottom = bottomRight.lat;
+        final double left = topLeft.lon;
+        final double right = bottomRight.lon;
+        // checks to see if bounding box crosses 180 degrees
+        final boolean crossesDateLine = left > right;
+        return new CellRelation() {
+            @Override
+            public SpatialRelation relate(double minLat, double minLon, double maxLat, double maxLon) {
+                if (minLat > top || maxLat < bottom) {
+                    return SpatialRelation.DISJOINT;
+                }
+                boolean latWithin = minLat >= bottom && maxLat <= top;
+                if (crossesDateLine) {
+                    if (maxLon < left && minLon > right) {
+                        return SpatialRelation.DISJOINT;
+                    }
+                    if (latWithin && (minLon >= left || maxLon <= right)) {
+                        return SpatialRelation.WITHIN;
+                    }
+                } else {
+                    if (minLon > right || maxLon < left) {
+                        return SpatialRelation.DISJOINT;
+                    }
+                    if (latWithin && minLon >= left && maxLon <= right) {
+                        return SpatialRelation.WITHIN;
+                    }
+                }
+                return SpatialRelation.INTERSECTS;
+            }
+        };
+    }
+
+    /**
+     * Wraps the provided field data based distance filter with a cell lookup. Note, the distance is
+     * expected in miles.
+     */
+    public static Filter distance(GeoPointFieldMapper mapper, double lat, double lon, final double distance, GeoDistance geoDistance, Filter verifyFilter) {
+        if (geoDistance == GeoDistance.FACTOR) {
+            // factor "distances" can't be used to compute the covering cells
+            return verifyFilter;
+        }
+        final GeoDistance.DistanceBoundingCheck boundingCheck = GeoDistance.distanceBoundingCheck(lat, lon, distance, DistanceUnit.MILES);
+        final Point topLeft = boundingCheck.topLeft();
+        final Point bottomRight = boundingCheck.bottomRight();
+        final GeoDistance.FixedSourceDistance fixedSourceDistance = geoDistance.fixedSourceDistance(lat, lon, DistanceUnit.MILES);
+        // leaves room for the distance along a parallel being (slightly) greater than at the sampled points
+        final double withinDistance = distance * 0.99;
+        final CellRelation boundingBoxRelation = boundingBoxRelation(topLeft, bottomRight);
+        CellRelation relation = new CellRelation() {
+            @Override
+            public SpatialRelation relate(double minLat, double minLon, double maxLat, double maxLon) {
+                SpatialRelation rel = boundingBoxRelation.relate(minLat, minLon, maxLat, maxLon);
+                if (rel == SpatialRelation.DISJOINT) {
+                    return rel;
+                }
+                double midLat = (minLat + maxLat) / 2;
+                double midLon = (minLon + maxLon) / 2;
+                if (fixedSourceDistance.calculate(minLat, minLon) < withinDistance
+                        && fixedSourceDistance.calculate(minLat, maxLon) < withinDistance
+                        && fixedSourceDistance.calculate(maxLat, minLon) < withinDistance
+                        && fixedSourceDistance.calculate(maxLat, maxLon) < withinDistance
+                        && fixedSourceDistance.calculate(minLat, midLon) < withinDistance
+                        && fixedSourceDistance.calculate(maxLat, midLon) < withinDistance
+                        && fixedSourceDistance.calculate(midLat, minLon) < withinDistance
+                        && fixedSourceDistance.calculate(midLat, maxLon) < withinDistance) {
+                    return SpatialRelation.WITHIN;
+                }
+                return SpatialRelation.INTERSECTS;
+            }
+        };
+        double width = topLeft.lon > bottomRight.lon ? (180 - topLeft.lon) + (bottomRight.lon + 180) : bottomRight.lon - topLeft.lon;
+        return create(mapper, relation, new double[]{bottomRight.lat, topLeft.lon, topLeft.lat, topLeft.lon + width}, verifyFilter);
+    }
+
+    /**
+     * Wraps the provided field data based polygon filter with a cell lookup.
+     */
+    public static Filter polygon(GeoPointFieldMapper mapper, final Point[] points, Filter verifyFilter) {
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (Point point : points) {
+            minLat = Math.min(minLat, point.lat);
+            minLon = Math.min(minLon, point.lon);
+            maxLat = Math.max(maxLat, point.lat);
+            maxLon = Math.max(maxLon, point.lon);
+        }
+        final double pMinLat = minLat;
+        final double pMinLon = minLon;
+        final double pMaxLat = maxLat;
+        final double pMaxLon = maxLon;
+        CellRelation relation = new CellRelation() {
+            @Override
+            public SpatialRelation relate(double minLat, double minLon, double maxLat, double maxLon) {
+                if (minLat > pMaxLat || maxLat < pMinLat || minLon > pMaxLon || maxLon < pMinLon) {
+                    return SpatialRelation.DISJOINT;
+                }
+                int j = points.length - 1;
+                for (int i = 0; i < points.length; i++) {
+                    if (segmentIntersectsCell(points[j], points[i], minLat, minLon, maxLat, maxLon)) {
+                        return SpatialRelation.INTERSECTS;
+                    }
+                    j = i;
+                }
+                // no edge crosses the cell, so it is either fully within or fully outside the polygon
+                if (GeoPolygonFilter.GeoPolygonDocSet.pointInPolygon(points, (minLat + maxLat) / 2, (minLon + maxLon) / 2)) {
+                    return SpatialRelation.WITHIN;
+                }
+                return SpatialRelation.DISJOINT;
+            }
+        };
+        return create(mapper, relation, new double[]{minLat, minLon, maxLat, maxLon}, verifyFilter);
+    }
+
+    private static Filter create(GeoPointFieldMapper mapper, CellRelation relation, double[] bbox, Filter verifyFilter) {
+        return new GeohashCellFilter(mapper.geohashMapper().names().indexName(), mapper.geohashPrefixTree(), relation, bbox, verifyFilter);
+    }
+
+    static boolean segmentIntersectsCell(Point p1, Point p2, double minLat, double minLon, double maxLat, double maxLon) {
+        if (Math.max(p1.lat, p2.lat) < minLat || Math.min(p1.lat, p2.lat) > maxLat
+                || Math.max(p1.lon, p2.lon) < minLon || Math.min(p1.lon, p2.lon) > maxLon) {
+            return false;
+        }
+        if (pointInCell(p1, minLat, minLon, maxLat, maxLon) || pointInCell(p2, minLat, minLon, maxLat, maxLon)) {
+            return true;
+        }
+        return segmentsIntersect(p1.lon, p1.lat, p2.lon, p2.lat, minLon, minLat, maxLon, minLat)
+                || segmentsIntersect(p1.lon, p1.lat, p2.lon, p2.lat, maxLon, minLat, maxLon, maxLat)
+                || segmentsIntersect(p1.lon, p1.lat, p2.lon, p2.lat, maxLon, maxLat, minLon, maxLat)
+                || segmentsIntersect(p1.lon, p1.lat, p2.lon, p2.lat, minLon, maxLat, minLon, minLat);
+    }
+
+    private static boolean pointInCell(Point p, double minLat, double minLon, double maxLat, double maxLon) {
+        return p.lat >= minLat && p.lat <= maxLat && p.lon >= minLon && p.lon <= maxLon;
+    }
+
+    private static boolean segmentsIntersect(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+        double d1 = orientation(cx, cy, dx, dy, ax, ay);
+        double d2 = orientation(cx, cy, dx, dy, bx, by);
+        double d3 = orientation(ax, ay, bx, by, cx, cy);
+        double d4 = orientation(ax, ay, bx, by, dx, dy);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        // touching cases, treat them as intersecting to stay on the safe side
+        return (d1 == 0 && onSegment(cx, cy, dx, dy, ax, ay))
+                || (d2 == 0 && onSegment(cx, cy, dx, dy, bx, by))
+                || (d3 == 0 && onSegment(ax, ay, bx, by, cx, cy))
+                || (d4 == 0 && onSegment(ax, ay, bx, by, dx, dy));
+    }
+
+    private static boolean onSegment(double ax, double ay, double bx, double by, double cx, double cy) {
+        return Math.min(ax, bx) <= cx && cx <= Math.max(ax, bx) && Math.min(ay, by) <= cy && cy <= Math.max(ay, by);
+    }
+
+    private static double orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+}
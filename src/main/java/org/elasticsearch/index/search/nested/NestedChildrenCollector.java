@@ -20,6 +20,7 @@
 package org.elasticsearch.index.search.nested;
 
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.util.FixedBitSet;
@@ -75,7 +76,12 @@ public class NestedChildrenCollector extends FacetCollector {
         collector.setNextReader(reader, docBase);
         currentReader = reader;
         childDocs = DocSets.convert(reader, childFilter.getDocIdSet(reader));
-        parentDocs = ((FixedBitDocSet) parentFilter.getDocIdSet(reader)).set();
+        // the parent filter is not cached until it's used enough, in which case we get the bit set itself
+        DocIdSet parents = parentFilter.getDocIdSet(reader);
+        if (parents instanceof FixedBitDocSet) {
+            parents = ((FixedBitDocSet) parents).set();
+        }
+        parentDocs = (FixedBitSet) parents;
     }
 
     @Override
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.shard.service;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
 import org.apache.lucene.index.CheckIndex;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.Filter;
@@ -39,6 +40,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FastByteArrayOutputStream;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.aliases.IndexAliasesService;
 import org.elasticsearch.index.cache.IndexCache;
@@ -117,6 +119,8 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
 
     private final String checkIndexOnStartup;
 
+    private final ImmutableSet<String> preloadExtensions;
+
     private long checkIndexTook = 0;
 
     private volatile IndexShardState state;
@@ -166,6 +170,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         logger.debug("state: [CREATED]");
 
         this.checkIndexOnStartup = indexSettings.get("index.shard.check_on_startup", "false");
+        this.preloadExtensions = ImmutableSet.copyOf(indexSettings.getAsArray("index.store.preload", Strings.EMPTY_ARRAY));
     }
 
     public MergeSchedulerProvider mergeScheduler() {
@@ -277,6 +282,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
             if (Booleans.parseBoolean(checkIndexOnStartup, false)) {
                 checkIndex(true);
             }
+            preload();
             engine.start();
             startScheduledTasksIfNeeded();
             logger.debug("state: [{}]->[{}], reason [{}]", state, IndexShardState.STARTED, reason);
@@ -547,12 +553,32 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         if (Booleans.parseBoolean(checkIndexOnStartup, false)) {
             checkIndex(true);
         }
+        preload();
         // we disable deletes since we allow for operations to be executed against the shard while recovering
         // but we need to make sure we don't loose deletes until we are done recovering
         engine.enableGcDeletes(false);
         engine.start();
     }
 
+    /**
+     * Reads the files configured with <tt>index.store.preload</tt> before the engine starts, so the first
+     * searcher (and the warmers running against it) don't pay for cold disk reads.
+     */
+    private void preload() {
+        if (preloadExtensions.isEmpty()) {
+            return;
+        }
+        long time = System.nanoTime();
+        try {
+            long bytes = store.preload(preloadExtensions);
+            if (logger.isDebugEnabled()) {
+                logger.debug("preloaded [{}] of {} files, took [{}]", new ByteSizeValue(bytes), preloadExtensions, TimeValue.timeValueNanos(System.nanoTime() - time));
+            }
+        } catch (Exception e) {
+            logger.warn("failed to preload {} files", e, preloadExtensions);
+        }
+    }
+
     /**
      * The peer recovery status if this shard recovered from a peer shard.
      */
@@ -24,7 +24,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import jsr166y.ThreadLocalRandom;
 import org.apache.lucene.store.*;
+import org.apache.lucene.store.bytebuffer.ByteBufferDirectory;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.compress.CompressedIndexOutput;
@@ -34,6 +36,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Directories;
 import org.elasticsearch.common.lucene.store.BufferedChecksumIndexOutput;
 import org.elasticsearch.common.lucene.store.ChecksumIndexOutput;
+import org.elasticsearch.common.lucene.store.SwitchDirectory;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.settings.IndexSettings;
@@ -49,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.zip.Adler32;
 
 /**
@@ -81,10 +85,21 @@ public class Store extends AbstractIndexShardComponent {
 
     static final String CHECKSUMS_PREFIX = "_checksums-";
 
+    static final int PRELOAD_BUFFER_SIZE = 64 * 1024;
+
     public static final boolean isChecksum(String name) {
         return name.startsWith(CHECKSUMS_PREFIX);
     }
 
+    /**
+     * Is the checksum recorded for the (uncompressed) file computed over its content. It is computed over the stream
+     * the file was written with, which doesn't match the content of term dictionaries and compound files, as Lucene
+     * seeks back into them while writing them.
+     */
+    public static boolean isContentChecksum(String name) {
+        return !(name.endsWith(".tis") || name.endsWith(".tii") || name.endsWith(".cfs") || name.endsWith(".cfx"));
+    }
+
     private final IndexStore indexStore;
 
     private final IndexSettingsService indexSettingsService;
@@ -188,7 +203,19 @@ public class Store extends AbstractIndexShardComponent {
     }
 
     public StoreStats stats() throws IOException {
-        return new StoreStats(Directories.estimateSize(directory), directoryService.throttleTimeInNanos());
+        return new StoreStats(Directories.estimateSize(directory), directoryService.throttleTimeInNanos(), memorySizeInBytes());
+    }
+
+    private long memorySizeInBytes() {
+        long sizeInBytes = 0;
+        for (Directory delegate : directory.delegates()) {
+            if (delegate instanceof ByteBufferDirectory) {
+                sizeInBytes += ((ByteBufferDirectory) delegate).sizeInBytes();
+            } else if (delegate instanceof RAMDirectory) {
+                sizeInBytes += ((RAMDirectory) delegate).sizeInBytes();
+            }
+        }
+        return sizeInBytes;
     }
 
     public ByteSizeValue estimateSize() throws IOException {
@@ -314,6 +341,58 @@ public class Store extends AbstractIndexShardComponent {
         return metaData.directory().openInput(name);
     }
 
+    /**
+     * Sequentially reads the files with the provided extensions (all files if it contains <tt>*</tt>), so
+     * they are in the file system cache (or loaded in memory when memory mapped) before the first searches
+     * need them. Returns the number of bytes read.
+     */
+    public long preload(Set<String> extensions) throws IOException {
+        boolean all = extensions.contains("*");
+        byte[] buffer = new byte[PRELOAD_BUFFER_SIZE];
+        long total = 0;
+        for (String name : directory.listAll()) {
+            if (isChecksum(name)) {
+                continue;
+            }
+            if (!all && !extensions.contains(SwitchDirectory.getExtension(name))) {
+                continue;
+            }
+            IndexInput input;
+            try {
+                input = openInputRaw(name);
+            } catch (FileNotFoundException e) {
+                // deleted in the meantime
+                continue;
+            }
+            try {
+                long length = input.length();
+                long read = 0;
+                while (read < length) {
+                    int toRead = (int) Math.min(buffer.length, length - read);
+                    input.readBytes(buffer, 0, toRead);
+                    read += toRead;
+                }
+                total += read;
+            } finally {
+                input.close();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the file backing the given store file, or <tt>null</tt> if the file is not stored
+     * on the file system.
+     */
+    @Nullable
+    public File file(String name) {
+        StoreFileMetaData metaData = filesMetadata.get(name);
+        if (metaData == null || !(metaData.directory() instanceof FSDirectory)) {
+            return null;
+        }
+        return new File(((FSDirectory) metaData.directory()).getDirectory(), name);
+    }
+
     public void writeChecksum(String name, String checksum) throws IOException {
         // update the metadata to include the checksum and write a new checksums file
         synchronized (mutex) {
@@ -38,13 +38,20 @@ public class StoreStats implements Streamable, ToXContent {
 
     private long throttleTimeInNanos;
 
+    private long memorySizeInBytes;
+
     public StoreStats() {
 
     }
 
     public StoreStats(long sizeInBytes, long throttleTimeInNanos) {
+        this(sizeInBytes, throttleTimeInNanos, 0);
+    }
+
+    public StoreStats(long sizeInBytes, long throttleTimeInNanos, long memorySizeInBytes) {
         this.sizeInBytes = sizeInBytes;
         this.throttleTimeInNanos = throttleTimeInNanos;
+        this.memorySizeInBytes = memorySizeInBytes;
     }
 
     public void add(StoreStats stats) {
@@ -53,6 +60,7 @@ public class StoreStats implements Streamable, ToXContent {
         }
         sizeInBytes += stats.sizeInBytes;
         throttleTimeInNanos += stats.throttleTimeInNanos;
+        memorySizeInBytes += stats.memorySizeInBytes;
     }
 
 
@@ -72,6 +80,25 @@ public class StoreStats implements Streamable, ToXContent {
         return size();
     }
 
+    /**
+     * The memory allocated by in memory stores, rounded up to their buffer size.
+     */
+    public long memorySizeInBytes() {
+        return memorySizeInBytes;
+    }
+
+    public long getMemorySizeInBytes() {
+        return memorySizeInBytes;
+    }
+
+    public ByteSizeValue memorySize() {
+        return new ByteSizeValue(memorySizeInBytes);
+    }
+
+    public ByteSizeValue getMemorySize() {
+        return memorySize();
+    }
+
     public TimeValue throttleTime() {
         return TimeValue.timeValueNanos(throttleTimeInNanos);
     }
@@ -90,12 +117,14 @@ public class StoreStats implements Streamable, ToXContent {
     public void readFrom(StreamInput in) throws IOException {
         sizeInBytes = in.readVLong();
         throttleTimeInNanos = in.readVLong();
+        memorySizeInBytes = in.readVLong();
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(sizeInBytes);
         out.writeVLong(throttleTimeInNanos);
+        out.writeVLong(memorySizeInBytes);
     }
 
     @Override
@@ -103,6 +132,8 @@ public class StoreStats implements Streamable, ToXContent {
         builder.startObject(Fields.STORE);
         builder.field(Fields.SIZE, size().toString());
         builder.field(Fields.SIZE_IN_BYTES, sizeInBytes);
+        builder.field(Fields.MEMORY_SIZE, memorySize().toString());
+        builder.field(Fields.MEMORY_SIZE_IN_BYTES, memorySizeInBytes);
         builder.field(Fields.THROTTLE_TIME, throttleTime().toString());
         builder.field(Fields.THROTTLE_TIME_IN_MILLIS, throttleTime().millis());
         builder.endObject();
@@ -113,6 +144,8 @@ public class StoreStats implements Streamable, ToXContent {
         static final XContentBuilderString STORE = new XContentBuilderString("store");
         static final XContentBuilderString SIZE = new XContentBuilderString("size");
         static final XContentBuilderString SIZE_IN_BYTES = new XContentBuilderString("size_in_bytes");
+        static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
+        static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
 
         static final XContentBuilderString THROTTLE_TIME = new XContentBuilderString("throttle_time");
         static final XContentBuilderString THROTTLE_TIME_IN_MILLIS = new XContentBuilderString("throttle_time_in_millis");
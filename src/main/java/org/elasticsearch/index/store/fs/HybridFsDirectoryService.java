@@ -0,0 +1,63 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store.fs;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.XHybridFSDirectory;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.IndexStore;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A directory service that memory maps the hot files of the index (by default the term dictionary, the
+ * postings and the norms), and uses NIO for the rest (like stored fields and term vectors). The memory
+ * mapped extensions can be set using <tt>index.store.hybrid.mmap_extensions</tt>.
+ */
+public class HybridFsDirectoryService extends FsDirectoryService {
+
+    public static final String[] DEFAULT_MMAP_EXTENSIONS = new String[]{"tis", "tii", "frq", "prx", "nrm"};
+
+    private final ImmutableSet<String> mmapExtensions;
+
+    @Inject
+    public HybridFsDirectoryService(ShardId shardId, @IndexSettings Settings indexSettings, IndexStore indexStore) {
+        super(shardId, indexSettings, indexStore);
+        this.mmapExtensions = ImmutableSet.copyOf(indexSettings.getAsArray("index.store.hybrid.mmap_extensions", DEFAULT_MMAP_EXTENSIONS));
+        logger.debug("using [hybrid_fs] store, memory mapping {}", mmapExtensions);
+    }
+
+    @Override
+    public Directory[] build() throws IOException {
+        File[] locations = indexStore.shardIndexLocations(shardId);
+        Directory[] dirs = new Directory[locations.length];
+        for (int i = 0; i < dirs.length; i++) {
+            FileSystemUtils.mkdirs(locations[i]);
+            dirs[i] = new XHybridFSDirectory(locations[i], buildLockFactory(), this, this, mmapExtensions);
+        }
+        return dirs;
+    }
+}
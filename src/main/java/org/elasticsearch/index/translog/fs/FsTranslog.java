@@ -21,6 +21,8 @@ package org.elasticsearch.index.translog.fs;
 
 import jsr166y.ThreadLocalRandom;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -329,17 +331,22 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             out.flush();
 
             int size = out.size();
+            // take the bytes before seeking back to write the size, seeking moves the end of the stream,
+            // the reference shares the stream pages, so it sees the size written below
+            BytesReference ref = out.bytes();
             out.seek(0);
             out.writeInt(size - 4);
 
-            Location location = current.add(out.bytes().array(), out.bytes().arrayOffset(), size);
+            // operations usually fit in a single page, in which case this does not copy
+            BytesArray bytes = ref.toBytesArray();
+            Location location = current.add(bytes.array(), bytes.arrayOffset(), size);
             if (syncOnEachOperation) {
                 current.sync();
             }
             FsTranslogFile trans = this.trans;
             if (trans != null) {
                 try {
-                    location = trans.add(out.bytes().array(), out.bytes().arrayOffset(), size);
+                    location = trans.add(bytes.array(), bytes.arrayOffset(), size);
                 } catch (ClosedChannelException e) {
                     // ignore
                 }
@@ -0,0 +1,373 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.cache.query;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.CachedStreamInput;
+import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node level cache of shard level query phase results, for requests that are only interested in
+ * the total hits and facets (<tt>search_type=count</tt>) and executed against an index that has
+ * <tt>index.cache.query.enable</tt> set. Results are kept serialized and are keyed on the request
+ * source and the version of the shard reader they were computed against, so a refresh that changes
+ * the shard simply causes new entries to be used, with the stale ones being cleaned in the background.
+ */
+public class IndicesQueryCache extends AbstractComponent implements RemovalListener<IndicesQueryCache.Key, BytesReference> {
+
+    public static final String INDEX_CACHE_QUERY_ENABLED = "index.cache.query.enable";
+
+    private final ThreadPool threadPool;
+
+    private Cache<Key, BytesReference> cache;
+
+    private volatile String size;
+    private volatile long sizeInBytes;
+    private volatile TimeValue expire;
+
+    private final TimeValue cleanInterval;
+
+    private final ConcurrentMap<ShardId, ShardQueryCache> shards = ConcurrentCollections.newConcurrentMap();
+
+    private volatile boolean needsCleaning;
+
+    private volatile boolean closed;
+
+    static {
+        MetaData.addDynamicSettings(
+                "indices.cache.query.size",
+                "indices.cache.query.expire"
+        );
+        IndexMetaData.addDynamicSettings(
+                INDEX_CACHE_QUERY_ENABLED
+        );
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean replace = false;
+            String size = settings.get("indices.cache.query.size", IndicesQueryCache.this.size);
+            if (!size.equals(IndicesQueryCache.this.size)) {
+                logger.info("updating [indices.cache.query.size] from [{}] to [{}]", IndicesQueryCache.this.size, size);
+                IndicesQueryCache.this.size = size;
+                replace = true;
+            }
+            TimeValue expire = settings.getAsTime("indices.cache.query.expire", IndicesQueryCache.this.expire);
+            if (!Objects.equal(expire, IndicesQueryCache.this.expire)) {
+                logger.info("updating [indices.cache.query.expire] from [{}] to [{}]", IndicesQueryCache.this.expire, expire);
+                IndicesQueryCache.this.expire = expire;
+                replace = true;
+            }
+            if (replace) {
+                Cache<Key, BytesReference> oldCache = IndicesQueryCache.this.cache;
+                computeSizeInBytes();
+                buildCache();
+                oldCache.invalidateAll();
+            }
+        }
+    }
+
+    @Inject
+    public IndicesQueryCache(Settings settings, ThreadPool threadPool, NodeSettingsService nodeSettingsService, IndicesLifecycle indicesLifecycle) {
+        super(settings);
+        this.threadPool = threadPool;
+        this.size = componentSettings.get("size", "1%");
+        this.expire = componentSettings.getAsTime("expire", null);
+        this.cleanInterval = componentSettings.getAsTime("clean_interval", TimeValue.timeValueSeconds(1));
+        computeSizeInBytes();
+        buildCache();
+        logger.debug("using [node] query cache with size [{}], actual_size [{}]", size, new ByteSizeValue(sizeInBytes));
+
+        nodeSettingsService.addListener(new ApplySettings());
+        indicesLifecycle.addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void afterIndexShardClosed(ShardId shardId, boolean delete) {
+                if (shards.remove(shardId) != null) {
+                    needsCleaning = true;
+                }
+            }
+        });
+
+        threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, new Cleaner());
+    }
+
+    private void buildCache() {
+        CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.newBuilder()
+                .removalListener(this)
+                .maximumWeight(sizeInBytes).weigher(new QueryCacheWeigher());
+
+        // defaults to 4, but this is a busy map for all indices, increase it a bit
+        cacheBuilder.concurrencyLevel(16);
+
+        if (expire != null) {
+            cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        cache = cacheBuilder.build();
+    }
+
+    private void computeSizeInBytes() {
+        if (size.endsWith("%")) {
+            double percent = Double.parseDouble(size.substring(0, size.length() - 1));
+            sizeInBytes = (long) ((percent / 100) * JvmInfo.jvmInfo().getMem().getHeapMax().bytes());
+        } else {
+            sizeInBytes = ByteSizeValue.parseBytesSizeValue(size).bytes();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Can the shard level query phase of the provided request be cached. Only count requests without
+     * a scroll are cached, and only when the index has enabled it.
+     */
+    public boolean canCache(ShardSearchRequest request, @Nullable IndexMetaData indexMetaData) {
+        if (indexMetaData == null || !indexMetaData.settings().getAsBoolean(INDEX_CACHE_QUERY_ENABLED, false)) {
+            return false;
+        }
+        return request.searchType() == SearchType.COUNT && request.scroll() == null;
+    }
+
+    /**
+     * Returns the cached result of the request executed against the provided shard reader version,
+     * or <tt>null</tt> if it has not been cached.
+     */
+    @Nullable
+    public QuerySearchResult get(ShardId shardId, long readerVersion, ShardSearchRequest request) throws ElasticSearchException {
+        ShardQueryCache shardCache = shardCache(shardId, readerVersion);
+        BytesReference value = cache.getIfPresent(new Key(shardId, readerVersion, requestBytes(request)));
+        if (value == null) {
+            shardCache.missCount.inc();
+            return null;
+        }
+        shardCache.hitCount.inc();
+        try {
+            return QuerySearchResult.readQuerySearchResult(CachedStreamInput.cachedHandles(value.streamInput()));
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to read cached query result", e);
+        }
+    }
+
+    public void put(ShardId shardId, long readerVersion, ShardSearchRequest request, QuerySearchResult result) throws ElasticSearchException {
+        BytesReference value;
+        CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
+        try {
+            StreamOutput out = cachedEntry.handles();
+            result.writeTo(out);
+            out.close();
+            value = cachedEntry.bytes().bytes().copyBytesArray();
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to cache query result", e);
+        } finally {
+            CachedStreamOutput.pushEntry(cachedEntry);
+        }
+        Key key = new Key(shardId, readerVersion, requestBytes(request));
+        shardCache(shardId, readerVersion).memorySize.inc(key.ramBytesUsed() + value.length());
+        cache.put(key, value);
+    }
+
+    public QueryCacheStats stats(ShardId shardId) {
+        ShardQueryCache shardCache = shards.get(shardId);
+        if (shardCache == null) {
+            return new QueryCacheStats();
+        }
+        return new QueryCacheStats(shardCache.memorySize.count(), shardCache.evictions.count(), shardCache.hitCount.count(), shardCache.missCount.count());
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> removalNotification) {
+        Key key = removalNotification.getKey();
+        if (key == null || removalNotification.getValue() == null) {
+            return;
+        }
+        ShardQueryCache shardCache = shards.get(key.shardId);
+        if (shardCache == null) {
+            return;
+        }
+        shardCache.memorySize.dec(key.ramBytesUsed() + removalNotification.getValue().length());
+        if (removalNotification.wasEvicted()) {
+            shardCache.evictions.inc();
+        }
+    }
+
+    private ShardQueryCache shardCache(ShardId shardId, long readerVersion) {
+        ShardQueryCache shardCache = shards.get(shardId);
+        if (shardCache == null) {
+            shardCache = new ShardQueryCache();
+            ShardQueryCache existing = shards.putIfAbsent(shardId, shardCache);
+            if (existing != null) {
+                shardCache = existing;
+            }
+        }
+        if (readerVersion > shardCache.readerVersion) {
+            // the shard has been refreshed, entries computed against older readers will never be used again
+            synchronized (shardCache) {
+                if (readerVersion > shardCache.readerVersion) {
+                    if (shardCache.readerVersion != -1) {
+                        needsCleaning = true;
+                    }
+                    shardCache.readerVersion = readerVersion;
+                }
+            }
+        }
+        return shardCache;
+    }
+
+    private BytesReference requestBytes(ShardSearchRequest request) throws ElasticSearchException {
+        CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
+        try {
+            StreamOutput out = cachedEntry.bytes();
+            out.writeBytesReference(request.source());
+            out.writeBytesReference(request.extraSource());
+            out.writeStringArray(request.types());
+            out.writeStringArrayNullable(request.filteringAliases());
+            return cachedEntry.bytes().bytes().copyBytesArray();
+        } catch (IOException e) {
+            throw new ElasticSearchException("failed to build query cache key", e);
+        } finally {
+            CachedStreamOutput.pushEntry(cachedEntry);
+        }
+    }
+
+    static class ShardQueryCache {
+        final CounterMetric memorySize = new CounterMetric();
+        final CounterMetric evictions = new CounterMetric();
+        final CounterMetric hitCount = new CounterMetric();
+        final CounterMetric missCount = new CounterMetric();
+        volatile long readerVersion = -1;
+    }
+
+    public static class Key {
+        final ShardId shardId;
+        final long readerVersion;
+        final BytesReference value;
+
+        Key(ShardId shardId, long readerVersion, BytesReference value) {
+            this.shardId = shardId;
+            this.readerVersion = readerVersion;
+            this.value = value;
+        }
+
+        long ramBytesUsed() {
+            // the request bytes, plus the object overhead of the key itself
+            return value.length() + 32;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            Key key = (Key) o;
+            if (readerVersion != key.readerVersion) return false;
+            if (!shardId.equals(key.shardId)) return false;
+            if (!value.equals(key.value)) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shardId.hashCode();
+            result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            result = 31 * result + value.hashCode();
+            return result;
+        }
+    }
+
+    static class QueryCacheWeigher implements Weigher<Key, BytesReference> {
+
+        @Override
+        public int weigh(Key key, BytesReference value) {
+            return (int) (key.ramBytesUsed() + value.length());
+        }
+    }
+
+    /**
+     * Removes entries that were computed against readers that are no longer the current one of their
+     * shard, or against shards that were closed. Done in the background since it requires iterating
+     * over all the entries.
+     */
+    class Cleaner implements Runnable {
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            if (!needsCleaning) {
+                threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, this);
+                return;
+            }
+            needsCleaning = false;
+            threadPool.executor(ThreadPool.Names.GENERIC).execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (Iterator<Key> it = cache.asMap().keySet().iterator(); it.hasNext(); ) {
+                            Key key = it.next();
+                            ShardQueryCache shardCache = shards.get(key.shardId);
+                            if (shardCache == null || key.readerVersion < shardCache.readerVersion) {
+                                // same as invalidate
+                                it.remove();
+                            }
+                        }
+                        cache.cleanUp();
+                    } finally {
+                        threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, Cleaner.this);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -25,14 +25,19 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.FileChunkTransportRequest;
 import org.elasticsearch.transport.TransportRequest;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  *
  */
-class RecoveryFileChunkRequest extends TransportRequest {
+class RecoveryFileChunkRequest extends TransportRequest implements FileChunkTransportRequest {
 
     private long recoveryId;
     private ShardId shardId;
@@ -40,19 +45,38 @@ class RecoveryFileChunkRequest extends TransportRequest {
     private long position;
     private long length;
     private String checksum;
+    private boolean verifyChecksum;
     private BytesReference content;
 
+    // when sending straight from the store file, the content is not loaded
+    private File file;
+    private int chunkLength;
+
     RecoveryFileChunkRequest() {
     }
 
-    RecoveryFileChunkRequest(long recoveryId, ShardId shardId, String name, long position, long length, String checksum, BytesArray content) {
+    RecoveryFileChunkRequest(long recoveryId, ShardId shardId, String name, long position, long length, String checksum, boolean verifyChecksum, BytesArray content) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
         this.name = name;
         this.position = position;
         this.length = length;
         this.checksum = checksum;
+        this.verifyChecksum = verifyChecksum;
         this.content = content;
+        this.chunkLength = content.length();
+    }
+
+    RecoveryFileChunkRequest(long recoveryId, ShardId shardId, String name, long position, long length, String checksum, boolean verifyChecksum, File file, int chunkLength) {
+        this.recoveryId = recoveryId;
+        this.shardId = shardId;
+        this.name = name;
+        this.position = position;
+        this.length = length;
+        this.checksum = checksum;
+        this.verifyChecksum = verifyChecksum;
+        this.file = file;
+        this.chunkLength = chunkLength;
     }
 
     public long recoveryId() {
@@ -80,10 +104,32 @@ class RecoveryFileChunkRequest extends TransportRequest {
         return length;
     }
 
+    /**
+     * Can the file content be verified against its {@link #checksum()}.
+     */
+    public boolean verifyChecksum() {
+        return verifyChecksum;
+    }
+
     public BytesReference content() {
         return content;
     }
 
+    @Override
+    public File chunkFile() {
+        return content == null ? file : null;
+    }
+
+    @Override
+    public long chunkFilePosition() {
+        return position;
+    }
+
+    @Override
+    public int chunkLength() {
+        return chunkLength;
+    }
+
     public RecoveryFileChunkRequest readFileChunk(StreamInput in) throws IOException {
         RecoveryFileChunkRequest request = new RecoveryFileChunkRequest();
         request.readFrom(in);
@@ -99,11 +145,51 @@ class RecoveryFileChunkRequest extends TransportRequest {
         position = in.readVLong();
         length = in.readVLong();
         checksum = in.readOptionalString();
+        verifyChecksum = in.readBoolean();
         content = in.readBytesReference();
+        chunkLength = content.length();
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        if (content != null) {
+            writeToWithoutContent(out);
+            out.writeBytesReference(content);
+            return;
+        }
+        writeToWithoutChunk(out);
+        if (chunkLength == 0) {
+            return;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(Math.min(chunkLength, 8192));
+            long filePosition = position;
+            int remaining = chunkLength;
+            while (remaining > 0) {
+                buffer.clear();
+                buffer.limit(Math.min(remaining, buffer.capacity()));
+                int read = channel.read(buffer, filePosition);
+                if (read < 0) {
+                    throw new IOException("unexpected end of file [" + file + "] at position [" + filePosition + "]");
+                }
+                out.writeBytes(buffer.array(), 0, read);
+                filePosition += read;
+                remaining -= read;
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Override
+    public void writeToWithoutChunk(StreamOutput out) throws IOException {
+        writeToWithoutContent(out);
+        out.writeVInt(chunkLength);
+    }
+
+    private void writeToWithoutContent(StreamOutput out) throws IOException {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
@@ -111,7 +197,7 @@ class RecoveryFileChunkRequest extends TransportRequest {
         out.writeVLong(position);
         out.writeVLong(length);
         out.writeOptionalString(checksum);
-        out.writeBytesReference(content);
+        out.writeBoolean(verifyChecksum);
     }
 
     @Override
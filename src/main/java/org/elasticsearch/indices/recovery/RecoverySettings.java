@@ -42,6 +42,7 @@ public class RecoverySettings extends AbstractComponent {
         MetaData.addDynamicSettings("indices.recovery.translog_ops");
         MetaData.addDynamicSettings("indices.recovery.translog_size");
         MetaData.addDynamicSettings("indices.recovery.compress");
+        MetaData.addDynamicSettings("indices.recovery.checksum");
         MetaData.addDynamicSettings("indices.recovery.concurrent_streams");
         MetaData.addDynamicSettings("indices.recovery.max_size_per_sec");
     }
@@ -49,6 +50,7 @@ public class RecoverySettings extends AbstractComponent {
     private volatile ByteSizeValue fileChunkSize;
 
     private volatile boolean compress;
+    private volatile boolean checksum;
     private volatile int translogOps;
     private volatile ByteSizeValue translogSize;
 
@@ -66,6 +68,7 @@ public class RecoverySettings extends AbstractComponent {
         this.translogOps = componentSettings.getAsInt("translog_ops", settings.getAsInt("index.shard.recovery.translog_ops", 1000));
         this.translogSize = componentSettings.getAsBytesSize("translog_size", settings.getAsBytesSize("index.shard.recovery.translog_size", new ByteSizeValue(512, ByteSizeUnit.KB)));
         this.compress = componentSettings.getAsBoolean("compress", true);
+        this.checksum = componentSettings.getAsBoolean("checksum", true);
 
         this.concurrentStreams = componentSettings.getAsInt("concurrent_streams", settings.getAsInt("index.shard.recovery.concurrent_streams", 3));
         this.concurrentStreamPool = EsExecutors.newScalingExecutorService(0, concurrentStreams, 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[recovery_stream]"));
@@ -77,8 +80,8 @@ public class RecoverySettings extends AbstractComponent {
             rateLimiter = new RateLimiter(maxSizePerSec.mbFrac());
         }
 
-        logger.debug("using max_size_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
-                maxSizePerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, compress);
+        logger.debug("using max_size_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], checksum [{}], and compress [{}]",
+                maxSizePerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, checksum, compress);
 
         nodeSettingsService.addListener(new ApplySettings());
     }
@@ -101,6 +104,15 @@ public class RecoverySettings extends AbstractComponent {
         return compress;
     }
 
+    /**
+     * Should recovered files be verified against the checksums recorded when they were written, failing the
+     * recovery of a file whose content doesn't match (corrupted on the source store, or on its way). Defaults
+     * to <tt>true</tt>. Files whose recorded checksum is not computed over their content are not verified.
+     */
+    public boolean checksum() {
+        return checksum;
+    }
+
     public int translogOps() {
         return translogOps;
     }
@@ -161,6 +173,12 @@ public class RecoverySettings extends AbstractComponent {
                 RecoverySettings.this.compress = compress;
             }
 
+            boolean checksum = settings.getAsBoolean("indices.recovery.checksum", RecoverySettings.this.checksum);
+            if (checksum != RecoverySettings.this.checksum) {
+                logger.info("updating [indices.recovery.checksum] from [{}] to [{}]", RecoverySettings.this.checksum, checksum);
+                RecoverySettings.this.checksum = checksum;
+            }
+
             int concurrentStreams = settings.getAsInt("indices.recovery.concurrent_streams", RecoverySettings.this.concurrentStreams);
             if (concurrentStreams != RecoverySettings.this.concurrentStreams) {
                 logger.info("updating [indices.recovery.concurrent_streams] from [{}] to [{}]", RecoverySettings.this.concurrentStreams, concurrentStreams);
@@ -36,12 +36,14 @@ import org.elasticsearch.index.shard.IllegalIndexShardStateException;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
@@ -133,14 +135,21 @@ public class RecoverySource extends AbstractComponent {
                                 IndexInput indexInput = null;
                                 try {
                                     final int BUFFER_SIZE = (int) recoverySettings.fileChunkSize().bytes();
-                                    byte[] buf = new byte[BUFFER_SIZE];
+                                    byte[] buf = null;
                                     StoreFileMetaData md = shard.store().metaData(name);
                                     indexInput = shard.store().openInputRaw(name);
+                                    boolean compressed = CompressorFactory.isCompressed(indexInput);
                                     boolean shouldCompressRequest = recoverySettings.compress();
-                                    if (CompressorFactory.isCompressed(indexInput)) {
+                                    if (compressed) {
                                         shouldCompressRequest = false;
                                     }
 
+                                    // the checksum of compressed files is computed over the compressed stream, which is written with a seek
+                                    boolean verifyChecksum = md.checksum() != null && !compressed && Store.isContentChecksum(name);
+
+                                    // uncompressed chunks can be sent by the transport straight from the file
+                                    File file = shouldCompressRequest ? null : shard.store().file(name);
+
                                     long len = indexInput.length();
                                     long readCount = 0;
                                     while (readCount < len) {
@@ -154,9 +163,18 @@ public class RecoverySource extends AbstractComponent {
                                             recoverySettings.rateLimiter().pause(toRead);
                                         }
 
-                                        indexInput.readBytes(buf, 0, toRead, false);
-                                        BytesArray content = new BytesArray(buf, 0, toRead);
-                                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), content),
+                                        RecoveryFileChunkRequest chunkRequest;
+                                        if (file != null) {
+                                            chunkRequest = new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), verifyChecksum, file, toRead);
+                                            indexInput.seek(position + toRead);
+                                        } else {
+                                            if (buf == null) {
+                                                buf = new byte[BUFFER_SIZE];
+                                            }
+                                            indexInput.readBytes(buf, 0, toRead, false);
+                                            chunkRequest = new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), verifyChecksum, new BytesArray(buf, 0, toRead));
+                                        }
+                                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, chunkRequest,
                                                 TransportRequestOptions.options().withCompress(shouldCompressRequest).withLowType(), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
                                         readCount += toRead;
                                     }
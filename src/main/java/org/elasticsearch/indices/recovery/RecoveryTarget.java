@@ -20,6 +20,7 @@
 package org.elasticsearch.indices.recovery;
 
 import com.google.common.collect.Sets;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.ExceptionsHelper;
@@ -28,6 +29,7 @@ import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.store.BufferedChecksumIndexOutput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
@@ -50,6 +52,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.Adler32;
 
 import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
 
@@ -605,6 +608,10 @@ public class RecoveryTarget extends AbstractComponent {
                 }
 
                 indexOutput = store.createOutputRaw(name);
+                if (request.verifyChecksum() && recoverySettings.checksum()) {
+                    // computes the checksum of the content the same way it was computed when the file was written
+                    indexOutput = new BufferedChecksumIndexOutput(indexOutput, new Adler32());
+                }
 
                 onGoingRecovery.openIndexOutputs.put(request.name(), indexOutput);
             } else {
@@ -628,6 +635,12 @@ public class RecoveryTarget extends AbstractComponent {
                     if (indexOutput.getFilePointer() == request.length()) {
                         // we are done
                         indexOutput.close();
+                        if (indexOutput instanceof BufferedChecksumIndexOutput) {
+                            String checksum = Long.toString(((BufferedChecksumIndexOutput) indexOutput).digest().getValue(), Character.MAX_RADIX);
+                            if (!checksum.equals(request.checksum())) {
+                                throw new CorruptIndexException("checksum failed for recovered file [" + request.name() + "], expected [" + request.checksum() + "] but got [" + checksum + "]");
+                            }
+                        }
                         // write the checksum
                         if (request.checksum() != null) {
                             onGoingRecovery.checksums.put(request.name(), request.checksum());
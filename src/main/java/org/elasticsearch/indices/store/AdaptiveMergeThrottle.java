@@ -0,0 +1,143 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.store;
+
+import org.apache.lucene.store.StoreRateLimiting;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Adjusts the node wide merge IO throttle based on the indexing and search pressure. The rate is increased
+ * when merges fall behind (the segment count keeps growing while merges are running), and decreased when
+ * the search latency or the disk queue goes above their targets. Search pressure wins when both happen,
+ * and the rate always stays between the configured min and max.
+ */
+public class AdaptiveMergeThrottle {
+
+    static final double INCREASE_FACTOR = 1.25;
+    static final double DECREASE_FACTOR = 0.75;
+
+    private final ESLogger logger;
+
+    private final StoreRateLimiting rateLimiting;
+
+    private volatile long minBytesPerSec;
+    private volatile long maxBytesPerSec;
+    private volatile TimeValue searchLatency;
+    private volatile double diskQueue;
+
+    private long bytesPerSec;
+
+    private long lastSegments = -1;
+    private long lastQueryCount = -1;
+    private long lastQueryTimeInMillis = -1;
+
+    public AdaptiveMergeThrottle(ESLogger logger, StoreRateLimiting rateLimiting, ByteSizeValue minRate, ByteSizeValue maxRate,
+                                 TimeValue searchLatency, double diskQueue) {
+        this.logger = logger;
+        this.rateLimiting = rateLimiting;
+        this.minBytesPerSec = minRate.bytes();
+        this.maxBytesPerSec = maxRate.bytes();
+        this.searchLatency = searchLatency;
+        this.diskQueue = diskQueue;
+    }
+
+    public void minRate(ByteSizeValue minRate) {
+        this.minBytesPerSec = minRate.bytes();
+    }
+
+    public void maxRate(ByteSizeValue maxRate) {
+        this.maxBytesPerSec = maxRate.bytes();
+    }
+
+    public void searchLatency(TimeValue searchLatency) {
+        this.searchLatency = searchLatency;
+    }
+
+    public void diskQueue(double diskQueue) {
+        this.diskQueue = diskQueue;
+    }
+
+    /**
+     * The rate (bytes per second) currently applied.
+     */
+    public synchronized long rate() {
+        return bytesPerSec;
+    }
+
+    /**
+     * Starts (or restarts) adjusting from the provided rate, forgetting previous samples.
+     */
+    public synchronized void reset(ByteSizeValue initialRate) {
+        bytesPerSec = clamp(initialRate.bytes() > 0 ? initialRate.bytes() : maxBytesPerSec);
+        lastSegments = -1;
+        lastQueryCount = -1;
+        lastQueryTimeInMillis = -1;
+        rateLimiting.setMaxRate(new ByteSizeValue(bytesPerSec));
+    }
+
+    /**
+     * Adjusts the rate based on a new sample of the node state.
+     *
+     * @param segments          the total number of segments of the shards on the node
+     * @param currentMerges     the number of merges currently running on the node
+     * @param queryCount        the total number of search queries executed on the node
+     * @param queryTimeInMillis the total time spent executing search queries on the node
+     * @param diskQueue         the current disk queue depth, <tt>-1</tt> if not available
+     * @return the new rate, in bytes per second
+     */
+    public synchronized long adjust(long segments, long currentMerges, long queryCount, long queryTimeInMillis, double diskQueue) {
+        boolean searchPressure = false;
+        long queryCountDelta = queryCount - lastQueryCount;
+        // shards moving off the node can make the totals go down, skip the sample in that case
+        if (lastQueryCount != -1 && queryCountDelta > 0 && queryTimeInMillis >= lastQueryTimeInMillis) {
+            long latency = (queryTimeInMillis - lastQueryTimeInMillis) / queryCountDelta;
+            searchPressure = latency > searchLatency.millis();
+        }
+        boolean diskPressure = this.diskQueue > 0 && diskQueue > this.diskQueue;
+        boolean mergesBehind = currentMerges > 0 && lastSegments != -1 && segments > lastSegments;
+
+        lastSegments = segments;
+        lastQueryCount = queryCount;
+        lastQueryTimeInMillis = queryTimeInMillis;
+
+        long rate = bytesPerSec;
+        if (searchPressure || diskPressure) {
+            rate = (long) (rate * DECREASE_FACTOR);
+        } else if (mergesBehind) {
+            rate = (long) (rate * INCREASE_FACTOR);
+        }
+        rate = clamp(rate);
+        if (rate != bytesPerSec) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("adjusting merge throttle from [{}] to [{}], search_pressure [{}], disk_pressure [{}], merges_behind [{}]",
+                        new ByteSizeValue(bytesPerSec), new ByteSizeValue(rate), searchPressure, diskPressure, mergesBehind);
+            }
+            bytesPerSec = rate;
+            rateLimiting.setMaxRate(new ByteSizeValue(rate));
+        }
+        return rate;
+    }
+
+    private long clamp(long rate) {
+        return Math.max(minBytesPerSec, Math.min(maxBytesPerSec, rate));
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices.store;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.StoreRateLimiting;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterService;
@@ -29,15 +30,24 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.monitor.fs.FsStats;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.File;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  *
@@ -47,7 +57,13 @@ public class IndicesStore extends AbstractComponent implements ClusterStateListe
     static {
         MetaData.addDynamicSettings(
                 "indices.store.throttle.type",
-                "indices.store.throttle.max_bytes_per_sec"
+                "indices.store.throttle.max_bytes_per_sec",
+                "indices.store.throttle.small_merge_size",
+                "indices.store.throttle.adaptive",
+                "indices.store.throttle.adaptive.min_bytes_per_sec",
+                "indices.store.throttle.adaptive.max_bytes_per_sec",
+                "indices.store.throttle.adaptive.search_latency",
+                "indices.store.throttle.adaptive.disk_queue"
         );
     }
 
@@ -60,14 +76,59 @@ public class IndicesStore extends AbstractComponent implements ClusterStateListe
             if (!rateLimitingType.equals(IndicesStore.this.rateLimitingType)) {
                 logger.info("updating indices.store.throttle.type from [{}] to [{}]", IndicesStore.this.rateLimitingType, rateLimitingType);
                 IndicesStore.this.rateLimitingType = rateLimitingType;
-                IndicesStore.this.rateLimiting.setType(rateLimitingType);
+                applyRateLimitingType();
             }
 
             ByteSizeValue rateLimitingThrottle = settings.getAsBytesSize("indices.store.throttle.max_bytes_per_sec", IndicesStore.this.rateLimitingThrottle);
             if (!rateLimitingThrottle.equals(IndicesStore.this.rateLimitingThrottle)) {
                 logger.info("updating indices.store.throttle.max_bytes_per_sec from [{}] to [{}], note, type is [{}]", IndicesStore.this.rateLimitingThrottle, rateLimitingThrottle, IndicesStore.this.rateLimitingType);
                 IndicesStore.this.rateLimitingThrottle = rateLimitingThrottle;
-                IndicesStore.this.rateLimiting.setMaxRate(rateLimitingThrottle);
+                if (!IndicesStore.this.adaptiveThrottle) {
+                    IndicesStore.this.rateLimiting.setMaxRate(rateLimitingThrottle);
+                }
+            }
+
+            ByteSizeValue smallMergeSize = settings.getAsBytesSize("indices.store.throttle.small_merge_size", IndicesStore.this.rateLimiting.getSmallMergeSize());
+            if (!smallMergeSize.equals(IndicesStore.this.rateLimiting.getSmallMergeSize())) {
+                logger.info("updating indices.store.throttle.small_merge_size from [{}] to [{}]", IndicesStore.this.rateLimiting.getSmallMergeSize(), smallMergeSize);
+                IndicesStore.this.rateLimiting.setSmallMergeSize(smallMergeSize);
+            }
+
+            ByteSizeValue minRate = settings.getAsBytesSize("indices.store.throttle.adaptive.min_bytes_per_sec", IndicesStore.this.adaptiveMinRate);
+            if (!minRate.equals(IndicesStore.this.adaptiveMinRate)) {
+                logger.info("updating indices.store.throttle.adaptive.min_bytes_per_sec from [{}] to [{}]", IndicesStore.this.adaptiveMinRate, minRate);
+                IndicesStore.this.adaptiveMinRate = minRate;
+                IndicesStore.this.adaptiveMergeThrottle.minRate(minRate);
+            }
+            ByteSizeValue maxRate = settings.getAsBytesSize("indices.store.throttle.adaptive.max_bytes_per_sec", IndicesStore.this.adaptiveMaxRate);
+            if (!maxRate.equals(IndicesStore.this.adaptiveMaxRate)) {
+                logger.info("updating indices.store.throttle.adaptive.max_bytes_per_sec from [{}] to [{}]", IndicesStore.this.adaptiveMaxRate, maxRate);
+                IndicesStore.this.adaptiveMaxRate = maxRate;
+                IndicesStore.this.adaptiveMergeThrottle.maxRate(maxRate);
+            }
+            TimeValue searchLatency = settings.getAsTime("indices.store.throttle.adaptive.search_latency", IndicesStore.this.adaptiveSearchLatency);
+            if (!searchLatency.equals(IndicesStore.this.adaptiveSearchLatency)) {
+                logger.info("updating indices.store.throttle.adaptive.search_latency from [{}] to [{}]", IndicesStore.this.adaptiveSearchLatency, searchLatency);
+                IndicesStore.this.adaptiveSearchLatency = searchLatency;
+                IndicesStore.this.adaptiveMergeThrottle.searchLatency(searchLatency);
+            }
+            double diskQueue = settings.getAsDouble("indices.store.throttle.adaptive.disk_queue", IndicesStore.this.adaptiveDiskQueue);
+            if (diskQueue != IndicesStore.this.adaptiveDiskQueue) {
+                logger.info("updating indices.store.throttle.adaptive.disk_queue from [{}] to [{}]", IndicesStore.this.adaptiveDiskQueue, diskQueue);
+                IndicesStore.this.adaptiveDiskQueue = diskQueue;
+                IndicesStore.this.adaptiveMergeThrottle.diskQueue(diskQueue);
+            }
+
+            boolean adaptiveThrottle = settings.getAsBoolean("indices.store.throttle.adaptive", IndicesStore.this.adaptiveThrottle);
+            if (adaptiveThrottle != IndicesStore.this.adaptiveThrottle) {
+                logger.info("updating indices.store.throttle.adaptive from [{}] to [{}]", IndicesStore.this.adaptiveThrottle, adaptiveThrottle);
+                IndicesStore.this.adaptiveThrottle = adaptiveThrottle;
+                applyRateLimitingType();
+                if (adaptiveThrottle) {
+                    IndicesStore.this.adaptiveMergeThrottle.reset(IndicesStore.this.rateLimitingThrottle);
+                } else {
+                    IndicesStore.this.rateLimiting.setMaxRate(IndicesStore.this.rateLimitingThrottle);
+                }
             }
         }
     }
@@ -83,27 +144,56 @@ public class IndicesStore extends AbstractComponent implements ClusterStateListe
 
     private final ThreadPool threadPool;
 
+    private final FsService fsService;
+
     private volatile String rateLimitingType;
     private volatile ByteSizeValue rateLimitingThrottle;
     private final StoreRateLimiting rateLimiting = new StoreRateLimiting();
 
+    private volatile boolean adaptiveThrottle;
+    private volatile ByteSizeValue adaptiveMinRate;
+    private volatile ByteSizeValue adaptiveMaxRate;
+    private volatile TimeValue adaptiveSearchLatency;
+    private volatile double adaptiveDiskQueue;
+    private final AdaptiveMergeThrottle adaptiveMergeThrottle;
+    private final ScheduledFuture<?> adaptiveThrottleFuture;
+
     private final ApplySettings applySettings = new ApplySettings();
 
     @Inject
-    public IndicesStore(Settings settings, NodeEnvironment nodeEnv, NodeSettingsService nodeSettingsService, IndicesService indicesService, ClusterService clusterService, ThreadPool threadPool) {
+    public IndicesStore(Settings settings, NodeEnvironment nodeEnv, NodeSettingsService nodeSettingsService, IndicesService indicesService, ClusterService clusterService, ThreadPool threadPool,
+                        FsService fsService) {
         super(settings);
         this.nodeEnv = nodeEnv;
         this.nodeSettingsService = nodeSettingsService;
         this.indicesService = indicesService;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
+        this.fsService = fsService;
 
         this.rateLimitingType = componentSettings.get("throttle.type", "none");
-        rateLimiting.setType(rateLimitingType);
         this.rateLimitingThrottle = componentSettings.getAsBytesSize("throttle.max_bytes_per_sec", new ByteSizeValue(0));
-        rateLimiting.setMaxRate(rateLimitingThrottle);
+        rateLimiting.setSmallMergeSize(componentSettings.getAsBytesSize("throttle.small_merge_size", new ByteSizeValue(5, ByteSizeUnit.MB)));
+
+        this.adaptiveThrottle = componentSettings.getAsBoolean("throttle.adaptive", false);
+        this.adaptiveMinRate = componentSettings.getAsBytesSize("throttle.adaptive.min_bytes_per_sec", new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.adaptiveMaxRate = componentSettings.getAsBytesSize("throttle.adaptive.max_bytes_per_sec", new ByteSizeValue(100, ByteSizeUnit.MB));
+        this.adaptiveSearchLatency = componentSettings.getAsTime("throttle.adaptive.search_latency", TimeValue.timeValueMillis(100));
+        this.adaptiveDiskQueue = componentSettings.getAsDouble("throttle.adaptive.disk_queue", 4.0);
+        this.adaptiveMergeThrottle = new AdaptiveMergeThrottle(logger, rateLimiting, adaptiveMinRate, adaptiveMaxRate, adaptiveSearchLatency, adaptiveDiskQueue);
+
+        applyRateLimitingType();
+        if (adaptiveThrottle) {
+            adaptiveMergeThrottle.reset(rateLimitingThrottle);
+        } else {
+            rateLimiting.setMaxRate(rateLimitingThrottle);
+        }
+
+        logger.debug("using indices.store.throttle.type [{}], with index.store.throttle.max_bytes_per_sec [{}], adaptive [{}]", rateLimitingType, rateLimitingThrottle, adaptiveThrottle);
 
-        logger.debug("using indices.store.throttle.type [{}], with index.store.throttle.max_bytes_per_sec [{}]", rateLimitingType, rateLimitingThrottle);
+        // always scheduled, so the adaptive throttle can be enabled dynamically
+        TimeValue adaptiveInterval = componentSettings.getAsTime("throttle.adaptive.interval", TimeValue.timeValueSeconds(1));
+        this.adaptiveThrottleFuture = threadPool.scheduleWithFixedDelay(new AdaptiveThrottler(), adaptiveInterval);
 
         nodeSettingsService.addListener(applySettings);
         clusterService.addLast(this);
@@ -114,10 +204,61 @@ public class IndicesStore extends AbstractComponent implements ClusterStateListe
     }
 
     public void close() {
+        adaptiveThrottleFuture.cancel(false);
         nodeSettingsService.removeListener(applySettings);
         clusterService.remove(this);
     }
 
+    private void applyRateLimitingType() {
+        // the adaptive throttle controls merges, so make sure they are throttled
+        if (adaptiveThrottle && StoreRateLimiting.Type.fromString(rateLimitingType) == StoreRateLimiting.Type.NONE) {
+            rateLimiting.setType(StoreRateLimiting.Type.MERGE);
+        } else {
+            rateLimiting.setType(rateLimitingType);
+        }
+    }
+
+    class AdaptiveThrottler implements Runnable {
+        @Override
+        public void run() {
+            if (!adaptiveThrottle) {
+                return;
+            }
+            long segments = 0;
+            long currentMerges = 0;
+            long queryCount = 0;
+            long queryTimeInMillis = 0;
+            for (IndexService indexService : indicesService) {
+                for (IndexShard indexShard : indexService) {
+                    if (indexShard.state() != IndexShardState.STARTED) {
+                        continue;
+                    }
+                    try {
+                        currentMerges += indexShard.mergeStats().current();
+                        SearchStats.Stats searchStats = indexShard.searchStats().total();
+                        queryCount += searchStats.queryCount();
+                        queryTimeInMillis += searchStats.queryTimeInMillis();
+                        Engine.Searcher searcher = indexShard.searcher();
+                        try {
+                            IndexReader[] subReaders = searcher.reader().getSequentialSubReaders();
+                            segments += subReaders == null ? 1 : subReaders.length;
+                        } finally {
+                            searcher.release();
+                        }
+                    } catch (Exception e) {
+                        // the shard is probably closing, ignore it
+                        logger.trace("{} failed to sample shard for adaptive throttling", e, indexShard.shardId());
+                    }
+                }
+            }
+            double diskQueue = -1;
+            for (FsStats.Info info : fsService.stats()) {
+                diskQueue = Math.max(diskQueue, info.diskQueue());
+            }
+            adaptiveMergeThrottle.adjust(segments, currentMerges, queryCount, queryTimeInMillis, diskQueue);
+        }
+    }
+
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
         if (!event.routingTableChanged()) {
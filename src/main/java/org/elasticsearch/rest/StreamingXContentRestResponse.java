@@ -0,0 +1,118 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.action.support.RestXContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * A response that writes its content to a builder provided by the channel. Channels that support it
+ * stream the content to the client as it is written instead of buffering all of it, others use the
+ * {@link #buffered()} version of the response.
+ * <p/>
+ * Only the serialization is streamed: the object the content is generated from (for example a search
+ * response) is fully built in memory beforehand. What is saved is the buffer holding the serialized
+ * content, and its copy.
+ */
+public abstract class StreamingXContentRestResponse extends AbstractRestResponse {
+
+    private final RestRequest request;
+
+    private final RestStatus status;
+
+    private XContentRestResponse buffered;
+
+    public StreamingXContentRestResponse(RestRequest request, RestStatus status) {
+        this.request = request;
+        this.status = status;
+    }
+
+    /**
+     * Writes the full content of the response to the builder.
+     */
+    public abstract void writeContent(XContentBuilder builder) throws IOException;
+
+    public RestRequest request() {
+        return this.request;
+    }
+
+    /**
+     * Can the response be streamed, jsonp responses are always buffered.
+     */
+    public boolean canStream() {
+        return request.param("callback") == null;
+    }
+
+    public XContentRestResponse buffered() throws IOException {
+        if (buffered == null) {
+            XContentBuilder builder = RestXContentBuilder.restContentBuilder(request);
+            writeContent(builder);
+            buffered = new XContentRestResponse(request, status, builder);
+        }
+        return buffered;
+    }
+
+    @Override
+    public String contentType() {
+        return RestXContentBuilder.restContentType(request).restContentType();
+    }
+
+    @Override
+    public boolean contentThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public byte[] content() throws IOException {
+        return buffered().content();
+    }
+
+    @Override
+    public int contentLength() throws IOException {
+        return buffered().contentLength();
+    }
+
+    @Override
+    public RestStatus status() {
+        return this.status;
+    }
+
+    @Override
+    public byte[] prefixContent() {
+        return buffered == null ? null : buffered.prefixContent();
+    }
+
+    @Override
+    public int prefixContentLength() {
+        return buffered == null ? -1 : buffered.prefixContentLength();
+    }
+
+    @Override
+    public byte[] suffixContent() {
+        return buffered == null ? null : buffered.suffixContent();
+    }
+
+    @Override
+    public int suffixContentLength() {
+        return buffered == null ? -1 : buffered.suffixContentLength();
+    }
+}
@@ -64,10 +64,12 @@ public class RestSearchAction extends BaseRestHandler {
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel) {
+        final boolean stream = request.paramAsBoolean("stream", false);
         SearchRequest searchRequest;
         try {
             searchRequest = parseSearchRequest(request);
-            searchRequest.listenerThreaded(false);
+            // streamed responses block while the client doesn't keep up, so make sure we don't do it on a network thread
+            searchRequest.listenerThreaded(stream);
             SearchOperationThreading operationThreading = SearchOperationThreading.fromString(request.param("operation_threading"), null);
             if (operationThreading != null) {
                 if (operationThreading == SearchOperationThreading.NO_THREADS) {
@@ -90,7 +92,18 @@ public class RestSearchAction extends BaseRestHandler {
         }
         client.search(searchRequest, new ActionListener<SearchResponse>() {
             @Override
-            public void onResponse(SearchResponse response) {
+            public void onResponse(final SearchResponse response) {
+                if (stream) {
+                    channel.sendResponse(new StreamingXContentRestResponse(request, response.status()) {
+                        @Override
+                        public void writeContent(XContentBuilder builder) throws IOException {
+                            builder.startObject();
+                            response.toXContent(builder, request);
+                            builder.endObject();
+                        }
+                    });
+                    return;
+                }
                 try {
                     XContentBuilder builder = restContentBuilder(request);
                     builder.startObject();
@@ -55,12 +55,14 @@ public class RestSearchScrollAction extends BaseRestHandler {
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel) {
+        final boolean stream = request.paramAsBoolean("stream", false);
         String scrollId = request.param("scroll_id");
         if (scrollId == null && request.hasContent()) {
             scrollId = request.content().toUtf8();
         }
         SearchScrollRequest searchScrollRequest = new SearchScrollRequest(scrollId);
-        searchScrollRequest.listenerThreaded(false);
+        // streamed responses block while the client doesn't keep up, so make sure we don't do it on a network thread
+        searchScrollRequest.listenerThreaded(stream);
         try {
             String scroll = request.param("scroll");
             if (scroll != null) {
@@ -86,7 +88,18 @@ public class RestSearchScrollAction extends BaseRestHandler {
 
         client.searchScroll(searchScrollRequest, new ActionListener<SearchResponse>() {
             @Override
-            public void onResponse(SearchResponse response) {
+            public void onResponse(final SearchResponse response) {
+                if (stream) {
+                    channel.sendResponse(new StreamingXContentRestResponse(request, response.status()) {
+                        @Override
+                        public void writeContent(XContentBuilder builder) throws IOException {
+                            builder.startObject();
+                            response.toXContent(builder, request);
+                            builder.endObject();
+                        }
+                    });
+                    return;
+                }
                 try {
                     XContentBuilder builder = restContentBuilder(request);
                     builder.startObject();
@@ -28,6 +28,7 @@ import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.rest.RestRequest;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  *
@@ -35,6 +36,21 @@ import java.io.IOException;
 public class RestXContentBuilder {
 
     public static XContentBuilder restContentBuilder(RestRequest request) throws IOException {
+        CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(restContentType(request)), cachedEntry.bytes(), cachedEntry);
+        return configure(request, builder);
+    }
+
+    /**
+     * Creates a builder for the request that writes directly to the provided stream, used when streaming
+     * the response back instead of buffering it.
+     */
+    public static XContentBuilder restContentBuilder(RestRequest request, OutputStream out) throws IOException {
+        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(restContentType(request)), out);
+        return configure(request, builder);
+    }
+
+    public static XContentType restContentType(RestRequest request) {
         XContentType contentType = XContentType.fromRestContentType(request.param("format", request.header("Content-Type")));
         if (contentType == null) {
             // try and guess it from the body, if exists
@@ -46,8 +62,10 @@ public class RestXContentBuilder {
             // default to JSON
             contentType = XContentType.JSON;
         }
-        CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-        XContentBuilder builder = new XContentBuilder(XContentFactory.xContent(contentType), cachedEntry.bytes(), cachedEntry);
+        return contentType;
+    }
+
+    private static XContentBuilder configure(RestRequest request, XContentBuilder builder) {
         if (request.paramAsBoolean("pretty", false)) {
             builder.prettyPrint();
         }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+/**
+ * A parsed expression, along with the names of the variables and fields it uses, in the order of their slots
+ * in the {@link ExpressionContext}.
+ */
+public class CompiledExpression {
+
+    private final String source;
+
+    private final Expression expression;
+
+    private final String[] variables;
+
+    private final String[] fields;
+
+    public CompiledExpression(String source, Expression expression, String[] variables, String[] fields) {
+        this.source = source;
+        this.expression = expression;
+        this.variables = variables;
+        this.fields = fields;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public Expression expression() {
+        return expression;
+    }
+
+    public String[] variables() {
+        return variables;
+    }
+
+    public String[] fields() {
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.script.ScriptException;
+import org.mvel2.asm.Label;
+import org.mvel2.asm.MethodVisitor;
+import org.mvel2.asm.Opcodes;
+
+import java.util.Locale;
+
+/**
+ * A node of a compiled numeric expression. Expressions are evaluated over primitive doubles against an
+ * {@link ExpressionContext}, reading field values straight from the numeric field data, without boxing.
+ * Nodes are immutable, and can be shared by concurrent searches, each having its own context.
+ */
+public abstract class Expression {
+
+    public abstract double evaluate(ExpressionContext context);
+
+    /**
+     * Emits the bytecode evaluating this expression, leaving its value as a double on the stack, with the
+     * context in the first local variable. See {@link ExpressionCompiler}.
+     */
+    abstract void compile(MethodVisitor method);
+
+    /**
+     * Is this expression a constant, allowing to fold it while parsing.
+     */
+    public boolean constant() {
+        return false;
+    }
+
+    static boolean bool(double value) {
+        return value != 0;
+    }
+
+    static double value(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /**
+     * Emits a jump to the label if the double on the stack is <tt>false</tt> (<tt>0</tt>).
+     */
+    static void jumpIfFalse(MethodVisitor method, Label label) {
+        method.visitInsn(Opcodes.DCONST_0);
+        method.visitInsn(Opcodes.DCMPL);
+        method.visitJumpInsn(Opcodes.IFEQ, label);
+    }
+
+    /**
+     * Emits a jump to the label if the double on the stack is <tt>true</tt> (not <tt>0</tt>, including <tt>NaN</tt>).
+     */
+    static void jumpIfTrue(MethodVisitor method, Label label) {
+        method.visitInsn(Opcodes.DCONST_0);
+        method.visitInsn(Opcodes.DCMPL);
+        method.visitJumpInsn(Opcodes.IFNE, label);
+    }
+
+    /**
+     * Emits <tt>1</tt> on the stack unless the jump to the label was taken, <tt>0</tt> otherwise.
+     */
+    static void valueUnless(MethodVisitor method, Label label) {
+        Label end = new Label();
+        method.visitInsn(Opcodes.DCONST_1);
+        method.visitJumpInsn(Opcodes.GOTO, end);
+        method.visitLabel(label);
+        method.visitInsn(Opcodes.DCONST_0);
+        method.visitLabel(end);
+    }
+
+    /**
+     * Emits a call to the {@link ExpressionContext} accessor of the slot.
+     */
+    static void context(MethodVisitor method, String name, int slot) {
+        method.visitVarInsn(Opcodes.ALOAD, 1);
+        method.visitLdcInsn(slot);
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ExpressionCompiler.CONTEXT, name, "(I)D");
+    }
+
+    public static class Constant extends Expression {
+        private final double value;
+
+        public Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return value;
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            method.visitLdcInsn(value);
+        }
+
+        @Override
+        public boolean constant() {
+            return true;
+        }
+    }
+
+    public static class Variable extends Expression {
+        private final int slot;
+
+        public Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return context.variable(slot);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            context(method, "variable", slot);
+        }
+    }
+
+    public static class FieldValue extends Expression {
+        private final int slot;
+
+        public FieldValue(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return context.fieldValue(slot);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            context(method, "fieldValue", slot);
+        }
+    }
+
+    public static class FieldEmpty extends Expression {
+        private final int slot;
+
+        public FieldEmpty(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return context.fieldEmpty(slot);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            context(method, "fieldEmpty", slot);
+        }
+    }
+
+    public static class Score extends Expression {
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return context.score();
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            method.visitVarInsn(Opcodes.ALOAD, 1);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ExpressionCompiler.CONTEXT, "score", "()D");
+        }
+    }
+
+    public static class Negate extends Expression {
+        private final Expression expression;
+
+        public Negate(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return -expression.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            expression.compile(method);
+            method.visitInsn(Opcodes.DNEG);
+        }
+    }
+
+    public static class Not extends Expression {
+        private final Expression expression;
+
+        public Not(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return value(!bool(expression.evaluate(context)));
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            Label isTrue = new Label();
+            expression.compile(method);
+            jumpIfTrue(method, isTrue);
+            valueUnless(method, isTrue);
+        }
+    }
+
+    public static class Conditional extends Expression {
+        private final Expression condition;
+        private final Expression then;
+        private final Expression otherwise;
+
+        public Conditional(Expression condition, Expression then, Expression otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return bool(condition.evaluate(context)) ? then.evaluate(context) : otherwise.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            Label isFalse = new Label();
+            Label end = new Label();
+            condition.compile(method);
+            jumpIfFalse(method, isFalse);
+            then.compile(method);
+            method.visitJumpInsn(Opcodes.GOTO, end);
+            method.visitLabel(isFalse);
+            otherwise.compile(method);
+            method.visitLabel(end);
+        }
+    }
+
+    public static class And extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public And(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return value(bool(left.evaluate(context)) && bool(right.evaluate(context)));
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            Label isFalse = new Label();
+            left.compile(method);
+            jumpIfFalse(method, isFalse);
+            right.compile(method);
+            jumpIfFalse(method, isFalse);
+            valueUnless(method, isFalse);
+        }
+    }
+
+    public static class Or extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Or(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return value(bool(left.evaluate(context)) || bool(right.evaluate(context)));
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            Label isTrue = new Label();
+            Label isFalse = new Label();
+            left.compile(method);
+            jumpIfTrue(method, isTrue);
+            right.compile(method);
+            jumpIfFalse(method, isFalse);
+            method.visitLabel(isTrue);
+            valueUnless(method, isFalse);
+        }
+    }
+
+    public static class Add extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Add(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return left.evaluate(context) + right.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            left.compile(method);
+            right.compile(method);
+            method.visitInsn(Opcodes.DADD);
+        }
+    }
+
+    public static class Subtract extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Subtract(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return left.evaluate(context) - right.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            left.compile(method);
+            right.compile(method);
+            method.visitInsn(Opcodes.DSUB);
+        }
+    }
+
+    public static class Multiply extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Multiply(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return left.evaluate(context) * right.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            left.compile(method);
+            right.compile(method);
+            method.visitInsn(Opcodes.DMUL);
+        }
+    }
+
+    public static class Divide extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Divide(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return left.evaluate(context) / right.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            left.compile(method);
+            right.compile(method);
+            method.visitInsn(Opcodes.DDIV);
+        }
+    }
+
+    public static class Modulo extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Modulo(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            return left.evaluate(context) % right.evaluate(context);
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            left.compile(method);
+            right.compile(method);
+            method.visitInsn(Opcodes.DREM);
+        }
+    }
+
+    public static enum Comparison {
+        LT, LTE, GT, GTE, EQ, NEQ
+    }
+
+    public static class Compare extends Expression {
+        private final Comparison comparison;
+        private final Expression left;
+        private final Expression right;
+
+        public Compare(Comparison comparison, Expression left, Expression right) {
+            this.comparison = comparison;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            double l = left.evaluate(context);
+            double r = right.evaluate(context);
+            switch (comparison) {
+                case LT:
+                    return value(l < r);
+                case LTE:
+                    return value(l <= r);
+                case GT:
+                    return value(l > r);
+                case GTE:
+                    return value(l >= r);
+                case EQ:
+                    return value(l == r);
+                default:
+                    return value(l != r);
+            }
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            Label isFalse = new Label();
+            left.compile(method);
+            right.compile(method);
+            // same as javac, comparisons with NaN are false
+            switch (comparison) {
+                case LT:
+                    method.visitInsn(Opcodes.DCMPG);
+                    method.visitJumpInsn(Opcodes.IFGE, isFalse);
+                    break;
+                case LTE:
+                    method.visitInsn(Opcodes.DCMPG);
+                    method.visitJumpInsn(Opcodes.IFGT, isFalse);
+                    break;
+                case GT:
+                    method.visitInsn(Opcodes.DCMPL);
+                    method.visitJumpInsn(Opcodes.IFLE, isFalse);
+                    break;
+                case GTE:
+                    method.visitInsn(Opcodes.DCMPL);
+                    method.visitJumpInsn(Opcodes.IFLT, isFalse);
+                    break;
+                case EQ:
+                    method.visitInsn(Opcodes.DCMPL);
+                    method.visitJumpInsn(Opcodes.IFNE, isFalse);
+                    break;
+                default:
+                    method.visitInsn(Opcodes.DCMPL);
+                    method.visitJumpInsn(Opcodes.IFEQ, isFalse);
+            }
+            valueUnless(method, isFalse);
+        }
+    }
+
+    public static enum Function {
+        ABS(1), SQRT(1), CBRT(1), LOG(1), LOG10(1), LOG1P(1), EXP(1), FLOOR(1), CEIL(1), RINT(1), SIGNUM(1),
+        SIN(1), COS(1), TAN(1), ASIN(1), ACOS(1), ATAN(1), SINH(1), COSH(1), TANH(1),
+        POW(2), MIN(2), MAX(2), ATAN2(2), HYPOT(2);
+
+        private final int arity;
+
+        Function(int arity) {
+            this.arity = arity;
+        }
+
+        public int arity() {
+            return arity;
+        }
+    }
+
+    public static class Function1 extends Expression {
+        private final Function function;
+        private final Expression argument;
+
+        public Function1(Function function, Expression argument) {
+            this.function = function;
+            this.argument = argument;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            double a = argument.evaluate(context);
+            switch (function) {
+                case ABS:
+                    return Math.abs(a);
+                case SQRT:
+                    return Math.sqrt(a);
+                case CBRT:
+                    return Math.cbrt(a);
+                case LOG:
+                    return Math.log(a);
+                case LOG10:
+                    return Math.log10(a);
+                case LOG1P:
+                    return Math.log1p(a);
+                case EXP:
+                    return Math.exp(a);
+                case FLOOR:
+                    return Math.floor(a);
+                case CEIL:
+                    return Math.ceil(a);
+                case RINT:
+                    return Math.rint(a);
+                case SIGNUM:
+                    return Math.signum(a);
+                case SIN:
+                    return Math.sin(a);
+                case COS:
+                    return Math.cos(a);
+                case TAN:
+                    return Math.tan(a);
+                case ASIN:
+                    return Math.asin(a);
+                case ACOS:
+                    return Math.acos(a);
+                case ATAN:
+                    return Math.atan(a);
+                case SINH:
+                    return Math.sinh(a);
+                case COSH:
+                    return Math.cosh(a);
+                case TANH:
+                    return Math.tanh(a);
+                default:
+                    throw new ScriptException("Unsupported function [" + function + "]");
+            }
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            argument.compile(method);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", function.name().toLowerCase(Locale.ROOT), "(D)D");
+        }
+    }
+
+    public static class Function2 extends Expression {
+        private final Function function;
+        private final Expression first;
+        private final Expression second;
+
+        public Function2(Function function, Expression first, Expression second) {
+            this.function = function;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public double evaluate(ExpressionContext context) {
+            double a = first.evaluate(context);
+            double b = second.evaluate(context);
+            switch (function) {
+                case POW:
+                    return Math.pow(a, b);
+                case MIN:
+                    return Math.min(a, b);
+                case MAX:
+                    return Math.max(a, b);
+                case ATAN2:
+                    return Math.atan2(a, b);
+                case HYPOT:
+                    return Math.hypot(a, b);
+                default:
+                    throw new ScriptException("Unsupported function [" + function + "]");
+            }
+        }
+
+        @Override
+        void compile(MethodVisitor method) {
+            first.compile(method);
+            second.compile(method);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", function.name().toLowerCase(Locale.ROOT), "(DD)D");
+        }
+    }
+}
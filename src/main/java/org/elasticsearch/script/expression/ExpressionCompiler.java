@@ -0,0 +1,97 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.script.ScriptException;
+import org.mvel2.asm.ClassWriter;
+import org.mvel2.asm.MethodVisitor;
+import org.mvel2.asm.Opcodes;
+import org.mvel2.asm.Type;
+
+/**
+ * Compiles an {@link Expression} tree to a class implementing {@link Expression#evaluate(ExpressionContext)} in
+ * straight bytecode (using the ASM bundled with mvel), so the JIT sees a single method over primitive doubles
+ * instead of the virtual calls between the nodes of the tree. Each class is defined in its own class loader, so
+ * it can be unloaded along with the script.
+ */
+public class ExpressionCompiler {
+
+    static final String CONTEXT = Type.getInternalName(ExpressionContext.class);
+
+    private static final String SUPER = Type.getInternalName(Generated.class);
+
+    private static final String NAME = "org/elasticsearch/script/expression/GeneratedExpression";
+
+    /**
+     * Returns the compiled version of the expression, constants are returned as is.
+     */
+    public static Expression compile(Expression expression) {
+        if (expression.constant()) {
+            return expression;
+        }
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, NAME, null, SUPER, null);
+
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, SUPER, "<init>", "()V");
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        MethodVisitor evaluate = writer.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", "(L" + CONTEXT + ";)D", null, null);
+        evaluate.visitCode();
+        expression.compile(evaluate);
+        evaluate.visitInsn(Opcodes.DRETURN);
+        evaluate.visitMaxs(0, 0);
+        evaluate.visitEnd();
+
+        writer.visitEnd();
+        Class<?> clazz = new Loader().define(NAME.replace('/', '.'), writer.toByteArray());
+        try {
+            return (Expression) clazz.newInstance();
+        } catch (Exception e) {
+            throw new ScriptException("Failed to instantiate compiled expression", e);
+        }
+    }
+
+    /**
+     * The base class of the compiled expressions, they are not compiled further.
+     */
+    public static abstract class Generated extends Expression {
+
+        @Override
+        void compile(MethodVisitor method) {
+            throw new UnsupportedOperationException("expression is already compiled");
+        }
+    }
+
+    private static class Loader extends ClassLoader {
+
+        Loader() {
+            super(ExpressionCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.search.Scorer;
+import org.elasticsearch.index.field.data.NumericFieldData;
+import org.elasticsearch.script.ScriptException;
+
+import java.io.IOException;
+
+/**
+ * The per execution state an {@link Expression} is evaluated against: the values of its variables, the field
+ * data of the current reader for the fields it uses, the current doc and the score.
+ */
+public class ExpressionContext {
+
+    final double[] variables;
+
+    final NumericFieldData<?>[] fields;
+
+    int doc = -1;
+
+    Scorer scorer;
+
+    boolean hasScore;
+
+    float score;
+
+    public ExpressionContext(double[] variables, NumericFieldData<?>[] fields) {
+        this.variables = variables;
+        this.fields = fields;
+    }
+
+    // the accessors below are public, as they are called by the compiled expressions, which are defined in their
+    // own class loader, see ExpressionCompiler
+
+    public double variable(int slot) {
+        return variables[slot];
+    }
+
+    public double fieldValue(int slot) {
+        return fields[slot].doubleValue(doc);
+    }
+
+    public double fieldEmpty(int slot) {
+        return Expression.value(!fields[slot].hasValue(doc));
+    }
+
+    public double score() {
+        if (hasScore) {
+            return score;
+        }
+        if (scorer == null) {
+            throw new ScriptException("No score available in this context");
+        }
+        try {
+            return scorer.score();
+        } catch (IOException e) {
+            throw new ScriptException("Failed to compute score", e);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.elasticsearch.script.ScriptException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recursive descent parser for numeric expressions. Supports number literals, variables, <tt>_score</tt>,
+ * <tt>doc['field'].value</tt> and <tt>doc['field'].empty</tt>, the arithmetic, comparison and logical operators
+ * with the usual precedence, the <tt>?:</tt> conditional, and the common <tt>Math</tt> functions (optionally
+ * prefixed with <tt>Math.</tt>). Sub expressions over constants only are folded while parsing.
+ */
+public class ExpressionParser {
+
+    private final String source;
+
+    private int pos;
+
+    private final List<String> variables = new ArrayList<String>();
+
+    private final List<String> fields = new ArrayList<String>();
+
+    private ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    public static CompiledExpression parse(String source) throws ScriptException {
+        ExpressionParser parser = new ExpressionParser(source);
+        Expression expression = parser.parseConditional();
+        parser.skipWhitespace();
+        if (parser.pos < source.length()) {
+            throw parser.error("unexpected [" + source.charAt(parser.pos) + "]");
+        }
+        return new CompiledExpression(source, ExpressionCompiler.compile(expression),
+                parser.variables.toArray(new String[parser.variables.size()]), parser.fields.toArray(new String[parser.fields.size()]));
+    }
+
+    private Expression parseConditional() {
+        Expression condition = parseOr();
+        if (consume("?")) {
+            Expression then = parseConditional();
+            expect(":");
+            Expression otherwise = parseConditional();
+            return fold(new Expression.Conditional(condition, then, otherwise), condition, then, otherwise);
+        }
+        return condition;
+    }
+
+    private Expression parseOr() {
+        Expression left = parseAnd();
+        while (consume("||")) {
+            Expression right = parseAnd();
+            left = fold(new Expression.Or(left, right), left, right);
+        }
+        return left;
+    }
+
+    private Expression parseAnd() {
+        Expression left = parseEquality();
+        while (consume("&&")) {
+            Expression right = parseEquality();
+            left = fold(new Expression.And(left, right), left, right);
+        }
+        return left;
+    }
+
+    private Expression parseEquality() {
+        Expression left = parseRelational();
+        while (true) {
+            if (consume("==")) {
+                left = compare(Expression.Comparison.EQ, left, parseRelational());
+            } else if (consume("!=")) {
+                left = compare(Expression.Comparison.NEQ, left, parseRelational());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseRelational() {
+        Expression left = parseAdditive();
+        while (true) {
+            if (consume("<=")) {
+                left = compare(Expression.Comparison.LTE, left, parseAdditive());
+            } else if (consume(">=")) {
+                left = compare(Expression.Comparison.GTE, left, parseAdditive());
+            } else if (consume("<")) {
+                left = compare(Expression.Comparison.LT, left, parseAdditive());
+            } else if (consume(">")) {
+                left = compare(Expression.Comparison.GT, left, parseAdditive());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseAdditive() {
+        Expression left = parseMultiplicative();
+        while (true) {
+            if (consume("+")) {
+                Expression right = parseMultiplicative();
+                left = fold(new Expression.Add(left, right), left, right);
+            } else if (consume("-")) {
+                Expression right = parseMultiplicative();
+                left = fold(new Expression.Subtract(left, right), left, right);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseMultiplicative() {
+        Expression left = parseUnary();
+        while (true) {
+            if (consume("*")) {
+                Expression right = parseUnary();
+                left = fold(new Expression.Multiply(left, right), left, right);
+            } else if (consume("/")) {
+                Expression right = parseUnary();
+                left = fold(new Expression.Divide(left, right), left, right);
+            } else if (consume("%")) {
+                Expression right = parseUnary();
+                left = fold(new Expression.Modulo(left, right), left, right);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseUnary() {
+        if (consume("-")) {
+            Expression expression = parseUnary();
+            return fold(new Expression.Negate(expression), expression);
+        }
+        if (consume("+")) {
+            return parseUnary();
+        }
+        if (peek("!") && !peek("!=")) {
+            pos++;
+            Expression expression = parseUnary();
+            return fold(new Expression.Not(expression), expression);
+        }
+        return parsePrimary();
+    }
+
+    private Expression parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("unexpected end of expression");
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Expression expression = parseConditional();
+            expect(")");
+            return expression;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            String identifier = parseIdentifier();
+            if (identifier.equals("doc")) {
+                return parseDocField();
+            }
+            if (identifier.equals("_score")) {
+                return new Expression.Score();
+            }
+            if (identifier.equals("true")) {
+                return new Expression.Constant(1);
+            }
+            if (identifier.equals("false")) {
+                return new Expression.Constant(0);
+            }
+            if (identifier.equals("Math") && consume(".")) {
+                identifier = parseIdentifier();
+                return parseFunction(identifier);
+            }
+            if (peek("(")) {
+                return parseFunction(identifier);
+            }
+            return new Expression.Variable(slot(variables, identifier));
+        }
+        throw error("unexpected [" + c + "]");
+    }
+
+    private Expression parseDocField() {
+        String field;
+        if (consume("[")) {
+            skipWhitespace();
+            if (pos >= source.length() || (source.charAt(pos) != '\'' && source.charAt(pos) != '"')) {
+                throw error("expected a quoted field name");
+            }
+            char quote = source.charAt(pos++);
+            int end = source.indexOf(quote, pos);
+            if (end == -1) {
+                throw error("unterminated field name");
+            }
+            field = source.substring(pos, end);
+            pos = end + 1;
+            expect("]");
+        } else if (consume(".")) {
+            field = parseIdentifier();
+        } else {
+            throw error("expected a field of doc");
+        }
+        int slot = slot(fields, field);
+        if (consume(".")) {
+            String property = parseIdentifier();
+            if (property.equals("value")) {
+                return new Expression.FieldValue(slot);
+            }
+            if (property.equals("empty")) {
+                return new Expression.FieldEmpty(slot);
+            }
+            throw error("unsupported field property [" + property + "]");
+        }
+        return new Expression.FieldValue(slot);
+    }
+
+    private Expression parseFunction(String name) {
+        Expression.Function function;
+        try {
+            function = Expression.Function.valueOf(name.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw error("unknown function [" + name + "]");
+        }
+        expect("(");
+        List<Expression> arguments = new ArrayList<Expression>(2);
+        if (!consume(")")) {
+            do {
+                arguments.add(parseConditional());
+            } while (consume(","));
+            expect(")");
+        }
+        if (arguments.size() != function.arity()) {
+            throw error("function [" + name + "] expects [" + function.arity() + "] arguments, got [" + arguments.size() + "]");
+        }
+        if (function.arity() == 1) {
+            Expression argument = arguments.get(0);
+            return fold(new Expression.Function1(function, argument), argument);
+        }
+        return fold(new Expression.Function2(function, arguments.get(0), arguments.get(1)), arguments.get(0), arguments.get(1));
+    }
+
+    private Expression parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        String number = source.substring(start, pos);
+        // allow java style suffixes, like 1.5f or 10l
+        if (pos < source.length() && "fFdDlL".indexOf(source.charAt(pos)) != -1) {
+            pos++;
+        }
+        try {
+            return new Expression.Constant(Double.parseDouble(number));
+        } catch (NumberFormatException e) {
+            throw error("invalid number [" + number + "]");
+        }
+    }
+
+    private String parseIdentifier() {
+        skipWhitespace();
+        int start = pos;
+        if (pos >= source.length() || !Character.isJavaIdentifierStart(source.charAt(pos))) {
+            throw error("expected an identifier");
+        }
+        pos++;
+        while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private Expression compare(Expression.Comparison comparison, Expression left, Expression right) {
+        return fold(new Expression.Compare(comparison, left, right), left, right);
+    }
+
+    private static Expression fold(Expression expression, Expression... operands) {
+        for (Expression operand : operands) {
+            if (!operand.constant()) {
+                return expression;
+            }
+        }
+        // only constants, no context is needed
+        return new Expression.Constant(expression.evaluate(null));
+    }
+
+    private static int slot(List<String> names, String name) {
+        int slot = names.indexOf(name);
+        if (slot == -1) {
+            slot = names.size();
+            names.add(name);
+        }
+        return slot;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean peek(String token) {
+        skipWhitespace();
+        return source.startsWith(token, pos);
+    }
+
+    private boolean consume(String token) {
+        if (peek(token)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!consume(token)) {
+            throw error("expected [" + token + "]");
+        }
+    }
+
+    private ScriptException error(String message) {
+        return new ScriptException("Failed to parse expression [" + source + "]: " + message + " at position [" + pos + "]");
+    }
+}
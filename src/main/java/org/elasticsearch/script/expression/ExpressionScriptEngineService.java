@@ -0,0 +1,235 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Scorer;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.field.data.FieldData;
+import org.elasticsearch.index.field.data.NumericFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.ScriptEngineService;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.SearchScript;
+import org.elasticsearch.search.lookup.DocLookup;
+import org.elasticsearch.search.lookup.SearchLookup;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A script engine for numeric expressions (<tt>expression</tt> lang), see {@link ExpressionParser} for the
+ * syntax. Expressions are parsed once into a tree of primitive double evaluators, and read field values directly
+ * from the numeric field data of the current reader, so no value is boxed or looked up by name per document.
+ */
+public class ExpressionScriptEngineService extends AbstractComponent implements ScriptEngineService {
+
+    @Inject
+    public ExpressionScriptEngineService(Settings settings) {
+        super(settings);
+    }
+
+    @Override
+    public void close() {
+        // nothing to do here...
+    }
+
+    @Override
+    public String[] types() {
+        return new String[]{"expression"};
+    }
+
+    @Override
+    public String[] extensions() {
+        return new String[]{"expression"};
+    }
+
+    @Override
+    public Object compile(String script) {
+        return ExpressionParser.parse(script);
+    }
+
+    @Override
+    public ExecutableScript executable(Object compiledScript, @Nullable Map<String, Object> vars) {
+        CompiledExpression expression = (CompiledExpression) compiledScript;
+        if (expression.fields().length > 0) {
+            throw new ScriptException("Expression [" + expression + "] uses doc fields, and can only be used in a search");
+        }
+        return new ExpressionExecutableScript(expression, vars);
+    }
+
+    @Override
+    public SearchScript search(Object compiledScript, SearchLookup lookup, @Nullable Map<String, Object> vars) {
+        return new ExpressionSearchScript((CompiledExpression) compiledScript, lookup.doc(), vars);
+    }
+
+    @Override
+    public Object execute(Object compiledScript, Map<String, Object> vars) {
+        return executable(compiledScript, vars).run();
+    }
+
+    @Override
+    public Object unwrap(Object value) {
+        return value;
+    }
+
+    public static class ExpressionExecutableScript implements ExecutableScript {
+
+        protected final CompiledExpression expression;
+
+        protected final ExpressionContext context;
+
+        private int unbound;
+
+        private final boolean[] bound;
+
+        public ExpressionExecutableScript(CompiledExpression expression, @Nullable Map<String, Object> vars, NumericFieldData<?>[] fields) {
+            this.expression = expression;
+            this.context = new ExpressionContext(new double[expression.variables().length], fields);
+            this.bound = new boolean[expression.variables().length];
+            this.unbound = bound.length;
+            if (vars != null) {
+                for (Map.Entry<String, Object> entry : vars.entrySet()) {
+                    setNextVar(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        public ExpressionExecutableScript(CompiledExpression expression, @Nullable Map<String, Object> vars) {
+            this(expression, vars, new NumericFieldData<?>[0]);
+        }
+
+        @Override
+        public void setNextVar(String name, Object value) {
+            String[] variables = expression.variables();
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(name)) {
+                    if (!(value instanceof Number)) {
+                        throw new ScriptException("Variable [" + name + "] of expression [" + expression + "] must be numeric, got [" + value + "]");
+                    }
+                    context.variables[i] = ((Number) value).doubleValue();
+                    if (!bound[i]) {
+                        bound[i] = true;
+                        unbound--;
+                    }
+                    return;
+                }
+            }
+            // not used by the expression, ignore
+        }
+
+        public double runAsDouble() {
+            if (unbound > 0) {
+                for (int i = 0; i < bound.length; i++) {
+                    if (!bound[i]) {
+                        throw new ScriptException("Unknown variable [" + expression.variables()[i] + "] in expression [" + expression + "]");
+                    }
+                }
+            }
+            return expression.expression().evaluate(context);
+        }
+
+        @Override
+        public Object run() {
+            return runAsDouble();
+        }
+
+        @Override
+        public Object unwrap(Object value) {
+            return value;
+        }
+    }
+
+    public static class ExpressionSearchScript extends ExpressionExecutableScript implements SearchScript {
+
+        private final DocLookup lookup;
+
+        private final FieldMapper<?>[] mappers;
+
+        private IndexReader reader;
+
+        public ExpressionSearchScript(CompiledExpression expression, DocLookup lookup, @Nullable Map<String, Object> vars) {
+            super(expression, vars, new NumericFieldData<?>[expression.fields().length]);
+            this.lookup = lookup;
+            this.mappers = new FieldMapper<?>[expression.fields().length];
+            for (int i = 0; i < mappers.length; i++) {
+                mappers[i] = lookup.mapperService().smartNameFieldMapper(expression.fields()[i], lookup.types());
+                if (mappers[i] == null) {
+                    throw new ScriptException("No field found for [" + expression.fields()[i] + "] in mapping, used by expression [" + expression + "]");
+                }
+            }
+        }
+
+        @Override
+        public void setScorer(Scorer scorer) {
+            context.scorer = scorer;
+        }
+
+        @Override
+        public void setNextReader(IndexReader reader) {
+            if (this.reader == reader) {
+                return;
+            }
+            this.reader = reader;
+            for (int i = 0; i < mappers.length; i++) {
+                FieldData<?> fieldData;
+                try {
+                    fieldData = lookup.fieldDataCache().cache(mappers[i].fieldDataType(), reader, mappers[i].names().indexName());
+                } catch (IOException e) {
+                    throw new ScriptException("Failed to load field data for [" + expression.fields()[i] + "]", e);
+                }
+                if (!(fieldData instanceof NumericFieldData)) {
+                    throw new ScriptException("Field [" + expression.fields()[i] + "] used by expression [" + expression + "] is not numeric");
+                }
+                context.fields[i] = (NumericFieldData<?>) fieldData;
+            }
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            context.doc = doc;
+        }
+
+        @Override
+        public void setNextSource(Map<String, Object> source) {
+            // expressions don't access the source
+        }
+
+        @Override
+        public void setNextScore(float score) {
+            context.hasScore = true;
+            context.score = score;
+        }
+
+        @Override
+        public float runAsFloat() {
+            return (float) runAsDouble();
+        }
+
+        @Override
+        public long runAsLong() {
+            return (long) runAsDouble();
+        }
+    }
+}
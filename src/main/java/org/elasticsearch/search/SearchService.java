@@ -44,6 +44,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.dfs.CachedDfSource;
@@ -78,6 +79,8 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     private final IndicesWarmer indicesWarmer;
 
+    private final IndicesQueryCache indicesQueryCache;
+
     private final ScriptService scriptService;
 
     private final DfsPhase dfsPhase;
@@ -101,13 +104,14 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     private final ImmutableMap<String, SearchParseElement> elementParsers;
 
     @Inject
-    public SearchService(Settings settings, ClusterService clusterService, IndicesService indicesService, IndicesLifecycle indicesLifecycle, IndicesWarmer indicesWarmer, ThreadPool threadPool,
-                         ScriptService scriptService, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase) {
+    public SearchService(Settings settings, ClusterService clusterService, IndicesService indicesService, IndicesLifecycle indicesLifecycle, IndicesWarmer indicesWarmer, IndicesQueryCache indicesQueryCache,
+                         ThreadPool threadPool, ScriptService scriptService, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase) {
         super(settings);
         this.threadPool = threadPool;
         this.clusterService = clusterService;
         this.indicesService = indicesService;
         this.indicesWarmer = indicesWarmer;
+        this.indicesQueryCache = indicesQueryCache;
         this.scriptService = scriptService;
         this.dfsPhase = dfsPhase;
         this.queryPhase = queryPhase;
@@ -233,6 +237,9 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public QuerySearchResult executeQueryPhase(ShardSearchRequest request) throws ElasticSearchException {
+        if (indicesQueryCache.canCache(request, clusterService.state().metaData().index(request.index()))) {
+            return executeCachedQueryPhase(request);
+        }
         SearchContext context = createContext(request);
         activeContexts.put(context.id(), context);
         try {
@@ -257,6 +264,52 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         }
     }
 
+    /**
+     * Executes a count query phase through the query cache. The searcher is acquired upfront so the
+     * cache can be checked against the reader version before parsing the request, and is then handed
+     * over to the context when the request actually needs to be executed.
+     */
+    private QuerySearchResult executeCachedQueryPhase(ShardSearchRequest request) throws ElasticSearchException {
+        IndexShard indexShard = indicesService.indexServiceSafe(request.index()).shardSafe(request.shardId());
+        ShardId shardId = indexShard.shardId();
+        Engine.Searcher engineSearcher = indexShard.searcher();
+        long readerVersion;
+        try {
+            readerVersion = engineSearcher.reader().getVersion();
+            QuerySearchResult cached = indicesQueryCache.get(shardId, readerVersion, request);
+            if (cached != null) {
+                engineSearcher.release();
+                cached.shardTarget(new SearchShardTarget(clusterService.localNode().id(), request.index(), request.shardId()));
+                return cached;
+            }
+        } catch (RuntimeException e) {
+            engineSearcher.release();
+            throw e;
+        }
+
+        SearchContext context = createContext(request, engineSearcher);
+        activeContexts.put(context.id(), context);
+        try {
+            context.indexShard().searchService().onPreQueryPhase(context);
+            long time = System.nanoTime();
+            contextProcessing(context);
+            queryPhase.execute(context);
+            freeContext(context.id());
+            context.indexShard().searchService().onQueryPhase(context, System.nanoTime() - time);
+            if (!context.nowInMillisUsed() && !context.queryResult().searchTimedOut()) {
+                indicesQueryCache.put(shardId, readerVersion, request, context.queryResult());
+            }
+            return context.queryResult();
+        } catch (RuntimeException e) {
+            context.indexShard().searchService().onFailedQueryPhase(context);
+            logger.trace("Query phase failed", e);
+            freeContext(context);
+            throw e;
+        } finally {
+            cleanContext(context);
+        }
+    }
+
     public ScrollQuerySearchResult executeQueryPhase(InternalScrollSearchRequest request) throws ElasticSearchException {
         SearchContext context = findContext(request.id());
         try {
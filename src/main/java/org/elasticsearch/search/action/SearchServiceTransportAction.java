@@ -22,6 +22,7 @@ package org.elasticsearch.search.action;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -71,14 +72,21 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     private final SearchService searchService;
 
+    private final ThreadPool threadPool;
+
+    private final ResponseCollectorService responseCollectorService;
+
     private final FreeContextResponseHandler freeContextResponseHandler = new FreeContextResponseHandler(logger);
 
     @Inject
-    public SearchServiceTransportAction(Settings settings, TransportService transportService, ClusterService clusterService, SearchService searchService) {
+    public SearchServiceTransportAction(Settings settings, TransportService transportService, ClusterService clusterService, SearchService searchService,
+                                        ThreadPool threadPool, ResponseCollectorService responseCollectorService) {
         super(settings);
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.searchService = searchService;
+        this.threadPool = threadPool;
+        this.responseCollectorService = responseCollectorService;
 
         transportService.registerHandler(SearchFreeContextTransportHandler.ACTION, new SearchFreeContextTransportHandler());
         transportService.registerHandler(SearchDfsTransportHandler.ACTION, new SearchDfsTransportHandler());
@@ -101,7 +109,8 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteDfs(DiscoveryNode node, final ShardSearchRequest request, final SearchServiceListener<DfsSearchResult> listener) {
+    public void sendExecuteDfs(DiscoveryNode node, final ShardSearchRequest request, SearchServiceListener<DfsSearchResult> shardListener) {
+        final SearchServiceListener<DfsSearchResult> listener = collectResponses(node, shardListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             try {
                 DfsSearchResult result = searchService.executeDfsPhase(request);
@@ -135,7 +144,8 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchRequest request, final SearchServiceListener<QuerySearchResult> listener) {
+    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchRequest request, SearchServiceListener<QuerySearchResult> shardListener) {
+        final SearchServiceListener<QuerySearchResult> listener = collectResponses(node, shardListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             try {
                 QuerySearchResult result = searchService.executeQueryPhase(request);
@@ -237,7 +247,8 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteFetch(DiscoveryNode node, final ShardSearchRequest request, final SearchServiceListener<QueryFetchSearchResult> listener) {
+    public void sendExecuteFetch(DiscoveryNode node, final ShardSearchRequest request, SearchServiceListener<QueryFetchSearchResult> shardListener) {
+        final SearchServiceListener<QueryFetchSearchResult> listener = collectResponses(node, shardListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             try {
                 QueryFetchSearchResult result = searchService.executeFetchPhase(request);
@@ -494,6 +505,28 @@ public class SearchServiceTransportAction extends AbstractComponent {
     }
 
 
+    /**
+     * Wraps the listener of a shard level request so its response time is fed to the {@link ResponseCollectorService},
+     * which is used to rank shard copies.
+     */
+    private <T extends TransportResponse> SearchServiceListener<T> collectResponses(final DiscoveryNode node, final SearchServiceListener<T> listener) {
+        final long startTime = System.nanoTime();
+        responseCollectorService.onRequest(node.id());
+        return new SearchServiceListener<T>() {
+            @Override
+            public void onResult(T result) {
+                responseCollectorService.onResponse(node.id(), System.nanoTime() - startTime, result);
+                listener.onResult(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                responseCollectorService.onFailure(node.id());
+                listener.onFailure(t);
+            }
+        };
+    }
+
     private class SearchDfsTransportHandler extends BaseTransportRequestHandler<ShardSearchRequest> {
 
         static final String ACTION = "search/phase/dfs";
@@ -506,7 +539,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
         @Override
         public void messageReceived(ShardSearchRequest request, TransportChannel channel) throws Exception {
             DfsSearchResult result = searchService.executeDfsPhase(request);
-            channel.sendResponse(result);
+            channel.sendResponse(ResponseCollectorService.putQueueSize(result, threadPool, ThreadPool.Names.SEARCH));
         }
 
         @Override
@@ -527,7 +560,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
         @Override
         public void messageReceived(ShardSearchRequest request, TransportChannel channel) throws Exception {
             QuerySearchResult result = searchService.executeQueryPhase(request);
-            channel.sendResponse(result);
+            channel.sendResponse(ResponseCollectorService.putQueueSize(result, threadPool, ThreadPool.Names.SEARCH));
         }
 
         @Override
@@ -590,7 +623,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
         @Override
         public void messageReceived(ShardSearchRequest request, TransportChannel channel) throws Exception {
             QueryFetchSearchResult result = searchService.executeFetchPhase(request);
-            channel.sendResponse(result);
+            channel.sendResponse(ResponseCollectorService.putQueueSize(result, threadPool, ThreadPool.Names.SEARCH));
         }
 
         @Override
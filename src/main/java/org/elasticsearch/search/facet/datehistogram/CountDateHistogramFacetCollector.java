@@ -21,9 +21,16 @@ package org.elasticsearch.search.facet.datehistogram;
 
 import gnu.trove.map.hash.TLongLongHashMap;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DeletionAwareConstantScoreQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.Query;
 import org.elasticsearch.common.CacheRecycler;
+import org.elasticsearch.common.RamUsage;
 import org.elasticsearch.common.joda.TimeZoneRounding;
+import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
+import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
 import org.elasticsearch.index.field.data.longs.LongFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -31,15 +38,17 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.facet.AbstractFacetCollector;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.facet.OptimizeGlobalFacetCollector;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * A date histogram facet collector that uses the same field as the key as well as the
  * value.
  */
-public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
+public class CountDateHistogramFacetCollector extends AbstractFacetCollector implements OptimizeGlobalFacetCollector {
 
     private final String indexFieldName;
 
@@ -53,8 +62,18 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
 
     private final DateHistogramProc histoProc;
 
-    public CountDateHistogramFacetCollector(String facetName, String fieldName, TimeZoneRounding tzRounding, DateHistogramFacet.ComparatorType comparatorType, SearchContext context) {
+    private final TimeZoneRounding tzRounding;
+
+    private final String rollupKey;
+
+    /**
+     * @param rollupKey A key uniquely identifying the rounding, used to cache per segment rollups when
+     *                  executed in global scope, or <tt>null</tt> to disable it.
+     */
+    public CountDateHistogramFacetCollector(String facetName, String fieldName, TimeZoneRounding tzRounding, String rollupKey, DateHistogramFacet.ComparatorType comparatorType, SearchContext context) {
         super(facetName);
+        this.tzRounding = tzRounding;
+        this.rollupKey = rollupKey == null ? null : "date_histogram_count:" + rollupKey;
         this.comparatorType = comparatorType;
         this.fieldDataCache = context.fieldDataCache();
 
@@ -77,36 +96,238 @@ public class CountDateHistogramFacetCollector extends AbstractFacetCollector {
 
     @Override
     protected void doCollect(int doc) throws IOException {
-        fieldData.forEachValueInDoc(doc, histoProc);
+        fieldData.forEachOrdinalInDoc(doc, histoProc);
     }
 
     @Override
     protected void doSetNextReader(IndexReader reader, int docBase) throws IOException {
+        histoProc.flush();
         fieldData = (LongFieldData) fieldDataCache.cache(fieldDataType, reader, indexFieldName);
+        histoProc.reset(fieldData);
+    }
+
+    @Override
+    public void optimizedGlobalExecution(SearchContext context) throws IOException {
+        Filter searchFilter = context.mapperService().searchFilter(context.types());
+        if (rollupKey == null || filter != null || searchFilter != null) {
+            // not all docs are counted, collect them as a non optimized global facet would do
+            Query query = new DeletionAwareConstantScoreQuery(filter == null ? Queries.MATCH_ALL_FILTER : getAndClearFilter());
+            if (searchFilter != null) {
+                query = new FilteredQuery(query, context.filterCache().cache(searchFilter));
+            }
+            context.searcher().search(query, this);
+            return;
+        }
+
+        TLongLongHashMap counts = histoProc.counts();
+        for (IndexReader reader : context.searcher().subReaders()) {
+            fieldData = (LongFieldData) fieldDataCache.cache(fieldDataType, reader, indexFieldName);
+            if (reader.hasDeletions()) {
+                // the rollup counts deleted docs as well, count the live docs of this segment
+                histoProc.reset(fieldData);
+                int maxDoc = reader.maxDoc();
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    if (!reader.isDeleted(doc)) {
+                        fieldData.forEachOrdinalInDoc(doc, histoProc);
+                    }
+                }
+                histoProc.flush();
+                continue;
+            }
+            DateHistogramRollup rollup = (DateHistogramRollup) fieldData.rollup(rollupKey);
+            if (rollup == null) {
+                rollup = DateHistogramRollup.build(tzRounding, fieldData, reader.maxDoc());
+                fieldData.cacheRollup(rollupKey, rollup, rollup.sizeInBytes());
+            }
+            for (int i = 0; i < rollup.keys.length; i++) {
+                counts.adjustOrPutValue(rollup.keys[i], rollup.counts[i], rollup.counts[i]);
+            }
+        }
+        fieldData = null;
     }
 
     @Override
     public Facet facet() {
+        histoProc.flush();
+        histoProc.release();
         return new InternalCountDateHistogramFacet(facetName, comparatorType, histoProc.counts(), true);
     }
 
-    public static class DateHistogramProc implements LongFieldData.LongValueInDocProc {
+    /**
+     * Counts the values of a segment per ordinal, and only rounds them into buckets once the segment
+     * has been collected. Since the field data values are sorted and the rounding is monotonic, the
+     * ordinals of a bucket form a contiguous range, whose end is found with an exponential search.
+     * This means the rounding is computed a logarithmic number of times per bucket, instead of once
+     * per collected value. Only the ordinals that were hit are visited, unless most of them were.
+     */
+    public static class DateHistogramProc implements FieldData.OrdinalInDocProc {
+
+        /**
+         * Above this ratio of hit ordinals, walking all the ordinals is cheaper than sorting the hit ones.
+         */
+        private static final int DENSE_RATIO = 16;
 
         private final TLongLongHashMap counts = CacheRecycler.popLongLongMap();
 
         private final TimeZoneRounding tzRounding;
 
+        private long[] values;
+
+        private int[] ordinalCounts;
+
+        private int[] hitOrdinals;
+
+        private int numHitOrdinals;
+
         public DateHistogramProc(TimeZoneRounding tzRounding) {
             this.tzRounding = tzRounding;
         }
 
+        public void reset(LongFieldData fieldData) {
+            this.values = fieldData.values();
+            if (ordinalCounts == null || ordinalCounts.length < values.length) {
+                release();
+                ordinalCounts = CacheRecycler.popIntArray(values.length);
+                hitOrdinals = CacheRecycler.popIntArray(values.length);
+            }
+        }
+
+        public void release() {
+            if (ordinalCounts != null) {
+                CacheRecycler.pushIntArray(ordinalCounts);
+                CacheRecycler.pushIntArray(hitOrdinals);
+                ordinalCounts = null;
+                hitOrdinals = null;
+            }
+        }
+
         @Override
-        public void onValue(int docId, long value) {
-            counts.adjustOrPutValue(tzRounding.calc(value), 1, 1);
+        public void onOrdinal(int docId, int ordinal) {
+            // ordinal 0 stands for docs with no value
+            if (ordinal != 0 && ordinalCounts[ordinal]++ == 0) {
+                hitOrdinals[numHitOrdinals++] = ordinal;
+            }
+        }
+
+        /**
+         * Aggregates the counts of the current segment into the buckets, clearing the per ordinal counts.
+         */
+        public void flush() {
+            if (values == null) {
+                return;
+            }
+            if (numHitOrdinals > values.length / DENSE_RATIO) {
+                flushAllOrdinals();
+            } else {
+                flushHitOrdinals();
+            }
+            numHitOrdinals = 0;
+            values = null;
+        }
+
+        private void flushAllOrdinals() {
+            int ordinal = 1;
+            while (ordinal < values.length) {
+                if (ordinalCounts[ordinal] == 0) {
+                    ordinal++;
+                    continue;
+                }
+                long key = tzRounding.calc(values[ordinal]);
+                int last = lastOrdinalInBucket(tzRounding, values, ordinal, key);
+                long count = 0;
+                for (int i = ordinal; i <= last; i++) {
+                    count += ordinalCounts[i];
+                    ordinalCounts[i] = 0;
+                }
+                counts.adjustOrPutValue(key, count, count);
+                ordinal = last + 1;
+            }
+        }
+
+        private void flushHitOrdinals() {
+            Arrays.sort(hitOrdinals, 0, numHitOrdinals);
+            int i = 0;
+            while (i < numHitOrdinals) {
+                long key = tzRounding.calc(values[hitOrdinals[i]]);
+                int last = lastOrdinalInBucket(tzRounding, values, hitOrdinals[i], key);
+                long count = 0;
+                for (; i < numHitOrdinals && hitOrdinals[i] <= last; i++) {
+                    count += ordinalCounts[hitOrdinals[i]];
+                    ordinalCounts[hitOrdinals[i]] = 0;
+                }
+                counts.adjustOrPutValue(key, count, count);
+            }
         }
 
         public TLongLongHashMap counts() {
             return counts;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The counts per bucket of all the docs of a segment (including deleted ones), cached with the segment
+     * field data (see {@link LongFieldData#rollup(String)}).
+     */
+    static class DateHistogramRollup {
+
+        final long[] keys;
+
+        final long[] counts;
+
+        DateHistogramRollup(long[] keys, long[] counts) {
+            this.keys = keys;
+            this.counts = counts;
+        }
+
+        long sizeInBytes() {
+            return 2 * (RamUsage.NUM_BYTES_LONG * keys.length + RamUsage.NUM_BYTES_ARRAY_HEADER + RamUsage.NUM_BYTES_OBJECT_REF) + RamUsage.NUM_BYTES_OBJECT_HEADER;
+        }
+
+        static DateHistogramRollup build(TimeZoneRounding tzRounding, LongFieldData fieldData, int maxDoc) {
+            DateHistogramProc proc = new DateHistogramProc(tzRounding);
+            proc.reset(fieldData);
+            for (int doc = 0; doc < maxDoc; doc++) {
+                fieldData.forEachOrdinalInDoc(doc, proc);
+            }
+            proc.flush();
+            proc.release();
+            TLongLongHashMap bucketCounts = proc.counts();
+
+            long[] keys = bucketCounts.keys();
+            long[] counts = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                counts[i] = bucketCounts.get(keys[i]);
+            }
+            CacheRecycler.pushLongLongMap(bucketCounts);
+            return new DateHistogramRollup(keys, counts);
+        }
+    }
+
+    /**
+     * Returns the last ordinal (starting from the provided one) whose value rounds to the provided key.
+     */
+    public static int lastOrdinalInBucket(TimeZoneRounding tzRounding, long[] values, int ordinal, long key) {
+        // gallop to find an ordinal out of the bucket
+        int low = ordinal;
+        int step = 1;
+        int high = ordinal + step;
+        while (high < values.length && tzRounding.calc(values[high]) == key) {
+            low = high;
+            step <<= 1;
+            high = ordinal + step;
+        }
+        if (high > values.length) {
+            high = values.length;
+        }
+        // now, low is in the bucket and high is either out of it or out of the values, binary search in between
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (tzRounding.calc(values[mid]) == key) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -173,7 +173,10 @@ public class DateHistogramFacetProcessor extends AbstractComponent implements Fa
         if (valueScript != null) {
             return new ValueScriptDateHistogramFacetCollector(facetName, keyField, scriptLang, valueScript, params, tzRounding, comparatorType, context);
         } else if (valueField == null) {
-            return new CountDateHistogramFacetCollector(facetName, keyField, tzRounding, comparatorType, context);
+            // uniquely identifies the rounding, so per segment rollups can be shared across requests
+            String rollupKey = interval + '|' + preZone.getID() + '|' + postZone.getID() + '|' + preZoneAdjustLargeInterval + '|' +
+                    preOffset + '|' + postOffset + '|' + factor;
+            return new CountDateHistogramFacetCollector(facetName, keyField, tzRounding, rollupKey, comparatorType, context);
         } else {
             return new ValueDateHistogramFacetCollector(facetName, keyField, valueField, tzRounding, comparatorType, context);
         }
@@ -24,6 +24,7 @@ import org.elasticsearch.common.CacheRecycler;
 import org.elasticsearch.common.joda.TimeZoneRounding;
 import org.elasticsearch.common.trove.ExtTLongObjectHashMap;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
+import org.elasticsearch.index.field.data.FieldData;
 import org.elasticsearch.index.field.data.FieldDataType;
 import org.elasticsearch.index.field.data.NumericFieldData;
 import org.elasticsearch.index.field.data.longs.LongFieldData;
@@ -85,21 +86,27 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
 
     @Override
     protected void doCollect(int doc) throws IOException {
-        keyFieldData.forEachValueInDoc(doc, histoProc);
+        keyFieldData.forEachOrdinalInDoc(doc, histoProc);
     }
 
     @Override
     protected void doSetNextReader(IndexReader reader, int docBase) throws IOException {
         keyFieldData = (LongFieldData) fieldDataCache.cache(keyFieldDataType, reader, keyIndexFieldName);
+        histoProc.reset(keyFieldData);
         histoProc.valueFieldData = (NumericFieldData) fieldDataCache.cache(valueFieldDataType, reader, valueIndexFieldName);
     }
 
     @Override
     public Facet facet() {
+        histoProc.release();
         return new InternalFullDateHistogramFacet(facetName, comparatorType, histoProc.entries, true);
     }
 
-    public static class DateHistogramProc implements LongFieldData.LongValueInDocProc {
+    /**
+     * Resolves the entry of each key ordinal of a segment only once, so the rounding and the entries
+     * lookup are done per distinct key value, and not per collected value.
+     */
+    public static class DateHistogramProc implements FieldData.OrdinalInDocProc {
 
         final ExtTLongObjectHashMap<InternalFullDateHistogramFacet.FullEntry> entries = CacheRecycler.popLongObjectMap();
 
@@ -109,18 +116,42 @@ public class ValueDateHistogramFacetCollector extends AbstractFacetCollector {
 
         final ValueAggregator valueAggregator = new ValueAggregator();
 
+        private long[] keyValues;
+
+        private Object[] ordinalEntries;
+
         public DateHistogramProc(TimeZoneRounding tzRounding) {
             this.tzRounding = tzRounding;
         }
 
-        @Override
-        public void onValue(int docId, long value) {
-            long time = tzRounding.calc(value);
+        void reset(LongFieldData keyFieldData) {
+            release();
+            keyValues = keyFieldData.values();
+            ordinalEntries = CacheRecycler.popObjectArray(keyValues.length);
+        }
+
+        void release() {
+            if (ordinalEntries != null) {
+                CacheRecycler.pushObjectArray(ordinalEntries);
+                ordinalEntries = null;
+            }
+        }
 
-            InternalFullDateHistogramFacet.FullEntry entry = entries.get(time);
+        @Override
+        public void onOrdinal(int docId, int ordinal) {
+            if (ordinal == 0) {
+                // no value
+                return;
+            }
+            InternalFullDateHistogramFacet.FullEntry entry = (InternalFullDateHistogramFacet.FullEntry) ordinalEntries[ordinal];
             if (entry == null) {
-                entry = new InternalFullDateHistogramFacet.FullEntry(time, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0);
-                entries.put(time, entry);
+                long time = tzRounding.calc(keyValues[ordinal]);
+                entry = entries.get(time);
+                if (entry == null) {
+                    entry = new InternalFullDateHistogramFacet.FullEntry(time, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0);
+                    entries.put(time, entry);
+                }
+                ordinalEntries[ordinal] = entry;
             }
             entry.count++;
             valueAggregator.entry = entry;
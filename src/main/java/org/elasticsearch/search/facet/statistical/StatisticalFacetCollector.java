@@ -20,6 +20,12 @@
 package org.elasticsearch.search.facet.statistical;
 
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.DeletionAwareConstantScoreQuery;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.RamUsage;
+import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.cache.field.data.FieldDataCache;
 import org.elasticsearch.index.field.data.FieldDataType;
 import org.elasticsearch.index.field.data.NumericFieldData;
@@ -27,6 +33,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.search.facet.AbstractFacetCollector;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.FacetPhaseExecutionException;
+import org.elasticsearch.search.facet.OptimizeGlobalFacetCollector;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -34,7 +41,9 @@ import java.io.IOException;
 /**
  *
  */
-public class StatisticalFacetCollector extends AbstractFacetCollector {
+public class StatisticalFacetCollector extends AbstractFacetCollector implements OptimizeGlobalFacetCollector {
+
+    private static final String ROLLUP_KEY = "statistical";
 
     private final String indexFieldName;
 
@@ -74,6 +83,45 @@ public class StatisticalFacetCollector extends AbstractFacetCollector {
         fieldData = (NumericFieldData) fieldDataCache.cache(fieldDataType, reader, indexFieldName);
     }
 
+    @Override
+    public void optimizedGlobalExecution(SearchContext context) throws IOException {
+        Filter searchFilter = context.mapperService().searchFilter(context.types());
+        if (filter != null || searchFilter != null) {
+            // not all docs are aggregated, collect them as a non optimized global facet would do
+            Query query = new DeletionAwareConstantScoreQuery(filter == null ? Queries.MATCH_ALL_FILTER : getAndClearFilter());
+            if (searchFilter != null) {
+                query = new FilteredQuery(query, context.filterCache().cache(searchFilter));
+            }
+            context.searcher().search(query, this);
+            return;
+        }
+
+        for (IndexReader reader : context.searcher().subReaders()) {
+            fieldData = (NumericFieldData) fieldDataCache.cache(fieldDataType, reader, indexFieldName);
+            if (reader.hasDeletions()) {
+                // the rollup aggregates deleted docs as well, aggregate the live docs of this segment
+                int maxDoc = reader.maxDoc();
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    if (!reader.isDeleted(doc)) {
+                        fieldData.forEachValueInDoc(doc, statsProc);
+                    }
+                }
+                continue;
+            }
+            StatsProc rollup = (StatsProc) fieldData.rollup(ROLLUP_KEY);
+            if (rollup == null) {
+                rollup = new StatsProc();
+                int maxDoc = reader.maxDoc();
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    fieldData.forEachValueInDoc(doc, rollup);
+                }
+                fieldData.cacheRollup(ROLLUP_KEY, rollup, StatsProc.SIZE_IN_BYTES);
+            }
+            statsProc.merge(rollup);
+        }
+        fieldData = null;
+    }
+
     @Override
     public Facet facet() {
         return new InternalStatisticalFacet(facetName, statsProc.min(), statsProc.max(), statsProc.total(), statsProc.sumOfSquares(), statsProc.count());
@@ -81,6 +129,8 @@ public class StatisticalFacetCollector extends AbstractFacetCollector {
 
     public static class StatsProc implements NumericFieldData.MissingDoubleValueInDocProc {
 
+        static final long SIZE_IN_BYTES = RamUsage.NUM_BYTES_OBJECT_HEADER + 4 * RamUsage.NUM_BYTES_DOUBLE + RamUsage.NUM_BYTES_LONG + RamUsage.NUM_BYTES_INT;
+
         double min = Double.POSITIVE_INFINITY;
 
         double max = Double.NEGATIVE_INFINITY;
@@ -111,6 +161,19 @@ public class StatisticalFacetCollector extends AbstractFacetCollector {
             missing++;
         }
 
+        void merge(StatsProc other) {
+            if (other.min < min) {
+                min = other.min;
+            }
+            if (other.max > max) {
+                max = other.max;
+            }
+            sumOfSquares += other.sumOfSquares;
+            total += other.total;
+            count += other.count;
+            missing += other.missing;
+        }
+
         public final double min() {
             return min;
         }
@@ -56,6 +56,7 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -154,8 +155,16 @@ public class FetchPhase implements SearchPhase {
         }
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
+        // load the docs in doc id order, so hits that are close by reuse the stored fields block already
+        // read (and decompressed), the hits are still placed in their requested order
+        long[] loadOrder = new long[context.docIdsToLoadSize()];
+        for (int index = 0; index < loadOrder.length; index++) {
+            loadOrder[index] = (((long) context.docIdsToLoad()[context.docIdsToLoadFrom() + index]) << 32) | index;
+        }
+        Arrays.sort(loadOrder);
+        for (long load : loadOrder) {
+            int index = (int) load;
+            int docId = (int) (load >>> 32);
             Document doc = loadDocument(context, fieldSelector, docId);
             Uid uid = extractUid(context, doc, fieldSelector);
 
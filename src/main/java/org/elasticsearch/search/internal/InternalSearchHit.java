@@ -42,6 +42,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.elasticsearch.common.lucene.Lucene.readExplanation;
@@ -389,15 +390,17 @@ public class InternalSearchHit implements SearchHit {
         if (fields != null && !fields.isEmpty()) {
             builder.startObject(Fields.FIELDS);
             for (SearchHitField field : fields.values()) {
-                if (field.values().isEmpty()) {
+                // write the values as read from the shard when possible, string values are copied as utf8 bytes
+                List<Object> values = field instanceof InternalSearchHitField ? ((InternalSearchHitField) field).xContentValues() : field.values();
+                if (values.isEmpty()) {
                     continue;
                 }
-                if (field.values().size() == 1) {
-                    builder.field(field.name(), field.values().get(0));
+                if (values.size() == 1) {
+                    builder.field(field.name(), values.get(0));
                 } else {
                     builder.field(field.name());
                     builder.startArray();
-                    for (Object value : field.values()) {
+                    for (Object value : values) {
                         builder.value(value);
                     }
                     builder.endArray();
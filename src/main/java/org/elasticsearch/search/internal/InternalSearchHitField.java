@@ -19,12 +19,16 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.text.StringText;
+import org.elasticsearch.common.text.Text;
 import org.elasticsearch.search.SearchHitField;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -37,6 +41,10 @@ public class InternalSearchHitField implements SearchHitField {
 
     private List<Object> values;
 
+    // the values as read from the stream, with string values kept as their utf8 bytes, so they can be written
+    // to a response (or streamed again) without decoding them, values are only decoded when accessed
+    private Object[] rawValues;
+
     private InternalSearchHitField() {
 
     }
@@ -57,6 +65,7 @@ public class InternalSearchHitField implements SearchHitField {
 
     @Override
     public Object value() {
+        List<Object> values = values();
         if (values == null || values.isEmpty()) {
             return null;
         }
@@ -69,6 +78,28 @@ public class InternalSearchHitField implements SearchHitField {
     }
 
     public List<Object> values() {
+        if (values == null && rawValues != null) {
+            List<Object> values = new ArrayList<Object>(rawValues.length);
+            for (Object value : rawValues) {
+                if (value instanceof Text) {
+                    values.add(((Text) value).string());
+                } else {
+                    values.add(value);
+                }
+            }
+            this.values = values;
+            this.rawValues = null;
+        }
+        return values;
+    }
+
+    /**
+     * The values to write to a response, string values might be {@link Text} if they were not accessed yet.
+     */
+    List<Object> xContentValues() {
+        if (values == null && rawValues != null) {
+            return Arrays.asList(rawValues);
+        }
         return values;
     }
 
@@ -80,7 +111,7 @@ public class InternalSearchHitField implements SearchHitField {
 
     @Override
     public Iterator<Object> iterator() {
-        return values.iterator();
+        return values().iterator();
     }
 
     public static InternalSearchHitField readSearchHitField(StreamInput in) throws IOException {
@@ -93,18 +124,46 @@ public class InternalSearchHitField implements SearchHitField {
     public void readFrom(StreamInput in) throws IOException {
         name = in.readUTF();
         int size = in.readVInt();
-        values = new ArrayList<Object>(size);
-        for (int i = 0; i < size; i++) {
-            values.add(in.readGenericValue());
+        if (in.getVersion().onOrAfter(Version.V_0_20_0_Beta1)) {
+            rawValues = new Object[size];
+            for (int i = 0; i < size; i++) {
+                if (in.readBoolean()) {
+                    rawValues[i] = in.readText();
+                } else {
+                    rawValues[i] = in.readGenericValue();
+                }
+            }
+        } else {
+            values = new ArrayList<Object>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(in.readGenericValue());
+            }
         }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeUTF(name);
+        List<Object> values = xContentValues();
         out.writeVInt(values.size());
-        for (Object value : values) {
-            out.writeGenericValue(value);
+        if (out.getVersion().onOrAfter(Version.V_0_20_0_Beta1)) {
+            // strings are written as utf8 text, passed through as is when they were read and not accessed
+            for (Object value : values) {
+                if (value instanceof Text) {
+                    out.writeBoolean(true);
+                    out.writeText((Text) value);
+                } else if (value instanceof String) {
+                    out.writeBoolean(true);
+                    out.writeText(new StringText((String) value));
+                } else {
+                    out.writeBoolean(false);
+                    out.writeGenericValue(value);
+                }
+            }
+        } else {
+            for (Object value : values) {
+                out.writeGenericValue(value instanceof Text ? ((Text) value).string() : value);
+            }
         }
     }
 }
\ No newline at end of file
@@ -160,6 +160,8 @@ public class SearchContext implements Releasable {
 
     private boolean queryRewritten;
 
+    private boolean nowInMillisUsed;
+
     private volatile long keepAlive;
 
     private volatile long lastAccessTime;
@@ -274,9 +276,18 @@ public class SearchContext implements Releasable {
     }
 
     public long nowInMillis() {
+        nowInMillisUsed = true;
         return request.nowInMillis();
     }
 
+    /**
+     * Has the current time of the request been used while executing it, in which case the
+     * result depends on when it was executed and not only on the request and the shard data.
+     */
+    public boolean nowInMillisUsed() {
+        return nowInMillisUsed;
+    }
+
     public Scroll scroll() {
         return this.scroll;
     }
@@ -72,6 +72,11 @@ public class DocLookup implements Map {
         return this.fieldDataCache;
     }
 
+    @Nullable
+    public String[] types() {
+        return this.types;
+    }
+
     public void setNextReader(IndexReader reader) {
         if (this.reader == reader) { // if we are called with the same reader, don't invalidate source
             return;
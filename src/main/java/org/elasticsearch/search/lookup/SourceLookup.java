@@ -24,8 +24,10 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Fieldable;
 import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.ElasticSearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
 import org.elasticsearch.index.mapper.internal.SourceFieldSelector;
@@ -117,8 +119,35 @@ public class SourceLookup implements Map {
         return XContentMapValues.extractRawValues(path, loadSourceIfNeeded());
     }
 
-    public Object filter(String[] includes, String[] excludes) {
-        return XContentMapValues.filter(loadSourceIfNeeded(), includes, excludes);
+    /**
+     * Filters the source based on the includes and excludes. If the source has not been parsed yet, the filtering
+     * is done while parsing, without building the full source map.
+     */
+    public Map<String, Object> filter(String[] includes, String[] excludes) {
+        if (source != null) {
+            return XContentMapValues.filter(source, includes, excludes);
+        }
+        XContentParser parser = null;
+        try {
+            if (sourceAsBytes == null) {
+                Document doc = reader.document(docId, SourceFieldSelector.INSTANCE);
+                Fieldable sourceField = doc.getFieldable(SourceFieldMapper.NAME);
+                if (sourceField == null) {
+                    source = ImmutableMap.of();
+                    return ImmutableMap.of();
+                }
+                // keep the bytes around, so other filters on the same doc won't need to load it again
+                sourceAsBytes = new BytesArray(sourceField.getBinaryValue(), sourceField.getBinaryOffset(), sourceField.getBinaryLength());
+            }
+            parser = XContentHelper.createParser(sourceAsBytes);
+            return XContentMapValues.filter(parser, includes, excludes);
+        } catch (Exception e) {
+            throw new ElasticSearchParseException("failed to parse / filter source", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
     }
 
     public Object extractValue(String path) {
@@ -88,11 +88,12 @@ public class ThreadPool extends AbstractComponent {
 
         Map<String, ExecutorHolder> executors = Maps.newHashMap();
         executors.put(Names.GENERIC, build(Names.GENERIC, "cached", groupSettings.get(Names.GENERIC), settingsBuilder().put("keep_alive", "30s").build()));
-        executors.put(Names.INDEX, build(Names.INDEX, "cached", groupSettings.get(Names.INDEX), ImmutableSettings.Builder.EMPTY_SETTINGS));
-        executors.put(Names.BULK, build(Names.BULK, "cached", groupSettings.get(Names.BULK), ImmutableSettings.Builder.EMPTY_SETTINGS));
-        executors.put(Names.GET, build(Names.GET, "cached", groupSettings.get(Names.GET), ImmutableSettings.Builder.EMPTY_SETTINGS));
-        executors.put(Names.SEARCH, build(Names.SEARCH, "cached", groupSettings.get(Names.SEARCH), ImmutableSettings.Builder.EMPTY_SETTINGS));
-        executors.put(Names.PERCOLATE, build(Names.PERCOLATE, "cached", groupSettings.get(Names.PERCOLATE), ImmutableSettings.Builder.EMPTY_SETTINGS));
+        int availableProcessors = Runtime.getRuntime().availableProcessors();
+        executors.put(Names.INDEX, build(Names.INDEX, "fixed", groupSettings.get(Names.INDEX), settingsBuilder().put("size", availableProcessors).put("queue_size", 200).build()));
+        executors.put(Names.BULK, build(Names.BULK, "fixed", groupSettings.get(Names.BULK), settingsBuilder().put("size", availableProcessors).put("queue_size", 50).build()));
+        executors.put(Names.GET, build(Names.GET, "fixed", groupSettings.get(Names.GET), settingsBuilder().put("size", availableProcessors).put("queue_size", 1000).build()));
+        executors.put(Names.SEARCH, build(Names.SEARCH, "fixed", groupSettings.get(Names.SEARCH), settingsBuilder().put("size", availableProcessors * 3).put("queue_size", 1000).build()));
+        executors.put(Names.PERCOLATE, build(Names.PERCOLATE, "fixed", groupSettings.get(Names.PERCOLATE), settingsBuilder().put("size", availableProcessors).put("queue_size", 1000).build()));
         executors.put(Names.MANAGEMENT, build(Names.MANAGEMENT, "scaling", groupSettings.get(Names.MANAGEMENT), settingsBuilder().put("keep_alive", "5m").put("size", 5).build()));
         executors.put(Names.FLUSH, build(Names.FLUSH, "scaling", groupSettings.get(Names.FLUSH), settingsBuilder().put("keep_alive", "5m").put("size", 10).build()));
         executors.put(Names.MERGE, build(Names.MERGE, "scaling", groupSettings.get(Names.MERGE), settingsBuilder().put("keep_alive", "5m").put("size", 20).build()));
@@ -137,8 +138,11 @@ public class ThreadPool extends AbstractComponent {
             }
             int threads = -1;
             int queue = -1;
+            int queueCapacity = -1;
             int active = -1;
             long rejected = -1;
+            long queueTime50 = -1;
+            long queueTime99 = -1;
             if (holder.executor instanceof ThreadPoolExecutor) {
                 ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) holder.executor;
                 threads = threadPoolExecutor.getPoolSize();
@@ -149,7 +153,13 @@ public class ThreadPool extends AbstractComponent {
                     rejected = ((XRejectedExecutionHandler) rejectedExecutionHandler).rejected();
                 }
             }
-            stats.add(new ThreadPoolStats.Stats(name, threads, queue, active, rejected));
+            if (holder.executor instanceof EsThreadPoolExecutor) {
+                EsThreadPoolExecutor esExecutor = (EsThreadPoolExecutor) holder.executor;
+                queueCapacity = esExecutor.queueCapacity();
+                queueTime50 = esExecutor.queueTime().percentile(50);
+                queueTime99 = esExecutor.queueTime().percentile(99);
+            }
+            stats.add(new ThreadPoolStats.Stats(name, threads, queue, queueCapacity, active, rejected, queueTime50, queueTime99));
         }
         return new ThreadPoolStats(stats);
     }
@@ -242,13 +252,14 @@ public class ThreadPool extends AbstractComponent {
             } else {
                 throw new ElasticSearchIllegalArgumentException("reject_policy [" + rejectSetting + "] not valid for [" + name + "] thread pool");
             }
-            String queueType = settings.get("queue_type", "linked");
+            String queueType = settings.get("queue_type", defaultSettings.get("queue_type", "linked"));
             BlockingQueue<Runnable> workQueue;
             if (capacity == null) {
                 workQueue = ConcurrentCollections.newBlockingQueue();
             } else if ((int) capacity.singles() > 0) {
                 if ("linked".equals(queueType)) {
-                    workQueue = new LinkedBlockingQueue<Runnable>((int) capacity.singles());
+                    // allows to force operations that should not be rejected (like replica operations) and to resize it
+                    workQueue = new SizeBlockingQueue<Runnable>(ConcurrentCollections.<Runnable>newBlockingQueue(), (int) capacity.singles());
                 } else if ("array".equals(queueType)) {
                     workQueue = new ArrayBlockingQueue<Runnable>((int) capacity.singles());
                 } else {
@@ -258,10 +269,19 @@ public class ThreadPool extends AbstractComponent {
                 workQueue = new SynchronousQueue<Runnable>();
             }
             logger.debug("creating thread_pool [{}], type [{}], size [{}], queue_size [{}], reject_policy [{}], queue_type [{}]", name, type, size, capacity, rejectSetting, queueType);
-            Executor executor = new EsThreadPoolExecutor(size, size,
+            EsThreadPoolExecutor executor = new EsThreadPoolExecutor(size, size,
                     0L, TimeUnit.MILLISECONDS,
                     workQueue,
                     threadFactory, rejectedExecutionHandler);
+            TimeValue targetQueueTime = settings.getAsTime("target_queue_time", defaultSettings.getAsTime("target_queue_time", null));
+            if (targetQueueTime != null && workQueue instanceof SizeBlockingQueue) {
+                int minQueueSize = settings.getAsInt("min_queue_size", defaultSettings.getAsInt("min_queue_size", Math.min(10, (int) capacity.singles())));
+                int maxQueueSize = settings.getAsInt("max_queue_size", defaultSettings.getAsInt("max_queue_size", (int) capacity.singles() * 4));
+                int resizeFrequency = settings.getAsInt("queue_resize_frequency", defaultSettings.getAsInt("queue_resize_frequency", 1000));
+                int resizeStep = settings.getAsInt("queue_resize_step", defaultSettings.getAsInt("queue_resize_step", 50));
+                logger.debug("thread_pool [{}] adjusting queue size for target_queue_time [{}], min_queue_size [{}], max_queue_size [{}]", name, targetQueueTime, minQueueSize, maxQueueSize);
+                executor.targetQueueTime(targetQueueTime.nanos(), minQueueSize, maxQueueSize, resizeFrequency, resizeStep);
+            }
             return new ExecutorHolder(executor, new Info(name, type, size, size, null, capacity));
         } else if ("scaling".equals(type)) {
             TimeValue keepAlive = settings.getAsTime("keep_alive", defaultSettings.getAsTime("keep_alive", timeValueMinutes(5)));
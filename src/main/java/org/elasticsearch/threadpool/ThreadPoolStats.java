@@ -40,19 +40,29 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
         private String name;
         private int threads;
         private int queue;
+        private int queueCapacity;
         private int active;
         private long rejected;
+        private long queueTime50;
+        private long queueTime99;
 
         Stats() {
 
         }
 
         public Stats(String name, int threads, int queue, int active, long rejected) {
+            this(name, threads, queue, -1, active, rejected, -1, -1);
+        }
+
+        public Stats(String name, int threads, int queue, int queueCapacity, int active, long rejected, long queueTime50, long queueTime99) {
             this.name = name;
             this.threads = threads;
             this.queue = queue;
+            this.queueCapacity = queueCapacity;
             this.active = active;
             this.rejected = rejected;
+            this.queueTime50 = queueTime50;
+            this.queueTime99 = queueTime99;
         }
 
         public String name() {
@@ -79,6 +89,39 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             return this.queue;
         }
 
+        /**
+         * The current capacity of the queue, <tt>-1</tt> if not known.
+         */
+        public int queueCapacity() {
+            return this.queueCapacity;
+        }
+
+        public int getQueueCapacity() {
+            return this.queueCapacity;
+        }
+
+        /**
+         * The (approximated) median time, in microseconds, tasks waited in the queue.
+         */
+        public long queueTime50() {
+            return this.queueTime50;
+        }
+
+        public long getQueueTime50() {
+            return this.queueTime50;
+        }
+
+        /**
+         * The (approximated) 99th percentile time, in microseconds, tasks waited in the queue.
+         */
+        public long queueTime99() {
+            return this.queueTime99;
+        }
+
+        public long getQueueTime99() {
+            return this.queueTime99;
+        }
+
         public int active() {
             return this.active;
         }
@@ -102,6 +145,9 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             queue = in.readInt();
             active = in.readInt();
             rejected = in.readLong();
+            queueCapacity = in.readInt();
+            queueTime50 = in.readLong();
+            queueTime99 = in.readLong();
         }
 
         @Override
@@ -111,6 +157,9 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             out.writeInt(queue);
             out.writeInt(active);
             out.writeLong(rejected);
+            out.writeInt(queueCapacity);
+            out.writeLong(queueTime50);
+            out.writeLong(queueTime99);
         }
 
         @Override
@@ -122,12 +171,21 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             if (queue != -1) {
                 builder.field(Fields.QUEUE, queue);
             }
+            if (queueCapacity != -1) {
+                builder.field(Fields.QUEUE_CAPACITY, queueCapacity);
+            }
             if (active != -1) {
                 builder.field(Fields.ACTIVE, active);
             }
             if (rejected != -1) {
                 builder.field(Fields.REJECTED, rejected);
             }
+            if (queueTime50 != -1) {
+                builder.field(Fields.QUEUE_TIME_50TH_PERCENTILE_IN_MICROS, queueTime50);
+            }
+            if (queueTime99 != -1) {
+                builder.field(Fields.QUEUE_TIME_99TH_PERCENTILE_IN_MICROS, queueTime99);
+            }
             builder.endObject();
             return builder;
         }
@@ -177,8 +235,11 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
         static final XContentBuilderString THREAD_POOL = new XContentBuilderString("thread_pool");
         static final XContentBuilderString THREADS = new XContentBuilderString("threads");
         static final XContentBuilderString QUEUE = new XContentBuilderString("queue");
+        static final XContentBuilderString QUEUE_CAPACITY = new XContentBuilderString("queue_capacity");
         static final XContentBuilderString ACTIVE = new XContentBuilderString("active");
         static final XContentBuilderString REJECTED = new XContentBuilderString("rejected");
+        static final XContentBuilderString QUEUE_TIME_50TH_PERCENTILE_IN_MICROS = new XContentBuilderString("queue_time_50th_percentile_in_micros");
+        static final XContentBuilderString QUEUE_TIME_99TH_PERCENTILE_IN_MICROS = new XContentBuilderString("queue_time_99th_percentile_in_micros");
     }
 
     @Override
@@ -24,4 +24,8 @@ package org.elasticsearch.transport;
  */
 public abstract class BaseTransportRequestHandler<T extends TransportRequest> implements TransportRequestHandler<T> {
 
+    @Override
+    public boolean isForceExecution() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A request whose serialized form ends with a chunk of a file. Transports that support it can send the
+ * chunk straight from the file to the network (when the request is not compressed), without reading it
+ * into the heap. Other transports simply serialize the request using {@link TransportRequest#writeTo(StreamOutput)}.
+ */
+public interface FileChunkTransportRequest {
+
+    /**
+     * The file the trailing chunk is read from, <tt>null</tt> if the chunk content is already in memory.
+     */
+    @Nullable
+    File chunkFile();
+
+    /**
+     * The position of the chunk within {@link #chunkFile()}.
+     */
+    long chunkFilePosition();
+
+    /**
+     * The length of the chunk.
+     */
+    int chunkLength();
+
+    /**
+     * Writes the request up to (and including) the length of the chunk, the transport is then responsible
+     * for sending {@link #chunkLength()} bytes of {@link #chunkFile()} right after it.
+     */
+    void writeToWithoutChunk(StreamOutput out) throws IOException;
+}
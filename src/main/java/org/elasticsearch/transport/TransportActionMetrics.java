@@ -0,0 +1,90 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of the requests received for a single action, recorded by the transport while the request is
+ * read, queued on its executor, and executed until its response is sent.
+ */
+public class TransportActionMetrics {
+
+    private final String action;
+
+    private final MeanMetric requestSize = new MeanMetric();
+    private final MeanMetric responseSize = new MeanMetric();
+    private final MeanMetric deserialization = new MeanMetric();
+    private final MeanMetric queue = new MeanMetric();
+    private final MeanMetric took = new MeanMetric();
+    private final HistogramMetric tookHistogram = new HistogramMetric();
+    private final CounterMetric failed = new CounterMetric();
+
+    public TransportActionMetrics(String action) {
+        this.action = action;
+    }
+
+    public String action() {
+        return action;
+    }
+
+    /**
+     * A request of the given size in bytes was read, taking the given time (in nanos) to deserialize.
+     */
+    public void onRequest(long size, long deserializationNanos) {
+        requestSize.inc(size);
+        deserialization.inc(deserializationNanos);
+    }
+
+    /**
+     * The request waited the given time (in nanos) on the executor queue before being handled.
+     */
+    public void onQueued(long queueNanos) {
+        queue.inc(queueNanos);
+    }
+
+    /**
+     * A response of the given size was sent, the given time (in nanos) after the request was received.
+     */
+    public void onResponse(long size, long tookNanos) {
+        responseSize.inc(size);
+        took.inc(tookNanos);
+        tookHistogram.inc(TimeUnit.NANOSECONDS.toMicros(tookNanos));
+    }
+
+    /**
+     * A failure was sent back, the given time (in nanos) after the request was received.
+     */
+    public void onFailure(long tookNanos) {
+        failed.inc();
+        took.inc(tookNanos);
+        tookHistogram.inc(TimeUnit.NANOSECONDS.toMicros(tookNanos));
+    }
+
+    public TransportActionStats stats() {
+        return new TransportActionStats(action, requestSize.count(), failed.count(), requestSize.sum(), responseSize.sum(),
+                TimeUnit.NANOSECONDS.toMillis(deserialization.sum()), TimeUnit.NANOSECONDS.toMillis(queue.sum()), TimeUnit.NANOSECONDS.toMillis(took.sum()),
+                tookHistogram.percentile(50) / 1000, tookHistogram.percentile(99) / 1000);
+    }
+}
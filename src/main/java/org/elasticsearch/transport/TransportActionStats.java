@@ -0,0 +1,234 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Stats of the requests received for an action. Times are in milliseconds, the took percentiles are
+ * approximated.
+ */
+public class TransportActionStats implements Streamable, ToXContent {
+
+    private String action;
+    private long count;
+    private long failed;
+    private long requestSize;
+    private long responseSize;
+    private long deserializationTime;
+    private long queueTime;
+    private long tookTime;
+    private long took50;
+    private long took99;
+
+    TransportActionStats() {
+
+    }
+
+    public TransportActionStats(String action, long count, long failed, long requestSize, long responseSize,
+                                long deserializationTime, long queueTime, long tookTime, long took50, long took99) {
+        this.action = action;
+        this.count = count;
+        this.failed = failed;
+        this.requestSize = requestSize;
+        this.responseSize = responseSize;
+        this.deserializationTime = deserializationTime;
+        this.queueTime = queueTime;
+        this.tookTime = tookTime;
+        this.took50 = took50;
+        this.took99 = took99;
+    }
+
+    public String action() {
+        return action;
+    }
+
+    public String getAction() {
+        return action();
+    }
+
+    /**
+     * The number of requests received.
+     */
+    public long count() {
+        return count;
+    }
+
+    public long getCount() {
+        return count();
+    }
+
+    /**
+     * The number of requests that got a failure as response.
+     */
+    public long failed() {
+        return failed;
+    }
+
+    public long getFailed() {
+        return failed();
+    }
+
+    public ByteSizeValue requestSize() {
+        return new ByteSizeValue(requestSize);
+    }
+
+    public ByteSizeValue getRequestSize() {
+        return requestSize();
+    }
+
+    public ByteSizeValue responseSize() {
+        return new ByteSizeValue(responseSize);
+    }
+
+    public ByteSizeValue getResponseSize() {
+        return responseSize();
+    }
+
+    /**
+     * The total time spent deserializing requests.
+     */
+    public TimeValue deserializationTime() {
+        return new TimeValue(deserializationTime);
+    }
+
+    public TimeValue getDeserializationTime() {
+        return deserializationTime();
+    }
+
+    /**
+     * The total time requests waited on the executor queue before being handled.
+     */
+    public TimeValue queueTime() {
+        return new TimeValue(queueTime);
+    }
+
+    public TimeValue getQueueTime() {
+        return queueTime();
+    }
+
+    /**
+     * The total time from receiving requests until their responses were sent.
+     */
+    public TimeValue tookTime() {
+        return new TimeValue(tookTime);
+    }
+
+    public TimeValue getTookTime() {
+        return tookTime();
+    }
+
+    public TimeValue took50() {
+        return new TimeValue(took50);
+    }
+
+    public TimeValue getTook50() {
+        return took50();
+    }
+
+    public TimeValue took99() {
+        return new TimeValue(took99);
+    }
+
+    public TimeValue getTook99() {
+        return took99();
+    }
+
+    public static TransportActionStats readTransportActionStats(StreamInput in) throws IOException {
+        TransportActionStats stats = new TransportActionStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        action = in.readString();
+        count = in.readVLong();
+        failed = in.readVLong();
+        requestSize = in.readVLong();
+        responseSize = in.readVLong();
+        deserializationTime = in.readVLong();
+        queueTime = in.readVLong();
+        tookTime = in.readVLong();
+        took50 = in.readVLong();
+        took99 = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(action);
+        out.writeVLong(count);
+        out.writeVLong(failed);
+        out.writeVLong(requestSize);
+        out.writeVLong(responseSize);
+        out.writeVLong(deserializationTime);
+        out.writeVLong(queueTime);
+        out.writeVLong(tookTime);
+        out.writeVLong(took50);
+        out.writeVLong(took99);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(action);
+        builder.field(Fields.COUNT, count);
+        builder.field(Fields.FAILED, failed);
+        builder.field(Fields.REQUEST_SIZE, requestSize().toString());
+        builder.field(Fields.REQUEST_SIZE_IN_BYTES, requestSize);
+        builder.field(Fields.RESPONSE_SIZE, responseSize().toString());
+        builder.field(Fields.RESPONSE_SIZE_IN_BYTES, responseSize);
+        builder.field(Fields.DESERIALIZATION_TIME, deserializationTime().toString());
+        builder.field(Fields.DESERIALIZATION_TIME_IN_MILLIS, deserializationTime);
+        builder.field(Fields.QUEUE_TIME, queueTime().toString());
+        builder.field(Fields.QUEUE_TIME_IN_MILLIS, queueTime);
+        builder.field(Fields.TOOK_TIME, tookTime().toString());
+        builder.field(Fields.TOOK_TIME_IN_MILLIS, tookTime);
+        builder.field(Fields.TOOK_50_IN_MILLIS, took50);
+        builder.field(Fields.TOOK_99_IN_MILLIS, took99);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString FAILED = new XContentBuilderString("failed");
+        static final XContentBuilderString REQUEST_SIZE = new XContentBuilderString("request_size");
+        static final XContentBuilderString REQUEST_SIZE_IN_BYTES = new XContentBuilderString("request_size_in_bytes");
+        static final XContentBuilderString RESPONSE_SIZE = new XContentBuilderString("response_size");
+        static final XContentBuilderString RESPONSE_SIZE_IN_BYTES = new XContentBuilderString("response_size_in_bytes");
+        static final XContentBuilderString DESERIALIZATION_TIME = new XContentBuilderString("deserialization_time");
+        static final XContentBuilderString DESERIALIZATION_TIME_IN_MILLIS = new XContentBuilderString("deserialization_time_in_millis");
+        static final XContentBuilderString QUEUE_TIME = new XContentBuilderString("queue_time");
+        static final XContentBuilderString QUEUE_TIME_IN_MILLIS = new XContentBuilderString("queue_time_in_millis");
+        static final XContentBuilderString TOOK_TIME = new XContentBuilderString("took_time");
+        static final XContentBuilderString TOOK_TIME_IN_MILLIS = new XContentBuilderString("took_time_in_millis");
+        static final XContentBuilderString TOOK_50_IN_MILLIS = new XContentBuilderString("took_50th_percentile_in_millis");
+        static final XContentBuilderString TOOK_99_IN_MILLIS = new XContentBuilderString("took_99th_percentile_in_millis");
+    }
+}
@@ -29,4 +29,10 @@ public interface TransportRequestHandler<T extends TransportRequest> {
     void messageReceived(T request, TransportChannel channel) throws Exception;
 
     String executor();
+
+    /**
+     * Should the request be executed even if the executor is at capacity, for requests that must
+     * not be rejected.
+     */
+    boolean isForceExecution();
 }
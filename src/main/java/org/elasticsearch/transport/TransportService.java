@@ -22,6 +22,7 @@ package org.elasticsearch.transport;
 import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.PageCacheRecycler;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -29,13 +30,13 @@ import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
 import org.elasticsearch.threadpool.ThreadPool;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicLong;
@@ -58,6 +59,8 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
 
     final AtomicLong requestIds = new AtomicLong();
 
+    final ConcurrentMap<String, TransportActionMetrics> actionMetrics = ConcurrentCollections.newConcurrentMap();
+
     final CopyOnWriteArrayList<TransportConnectionListener> connectionListeners = new CopyOnWriteArrayList<TransportConnectionListener>();
 
     // An LRU (don't really care about concurrency here) that holds the latest timed out requests so if they
@@ -71,6 +74,10 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     private boolean throwConnectException = false;
     private final TransportService.Adapter adapter = new Adapter();
 
+    private final TimeValue slowRequestThreshold;
+
+    private final int slowestInFlightSize;
+
     public TransportService(Transport transport, ThreadPool threadPool) {
         this(EMPTY_SETTINGS, transport, threadPool);
     }
@@ -80,12 +87,15 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         super(settings);
         this.transport = transport;
         this.threadPool = threadPool;
+        this.slowRequestThreshold = componentSettings.getAsTime("slow_request_threshold", null);
+        this.slowestInFlightSize = componentSettings.getAsInt("stats.slowest_in_flight_size", 10);
     }
 
     @Override
     protected void doStart() throws ElasticSearchException {
         adapter.rxMetric.clear();
         adapter.txMetric.clear();
+        actionMetrics.clear();
         transport.transportServiceAdapter(adapter);
         transport.start();
         if (transport.boundAddress() != null && logger.isInfoEnabled()) {
@@ -112,7 +122,50 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     }
 
     public TransportStats stats() {
-        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum(),
+                PageCacheRecycler.hits(), PageCacheRecycler.misses(), actionStats(), slowestInFlight());
+    }
+
+    private TransportActionStats[] actionStats() {
+        List<TransportActionStats> stats = new ArrayList<TransportActionStats>(actionMetrics.size());
+        for (TransportActionMetrics metrics : actionMetrics.values()) {
+            stats.add(metrics.stats());
+        }
+        Collections.sort(stats, new Comparator<TransportActionStats>() {
+            @Override
+            public int compare(TransportActionStats o1, TransportActionStats o2) {
+                return o1.action().compareTo(o2.action());
+            }
+        });
+        return stats.toArray(new TransportActionStats[stats.size()]);
+    }
+
+    private TransportStats.InFlightRequest[] slowestInFlight() {
+        if (slowestInFlightSize <= 0) {
+            return new TransportStats.InFlightRequest[0];
+        }
+        // the oldest requests are the ones with the lowest sent time
+        PriorityQueue<RequestHolder<?>> queue = new PriorityQueue<RequestHolder<?>>(slowestInFlightSize, new Comparator<RequestHolder<?>>() {
+            @Override
+            public int compare(RequestHolder<?> o1, RequestHolder<?> o2) {
+                return o1.sentTime() < o2.sentTime() ? 1 : (o1.sentTime() == o2.sentTime() ? 0 : -1);
+            }
+        });
+        for (RequestHolder<?> holder : clientHandlers.values()) {
+            if (queue.size() < slowestInFlightSize) {
+                queue.add(holder);
+            } else if (holder.sentTime() < queue.peek().sentTime()) {
+                queue.poll();
+                queue.add(holder);
+            }
+        }
+        long now = System.currentTimeMillis();
+        TransportStats.InFlightRequest[] requests = new TransportStats.InFlightRequest[queue.size()];
+        for (int i = requests.length - 1; i >= 0; i--) {
+            RequestHolder<?> holder = queue.poll();
+            requests[i] = new TransportStats.InFlightRequest(holder.action(), holder.node().id(), Math.max(0, now - holder.sentTime()));
+        }
+        return requests;
     }
 
     public BoundTransportAddress boundAddress() {
@@ -250,6 +303,19 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             return serverHandlers.get(action);
         }
 
+        @Override
+        public TransportActionMetrics actionMetrics(String action) {
+            TransportActionMetrics metrics = actionMetrics.get(action);
+            if (metrics == null) {
+                metrics = new TransportActionMetrics(action);
+                TransportActionMetrics existing = actionMetrics.putIfAbsent(action, metrics);
+                if (existing != null) {
+                    metrics = existing;
+                }
+            }
+            return metrics;
+        }
+
         @Override
         public TransportResponseHandler remove(long requestId) {
             RequestHolder holder = clientHandlers.remove(requestId);
@@ -265,6 +331,12 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
                 return null;
             }
             holder.cancel();
+            if (slowRequestThreshold != null) {
+                long took = System.currentTimeMillis() - holder.sentTime();
+                if (took > slowRequestThreshold.millis()) {
+                    logger.warn("Received response for a slow request, took [{}ms], action [{}], node [{}], id [{}]", took, holder.action(), holder.node(), requestId);
+                }
+            }
             return holder.handler();
         }
 
@@ -389,6 +461,8 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
 
         private final TimeoutHandler timeout;
 
+        private final long sentTime = System.currentTimeMillis();
+
         RequestHolder(TransportResponseHandler<T> handler, DiscoveryNode node, String action, TimeoutHandler timeout) {
             this.handler = handler;
             this.node = node;
@@ -408,6 +482,10 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             return this.action;
         }
 
+        public long sentTime() {
+            return this.sentTime;
+        }
+
         public void cancel() {
             if (timeout != null) {
                 timeout.future.cancel(false);
@@ -32,6 +32,11 @@ public interface TransportServiceAdapter {
 
     TransportRequestHandler handler(String action);
 
+    /**
+     * The metrics to record requests received for the action into.
+     */
+    TransportActionMetrics actionMetrics(String action);
+
     TransportResponseHandler remove(long requestId);
 
     void raiseNodeConnected(DiscoveryNode node);
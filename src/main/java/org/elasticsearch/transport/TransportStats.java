@@ -23,6 +23,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -36,17 +37,26 @@ public class TransportStats implements Streamable, ToXContent {
     private long rxSize;
     private long txCount;
     private long txSize;
+    private long pageRecyclerHits;
+    private long pageRecyclerMisses;
+    private TransportActionStats[] actions = new TransportActionStats[0];
+    private InFlightRequest[] slowestInFlight = new InFlightRequest[0];
 
     TransportStats() {
 
     }
 
-    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long pageRecyclerHits, long pageRecyclerMisses,
+                          TransportActionStats[] actions, InFlightRequest[] slowestInFlight) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.pageRecyclerHits = pageRecyclerHits;
+        this.pageRecyclerMisses = pageRecyclerMisses;
+        this.actions = actions;
+        this.slowestInFlight = slowestInFlight;
     }
 
     public long serverOpen() {
@@ -89,6 +99,50 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The number of serialization pages that were reused from the page recycler.
+     */
+    public long pageRecyclerHits() {
+        return pageRecyclerHits;
+    }
+
+    public long getPageRecyclerHits() {
+        return pageRecyclerHits();
+    }
+
+    /**
+     * The number of serialization pages that had to be allocated.
+     */
+    public long pageRecyclerMisses() {
+        return pageRecyclerMisses;
+    }
+
+    public long getPageRecyclerMisses() {
+        return pageRecyclerMisses();
+    }
+
+    /**
+     * Stats of the requests received, per action.
+     */
+    public TransportActionStats[] actions() {
+        return actions;
+    }
+
+    public TransportActionStats[] getActions() {
+        return actions();
+    }
+
+    /**
+     * The requests sent by this node that have been waiting the longest for a response, slowest first.
+     */
+    public InFlightRequest[] slowestInFlight() {
+        return slowestInFlight;
+    }
+
+    public InFlightRequest[] getSlowestInFlight() {
+        return slowestInFlight();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -102,6 +156,16 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        pageRecyclerHits = in.readVLong();
+        pageRecyclerMisses = in.readVLong();
+        actions = new TransportActionStats[in.readVInt()];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = TransportActionStats.readTransportActionStats(in);
+        }
+        slowestInFlight = new InFlightRequest[in.readVInt()];
+        for (int i = 0; i < slowestInFlight.length; i++) {
+            slowestInFlight[i] = InFlightRequest.readInFlightRequest(in);
+        }
     }
 
     @Override
@@ -111,6 +175,16 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        out.writeVLong(pageRecyclerHits);
+        out.writeVLong(pageRecyclerMisses);
+        out.writeVInt(actions.length);
+        for (TransportActionStats action : actions) {
+            action.writeTo(out);
+        }
+        out.writeVInt(slowestInFlight.length);
+        for (InFlightRequest request : slowestInFlight) {
+            request.writeTo(out);
+        }
     }
 
     @Override
@@ -123,6 +197,20 @@ public class TransportStats implements Streamable, ToXContent {
         builder.field(Fields.TX_COUNT, txCount);
         builder.field(Fields.TX_SIZE, txSize().toString());
         builder.field(Fields.TX_SIZE_IN_BYTES, txSize);
+        builder.startObject(Fields.PAGE_RECYCLER);
+        builder.field(Fields.HITS, pageRecyclerHits);
+        builder.field(Fields.MISSES, pageRecyclerMisses);
+        builder.endObject();
+        builder.startObject(Fields.ACTIONS);
+        for (TransportActionStats action : actions) {
+            action.toXContent(builder, params);
+        }
+        builder.endObject();
+        builder.startArray(Fields.SLOWEST_IN_FLIGHT);
+        for (InFlightRequest request : slowestInFlight) {
+            request.toXContent(builder, params);
+        }
+        builder.endArray();
         builder.endObject();
         return builder;
     }
@@ -136,5 +224,95 @@ public class TransportStats implements Streamable, ToXContent {
         static final XContentBuilderString TX_COUNT = new XContentBuilderString("tx_count");
         static final XContentBuilderString TX_SIZE = new XContentBuilderString("tx_size");
         static final XContentBuilderString TX_SIZE_IN_BYTES = new XContentBuilderString("tx_size_in_bytes");
+        static final XContentBuilderString PAGE_RECYCLER = new XContentBuilderString("page_recycler");
+        static final XContentBuilderString HITS = new XContentBuilderString("hits");
+        static final XContentBuilderString MISSES = new XContentBuilderString("misses");
+        static final XContentBuilderString ACTIONS = new XContentBuilderString("actions");
+        static final XContentBuilderString SLOWEST_IN_FLIGHT = new XContentBuilderString("slowest_in_flight");
+        static final XContentBuilderString ACTION = new XContentBuilderString("action");
+        static final XContentBuilderString NODE = new XContentBuilderString("node");
+        static final XContentBuilderString AGE = new XContentBuilderString("age");
+        static final XContentBuilderString AGE_IN_MILLIS = new XContentBuilderString("age_in_millis");
+    }
+
+    /**
+     * A request sent to a node that is still waiting for its response.
+     */
+    public static class InFlightRequest implements Streamable, ToXContent {
+
+        private String action;
+        private String node;
+        private long age;
+
+        InFlightRequest() {
+
+        }
+
+        public InFlightRequest(String action, String node, long age) {
+            this.action = action;
+            this.node = node;
+            this.age = age;
+        }
+
+        public String action() {
+            return action;
+        }
+
+        public String getAction() {
+            return action();
+        }
+
+        /**
+         * The id of the node the request was sent to.
+         */
+        public String node() {
+            return node;
+        }
+
+        public String getNode() {
+            return node();
+        }
+
+        /**
+         * How long ago the request was sent.
+         */
+        public TimeValue age() {
+            return new TimeValue(age);
+        }
+
+        public TimeValue getAge() {
+            return age();
+        }
+
+        public static InFlightRequest readInFlightRequest(StreamInput in) throws IOException {
+            InFlightRequest request = new InFlightRequest();
+            request.readFrom(in);
+            return request;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            action = in.readString();
+            node = in.readString();
+            age = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(action);
+            out.writeString(node);
+            out.writeVLong(age);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(Fields.ACTION, action);
+            builder.field(Fields.NODE, node);
+            builder.field(Fields.AGE, age().toString());
+            builder.field(Fields.AGE_IN_MILLIS, age);
+            builder.endObject();
+            return builder;
+        }
     }
 }
\ No newline at end of file
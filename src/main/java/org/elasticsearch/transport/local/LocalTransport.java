@@ -31,6 +31,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.LocalTransportAddress;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 import org.elasticsearch.transport.support.TransportStatus;
@@ -260,7 +261,7 @@ public class LocalTransport extends AbstractLifecycleComponent<Transport> implem
             handleException(handler, new TransportSerializationException("Failed to deserialize response of type [" + response.getClass().getName() + "]", e));
             return;
         }
-        threadPool.executor(handler.executor()).execute(new Runnable() {
+        threadPool.executor(handler.executor()).execute(new AbstractRunnable() {
             @SuppressWarnings({"unchecked"})
             @Override
             public void run() {
@@ -270,6 +271,12 @@ public class LocalTransport extends AbstractLifecycleComponent<Transport> implem
                     handleException(handler, new ResponseHandlerFailureTransportException(e));
                 }
             }
+
+            @Override
+            public boolean isForceExecution() {
+                // the request has already been processed, don't lose its response
+                return true;
+            }
         });
     }
 
@@ -28,6 +28,7 @@ import org.elasticsearch.common.io.ThrowableObjectInputStream;
 import org.elasticsearch.common.io.stream.CachedStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 import org.elasticsearch.transport.support.TransportStatus;
@@ -108,7 +109,7 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
         wrappedStream.setVersion(version);
 
         if (TransportStatus.isRequest(status)) {
-            String action = handleRequest(ctx.getChannel(), wrappedStream, requestId, version);
+            String action = handleRequest(ctx.getChannel(), wrappedStream, requestId, version, size + 6);
             if (buffer.readerIndex() != expectedIndexReader) {
                 if (buffer.readerIndex() < expectedIndexReader) {
                     logger.warn("Message not fully read (request) for [{}] and action [{}], resetting", requestId, action);
@@ -181,7 +182,7 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
         if (handler.executor() == ThreadPool.Names.SAME) {
             handler.handleException(rtx);
         } else {
-            threadPool.executor(handler.executor()).execute(new Runnable() {
+            threadPool.executor(handler.executor()).execute(new AbstractRunnable() {
                 @Override
                 public void run() {
                     try {
@@ -190,11 +191,18 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
                         logger.error("Failed to handle exception response", e);
                     }
                 }
+
+                @Override
+                public boolean isForceExecution() {
+                    // the request has already been processed, don't lose its response
+                    return true;
+                }
             });
         }
     }
 
-    private String handleRequest(Channel channel, StreamInput buffer, long requestId, Version version) throws IOException {
+    private String handleRequest(Channel channel, StreamInput buffer, long requestId, Version version, int size) throws IOException {
+        final long startTime = System.nanoTime();
         final String action = buffer.readString();
 
         final NettyTransportChannel transportChannel = new NettyTransportChannel(transport, action, channel, requestId, version);
@@ -203,13 +211,16 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
             if (handler == null) {
                 throw new ActionNotFoundTransportException(action);
             }
+            final TransportActionMetrics metrics = transportServiceAdapter.actionMetrics(action);
+            transportChannel.trackMetrics(metrics, startTime);
             final TransportRequest request = handler.newInstance();
             request.readFrom(buffer);
+            metrics.onRequest(size, System.nanoTime() - startTime);
             if (handler.executor() == ThreadPool.Names.SAME) {
                 //noinspection unchecked
                 handler.messageReceived(request, transportChannel);
             } else {
-                threadPool.executor(handler.executor()).execute(new RequestHandler(handler, request, transportChannel, action));
+                threadPool.executor(handler.executor()).execute(new RequestHandler(handler, request, transportChannel, action, metrics));
             }
         } catch (Exception e) {
             try {
@@ -227,7 +238,7 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
         transport.exceptionCaught(ctx, e);
     }
 
-    class ResponseHandler implements Runnable {
+    class ResponseHandler extends AbstractRunnable {
 
         private final TransportResponseHandler handler;
         private final TransportResponse response;
@@ -246,24 +257,34 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
                 handleException(handler, new ResponseHandlerFailureTransportException(e));
             }
         }
+
+        @Override
+        public boolean isForceExecution() {
+            // the request has already been processed, don't lose its response
+            return true;
+        }
     }
 
-    class RequestHandler implements Runnable {
+    class RequestHandler extends AbstractRunnable {
         private final TransportRequestHandler handler;
         private final TransportRequest request;
         private final NettyTransportChannel transportChannel;
         private final String action;
+        private final TransportActionMetrics metrics;
+        private final long queuedTime = System.nanoTime();
 
-        public RequestHandler(TransportRequestHandler handler, TransportRequest request, NettyTransportChannel transportChannel, String action) {
+        public RequestHandler(TransportRequestHandler handler, TransportRequest request, NettyTransportChannel transportChannel, String action, TransportActionMetrics metrics) {
             this.handler = handler;
             this.request = request;
             this.transportChannel = transportChannel;
             this.action = action;
+            this.metrics = metrics;
         }
 
         @SuppressWarnings({"unchecked"})
         @Override
         public void run() {
+            metrics.onQueued(System.nanoTime() - queuedTime);
             try {
                 handler.messageReceived(request, transportChannel);
             } catch (Throwable e) {
@@ -278,5 +299,10 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
                 }
             }
         }
+
+        @Override
+        public boolean isForceExecution() {
+            return handler.isForceExecution();
+        }
     }
 }
@@ -55,6 +55,7 @@ import org.jboss.netty.channel.socket.oio.OioClientSocketChannelFactory;
 import org.jboss.netty.channel.socket.oio.OioServerSocketChannelFactory;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
@@ -514,6 +515,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             options.withCompress(true);
         }
 
+        // uncompressed file chunks are sent straight from the file to the channel
+        FileChunkTransportRequest fileChunkRequest = null;
+        if (!options.compress() && request instanceof FileChunkTransportRequest && ((FileChunkTransportRequest) request).chunkFile() != null) {
+            fileChunkRequest = (FileChunkTransportRequest) request;
+        }
+
         CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
 
         byte status = 0;
@@ -532,14 +539,39 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             cachedEntry.bytes().skip(NettyHeader.HEADER_SIZE);
             stream.setVersion(node.version());
             stream.writeString(action);
-            request.writeTo(stream);
+            if (fileChunkRequest != null) {
+                fileChunkRequest.writeToWithoutChunk(stream);
+            } else {
+                request.writeTo(stream);
+            }
             stream.close();
         }
         ChannelBuffer buffer = cachedEntry.bytes().bytes().toChannelBuffer();
-        NettyHeader.writeHeader(buffer, requestId, status, node.version());
 
-        ChannelFuture future = targetChannel.write(buffer);
-        future.addListener(new CacheFutureListener(cachedEntry));
+        if (fileChunkRequest == null) {
+            NettyHeader.writeHeader(buffer, requestId, status, node.version());
+            ChannelFuture future;
+            synchronized (targetChannel) {
+                future = targetChannel.write(buffer);
+            }
+            future.addListener(new CacheFutureListener(cachedEntry));
+        } else {
+            NettyHeader.writeHeader(buffer, requestId, status, node.version(), fileChunkRequest.chunkLength());
+            final RandomAccessFile file = new RandomAccessFile(fileChunkRequest.chunkFile(), "r");
+            final FileRegion region = new DefaultFileRegion(file.getChannel(), fileChunkRequest.chunkFilePosition(), fileChunkRequest.chunkLength());
+            ChannelFuture future;
+            // the message is written in two parts, make sure no other message is written in between
+            synchronized (targetChannel) {
+                targetChannel.write(buffer).addListener(new CacheFutureListener(cachedEntry));
+                future = targetChannel.write(region);
+            }
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    region.releaseExternalResources();
+                }
+            });
+        }
         // We handle close connection exception in the #exceptionCaught method, which is the main reason we want to add this future
 //        channelFuture.addListener(new ChannelFutureListener() {
 //            @Override public void operationComplete(ChannelFuture future) throws Exception {
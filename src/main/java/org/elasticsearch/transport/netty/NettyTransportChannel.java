@@ -49,6 +49,10 @@ public class NettyTransportChannel implements TransportChannel {
 
     private final long requestId;
 
+    private TransportActionMetrics metrics;
+
+    private long startTime;
+
     public NettyTransportChannel(NettyTransport transport, String action, Channel channel, long requestId, Version version) {
         this.version = version;
         this.transport = transport;
@@ -62,6 +66,14 @@ public class NettyTransportChannel implements TransportChannel {
         return this.action;
     }
 
+    /**
+     * Records the response of the request into the action metrics, the request being received at the given start time (in nanos).
+     */
+    void trackMetrics(TransportActionMetrics metrics, long startTime) {
+        this.metrics = metrics;
+        this.startTime = startTime;
+    }
+
     @Override
     public void sendResponse(TransportResponse response) throws IOException {
         sendResponse(response, TransportResponseOptions.EMPTY);
@@ -93,6 +105,9 @@ public class NettyTransportChannel implements TransportChannel {
         }
         ChannelBuffer buffer = cachedEntry.bytes().bytes().toChannelBuffer();
         NettyHeader.writeHeader(buffer, requestId, status, version);
+        if (metrics != null) {
+            metrics.onResponse(buffer.readableBytes(), System.nanoTime() - startTime);
+        }
         ChannelFuture future = channel.write(buffer);
         future.addListener(new NettyTransport.CacheFutureListener(cachedEntry));
     }
@@ -124,6 +139,9 @@ public class NettyTransportChannel implements TransportChannel {
 
         ChannelBuffer buffer = cachedEntry.bytes().bytes().toChannelBuffer();
         NettyHeader.writeHeader(buffer, requestId, status, version);
+        if (metrics != null) {
+            metrics.onFailure(System.nanoTime() - startTime);
+        }
         ChannelFuture future = channel.write(buffer);
         future.addListener(new NettyTransport.CacheFutureListener(cachedEntry));
     }
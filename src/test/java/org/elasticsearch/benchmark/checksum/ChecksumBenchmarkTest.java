@@ -34,17 +34,24 @@ public class ChecksumBenchmarkTest {
 
     public static final int BATCH_SIZE = 16 * 1024;
 
+    // the default recovery file chunk size, each chunk is checksummed on its own
+    public static final int CHUNK_SIZE = 512 * 1024;
+
     public static void main(String[] args) {
         System.out.println("Warning up");
         long warmSize = ByteSizeValue.parseBytesSizeValue("1g", null).bytes();
         crc(warmSize);
+        crcChunks(warmSize);
         adler(warmSize);
+        adlerChunks(warmSize);
         md5(warmSize);
 
         long dataSize = ByteSizeValue.parseBytesSizeValue("10g", null).bytes();
         System.out.println("Running size: " + dataSize);
         crc(dataSize);
+        crcChunks(dataSize);
         adler(dataSize);
+        adlerChunks(dataSize);
         md5(dataSize);
     }
 
@@ -60,6 +67,19 @@ public class ChecksumBenchmarkTest {
         System.out.println("CRC took " + new TimeValue(System.currentTimeMillis() - start));
     }
 
+    private static void crcChunks(long dataSize) {
+        long start = System.currentTimeMillis();
+        CRC32 crc = new CRC32();
+        byte[] data = new byte[CHUNK_SIZE];
+        long iter = dataSize / CHUNK_SIZE;
+        for (long i = 0; i < iter; i++) {
+            crc.reset();
+            crc.update(data, 0, data.length);
+            crc.getValue();
+        }
+        System.out.println("CRC (chunks) took " + new TimeValue(System.currentTimeMillis() - start));
+    }
+
     private static void adler(long dataSize) {
         long start = System.currentTimeMillis();
         Adler32 crc = new Adler32();
@@ -72,6 +92,19 @@ public class ChecksumBenchmarkTest {
         System.out.println("Adler took " + new TimeValue(System.currentTimeMillis() - start));
     }
 
+    private static void adlerChunks(long dataSize) {
+        long start = System.currentTimeMillis();
+        Adler32 crc = new Adler32();
+        byte[] data = new byte[CHUNK_SIZE];
+        long iter = dataSize / CHUNK_SIZE;
+        for (long i = 0; i < iter; i++) {
+            crc.reset();
+            crc.update(data, 0, data.length);
+            crc.getValue();
+        }
+        System.out.println("Adler (chunks) took " + new TimeValue(System.currentTimeMillis() - start));
+    }
+
     private static void md5(long dataSize) {
         long start = System.currentTimeMillis();
         byte[] data = new byte[BATCH_SIZE];
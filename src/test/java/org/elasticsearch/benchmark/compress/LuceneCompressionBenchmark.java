@@ -21,6 +21,7 @@ package org.elasticsearch.benchmark.compress;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.store.Directory;
@@ -32,15 +33,22 @@ import org.elasticsearch.common.compress.snappy.xerial.XerialSnappyCompressor;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  */
 public class LuceneCompressionBenchmark {
 
+    // number of docs loaded per fetch, and number of fetches, when benchmarking random access
+    static final int FETCH_SIZE = 10;
+    static final int FETCHES = 10000;
+
     public static void main(String[] args) throws Exception {
         final long MAX_SIZE = ByteSizeValue.parseBytesSizeValue("50mb").bytes();
         final boolean WITH_TV = true;
@@ -88,9 +96,62 @@ public class LuceneCompressionBenchmark {
         compressedLzfWriter.close();
         compressedSnappyWriter.close();
 
+        System.out.println("stored fields size: uncompressed [" + new ByteSizeValue(fdtSize(new File(testFile, "uncompressed"))) + "], lzf [" + new ByteSizeValue(fdtSize(new File(testFile, "compressed_lzf")))
+                + "], snappy [" + new ByteSizeValue(fdtSize(new File(testFile, "compressed_snappy"))) + "]");
+
+        System.out.println("fetching " + FETCHES + " times " + FETCH_SIZE + " random docs...");
+        fetch("uncompressed", uncompressedDir);
+        fetch("lzf", compressedLzfDir);
+        fetch("snappy", compressedSnappyDir);
+
         compressedLzfDir.close();
         compressedSnappyDir.close();
         uncompressedDir.close();
     }
 
+    private static long fdtSize(File location) {
+        // the compressed directory reports the uncompressed length, so check the files themselves
+        long size = 0;
+        for (File file : location.listFiles()) {
+            if (file.getName().endsWith(".fdt")) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    private static void fetch(String name, Directory dir) throws Exception {
+        IndexReader reader = IndexReader.open(dir);
+        Random random = new Random(0);
+        int[] docs = new int[FETCH_SIZE];
+        // warm up
+        for (int i = 0; i < FETCHES / 10; i++) {
+            reader.document(random.nextInt(reader.maxDoc()));
+        }
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < FETCHES; i++) {
+            for (int j = 0; j < docs.length; j++) {
+                docs[j] = random.nextInt(reader.maxDoc());
+            }
+            for (int doc : docs) {
+                reader.document(doc);
+            }
+        }
+        long unsorted = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        for (int i = 0; i < FETCHES; i++) {
+            for (int j = 0; j < docs.length; j++) {
+                docs[j] = random.nextInt(reader.maxDoc());
+            }
+            // the fetch phase loads the docs in doc id order
+            Arrays.sort(docs);
+            for (int doc : docs) {
+                reader.document(doc);
+            }
+        }
+        long sorted = System.currentTimeMillis() - start;
+        System.out.println(name + ": fetch took [" + new TimeValue(unsorted) + "], in doc id order [" + new TimeValue(sorted) + "]");
+        reader.close();
+    }
+
 }
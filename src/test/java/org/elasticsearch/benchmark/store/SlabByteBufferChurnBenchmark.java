@@ -0,0 +1,120 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.store;
+
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.bytebuffer.ByteBufferDirectory;
+import org.apache.lucene.store.bytebuffer.SlabByteBufferAllocator;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulates merge churn (flushing small segments and merging them into larger ones) over a few
+ * directories sharing a slab allocator, reporting how much of the reserved memory is actually used.
+ */
+public class SlabByteBufferChurnBenchmark {
+
+    static final int NUMBER_OF_DIRECTORIES = 4;
+    static final int ITERATIONS = 20000;
+    static final int MERGE_FACTOR = 10;
+    static final int MAX_FLUSH_SIZE = 256 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        SlabByteBufferAllocator allocator = new SlabByteBufferAllocator(true, 1024, 1024 * 1024,
+                (int) ByteSizeValue.parseBytesSizeValue("32mb").bytes(), ByteSizeValue.parseBytesSizeValue("1g").bytes());
+
+        ByteBufferDirectory[] dirs = new ByteBufferDirectory[NUMBER_OF_DIRECTORIES];
+        List<List<String>> segments = new ArrayList<List<String>>();
+        for (int i = 0; i < dirs.length; i++) {
+            dirs[i] = new ByteBufferDirectory(allocator);
+            segments.add(new ArrayList<String>());
+        }
+
+        Random random = new Random(0);
+        byte[] data = new byte[8 * 1024];
+        random.nextBytes(data);
+        long counter = 0;
+        long peakUsed = 0;
+        long start = System.currentTimeMillis();
+        for (int iter = 0; iter < ITERATIONS; iter++) {
+            int dirIndex = random.nextInt(dirs.length);
+            ByteBufferDirectory dir = dirs[dirIndex];
+            List<String> dirSegments = segments.get(dirIndex);
+
+            String name = "_" + (counter++);
+            write(dir, name, data, 1 + random.nextInt(MAX_FLUSH_SIZE));
+            dirSegments.add(name);
+
+            if (dirSegments.size() >= MERGE_FACTOR) {
+                long mergedSize = 0;
+                for (String segment : dirSegments) {
+                    mergedSize += dir.fileLength(segment);
+                }
+                String merged = "_" + (counter++);
+                // the merged segment is written before the merged ones are deleted, as with a real merge
+                write(dir, merged, data, mergedSize);
+                peakUsed = Math.max(peakUsed, allocator.usedSizeInBytes());
+                for (String segment : dirSegments) {
+                    dir.deleteFile(segment);
+                }
+                dirSegments.clear();
+                dirSegments.add(merged);
+                // keep the index from growing forever
+                if (mergedSize > 64 * 1024 * 1024) {
+                    dir.deleteFile(merged);
+                    dirSegments.clear();
+                }
+            }
+            peakUsed = Math.max(peakUsed, allocator.usedSizeInBytes());
+        }
+
+        long logical = 0;
+        for (ByteBufferDirectory dir : dirs) {
+            for (String file : dir.listAll()) {
+                logical += dir.fileLength(file);
+            }
+        }
+        System.out.println("Took " + new TimeValue(System.currentTimeMillis() - start));
+        System.out.println("Logical size : " + new ByteSizeValue(logical));
+        System.out.println("Used size    : " + new ByteSizeValue(allocator.usedSizeInBytes()));
+        System.out.println("Peak used    : " + new ByteSizeValue(peakUsed));
+        System.out.println("Reserved size: " + new ByteSizeValue(allocator.reservedSizeInBytes()));
+        System.out.println("Fragmentation: " + (100 - (allocator.usedSizeInBytes() * 100 / Math.max(1, allocator.reservedSizeInBytes()))) + "%");
+
+        for (ByteBufferDirectory dir : dirs) {
+            dir.close();
+        }
+        allocator.close();
+    }
+
+    private static void write(ByteBufferDirectory dir, String name, byte[] data, long size) throws Exception {
+        IndexOutput output = dir.createOutput(name);
+        while (size > 0) {
+            int len = (int) Math.min(size, data.length);
+            output.writeBytes(data, len);
+            size -= len;
+        }
+        output.close();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.gateway.fs;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.action.admin.indices.status.GatewaySnapshotStatus;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.gateway.Gateway;
+import org.elasticsearch.index.gateway.CommitPoint;
+import org.elasticsearch.index.gateway.CommitPoints;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Snapshots of a shard to the fs gateway that fail half way, or run against commit points written by
+ * someone else.
+ */
+public class BlobStoreIndexShardGatewayTests extends AbstractNodesTests {
+
+    private final Settings settings = ImmutableSettings.settingsBuilder()
+            .put("gateway.type", "fs")
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            // only snapshot when asked to
+            .put("index.gateway.snapshot_interval", "1h")
+            .build();
+
+    @BeforeMethod
+    public void buildNode1() throws Exception {
+        buildNode("server1", settings);
+        ((InternalNode) node("server1")).injector().getInstance(Gateway.class).reset();
+        closeAllNodes();
+    }
+
+    @AfterMethod
+    public void closeNodes() throws Exception {
+        node("server1").stop();
+        ((InternalNode) node("server1")).injector().getInstance(Gateway.class).reset();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testInterruptedSnapshotIsResumed() throws Exception {
+        startNode("server1", settings);
+        client("server1").admin().indices().prepareCreate("test").execute().actionGet();
+        client("server1").admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+        indexInSegments(0, 3);
+
+        // make the upload of the first file fail, by having a directory where its blob goes
+        File shardDir = shardGatewayDir();
+        File blockedBlob = new File(shardDir, "__0");
+        assertThat(blockedBlob.mkdirs(), equalTo(true));
+        try {
+            client("server1").admin().indices().prepareGatewaySnapshot("test").execute().actionGet();
+        } catch (Exception e) {
+            // expected, the failure is checked on the snapshot status
+        }
+
+        GatewaySnapshotStatus failedStatus = snapshotStatus();
+        assertThat(failedStatus.stage(), equalTo(GatewaySnapshotStatus.Stage.FAILURE));
+        // the other files were uploaded, and reported as such
+        assertThat(failedStatus.snapshottedIndexSize().bytes(), greaterThan(0l));
+        assertThat(failedStatus.snapshottedIndexSize().bytes(), lessThan(failedStatus.indexSize().bytes()));
+        assertThat(listCommitPoints(shardDir).length, equalTo(0));
+
+        assertThat(blockedBlob.delete(), equalTo(true));
+        client("server1").admin().indices().prepareGatewaySnapshot("test").execute().actionGet();
+
+        GatewaySnapshotStatus resumedStatus = snapshotStatus();
+        assertThat(resumedStatus.stage(), equalTo(GatewaySnapshotStatus.Stage.DONE));
+        assertThat(resumedStatus.snapshottedIndexSize().bytes(), equalTo(resumedStatus.indexSize().bytes()));
+        // only the file that failed (and the segments file, as the index changed) are uploaded again
+        assertThat(resumedStatus.indexSize().bytes(), lessThan(failedStatus.indexSize().bytes()));
+        assertThat(listCommitPoints(shardDir).length, equalTo(1));
+
+        assertFullRecoveryFromGateway(30);
+    }
+
+    @Test
+    public void testStaleCachedCommitPointsAreNotUsed() throws Exception {
+        startNode("server1", settings);
+        client("server1").admin().indices().prepareCreate("test").execute().actionGet();
+        client("server1").admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+        indexInSegments(0, 2);
+        client("server1").admin().indices().prepareGatewaySnapshot("test").execute().actionGet();
+
+        File shardDir = shardGatewayDir();
+        File[] commitPoints = listCommitPoints(shardDir);
+        assertThat(commitPoints.length, equalTo(1));
+        assertThat(commitPoints[0].getName(), equalTo("commit-0"));
+
+        // another node snapshotting the shard replaces the commit point with a later one
+        CommitPoint commitPoint = CommitPoints.fromXContent(Streams.copyToByteArray(commitPoints[0]));
+        CommitPoint otherCommitPoint = new CommitPoint(5, "commit-5", CommitPoint.Type.GENERATED, commitPoint.indexFiles(), commitPoint.translogFiles());
+        Streams.copy(CommitPoints.toXContent(otherCommitPoint), new File(shardDir, "commit-5"));
+        assertThat(commitPoints[0].delete(), equalTo(true));
+
+        indexInSegments(20, 1);
+        client("server1").admin().indices().prepareGatewaySnapshot("test").execute().actionGet();
+        assertThat(snapshotStatus().stage(), equalTo(GatewaySnapshotStatus.Stage.DONE));
+
+        // the snapshot follows the listed commit point, not the one it wrote last
+        commitPoints = listCommitPoints(shardDir);
+        assertThat(commitPoints.length, equalTo(1));
+        assertThat(commitPoints[0].getName(), equalTo("commit-6"));
+
+        assertFullRecoveryFromGateway(30);
+    }
+
+    /**
+     * Indexes 10 docs per segment, starting from the provided id.
+     */
+    private void indexInSegments(int startId, int numberOfSegments) throws Exception {
+        int id = startId;
+        for (int segment = 0; segment < numberOfSegments; segment++) {
+            for (int i = 0; i < 10; i++, id++) {
+                client("server1").prepareIndex("test", "type1", Integer.toString(id))
+                        .setSource(jsonBuilder().startObject().field("field", "value" + id).endObject()).execute().actionGet();
+            }
+            client("server1").admin().indices().prepareFlush("test").execute().actionGet();
+        }
+    }
+
+    private File shardGatewayDir() {
+        Environment environment = ((InternalNode) node("server1")).injector().getInstance(Environment.class);
+        ClusterName clusterName = ((InternalNode) node("server1")).injector().getInstance(ClusterName.class);
+        File shardDir = new File(new File(environment.dataFiles()[0], "gateway"), clusterName.value() + "/indices/test/0");
+        assertThat(shardDir.exists(), equalTo(true));
+        return shardDir;
+    }
+
+    private File[] listCommitPoints(File shardDir) {
+        return shardDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("commit-");
+            }
+        });
+    }
+
+    private GatewaySnapshotStatus snapshotStatus() {
+        return client("server1").admin().indices().prepareStatus("test").setSnapshot(true).execute().actionGet()
+                .shards()[0].gatewaySnapshotStatus();
+    }
+
+    private void assertFullRecoveryFromGateway(long expectedDocs) throws Exception {
+        Environment environment = ((InternalNode) node("server1")).injector().getInstance(Environment.class);
+        closeNode("server1");
+        FileSystemUtils.deleteRecursively(environment.dataWithClusterFiles());
+        startNode("server1", settings);
+
+        ClusterHealthResponse clusterHealth = client("server1").admin().cluster().prepareHealth().setWaitForYellowStatus().setWaitForActiveShards(1).execute().actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+        assertThat(clusterHealth.status(), equalTo(ClusterHealthStatus.GREEN));
+        assertThat(client("server1").prepareCount("test").setQuery(matchAllQuery()).execute().actionGet().count(), equalTo(expectedDocs));
+    }
+}
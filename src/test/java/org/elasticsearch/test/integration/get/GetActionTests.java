@@ -33,6 +33,8 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.Map;
+
 import static org.elasticsearch.client.Requests.clusterHealthRequest;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -146,6 +148,48 @@ public class GetActionTests extends AbstractNodesTests {
         assertThat(response.exists(), equalTo(false));
     }
 
+    @Test
+    public void getObjectFieldsTests() throws Exception {
+        client.admin().indices().prepareDelete().execute().actionGet();
+
+        client.admin().indices().prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.refresh_interval", -1)).execute().actionGet();
+
+        ClusterHealthResponse clusterHealth = client.admin().cluster().health(clusterHealthRequest().waitForGreenStatus()).actionGet();
+        assertThat(clusterHealth.timedOut(), equalTo(false));
+        assertThat(clusterHealth.status(), equalTo(ClusterHealthStatus.GREEN));
+
+        client.prepareIndex("test", "type1", "1").setSource(jsonBuilder().startObject()
+                .startObject("obj").field("a", 1).startObject("inner").field("b", 2).endObject().endObject()
+                .startArray("tags")
+                .startObject().field("x", 1).endObject()
+                .startObject().field("x", 2).field("y", 3).endObject()
+                .endArray()
+                .field("n", 3)
+                .endObject()).execute().actionGet();
+
+        GetResponse response = client.prepareGet("test", "type1", "1").execute().actionGet();
+        Map<String, Object> source = response.sourceAsMap();
+
+        logger.info("--> realtime fetch of object fields (requires fetching parsing source)");
+        response = client.prepareGet("test", "type1", "1").setFields("obj", "tags", "n", "obj.inner.b").execute().actionGet();
+        assertThat(response.exists(), equalTo(true));
+        assertThat(response.field("obj").values().get(0), equalTo(source.get("obj")));
+        assertThat(response.field("tags").values().get(0), equalTo(source.get("tags")));
+        assertThat(response.field("n").values().get(0), equalTo((Object) 3));
+        assertThat(response.field("obj.inner.b").values().get(0), equalTo((Object) 2));
+
+        logger.info("--> flush the index, so we load it from it");
+        client.admin().indices().prepareFlush().execute().actionGet();
+
+        logger.info("--> realtime fetch of object fields (loaded from index)");
+        response = client.prepareGet("test", "type1", "1").setFields("obj", "tags", "n", "obj.inner.b").execute().actionGet();
+        assertThat(response.exists(), equalTo(true));
+        assertThat(response.field("obj").values().get(0), equalTo(source.get("obj")));
+        assertThat(response.field("tags").values().get(0), equalTo(source.get("tags")));
+        assertThat(response.field("n").values().get(0), equalTo((Object) 3));
+        assertThat(response.field("obj.inner.b").values().get(0), equalTo((Object) 2));
+    }
+
     @Test
     public void simpleMultiGetTests() throws Exception {
         try {
@@ -0,0 +1,120 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.indices.cache.query;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStats;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class IndicesQueryCacheTests extends AbstractNodesTests {
+
+    private Client client;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("node1");
+        client = client("node1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    private void createIndex() {
+        client.admin().indices().prepareDelete().execute().actionGet();
+        client.admin().indices().prepareCreate("test")
+                .setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0).put("index.cache.query.enable", true))
+                .execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+    }
+
+    @Test
+    public void queryCacheStats() throws Exception {
+        createIndex();
+
+        client.prepareIndex("test", "type", "1").setSource("field", "value").execute().actionGet();
+        client.prepareIndex("test", "type", "2").setSource("field", "other").execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        for (int i = 0; i < 3; i++) {
+            SearchResponse searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(termQuery("field", "value")).execute().actionGet();
+            assertThat(searchResponse.hits().totalHits(), equalTo(1l));
+        }
+
+        IndicesStats stats = client.admin().indices().prepareStats("test").clear().setQueryCache(true).execute().actionGet();
+        assertThat(stats.total().queryCache().missCount(), equalTo(1l));
+        assertThat(stats.total().queryCache().hitCount(), equalTo(2l));
+        assertThat(stats.total().queryCache().memorySizeInBytes(), greaterThan(0l));
+
+        // a refresh that changes the shard must not return the stale count
+        client.prepareIndex("test", "type", "3").setSource("field", "value").execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        SearchResponse searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(termQuery("field", "value")).execute().actionGet();
+        assertThat(searchResponse.hits().totalHits(), equalTo(2l));
+
+        stats = client.admin().indices().prepareStats("test").clear().setQueryCache(true).execute().actionGet();
+        assertThat(stats.total().queryCache().missCount(), equalTo(2l));
+    }
+
+    @Test
+    public void dateRangeQueriesAreOnlyCachedWhenNotRelativeToNow() throws Exception {
+        createIndex();
+
+        client.prepareIndex("test", "type", "1").setSource("date", "2012-03-01").execute().actionGet();
+        client.prepareIndex("test", "type", "2").setSource("date", "2012-09-01").execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+
+        for (int i = 0; i < 2; i++) {
+            SearchResponse searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(rangeQuery("date").from("2012-01-01").to("2012-06-01")).execute().actionGet();
+            assertThat(searchResponse.hits().totalHits(), equalTo(1l));
+        }
+
+        IndicesStats stats = client.admin().indices().prepareStats("test").clear().setQueryCache(true).execute().actionGet();
+        assertThat(stats.total().queryCache().missCount(), equalTo(1l));
+        assertThat(stats.total().queryCache().hitCount(), equalTo(1l));
+
+        for (int i = 0; i < 2; i++) {
+            SearchResponse searchResponse = client.prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(rangeQuery("date").from("2012-01-01").to("now")).execute().actionGet();
+            assertThat(searchResponse.hits().totalHits(), equalTo(2l));
+        }
+
+        stats = client.admin().indices().prepareStats("test").clear().setQueryCache(true).execute().actionGet();
+        assertThat(stats.total().queryCache().missCount(), equalTo(3l));
+        assertThat(stats.total().queryCache().hitCount(), equalTo(1l));
+        assertThat(stats.total().queryCache().memorySizeInBytes(), greaterThan(0l));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.recovery;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.internal.InternalNode;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ *
+ */
+public class ChecksumRecoveryTests extends SimpleRecoveryTests {
+
+    @Override
+    protected Settings recoverySettings() {
+        return ImmutableSettings.settingsBuilder().put("indices.recovery.checksum", true).put("index.shard.recovery.file_chunk_size", "100b").build();
+    }
+
+    @Test
+    public void testCorruptedFileFailsRecovery() throws Exception {
+        Settings settings = ImmutableSettings.settingsBuilder()
+                .put("indices.recovery.checksum", true)
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 1)
+                .build();
+        startNode("server1", settings);
+        client("server1").admin().indices().prepareCreate("test").execute().actionGet();
+        client("server1").admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+        for (int i = 0; i < 100; i++) {
+            client("server1").prepareIndex("test", "type1", Integer.toString(i)).setSource(jsonBuilder().startObject().field("field", "value " + i).endObject()).execute().actionGet();
+        }
+        client("server1").admin().indices().prepareFlush().execute().actionGet();
+
+        // corrupt the stored fields of the primary, keeping their length
+        File indexLocation = new File(((InternalNode) node("server1")).injector().getInstance(NodeEnvironment.class).shardLocations(new ShardId("test", 0))[0], "index");
+        File storedFields = null;
+        for (File file : indexLocation.listFiles()) {
+            if (file.getName().endsWith(".fdt")) {
+                storedFields = file;
+            }
+        }
+        assertThat(storedFields, notNullValue());
+        RandomAccessFile raf = new RandomAccessFile(storedFields, "rw");
+        try {
+            long position = raf.length() / 2;
+            raf.seek(position);
+            int b = raf.read();
+            raf.seek(position);
+            raf.write(b ^ 0xFF);
+        } finally {
+            raf.close();
+        }
+
+        // the recovery of a replica that doesn't verify recovered files succeeds
+        startNode("server2", ImmutableSettings.settingsBuilder().put(settings).put("indices.recovery.checksum", false));
+        ClusterHealthResponse health = client("server1").admin().cluster().prepareHealth().setWaitForGreenStatus().setWaitForNodes("2").execute().actionGet();
+        assertThat(health.timedOut(), equalTo(false));
+        assertThat(health.status(), equalTo(ClusterHealthStatus.GREEN));
+        closeNode("server2");
+
+        // while it fails on the corrupted file when the replica verifies them
+        startNode("server3", settings);
+        health = client("server1").admin().cluster().prepareHealth().setWaitForGreenStatus().setWaitForNodes("2").setTimeout("10s").execute().actionGet();
+        assertThat(health.timedOut(), equalTo(true));
+        assertThat(health.status(), equalTo(ClusterHealthStatus.YELLOW));
+    }
+}
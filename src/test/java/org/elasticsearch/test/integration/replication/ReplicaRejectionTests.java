@@ -0,0 +1,144 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.replication;
+
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Replica operations are forced into the index pool of the replica node, as they were already performed
+ * on the primary, a full pool should delay them rather than fail the replica.
+ */
+public class ReplicaRejectionTests extends AbstractNodesTests {
+
+    @AfterMethod
+    public void closeNodes() {
+        closeAllNodes();
+    }
+
+    @Test
+    public void testFullIndexPoolDoesNotFailReplica() throws Exception {
+        Settings settings = ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 1)
+                .build();
+        startNode("primary", settings);
+        client("primary").admin().indices().prepareCreate("test").execute().actionGet();
+        client("primary").admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+        // the replica node has a single index thread, and room for a single operation in its queue
+        startNode("replica", ImmutableSettings.settingsBuilder().put(settings)
+                .put("threadpool.index.size", 1)
+                .put("threadpool.index.queue_size", 1)
+                .build());
+        ClusterHealthResponse health = client("primary").admin().cluster().prepareHealth().setWaitForGreenStatus().setWaitForNodes("2").execute().actionGet();
+        assertThat(health.status(), equalTo(ClusterHealthStatus.GREEN));
+
+        ClusterState state = client("primary").admin().cluster().prepareState().execute().actionGet().state();
+        ShardRouting replica = state.routingTable().index("test").shard(0).replicaShards().get(0);
+        assertThat(state.nodes().get(replica.currentNodeId()).name(), equalTo("replica"));
+
+        final AtomicInteger closedShards = new AtomicInteger();
+        ((InternalNode) node("replica")).injector().getInstance(IndicesService.class).indicesLifecycle().addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, boolean delete) {
+                closedShards.incrementAndGet();
+            }
+        });
+
+        // keep the single thread of the index pool of the replica node busy, and fill its queue
+        ThreadPool threadPool = ((InternalNode) node("replica")).injector().getInstance(ThreadPool.class);
+        final CountDownLatch blocking = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            threadPool.executor(ThreadPool.Names.INDEX).execute(new Runnable() {
+                @Override
+                public void run() {
+                    blocking.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+            });
+        }
+        assertThat(blocking.await(10, TimeUnit.SECONDS), equalTo(true));
+        try {
+            threadPool.executor(ThreadPool.Names.INDEX).execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            assert false : "the index pool should be full";
+        } catch (EsRejectedExecutionException e) {
+            // all is well
+        }
+
+        List<ListenableActionFuture<IndexResponse>> responses = new ArrayList<ListenableActionFuture<IndexResponse>>();
+        try {
+            for (int i = 0; i < 10; i++) {
+                responses.add(client("primary").prepareIndex("test", "type1", Integer.toString(i)).setSource("field", "value" + i).execute());
+            }
+            // give the replica operations the time to reach the full pool
+            Thread.sleep(500);
+        } finally {
+            release.countDown();
+        }
+        for (ListenableActionFuture<IndexResponse> response : responses) {
+            response.actionGet();
+        }
+
+        health = client("primary").admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+        assertThat(health.status(), equalTo(ClusterHealthStatus.GREEN));
+        assertThat(closedShards.get(), equalTo(0));
+
+        client("primary").admin().indices().prepareRefresh().execute().actionGet();
+        long count = client("primary").prepareSearch("test").setQuery(matchAllQuery())
+                .setPreference("_only_node:" + replica.currentNodeId()).execute().actionGet().hits().totalHits();
+        assertThat(count, equalTo(10l));
+    }
+}
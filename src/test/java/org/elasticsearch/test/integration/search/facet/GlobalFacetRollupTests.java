@@ -0,0 +1,172 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.search.facet;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.search.facet.datehistogram.DateHistogramFacet;
+import org.elasticsearch.search.facet.statistical.StatisticalFacet;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.matchAllFilter;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.facet.FacetBuilders.dateHistogramFacet;
+import static org.elasticsearch.search.facet.FacetBuilders.statisticalFacet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Global date histogram and statistical facets are answered from per segment rollups, checks they
+ * match the same facets collected doc by doc (a facet filter disables the rollups).
+ */
+public class GlobalFacetRollupTests extends AbstractNodesTests {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private Client client;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("node1", ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 0)
+                .put("index.cache.stats.refresh_interval", 0));
+        client = client("node1");
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testRollupsMatchCollectedFacets() throws Exception {
+        try {
+            client.admin().indices().prepareDelete().execute().actionGet();
+        } catch (Exception e) {
+            // ignore
+        }
+        client.admin().indices().prepareCreate("test")
+                .addMapping("type1", jsonBuilder().startObject().startObject("type1").startObject("properties")
+                        .startObject("date").field("type", "date").endObject()
+                        .startObject("num").field("type", "long").endObject()
+                        .endObject().endObject().endObject())
+                .execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        // several segments, with buckets spanning segments
+        int id = 0;
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = 0; i < 50; i++, id++) {
+                client.prepareIndex("test", "type1", Integer.toString(id)).setSource(jsonBuilder().startObject()
+                        .field("date", id * 7 * HOUR / 10)
+                        .field("num", id % 13)
+                        .field("tag", id % 2 == 0 ? "even" : "odd")
+                        .endObject()).execute().actionGet();
+            }
+            client.admin().indices().prepareFlush().setRefresh(true).execute().actionGet();
+        }
+
+        // load the field data without building rollups
+        client.prepareSearch("test")
+                .addFacet(dateHistogramFacet("histo").field("date").interval("day").global(true).facetFilter(matchAllFilter()))
+                .addFacet(statisticalFacet("stats").field("num").global(true).facetFilter(matchAllFilter()))
+                .execute().actionGet();
+        long sizeBeforeRollups = fieldDataSizeInBytes();
+        assertThat(sizeBeforeRollups, greaterThan(0l));
+        assertRollupsMatchCollectedFacets(150);
+        // the rollups are accounted for in the field data size
+        assertThat(fieldDataSizeInBytes(), greaterThan(sizeBeforeRollups));
+        // and served from the cache the second time
+        assertRollupsMatchCollectedFacets(150);
+
+        // segments with deletions are collected over their live docs
+        client.prepareDeleteByQuery("test").setQuery(termQuery("tag", "odd")).execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        assertRollupsMatchCollectedFacets(75);
+
+        // rollups are evicted with the field data, and rebuilt
+        client.admin().indices().prepareClearCache().setFieldDataCache(true).execute().actionGet();
+        assertThat(fieldDataSizeInBytes(), equalTo(0l));
+        assertRollupsMatchCollectedFacets(75);
+
+        // merging away the deletions builds rollups for the new segment
+        client.admin().indices().prepareOptimize().setMaxNumSegments(1).execute().actionGet();
+        client.admin().indices().prepareRefresh().execute().actionGet();
+        assertRollupsMatchCollectedFacets(75);
+    }
+
+    private long fieldDataSizeInBytes() {
+        return client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet()
+                .nodes()[0].indices().cache().fieldSizeInBytes();
+    }
+
+    private void assertRollupsMatchCollectedFacets(long docs) {
+        SearchResponse searchResponse = client.prepareSearch("test")
+                .setQuery(termQuery("tag", "none"))
+                .addFacet(dateHistogramFacet("rollup_histo").field("date").interval("day").global(true))
+                .addFacet(dateHistogramFacet("rollup_histo_hour").field("date").interval("3h").global(true))
+                .addFacet(statisticalFacet("rollup_stats").field("num").global(true))
+                .addFacet(dateHistogramFacet("histo").field("date").interval("day").global(true).facetFilter(matchAllFilter()))
+                .addFacet(dateHistogramFacet("histo_hour").field("date").interval("3h").global(true).facetFilter(matchAllFilter()))
+                .addFacet(statisticalFacet("stats").field("num").global(true).facetFilter(matchAllFilter()))
+                .execute().actionGet();
+        assertThat(searchResponse.failedShards(), equalTo(0));
+        assertThat(searchResponse.hits().totalHits(), equalTo(0l));
+
+        assertSameHistogram(searchResponse.facets().<DateHistogramFacet>facet("rollup_histo"), searchResponse.facets().<DateHistogramFacet>facet("histo"), docs);
+        assertSameHistogram(searchResponse.facets().<DateHistogramFacet>facet("rollup_histo_hour"), searchResponse.facets().<DateHistogramFacet>facet("histo_hour"), docs);
+
+        StatisticalFacet rollupStats = searchResponse.facets().facet("rollup_stats");
+        StatisticalFacet stats = searchResponse.facets().facet("stats");
+        assertThat(rollupStats.count(), equalTo(docs));
+        assertThat(rollupStats.count(), equalTo(stats.count()));
+        assertThat(rollupStats.total(), equalTo(stats.total()));
+        assertThat(rollupStats.min(), equalTo(stats.min()));
+        assertThat(rollupStats.max(), equalTo(stats.max()));
+        assertThat(rollupStats.sumOfSquares(), equalTo(stats.sumOfSquares()));
+
+        // and match the same facet collected over a match all query
+        searchResponse = client.prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .addFacet(dateHistogramFacet("histo").field("date").interval("day"))
+                .addFacet(dateHistogramFacet("rollup_histo").field("date").interval("day").global(true))
+                .execute().actionGet();
+        assertSameHistogram(searchResponse.facets().<DateHistogramFacet>facet("rollup_histo"), searchResponse.facets().<DateHistogramFacet>facet("histo"), docs);
+    }
+
+    private void assertSameHistogram(DateHistogramFacet rollupFacet, DateHistogramFacet facet, long docs) {
+        assertThat(rollupFacet.entries().size(), equalTo(facet.entries().size()));
+        long total = 0;
+        for (int i = 0; i < facet.entries().size(); i++) {
+            assertThat(rollupFacet.entries().get(i).time(), equalTo(facet.entries().get(i).time()));
+            assertThat(rollupFacet.entries().get(i).count(), equalTo(facet.entries().get(i).count()));
+            total += facet.entries().get(i).count();
+        }
+        assertThat(total, equalTo(docs));
+    }
+}
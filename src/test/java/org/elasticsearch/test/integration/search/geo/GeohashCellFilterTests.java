@@ -0,0 +1,190 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.integration.search.geo;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.GeoPolygonFilterBuilder;
+import org.elasticsearch.index.search.geo.GeoDistance;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.integration.AbstractNodesTests;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.*;
+import static org.elasticsearch.index.query.QueryBuilders.constantScoreQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Checks that resolving geo filters through the indexed geohash cells (the <tt>cells</tt> field, with
+ * <tt>geohash_prefix</tt> enabled) matches exactly the same docs as the plain field data based filters
+ * (the <tt>plain</tt> field), for points spread around the shapes and points right on their edges.
+ */
+public class GeohashCellFilterTests extends AbstractNodesTests {
+
+    private Client client;
+
+    private int numberOfDocs;
+
+    @BeforeClass
+    public void createNodes() throws Exception {
+        startNode("node1");
+        client = client("node1");
+
+        client.admin().indices().prepareDelete().execute().actionGet();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type1").startObject("properties")
+                .startObject("plain").field("type", "geo_point").endObject()
+                .startObject("cells").field("type", "geo_point").field("geohash_prefix", true).endObject()
+                .endObject().endObject().endObject().string();
+        client.admin().indices().prepareCreate("test")
+                .setSettings(settingsBuilder().put("index.number_of_shards", 1).put("index.number_of_replicas", 0))
+                .addMapping("type1", mapping).execute().actionGet();
+        client.admin().cluster().prepareHealth().setWaitForGreenStatus().execute().actionGet();
+
+        Random random = new Random(42);
+        BulkRequestBuilder bulk = client.prepareBulk();
+        // spread around new york, where the shapes are
+        for (int i = 0; i < 1000; i++) {
+            bulk.add(point(40.6 + random.nextDouble() * 0.3, -74.2 + random.nextDouble() * 0.4));
+        }
+        // on, and right around, the edges of the bounding box and polygon
+        double[] lats = {40.7, 40.75, 40.8};
+        double[] lons = {-74.05, -74.0, -73.95};
+        for (double lat : lats) {
+            for (double lon = -74.1; lon <= -73.9; lon += 0.002) {
+                bulk.add(point(lat, lon));
+                bulk.add(point(lat + 1e-6, lon));
+                bulk.add(point(lat - 1e-6, lon));
+            }
+        }
+        for (double lon : lons) {
+            for (double lat = 40.65; lat <= 40.85; lat += 0.002) {
+                bulk.add(point(lat, lon));
+                bulk.add(point(lat, lon + 1e-6));
+                bulk.add(point(lat, lon - 1e-6));
+            }
+        }
+        // around the 5km circle
+        for (int i = 0; i < 360; i++) {
+            double angle = Math.toRadians(i);
+            for (double km : new double[]{4.99, 5.0, 5.01}) {
+                double dLat = km / 111.2 * Math.cos(angle);
+                double dLon = km / (111.2 * Math.cos(Math.toRadians(40.75))) * Math.sin(angle);
+                bulk.add(point(40.75 + dLat, -74.0 + dLon));
+            }
+        }
+        // on both sides of the date line
+        for (int i = 0; i < 500; i++) {
+            bulk.add(point(-15 + random.nextDouble() * 30, random.nextBoolean() ? 165 + random.nextDouble() * 15 : -180 + random.nextDouble() * 15));
+        }
+        numberOfDocs = bulk.numberOfActions();
+        assertThat(bulk.execute().actionGet().hasFailures(), equalTo(false));
+        client.admin().indices().prepareRefresh().execute().actionGet();
+    }
+
+    private IndexRequestBuilder point(double lat, double lon) throws Exception {
+        return client.prepareIndex("test", "type1").setSource(jsonBuilder().startObject()
+                .startObject("plain").field("lat", lat).field("lon", lon).endObject()
+                .startObject("cells").field("lat", lat).field("lon", lon).endObject()
+                .endObject());
+    }
+
+    @AfterClass
+    public void closeNodes() {
+        client.close();
+        closeAllNodes();
+    }
+
+    @Test
+    public void testDistance() throws Exception {
+        for (GeoDistance geoDistance : new GeoDistance[]{GeoDistance.ARC, GeoDistance.PLANE}) {
+            for (double km : new double[]{0.5, 5, 12}) {
+                assertSameDocs(geoDistanceFilter("plain").point(40.75, -74.0).distance(km, DistanceUnit.KILOMETERS).geoDistance(geoDistance),
+                        geoDistanceFilter("cells").point(40.75, -74.0).distance(km, DistanceUnit.KILOMETERS).geoDistance(geoDistance));
+            }
+        }
+    }
+
+    @Test
+    public void testBoundingBox() throws Exception {
+        assertSameDocs(geoBoundingBoxFilter("plain").topLeft(40.8, -74.05).bottomRight(40.7, -73.95),
+                geoBoundingBoxFilter("cells").topLeft(40.8, -74.05).bottomRight(40.7, -73.95));
+        assertSameDocs(geoBoundingBoxFilter("plain").topLeft(40.75, -74.0).bottomRight(40.7, -73.95),
+                geoBoundingBoxFilter("cells").topLeft(40.75, -74.0).bottomRight(40.7, -73.95));
+        // crossing the date line
+        assertSameDocs(geoBoundingBoxFilter("plain").topLeft(10, 170).bottomRight(-10, -170),
+                geoBoundingBoxFilter("cells").topLeft(10, 170).bottomRight(-10, -170));
+    }
+
+    @Test
+    public void testPolygon() throws Exception {
+        // a concave (L shaped) polygon, sharing edges with the indexed edge points
+        double[][] points = {{40.7, -74.05}, {40.8, -74.05}, {40.8, -74.0}, {40.75, -74.0}, {40.75, -73.95}, {40.7, -73.95}};
+        GeoPolygonFilterBuilder plain = geoPolygonFilter("plain");
+        GeoPolygonFilterBuilder cells = geoPolygonFilter("cells");
+        for (double[] point : points) {
+            plain.addPoint(point[0], point[1]);
+            cells.addPoint(point[0], point[1]);
+        }
+        assertSameDocs(plain, cells);
+
+        // a triangle, with edges that don't follow cell boundaries
+        plain = geoPolygonFilter("plain").addPoint(40.65, -74.15).addPoint(40.85, -74.0).addPoint(40.68, -73.92);
+        cells = geoPolygonFilter("cells").addPoint(40.65, -74.15).addPoint(40.85, -74.0).addPoint(40.68, -73.92);
+        assertSameDocs(plain, cells);
+    }
+
+    private void assertSameDocs(FilterBuilder plainFilter, FilterBuilder cellsFilter) {
+        // make sure the cells are actually used
+        String explanation = client.admin().indices().prepareValidateQuery("test").setQuery(constantScoreQuery(cellsFilter)).setExplain(true)
+                .execute().actionGet().queryExplanations().get(0).explanation();
+        assertThat(explanation, containsString("GeohashCellFilter"));
+
+        Set<String> expected = ids(plainFilter);
+        Set<String> actual = ids(cellsFilter);
+        assertThat(expected.size(), greaterThan(0));
+        assertThat(expected.size(), lessThan(numberOfDocs));
+        assertThat(actual, equalTo(expected));
+    }
+
+    private Set<String> ids(FilterBuilder filter) {
+        SearchResponse response = client.prepareSearch("test").setQuery(constantScoreQuery(filter)).setSize(numberOfDocs).execute().actionGet();
+        assertThat(response.failedShards(), equalTo(0));
+        Set<String> ids = new TreeSet<String>();
+        for (SearchHit hit : response.hits()) {
+            ids.add(hit.id());
+        }
+        assertThat((long) ids.size(), equalTo(response.hits().totalHits()));
+        return ids;
+    }
+}
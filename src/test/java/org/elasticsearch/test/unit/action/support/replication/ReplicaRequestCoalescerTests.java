@@ -0,0 +1,312 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.action.support.replication;
+
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.support.replication.ReplicaRequestCoalescer;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
+import org.elasticsearch.transport.local.LocalTransport;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class ReplicaRequestCoalescerTests {
+
+    private static final String REPLICA_ACTION = "test/replica";
+
+    private static final String BATCH_ACTION = "test/replica/batch";
+
+    private final ShardId shardId = new ShardId("test", 0);
+
+    private ThreadPool threadPool;
+
+    private TransportService primaryService;
+
+    private TransportService replicaService;
+
+    private DiscoveryNode replicaNode;
+
+    private ReplicaRequestCoalescer<ValueRequest> coalescer;
+
+    // the values of the batches (and single requests) received by the replica, in order
+    private final List<List<Integer>> received = new CopyOnWriteArrayList<List<Integer>>();
+
+    @BeforeMethod
+    public void setUp() {
+        received.clear();
+        threadPool = new ThreadPool();
+        primaryService = new TransportService(new LocalTransport(threadPool), threadPool).start();
+        DiscoveryNode primaryNode = new DiscoveryNode("primary", primaryService.boundAddress().publishAddress());
+        replicaService = new TransportService(new LocalTransport(threadPool), threadPool).start();
+        replicaNode = new DiscoveryNode("replica", replicaService.boundAddress().publishAddress());
+        primaryService.connectToNode(replicaNode);
+        replicaService.connectToNode(primaryNode);
+        coalescer = new ReplicaRequestCoalescer<ValueRequest>(primaryService, REPLICA_ACTION, BATCH_ACTION, TransportRequestOptions.EMPTY, 3);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        primaryService.close();
+        replicaService.close();
+        threadPool.shutdown();
+    }
+
+    @Test
+    public void testOperationsSentWhileABatchIsInFlightAreCoalesced() throws Exception {
+        final CountDownLatch firstBatchReceived = new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        registerBatchHandler(new BatchExecutor() {
+            @Override
+            public String execute(int value) throws Exception {
+                if (value == 0) {
+                    firstBatchReceived.countDown();
+                    releaseFirstBatch.await();
+                }
+                return null;
+            }
+        });
+
+        List<RecordingListener> listeners = send(0, 1);
+        assertThat(firstBatchReceived.await(10, TimeUnit.SECONDS), equalTo(true));
+        listeners.addAll(send(1, 6));
+        releaseFirstBatch.countDown();
+
+        awaitAll(listeners);
+        assertThat(received.size(), equalTo(3));
+        assertThat(received.get(0), contains(0));
+        assertThat(received.get(1), contains(1, 2, 3));
+        assertThat(received.get(2), contains(4, 5));
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.responses.get(), equalTo(1));
+            assertThat(listener.failures.get(), equalTo(0));
+            assertThat(listener.failure, nullValue());
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedPerOperation() throws Exception {
+        registerBatchHandler(new BatchExecutor() {
+            @Override
+            public String execute(int value) throws Exception {
+                return value % 2 == 1 ? "failed [" + value + "]" : null;
+            }
+        });
+
+        List<RecordingListener> listeners = send(0, 4);
+        awaitAll(listeners);
+        for (int i = 0; i < listeners.size(); i++) {
+            RecordingListener listener = listeners.get(i);
+            assertThat(listener.responses.get() + listener.failures.get(), equalTo(1));
+            assertThat(listener.responses.get(), equalTo(1));
+            if (i % 2 == 1) {
+                assertThat(listener.failure, equalTo("failed [" + i + "]"));
+            } else {
+                assertThat(listener.failure, nullValue());
+            }
+        }
+    }
+
+    @Test
+    public void testFailedBatchFailsItsOperationsOnly() throws Exception {
+        registerBatchHandler(new BatchExecutor() {
+            @Override
+            public String execute(int value) throws Exception {
+                if (value == 0) {
+                    throw new ElasticSearchException("batch failure");
+                }
+                return null;
+            }
+        });
+
+        List<RecordingListener> failed = send(0, 1);
+        awaitAll(failed);
+        assertThat(failed.get(0).failures.get(), equalTo(1));
+        assertThat(failed.get(0).responses.get(), equalTo(0));
+
+        // the queue of the shard moves on to the next operations
+        List<RecordingListener> succeeded = send(1, 3);
+        awaitAll(succeeded);
+        for (RecordingListener listener : succeeded) {
+            assertThat(listener.responses.get(), equalTo(1));
+            assertThat(listener.failures.get(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void testFallbackToSingleRequestsWhenTheBatchActionIsMissing() throws Exception {
+        // the replica only knows about the single replica action, as nodes that don't support batches
+        replicaService.registerHandler(REPLICA_ACTION, new BaseTransportRequestHandler<ValueRequest>() {
+            @Override
+            public ValueRequest newInstance() {
+                return new ValueRequest();
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.SAME;
+            }
+
+            @Override
+            public void messageReceived(ValueRequest request, TransportChannel channel) throws Exception {
+                List<Integer> values = new ArrayList<Integer>();
+                values.add(request.value);
+                received.add(values);
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            }
+        });
+
+        List<RecordingListener> listeners = send(0, 3);
+        awaitAll(listeners);
+        assertThat(coalescer.batchUnsupported(replicaNode.id()), equalTo(true));
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.responses.get(), equalTo(1));
+            assertThat(listener.failures.get(), equalTo(0));
+        }
+
+        listeners = send(3, 5);
+        awaitAll(listeners);
+        assertThat(received.size(), equalTo(5));
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.responses.get(), equalTo(1));
+        }
+    }
+
+    private List<RecordingListener> send(int from, int to) {
+        List<RecordingListener> listeners = new ArrayList<RecordingListener>();
+        for (int i = from; i < to; i++) {
+            RecordingListener listener = new RecordingListener();
+            listeners.add(listener);
+            coalescer.send(replicaNode, shardId, new ValueRequest(i), listener);
+        }
+        return listeners;
+    }
+
+    private void awaitAll(List<RecordingListener> listeners) throws InterruptedException {
+        for (RecordingListener listener : listeners) {
+            assertThat(listener.done.await(10, TimeUnit.SECONDS), equalTo(true));
+        }
+    }
+
+    private void registerBatchHandler(final BatchExecutor batchExecutor) {
+        replicaService.registerHandler(BATCH_ACTION, new BaseTransportRequestHandler<ReplicaRequestCoalescer.BatchRequest<ValueRequest>>() {
+            @Override
+            public ReplicaRequestCoalescer.BatchRequest<ValueRequest> newInstance() {
+                return new ReplicaRequestCoalescer.BatchRequest<ValueRequest>(new ReplicaRequestCoalescer.RequestFactory<ValueRequest>() {
+                    @Override
+                    public ValueRequest newRequest() {
+                        return new ValueRequest();
+                    }
+                });
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.GENERIC;
+            }
+
+            @Override
+            public void messageReceived(ReplicaRequestCoalescer.BatchRequest<ValueRequest> request, TransportChannel channel) throws Exception {
+                List<Integer> values = new ArrayList<Integer>();
+                String[] failures = new String[request.requests().size()];
+                for (int i = 0; i < failures.length; i++) {
+                    int value = request.requests().get(i).value;
+                    values.add(value);
+                    failures[i] = batchExecutor.execute(value);
+                }
+                received.add(values);
+                channel.sendResponse(new ReplicaRequestCoalescer.BatchResponse(failures));
+            }
+        });
+    }
+
+    static interface BatchExecutor {
+
+        String execute(int value) throws Exception;
+    }
+
+    static class RecordingListener implements ReplicaRequestCoalescer.Listener {
+
+        final AtomicInteger responses = new AtomicInteger();
+
+        final AtomicInteger failures = new AtomicInteger();
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        volatile String failure;
+
+        @Override
+        public void onResponse(@Nullable String failure) {
+            this.failure = failure;
+            responses.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(TransportException exp) {
+            failures.incrementAndGet();
+            done.countDown();
+        }
+    }
+
+    static class ValueRequest extends TransportRequest {
+
+        int value;
+
+        ValueRequest() {
+        }
+
+        ValueRequest(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            value = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.client.transport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.elasticsearch.client.transport.LeastOutstandingLoadBalancer;
+import org.elasticsearch.client.transport.TransportClientNodeStats;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+@Test
+public class LeastOutstandingLoadBalancerTests {
+
+    private final ImmutableList<DiscoveryNode> nodes = ImmutableList.of(
+            new DiscoveryNode("node1", DummyTransportAddress.INSTANCE),
+            new DiscoveryNode("node2", DummyTransportAddress.INSTANCE),
+            new DiscoveryNode("node3", DummyTransportAddress.INSTANCE));
+
+    @Test
+    public void testNodesAreUsedInTurnWithoutStats() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        int[] selected = new int[nodes.size()];
+        for (int i = 0; i < 30; i++) {
+            selected[loadBalancer.select(nodes, stats)]++;
+        }
+        assertThat(selected[0], equalTo(10));
+        assertThat(selected[1], equalTo(10));
+        assertThat(selected[2], equalTo(10));
+    }
+
+    @Test
+    public void testSingleNode() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        stats.put("node1", new FixedNodeStats("node1", 100, 1000));
+        assertThat(loadBalancer.select(nodes.subList(0, 1), stats), equalTo(0));
+        assertThat(loadBalancer.select(nodes.subList(0, 1), stats), equalTo(0));
+    }
+
+    @Test
+    public void testLeastInFlightNodeIsSelected() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        stats.put("node1", new FixedNodeStats("node1", 3, 1000));
+        stats.put("node2", new FixedNodeStats("node2", 1, 1000));
+        stats.put("node3", new FixedNodeStats("node3", 2, 1000));
+        for (int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.select(nodes, stats), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testInFlightIsWeightedByLatency() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        // (0 + 1) * 100 > (2 + 1) * 10
+        stats.put("node1", new FixedNodeStats("node1", 0, 100));
+        stats.put("node2", new FixedNodeStats("node2", 2, 10));
+        stats.put("node3", new FixedNodeStats("node3", 0, 50));
+        for (int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.select(nodes, stats), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testNodesWithoutLatencyAreAssumedAverage() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        // the average latency is 505, so the node with no response yet is preferred to the slow one
+        stats.put("node1", new FixedNodeStats("node1", 0, 10));
+        stats.put("node2", new FixedNodeStats("node2", 0, -1));
+        stats.put("node3", new FixedNodeStats("node3", 0, 1000));
+        int[] selected = new int[nodes.size()];
+        for (int i = 0; i < 30; i++) {
+            selected[loadBalancer.select(nodes, stats)]++;
+        }
+        assertThat(selected[0], equalTo(30));
+
+        // and a node no request was sent to yet gets the average latency as its score
+        stats.remove("node2");
+        stats.put("node1", new FixedNodeStats("node1", 1, 10));
+        stats.put("node3", new FixedNodeStats("node3", 1, 1000));
+        for (int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.select(nodes, stats), equalTo(0));
+        }
+        stats.put("node1", new FixedNodeStats("node1", 100, 10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.select(nodes, stats), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testEqualScoresAreUsedInTurn() {
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer();
+        Map<String, TransportClientNodeStats> stats = Maps.newHashMap();
+        stats.put("node1", new FixedNodeStats("node1", 1, 10));
+        stats.put("node2", new FixedNodeStats("node2", 1, 10));
+        stats.put("node3", new FixedNodeStats("node3", 5, 10));
+        int[] selected = new int[nodes.size()];
+        for (int i = 0; i < 30; i++) {
+            selected[loadBalancer.select(nodes, stats)]++;
+        }
+        assertThat(selected[0], equalTo(15));
+        assertThat(selected[1], equalTo(15));
+        assertThat(selected[2], equalTo(0));
+    }
+
+    static class FixedNodeStats extends TransportClientNodeStats {
+
+        private final long inFlight;
+
+        private final double latency;
+
+        FixedNodeStats(String nodeId, long inFlight, double latency) {
+            super(nodeId);
+            this.inFlight = inFlight;
+            this.latency = latency;
+        }
+
+        @Override
+        public long inFlight() {
+            return inFlight;
+        }
+
+        @Override
+        public double latencyInNanos() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.client.transport;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
+import org.elasticsearch.client.transport.TransportClientNodeStats;
+import org.elasticsearch.client.transport.TransportClientNodesService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.transport.ConnectTransportException;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class RetryListenerTests {
+
+    private final ImmutableList<DiscoveryNode> nodes = ImmutableList.of(
+            new DiscoveryNode("node1", DummyTransportAddress.INSTANCE),
+            new DiscoveryNode("node2", DummyTransportAddress.INSTANCE),
+            new DiscoveryNode("node3", DummyTransportAddress.INSTANCE));
+
+    private final ConcurrentMap<String, TransportClientNodeStats> stats = ConcurrentCollections.newConcurrentMap();
+
+    @Test
+    public void testResponseIsTracked() {
+        stats.clear();
+        RecordingCallback callback = new RecordingCallback();
+        RecordingListener listener = new RecordingListener();
+        new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 1, stats).execute();
+
+        assertThat(callback.nodes.size(), equalTo(1));
+        assertThat(callback.nodes.get(0), equalTo("node2"));
+        assertThat(stats.get("node2").inFlight(), equalTo(1l));
+        assertThat(listener.response.get(), nullValue());
+
+        callback.listeners.get(0).onResponse("response");
+        assertThat(listener.response.get(), equalTo("response"));
+        assertStats("node2", 1, 0);
+        assertThat(stats.get("node2").latencyInNanos(), greaterThanOrEqualTo(0d));
+        assertThat(stats.containsKey("node1"), equalTo(false));
+        assertThat(stats.containsKey("node3"), equalTo(false));
+    }
+
+    @Test
+    public void testRetriesAreTracked() {
+        stats.clear();
+        RecordingCallback callback = new RecordingCallback();
+        // the first node fails to connect when sending, the second one once sent
+        callback.throwOn = "node3";
+        RecordingListener listener = new RecordingListener();
+        new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 2, stats).execute();
+        assertStats("node3", 1, 1);
+
+        assertThat(callback.nodes.size(), equalTo(2));
+        assertThat(callback.nodes.get(1), equalTo("node1"));
+        assertThat(stats.get("node1").inFlight(), equalTo(1l));
+        callback.listeners.get(1).onFailure(new ConnectTransportException(nodes.get(0), "test"));
+        assertStats("node1", 1, 1);
+
+        assertThat(callback.nodes.size(), equalTo(3));
+        assertThat(callback.nodes.get(2), equalTo("node2"));
+        assertThat(stats.get("node2").inFlight(), equalTo(1l));
+        callback.listeners.get(2).onResponse("response");
+        assertStats("node2", 1, 0);
+
+        assertThat(listener.response.get(), equalTo("response"));
+        assertThat(listener.failure.get(), nullValue());
+    }
+
+    @Test
+    public void testNoNodeAvailableOnceAllNodesFailedToConnect() {
+        stats.clear();
+        RecordingCallback callback = new RecordingCallback();
+        RecordingListener listener = new RecordingListener();
+        new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 0, stats).execute();
+        for (int i = 0; i < nodes.size(); i++) {
+            callback.listeners.get(i).onFailure(new ConnectTransportException(nodes.get(i), "test"));
+        }
+        assertThat(callback.nodes.size(), equalTo(3));
+        assertThat(listener.failure.get(), instanceOf(NoNodeAvailableException.class));
+        for (DiscoveryNode node : nodes) {
+            assertStats(node.id(), 1, 1);
+        }
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() {
+        stats.clear();
+        RecordingCallback callback = new RecordingCallback();
+        RecordingListener listener = new RecordingListener();
+        new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 0, stats).execute();
+        callback.listeners.get(0).onFailure(new ElasticSearchException("test"));
+        assertThat(callback.nodes.size(), equalTo(1));
+        assertThat(listener.failure.get().getMessage(), equalTo("test"));
+        assertStats("node1", 1, 1);
+    }
+
+    @Test
+    public void testOtherFailuresWhenSendingAreThrown() {
+        stats.clear();
+        RecordingCallback callback = new RecordingCallback();
+        callback.throwOn = "node1";
+        callback.throwConnect = false;
+        RecordingListener listener = new RecordingListener();
+        try {
+            new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 0, stats).execute();
+            assertThat("expected a failure", false);
+        } catch (ElasticSearchException e) {
+            assertThat(e.getMessage(), equalTo("test"));
+        }
+        assertThat(callback.nodes.size(), equalTo(1));
+        assertStats("node1", 1, 1);
+
+        // a request failing both through its listener and when being sent is accounted for once
+        stats.clear();
+        callback = new RecordingCallback();
+        callback.throwOn = "node1";
+        callback.throwConnect = false;
+        callback.notifyBeforeThrowing = true;
+        try {
+            new TransportClientNodesService.RetryListener<String>(callback, listener, nodes, 0, stats).execute();
+            assertThat("expected a failure", false);
+        } catch (ElasticSearchException e) {
+            // expected
+        }
+        assertStats("node1", 1, 1);
+    }
+
+    private void assertStats(String nodeId, long total, long failures) {
+        TransportClientNodeStats nodeStats = stats.get(nodeId);
+        assertThat(nodeStats, notNullValue());
+        assertThat(nodeStats.inFlight(), equalTo(0l));
+        assertThat(nodeStats.total(), equalTo(total));
+        assertThat(nodeStats.failures(), equalTo(failures));
+    }
+
+    static class RecordingCallback implements TransportClientNodesService.NodeListenerCallback<String> {
+
+        final List<String> nodes = new CopyOnWriteArrayList<String>();
+
+        final List<ActionListener<String>> listeners = new CopyOnWriteArrayList<ActionListener<String>>();
+
+        String throwOn;
+
+        boolean throwConnect = true;
+
+        boolean notifyBeforeThrowing;
+
+        @Override
+        public void doWithNode(DiscoveryNode node, ActionListener<String> listener) throws ElasticSearchException {
+            nodes.add(node.id());
+            listeners.add(listener);
+            if (node.id().equals(throwOn)) {
+                ElasticSearchException e = throwConnect ? new ConnectTransportException(node, "test") : new ElasticSearchException("test");
+                if (notifyBeforeThrowing) {
+                    listener.onFailure(e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    static class RecordingListener implements ActionListener<String> {
+
+        final AtomicReference<String> response = new AtomicReference<String>();
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        @Override
+        public void onResponse(String response) {
+            this.response.set(response);
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            failure.set(e);
+        }
+    }
+}
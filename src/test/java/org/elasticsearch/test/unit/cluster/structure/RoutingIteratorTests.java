@@ -26,13 +26,17 @@ import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.*;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.cluster.routing.operation.plain.PlainOperationRouting;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.unit.cluster.routing.allocation.RoutingAllocationTests;
+import org.elasticsearch.transport.TransportResponse;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.elasticsearch.cluster.ClusterState.newClusterStateBuilder;
 import static org.elasticsearch.cluster.metadata.IndexMetaData.newIndexMetaDataBuilder;
 import static org.elasticsearch.cluster.metadata.MetaData.newMetaDataBuilder;
@@ -331,7 +335,7 @@ public class RoutingIteratorTests {
         routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
         clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
 
-        PlainOperationRouting operationRouting = new PlainOperationRouting(ImmutableSettings.Builder.EMPTY_SETTINGS, new DjbHashFunction(), new AwarenessAllocationDecider());
+        PlainOperationRouting operationRouting = new PlainOperationRouting(ImmutableSettings.Builder.EMPTY_SETTINGS, new DjbHashFunction(), new AwarenessAllocationDecider(), new ResponseCollectorService(ImmutableSettings.Builder.EMPTY_SETTINGS));
 
         GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null, "_shards:0");
         assertThat(shardIterators.size(), equalTo(1));
@@ -362,4 +366,59 @@ public class RoutingIteratorTests {
         assertThat(shardIterators.iterator().next().shardId().id(), equalTo(0));
         assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdaptiveReplicaSelection() {
+        AllocationService strategy = new AllocationService(settingsBuilder()
+                .put("cluster.routing.allocation.concurrent_recoveries", 10)
+                .build());
+
+        MetaData metaData = newMetaDataBuilder()
+                .put(newIndexMetaDataBuilder("test").numberOfShards(1).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = routingTable()
+                .addAsNew(metaData.index("test"))
+                .build();
+
+        ClusterState clusterState = newClusterStateBuilder().metaData(metaData).routingTable(routingTable).build();
+
+        clusterState = newClusterStateBuilder().state(clusterState).nodes(newNodesBuilder()
+                .put(RoutingAllocationTests.newNode("node1"))
+                .put(RoutingAllocationTests.newNode("node2"))
+                .localNodeId("node1")
+        ).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = newClusterStateBuilder().state(clusterState).routingTable(routingTable).build();
+
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.Builder.EMPTY_SETTINGS);
+        PlainOperationRouting operationRouting = new PlainOperationRouting(ImmutableSettings.Builder.EMPTY_SETTINGS, new DjbHashFunction(), new AwarenessAllocationDecider(), collector);
+
+        // node2 is slow and busy, node1 is fast
+        collector.onRequest("node1");
+        collector.onResponse("node1", TimeUnit.MILLISECONDS.toNanos(1), TransportResponse.Empty.INSTANCE);
+        collector.onRequest("node2");
+        collector.onResponse("node2", TimeUnit.MILLISECONDS.toNanos(50), new TransportResponse.Empty().putHeader(ResponseCollectorService.QUEUE_SIZE_HEADER, 10));
+
+        for (int i = 0; i < 4; i++) {
+            GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null, null);
+            assertThat(shardIterators.size(), equalTo(1));
+            ShardIterator shardIterator = shardIterators.iterator().next();
+            assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+            assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+        }
+
+        // pile up outstanding requests on node1, node2 becomes the best copy
+        for (int i = 0; i < 20; i++) {
+            collector.onRequest("node1");
+        }
+        ShardIterator shardIterator = operationRouting.getShards(clusterState, "test", 0, null);
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+    }
+}
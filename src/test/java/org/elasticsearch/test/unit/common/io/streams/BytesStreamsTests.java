@@ -19,14 +19,21 @@
 
 package org.elasticsearch.test.unit.common.io.streams;
 
+import org.elasticsearch.common.PageCacheRecycler;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.PagedBytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.CachedStreamOutput;
+import org.elasticsearch.common.io.stream.PagedBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.testng.annotations.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 /**
  *
@@ -62,4 +69,45 @@ public class BytesStreamsTests {
         assertThat(in.readUTF(), equalTo("hello"));
         assertThat(in.readUTF(), equalTo("goodbye"));
     }
+
+    @Test
+    public void testPagedStreams() throws Exception {
+        int size = PageCacheRecycler.PAGE_SIZE * 3 + 17;
+        byte[] data = new byte[size];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        PagedBytesStreamOutput out = new PagedBytesStreamOutput();
+        out.writeInt(0);
+        out.writeBytes(data, 0, 10);
+        out.writeBytes(data, 10, data.length - 10);
+        out.seek(0);
+        out.writeInt(size);
+        out.seek(size + 4);
+        assertThat(out.size(), equalTo(size + 4));
+
+        BytesReference bytes = out.bytes();
+        assertThat(bytes, instanceOf(PagedBytesReference.class));
+        assertThat(bytes.length(), equalTo(size + 4));
+        assertThat(bytes.get(4 + PageCacheRecycler.PAGE_SIZE), equalTo(data[PageCacheRecycler.PAGE_SIZE]));
+
+        StreamInput in = bytes.streamInput();
+        assertThat(in.readInt(), equalTo(size));
+        byte[] read = new byte[size];
+        in.readBytes(read, 0, size);
+        assertThat(read, equalTo(data));
+
+        assertThat(bytes.toChannelBuffer().readableBytes(), equalTo(size + 4));
+        assertThat(bytes.slice(4, size).toBytes(), equalTo(data));
+        assertThat(bytes.slice(4, 10), instanceOf(BytesArray.class));
+        assertThat(bytes.array().length, equalTo(size + 4));
+
+        out.reset();
+        assertThat(out.size(), equalTo(0));
+        out.writeByte((byte) 1);
+        assertThat(out.bytes(), instanceOf(BytesArray.class));
+        assertThat(out.bytes().length(), equalTo(1));
+        out.release();
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.lucene.docset;
+
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.OpenBitSet;
+import org.apache.lucene.util.OpenBitSetIterator;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.docset.DocSet;
+import org.elasticsearch.common.lucene.docset.DocSets;
+import org.elasticsearch.common.lucene.docset.FixedBitDocSet;
+import org.elasticsearch.common.lucene.docset.SortedIntDocSet;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+/**
+ */
+@Test
+public class DocSetsTests {
+
+    @Test
+    public void testSparseCacheable() throws Exception {
+        RAMDirectory dir = new RAMDirectory();
+        IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, new KeywordAnalyzer()));
+        for (int i = 0; i < 1000; i++) {
+            Document doc = new Document();
+            doc.add(new Field("field", "value", Field.Store.NO, Field.Index.NOT_ANALYZED));
+            w.addDocument(doc);
+        }
+        IndexReader reader = w.getReader();
+        w.close();
+
+        // 1000 docs, sparse up to 31 docs
+        OpenBitSet sparse = new OpenBitSet(1000);
+        for (int i = 0; i < 30; i++) {
+            sparse.set(i * 33 + 1);
+        }
+        DocSet docSet = DocSets.cacheable(reader, iteratorOnly(sparse));
+        assertThat(docSet, instanceOf(SortedIntDocSet.class));
+        assertSameDocs(docSet, sparse);
+
+        OpenBitSet dense = new OpenBitSet(1000);
+        for (int i = 0; i < 100; i++) {
+            dense.set(i * 10);
+        }
+        docSet = DocSets.cacheable(reader, iteratorOnly(dense));
+        assertThat(docSet, instanceOf(FixedBitDocSet.class));
+        assertSameDocs(docSet, dense);
+
+        reader.close();
+        dir.close();
+    }
+
+    @Test
+    public void testSortedIntAdvance() throws Exception {
+        SortedIntDocSet docSet = new SortedIntDocSet(new int[]{1, 5, 9, 100, 101, 500}, 1000);
+        DocIdSetIterator it = docSet.iterator();
+        assertThat(it.advance(0), equalTo(1));
+        assertThat(it.advance(2), equalTo(5));
+        assertThat(it.advance(99), equalTo(100));
+        assertThat(it.nextDoc(), equalTo(101));
+        assertThat(it.advance(102), equalTo(500));
+        assertThat(it.advance(501), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+
+        it = docSet.iterator();
+        assertThat(it.advance(600), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+
+        assertThat(docSet.get(9), equalTo(true));
+        assertThat(docSet.get(10), equalTo(false));
+    }
+
+    private void assertSameDocs(DocSet docSet, OpenBitSet expected) throws IOException {
+        DocIdSetIterator it = docSet.iterator();
+        int doc;
+        int count = 0;
+        while ((doc = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            assertThat(expected.get(doc), equalTo(true));
+            assertThat(docSet.get(doc), equalTo(true));
+            count++;
+        }
+        assertThat((long) count, equalTo(expected.cardinality()));
+    }
+
+    private DocIdSet iteratorOnly(final OpenBitSet set) {
+        return new DocIdSet() {
+            @Override
+            public DocIdSetIterator iterator() throws IOException {
+                return new OpenBitSetIterator(set);
+            }
+        };
+    }
+}
@@ -19,11 +19,11 @@
 
 package org.elasticsearch.test.unit.common.util.concurrent;
 
-import org.elasticsearch.common.util.concurrent.EsExecutors;
-import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
-import org.elasticsearch.common.util.concurrent.ThreadBarrier;
+import jsr166y.LinkedTransferQueue;
+import org.elasticsearch.common.util.concurrent.*;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -168,4 +168,58 @@ public class EsExecutorsTests {
         barrier.await();
         pool.shutdown();
     }
+
+    @Test
+    public void testSizeQueueRejectsUnlessForced() throws Exception {
+        final CountDownLatch block = new CountDownLatch(1);
+        final CountDownLatch executed = new CountDownLatch(3);
+        EsThreadPoolExecutor pool = new EsThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new SizeBlockingQueue<Runnable>(new LinkedTransferQueue<Runnable>(), 1), EsExecutors.daemonThreadFactory("test"));
+        assertThat(pool.queueCapacity(), equalTo(1));
+
+        // occupies the single thread
+        pool.execute(new Runnable() {
+            public void run() {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                executed.countDown();
+            }
+        });
+        // fills the queue
+        pool.execute(new Runnable() {
+            public void run() {
+                executed.countDown();
+            }
+        });
+
+        try {
+            pool.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            assert false : "should have been rejected";
+        } catch (EsRejectedExecutionException e) {
+            // all is well
+        }
+
+        pool.execute(new AbstractRunnable() {
+            @Override
+            public boolean isForceExecution() {
+                return true;
+            }
+
+            public void run() {
+                executed.countDown();
+            }
+        });
+        assertThat(pool.getQueue().size(), equalTo(2));
+
+        block.countDown();
+        executed.await();
+        assertThat(pool.queueTime().count(), equalTo(3l));
+        pool.shutdown();
+    }
 }
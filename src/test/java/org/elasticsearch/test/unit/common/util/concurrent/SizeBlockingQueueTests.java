@@ -0,0 +1,110 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.common.util.concurrent;
+
+import jsr166y.LinkedTransferQueue;
+import org.elasticsearch.common.util.concurrent.SizeBlockingQueue;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+@Test
+public class SizeBlockingQueueTests {
+
+    @Test
+    public void testOfferRespectsCapacity() {
+        SizeBlockingQueue<Integer> queue = new SizeBlockingQueue<Integer>(new LinkedTransferQueue<Integer>(), 2);
+        assertThat(queue.offer(1), equalTo(true));
+        assertThat(queue.offer(2), equalTo(true));
+        assertThat(queue.offer(3), equalTo(false));
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.remainingCapacity(), equalTo(0));
+
+        queue.forcePut(3);
+        assertThat(queue.size(), equalTo(3));
+
+        queue.capacity(4);
+        assertThat(queue.offer(4), equalTo(true));
+        assertThat(queue.offer(5), equalTo(false));
+    }
+
+    @Test
+    public void testOfferWithTimeout() throws Exception {
+        final SizeBlockingQueue<Integer> queue = new SizeBlockingQueue<Integer>(new LinkedTransferQueue<Integer>(), 1);
+        assertThat(queue.offer(1, 10, TimeUnit.MILLISECONDS), equalTo(true));
+        assertThat(queue.offer(2, 10, TimeUnit.MILLISECONDS), equalTo(false));
+        assertThat(queue.size(), equalTo(1));
+
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                    queue.take();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        consumer.start();
+        assertThat(queue.offer(2, 10, TimeUnit.SECONDS), equalTo(true));
+        consumer.join();
+        assertThat(queue.size(), equalTo(1));
+        assertThat(queue.poll(), equalTo(2));
+    }
+
+    @Test
+    public void testPutWaitsForCapacity() throws Exception {
+        final SizeBlockingQueue<Integer> queue = new SizeBlockingQueue<Integer>(new LinkedTransferQueue<Integer>(), 1);
+        queue.put(1);
+
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    queue.put(2);
+                    added.countDown();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        producer.start();
+        assertThat(added.await(50, TimeUnit.MILLISECONDS), equalTo(false));
+        assertThat(queue.size(), equalTo(1));
+
+        // raising the capacity releases the waiting producer
+        queue.capacity(2);
+        assertThat(added.await(10, TimeUnit.SECONDS), equalTo(true));
+        producer.join();
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.poll(), equalTo(1));
+        assertThat(queue.poll(), equalTo(2));
+        assertThat(queue.size(), equalTo(0));
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.test.unit.common.xcontent.support;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.testng.annotations.Test;
@@ -86,6 +87,40 @@ public class XContentMapValuesTests {
         assertThat(filter.containsKey("test1"), equalTo(false));
     }
 
+    @Test
+    public void testStreamingFilter() throws Exception {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .startObject("path1")
+                .startArray("path2")
+                .startObject().field("test", "value1").endObject()
+                .startObject().field("test", "value2").field("other", "value3").endObject()
+                .endArray()
+                .field("test", 1)
+                .endObject()
+                .field("test1", "value1")
+                .startArray("test2").value(1).value(2).endArray()
+                .startObject("test3").field("test", "value").endObject()
+                .endObject();
+
+        Map<String, Object> source = XContentFactory.xContent(XContentType.JSON).createParser(builder.string()).mapAndClose();
+        String[][][] filters = new String[][][]{
+                {Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY},
+                {new String[]{"test1"}, Strings.EMPTY_ARRAY},
+                {new String[]{"test*"}, Strings.EMPTY_ARRAY},
+                {new String[]{"path1"}, Strings.EMPTY_ARRAY},
+                {new String[]{"path1*"}, new String[]{"path1.path2.other"}},
+                {new String[]{"path1.path2.*"}, Strings.EMPTY_ARRAY},
+                {new String[]{"path1.path2.test", "test3.test"}, Strings.EMPTY_ARRAY},
+                {Strings.EMPTY_ARRAY, new String[]{"path1", "test2"}}
+        };
+        for (String[][] filter : filters) {
+            XContentParser parser = XContentFactory.xContent(XContentType.JSON).createParser(builder.string());
+            Map<String, Object> streamed = XContentMapValues.filter(parser, filter[0], filter[1]);
+            parser.close();
+            assertThat(streamed, equalTo(XContentMapValues.filter(source, filter[0], filter[1])));
+        }
+    }
+
     @SuppressWarnings({"unchecked"})
     @Test
     public void testExtractValue() throws Exception {
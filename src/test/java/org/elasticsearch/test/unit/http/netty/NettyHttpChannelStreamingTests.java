@@ -0,0 +1,171 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.http.netty;
+
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.http.netty.NettyHttpChannel;
+import org.elasticsearch.http.netty.NettyHttpRequest;
+import org.elasticsearch.http.netty.NettyHttpServerTransport;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.StreamingXContentRestResponse;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.http.*;
+import org.jboss.netty.util.CharsetUtil;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class NettyHttpChannelStreamingTests {
+
+    private static final int FIELDS = 100;
+
+    @Test
+    public void testResponseIsStreamedInChunks() throws Exception {
+        Recorder recorder = new Recorder(false);
+        send(recorder, HttpVersion.HTTP_1_1, "/", "1m");
+
+        assertThat(recorder.written.size(), greaterThan(3));
+        HttpResponse response = (HttpResponse) recorder.written.get(0).getMessage();
+        assertThat(response.isChunked(), equalTo(true));
+        assertThat(response.getHeader(HttpHeaders.Names.TRANSFER_ENCODING), equalTo(HttpHeaders.Values.CHUNKED));
+        assertThat(response.getHeader(HttpHeaders.Names.CONTENT_LENGTH), nullValue());
+        assertThat(recorder.written.get(recorder.written.size() - 1).getMessage(), sameInstance((Object) HttpChunk.LAST_CHUNK));
+
+        ChannelBuffer content = ChannelBuffers.dynamicBuffer();
+        for (int i = 1; i < recorder.written.size() - 1; i++) {
+            ChannelBuffer chunk = ((HttpChunk) recorder.written.get(i).getMessage()).getContent();
+            assertThat(chunk.readableBytes(), lessThanOrEqualTo(64));
+            content.writeBytes(chunk);
+        }
+        assertThat(content.toString(CharsetUtil.UTF_8), equalTo(expectedContent()));
+        assertThat(recorder.closed.get(), equalTo(false));
+    }
+
+    @Test
+    public void testHttp10ResponseIsBuffered() throws Exception {
+        Recorder recorder = new Recorder(false);
+        send(recorder, HttpVersion.HTTP_1_0, "/", "1m");
+        assertBuffered(recorder);
+    }
+
+    @Test
+    public void testJsonpResponseIsBuffered() throws Exception {
+        Recorder recorder = new Recorder(false);
+        send(recorder, HttpVersion.HTTP_1_1, "/?callback=fn", "1m");
+        assertThat(recorder.written.size(), equalTo(1));
+        HttpResponse response = (HttpResponse) recorder.written.get(0).getMessage();
+        assertThat(response.isChunked(), equalTo(false));
+        assertThat(response.getContent().toString(CharsetUtil.UTF_8), equalTo("fn(" + expectedContent() + ");"));
+    }
+
+    @Test
+    public void testConnectionIsClosedWhenTheClientDoesNotRead() throws Exception {
+        Recorder recorder = new Recorder(true);
+        long start = System.currentTimeMillis();
+        send(recorder, HttpVersion.HTTP_1_1, "/", "100ms");
+        assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(100l));
+        assertThat(recorder.closed.get(), equalTo(true));
+        assertThat(recorder.written.get(recorder.written.size() - 1).getMessage(), not(sameInstance((Object) HttpChunk.LAST_CHUNK)));
+    }
+
+    private void assertBuffered(Recorder recorder) {
+        assertThat(recorder.written.size(), equalTo(1));
+        HttpResponse response = (HttpResponse) recorder.written.get(0).getMessage();
+        assertThat(response.isChunked(), equalTo(false));
+        String content = response.getContent().toString(CharsetUtil.UTF_8);
+        assertThat(content, equalTo(expectedContent()));
+        assertThat(response.getHeader(HttpHeaders.Names.CONTENT_LENGTH), equalTo(Integer.toString(content.length())));
+    }
+
+    private void send(Recorder recorder, HttpVersion version, String uri, String writeTimeout) throws Exception {
+        Settings settings = ImmutableSettings.settingsBuilder()
+                .put("http.streaming_chunk_size", "64b")
+                .put("http.streaming_write_timeout", writeTimeout)
+                .build();
+        NettyHttpServerTransport transport = new NettyHttpServerTransport(settings, new NetworkService(settings));
+        Channel channel = new DecoderEmbedder<Object>(recorder).getPipeline().getChannel();
+        DefaultHttpRequest httpRequest = new DefaultHttpRequest(version, HttpMethod.GET, uri);
+        NettyHttpRequest request = new NettyHttpRequest(httpRequest);
+        new NettyHttpChannel(transport, channel, httpRequest, null).sendResponse(new StreamingXContentRestResponse(request, RestStatus.OK) {
+            @Override
+            public void writeContent(XContentBuilder builder) throws IOException {
+                builder.startObject();
+                for (int i = 0; i < FIELDS; i++) {
+                    builder.field("field" + i, "value" + i);
+                }
+                builder.endObject();
+            }
+        });
+    }
+
+    private String expectedContent() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < FIELDS; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"field").append(i).append("\":\"value").append(i).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    static class Recorder extends SimpleChannelHandler {
+
+        final List<MessageEvent> written = new CopyOnWriteArrayList<MessageEvent>();
+
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        final boolean holdWrites;
+
+        Recorder(boolean holdWrites) {
+            this.holdWrites = holdWrites;
+        }
+
+        @Override
+        public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            written.add(e);
+            if (!holdWrites) {
+                e.getFuture().setSuccess();
+            }
+        }
+
+        @Override
+        public void closeRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+            closed.set(true);
+            e.getFuture().setSuccess();
+        }
+    }
+}
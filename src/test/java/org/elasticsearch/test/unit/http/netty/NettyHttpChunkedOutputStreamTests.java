@@ -0,0 +1,176 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.http.netty;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.http.netty.NettyHttpChannel;
+import org.elasticsearch.http.netty.NettyHttpChunkedOutputStream;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class NettyHttpChunkedOutputStreamTests {
+
+    private final List<MessageEvent> written = new CopyOnWriteArrayList<MessageEvent>();
+
+    private volatile boolean holdWrites;
+
+    private Channel channel;
+
+    private NettyHttpChannel httpChannel;
+
+    @BeforeMethod
+    public void setUp() {
+        written.clear();
+        holdWrites = false;
+        SimpleChannelHandler recorder = new SimpleChannelHandler() {
+            @Override
+            public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+                written.add(e);
+                if (!holdWrites) {
+                    e.getFuture().setSuccess();
+                }
+            }
+        };
+        DecoderEmbedder<Object> embedder = new DecoderEmbedder<Object>(recorder);
+        channel = embedder.getPipeline().getChannel();
+        httpChannel = new NettyHttpChannel(null, channel, new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"), null);
+    }
+
+    @Test
+    public void testContentIsWrittenInChunks() throws Exception {
+        NettyHttpChunkedOutputStream out = new NettyHttpChunkedOutputStream(httpChannel, channel, 4, TimeValue.timeValueSeconds(10));
+        out.write(new byte[]{0, 1, 2});
+        out.flush();
+        // flushing does not send partial chunks
+        assertThat(written.size(), equalTo(0));
+        out.write(3);
+        // a full chunk is written once more content comes in
+        assertThat(written.size(), equalTo(0));
+        out.write(new byte[]{4, 5, 6, 7, 8, 9}, 0, 6);
+        assertThat(written.size(), equalTo(2));
+        out.close();
+        out.close();
+
+        assertThat(written.size(), equalTo(4));
+        assertThat(chunk(0).getContent().readableBytes(), equalTo(4));
+        assertThat(chunk(1).getContent().readableBytes(), equalTo(4));
+        assertThat(chunk(2).getContent().readableBytes(), equalTo(2));
+        assertThat(chunk(2).getContent().getByte(1), equalTo((byte) 9));
+        assertThat(written.get(3).getMessage(), sameInstance((Object) HttpChunk.LAST_CHUNK));
+        assertThat(out.lastFuture(), sameInstance(written.get(3).getFuture()));
+    }
+
+    @Test
+    public void testWritingTimesOutWhenTheClientDoesNotRead() throws Exception {
+        holdWrites = true;
+        NettyHttpChunkedOutputStream out = new NettyHttpChunkedOutputStream(httpChannel, channel, 1, TimeValue.timeValueMillis(100));
+        long start = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.write(i);
+            }
+            assertThat("expected the write to time out", false);
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("timed out"));
+        }
+        assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(100l));
+        // only a bounded number of chunks were waiting to be written
+        assertThat(written.size(), lessThan(100));
+    }
+
+    @Test
+    public void testWritingResumesOnceTheClientReads() throws Exception {
+        holdWrites = true;
+        final NettyHttpChunkedOutputStream out = new NettyHttpChunkedOutputStream(httpChannel, channel, 1, TimeValue.timeValueSeconds(30));
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        out.write(i);
+                    }
+                    out.close();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        writer.start();
+
+        // the writer blocks once too many chunks are pending
+        long deadline = System.currentTimeMillis() + 10000;
+        while (writer.getState() != Thread.State.WAITING && writer.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        int pending = written.size();
+        assertThat(pending, greaterThan(0));
+        assertThat(pending, lessThan(100));
+        assertThat(writer.isAlive(), equalTo(true));
+
+        holdWrites = false;
+        for (MessageEvent event : written) {
+            event.getFuture().setSuccess();
+        }
+        writer.join(10000);
+        assertThat(writer.isAlive(), equalTo(false));
+        assertThat(failure.get(), nullValue());
+        assertThat(written.size(), equalTo(101));
+    }
+
+    @Test
+    public void testFailedChunkFailsTheNextWrite() throws Exception {
+        holdWrites = true;
+        NettyHttpChunkedOutputStream out = new NettyHttpChunkedOutputStream(httpChannel, channel, 1, TimeValue.timeValueSeconds(10));
+        out.write(0);
+        out.write(1);
+        assertThat(written.size(), equalTo(1));
+        written.get(0).getFuture().setFailure(new ClosedChannelException());
+        try {
+            out.write(2);
+            assertThat("expected the write to fail", false);
+        } catch (IOException e) {
+            assertThat(e.getCause(), instanceOf(ClosedChannelException.class));
+        }
+    }
+
+    private HttpChunk chunk(int index) {
+        return (HttpChunk) written.get(index).getMessage();
+    }
+}
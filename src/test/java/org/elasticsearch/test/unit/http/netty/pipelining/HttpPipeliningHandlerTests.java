@@ -0,0 +1,146 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.http.netty.pipelining;
+
+import org.elasticsearch.http.netty.pipelining.HttpPipeliningHandler;
+import org.elasticsearch.http.netty.pipelining.OrderedDownstreamChannelEvent;
+import org.elasticsearch.http.netty.pipelining.OrderedUpstreamMessageEvent;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class HttpPipeliningHandlerTests {
+
+    private final List<Object> written = new ArrayList<Object>();
+
+    private final List<Boolean> readable = new ArrayList<Boolean>();
+
+    private final List<OrderedUpstreamMessageEvent> requests = new ArrayList<OrderedUpstreamMessageEvent>();
+
+    private DecoderEmbedder<Object> embedder;
+
+    @BeforeMethod
+    public void setUp() {
+        written.clear();
+        readable.clear();
+        requests.clear();
+        SimpleChannelHandler recorder = new SimpleChannelHandler() {
+            @Override
+            public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+                written.add(e.getMessage());
+                super.writeRequested(ctx, e);
+            }
+
+            @Override
+            public void setInterestOpsRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+                readable.add(((Integer) e.getValue() & Channel.OP_READ) != 0);
+                super.setInterestOpsRequested(ctx, e);
+            }
+        };
+        SimpleChannelUpstreamHandler requestHandler = new SimpleChannelUpstreamHandler() {
+            @Override
+            public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+                requests.add((OrderedUpstreamMessageEvent) e);
+            }
+        };
+        embedder = new DecoderEmbedder<Object>(recorder, new HttpPipeliningHandler(2), requestHandler);
+    }
+
+    @Test
+    public void testResponsesAreReleasedInRequestOrder() {
+        receive(3);
+        assertThat(requests.size(), equalTo(3));
+        assertThat(requests.get(0).getSequence(), equalTo(0));
+        assertThat(requests.get(2).getSequence(), equalTo(2));
+
+        respond(2, 0, true);
+        respond(1, 1, true);
+        assertThat(written.size(), equalTo(0));
+
+        respond(1, 0, false);
+        assertThat(written.size(), equalTo(0));
+
+        respond(0, 0, true);
+        assertThat(written, contains((Object) "0-0", "1-0", "1-1", "2-0"));
+    }
+
+    @Test
+    public void testReadingIsSuspendedWhileTooManyRequestsAreInFlight() {
+        receive(1);
+        assertThat(readable.size(), equalTo(0));
+
+        receive(1);
+        assertThat(readable, contains(false));
+
+        // a partial response does not complete the request
+        respond(0, 0, false);
+        assertThat(readable, contains(false));
+
+        respond(0, 1, true);
+        assertThat(readable, contains(false, true));
+
+        receive(1);
+        assertThat(readable, contains(false, true, false));
+    }
+
+    @Test
+    public void testHeldResponsesAreFailedWhenTheChannelCloses() {
+        receive(2);
+        ChannelFuture held = respond(1, 0, true);
+        assertThat(held.isDone(), equalTo(false));
+
+        Channels.fireChannelClosed(embedder.getPipeline().getChannel());
+        assertThat(held.isDone(), equalTo(true));
+        assertThat(held.isSuccess(), equalTo(false));
+        assertThat(held.getCause(), instanceOf(ClosedChannelException.class));
+
+        ChannelFuture late = respond(0, 0, true);
+        assertThat(late.isDone(), equalTo(true));
+        assertThat(late.getCause(), instanceOf(ClosedChannelException.class));
+        assertThat(written.size(), equalTo(0));
+    }
+
+    private void receive(int count) {
+        for (int i = 0; i < count; i++) {
+            embedder.offer(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        }
+    }
+
+    private ChannelFuture respond(int sequence, int subsequence, boolean last) {
+        OrderedDownstreamChannelEvent event = new OrderedDownstreamChannelEvent(requests.get(sequence), subsequence, last, sequence + "-" + subsequence);
+        embedder.getPipeline().sendDownstream(event);
+        return event.getFuture();
+    }
+}
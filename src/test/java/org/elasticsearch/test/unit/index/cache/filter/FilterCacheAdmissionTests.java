@@ -0,0 +1,99 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.cache.filter;
+
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.OpenBitSet;
+import org.elasticsearch.index.cache.filter.weighted.FilterCacheAdmission;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+@Test
+public class FilterCacheAdmissionTests {
+
+    private static final long THRESHOLD = 1000;
+
+    private final DocIdSet bitSet = new OpenBitSet(10);
+
+    // a doc id set evaluated while iterating, like the field data based ones
+    private final DocIdSet lazySet = new DocIdSet() {
+        @Override
+        public DocIdSetIterator iterator() throws IOException {
+            return DocIdSet.EMPTY_DOCIDSET.iterator();
+        }
+    };
+
+    @Test
+    public void testFilterIsAdmittedOnceFrequent() {
+        FilterCacheAdmission admission = new FilterCacheAdmission(3, 2, THRESHOLD, 100);
+        assertThat(admission.admit("reader", "filter", bitSet, 0), equalTo(false));
+        assertThat(admission.admit("reader", "filter", bitSet, 0), equalTo(false));
+        assertThat(admission.admit("reader", "filter", bitSet, 0), equalTo(true));
+        // once admitted the usage is forgotten, the filter is in the cache from now on
+        assertThat(admission.admit("reader", "filter", bitSet, 0), equalTo(false));
+    }
+
+    @Test
+    public void testCostlyFilterIsAdmittedSooner() {
+        FilterCacheAdmission admission = new FilterCacheAdmission(3, 2, THRESHOLD, 100);
+        assertThat(admission.admit("reader", "slow", bitSet, THRESHOLD), equalTo(false));
+        // a single slow execution marks the filter as costly
+        assertThat(admission.admit("reader", "slow", bitSet, 0), equalTo(true));
+
+        assertThat(admission.admit("reader", "lazy", lazySet, 0), equalTo(false));
+        assertThat(admission.admit("reader", "lazy", lazySet, 0), equalTo(true));
+
+        assertThat(admission.admit("reader", "empty", null, 0), equalTo(false));
+        assertThat(admission.admit("reader", "empty", null, 0), equalTo(false));
+        assertThat(admission.admit("reader", "empty", null, 0), equalTo(true));
+    }
+
+    @Test
+    public void testUsagesAreTrackedPerReader() {
+        FilterCacheAdmission admission = new FilterCacheAdmission(2, 2, THRESHOLD, 100);
+        assertThat(admission.admit("reader1", "filter", bitSet, 0), equalTo(false));
+        assertThat(admission.admit("reader2", "filter", bitSet, 0), equalTo(false));
+        assertThat(admission.trackedReaders(), equalTo(2));
+
+        admission.clear("reader1");
+        assertThat(admission.trackedReaders(), equalTo(1));
+        assertThat(admission.admit("reader1", "filter", bitSet, 0), equalTo(false));
+        assertThat(admission.admit("reader2", "filter", bitSet, 0), equalTo(true));
+
+        admission.clear();
+        assertThat(admission.trackedReaders(), equalTo(0));
+    }
+
+    @Test
+    public void testMinFrequencyOfOneAdmitsRightAway() {
+        FilterCacheAdmission admission = new FilterCacheAdmission(1, 1, THRESHOLD, 100);
+        assertThat(admission.admit("reader", "filter", bitSet, 0), equalTo(true));
+        assertThat(admission.admit("reader", "filter", lazySet, THRESHOLD), equalTo(true));
+        assertThat(admission.trackedReaders(), equalTo(0));
+    }
+}
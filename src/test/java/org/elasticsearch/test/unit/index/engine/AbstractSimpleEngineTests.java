@@ -136,7 +136,7 @@ public abstract class AbstractSimpleEngineTests {
     }
 
     protected MergeSchedulerProvider createMergeScheduler() {
-        return new SerialMergeSchedulerProvider(shardId, EMPTY_SETTINGS);
+        return new SerialMergeSchedulerProvider(shardId, EMPTY_SETTINGS, null);
     }
 
     protected abstract Engine createEngine(Store store, Translog translog);
@@ -0,0 +1,100 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.field.data;
+
+import org.apache.lucene.document.NumericField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.field.data.FieldData;
+import org.elasticsearch.index.field.data.longs.LongFieldData;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.lucene.DocumentBuilder.doc;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+@Test
+public class FieldDataRollupTests {
+
+    private LongFieldData load() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 10; i++) {
+            indexWriter.addDocument(doc().add(new NumericField("value").setLongValue(i)).build());
+        }
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        LongFieldData fieldData = LongFieldData.load(reader, "value");
+        reader.close();
+        indexWriter.close();
+        return fieldData;
+    }
+
+    @Test
+    public void testRollupIsCachedOnce() throws Exception {
+        LongFieldData fieldData = load();
+        assertThat(fieldData.rollup("key"), nullValue());
+
+        Object rollup = new Object();
+        assertThat(fieldData.cacheRollup("key", rollup, 10), equalTo(true));
+        assertThat(fieldData.rollup("key"), sameInstance(rollup));
+
+        // a concurrently computed rollup does not replace the cached one
+        assertThat(fieldData.cacheRollup("key", new Object(), 10), equalTo(false));
+        assertThat(fieldData.rollup("key"), sameInstance(rollup));
+    }
+
+    @Test
+    public void testRollupsAreIncludedInSize() throws Exception {
+        LongFieldData fieldData = load();
+        long sizeInBytes = fieldData.sizeInBytes();
+        assertThat(sizeInBytes, greaterThan(0l));
+
+        fieldData.cacheRollup("key1", new Object(), 100);
+        assertThat(fieldData.sizeInBytes(), equalTo(sizeInBytes + 100));
+        fieldData.cacheRollup("key2", new Object(), 50);
+        assertThat(fieldData.sizeInBytes(), equalTo(sizeInBytes + 150));
+
+        // rollups that are not cached are not accounted for
+        fieldData.cacheRollup("key1", new Object(), 100);
+        assertThat(fieldData.sizeInBytes(), equalTo(sizeInBytes + 150));
+    }
+
+    @Test
+    public void testNumberOfRollupsIsBounded() throws Exception {
+        LongFieldData fieldData = load();
+        long sizeInBytes = fieldData.sizeInBytes();
+        for (int i = 0; i < FieldData.MAX_ROLLUPS; i++) {
+            assertThat(fieldData.cacheRollup("key" + i, new Object(), 1), equalTo(true));
+        }
+        assertThat(fieldData.cacheRollup("other", new Object(), 1), equalTo(false));
+        assertThat(fieldData.rollup("other"), nullValue());
+        assertThat(fieldData.sizeInBytes(), equalTo(sizeInBytes + FieldData.MAX_ROLLUPS));
+        for (int i = 0; i < FieldData.MAX_ROLLUPS; i++) {
+            assertThat(fieldData.rollup("key" + i), notNullValue());
+        }
+    }
+}
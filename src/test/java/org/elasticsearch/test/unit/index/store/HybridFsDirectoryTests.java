@@ -0,0 +1,79 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.store;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.lucene.store.*;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class HybridFsDirectoryTests {
+
+    private final File location = new File("work/hybrid-fs-directory");
+
+    @AfterMethod
+    public void cleanup() {
+        FileSystemUtils.deleteRecursively(location);
+    }
+
+    @Test
+    public void testMmapOnlyConfiguredExtensions() throws Exception {
+        final StoreRateLimiting rateLimiting = new StoreRateLimiting();
+        rateLimiting.setType(StoreRateLimiting.Type.NONE);
+        FileSystemUtils.mkdirs(location);
+        XHybridFSDirectory dir = new XHybridFSDirectory(location, NoLockFactory.getNoLockFactory(), new StoreRateLimiting.Provider() {
+            @Override
+            public StoreRateLimiting rateLimiting() {
+                return rateLimiting;
+            }
+        }, new StoreRateLimiting.Listener() {
+            @Override
+            public void onPause(long nanos) {
+            }
+        }, ImmutableSet.of("tis"));
+
+        for (String name : new String[]{"_0.tis", "_0.fdt"}) {
+            IndexOutput output = dir.createOutput(name);
+            output.writeVInt(42);
+            output.close();
+        }
+
+        IndexInput mmapInput = dir.openInput("_0.tis");
+        assertThat(mmapInput.getClass().getName(), containsString("MMap"));
+        assertThat(mmapInput.readVInt(), equalTo(42));
+        mmapInput.close();
+
+        IndexInput nioInput = dir.openInput("_0.fdt");
+        assertThat(nioInput.getClass().getName(), not(containsString("MMap")));
+        assertThat(nioInput.readVInt(), equalTo(42));
+        nioInput.close();
+
+        assertThat(dir.listAll().length, equalTo(2));
+        dir.close();
+    }
+}
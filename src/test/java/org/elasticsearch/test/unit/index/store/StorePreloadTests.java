@@ -0,0 +1,61 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.store;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.settings.IndexSettingsService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.ram.RamDirectoryService;
+import org.testng.annotations.Test;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.Builder.EMPTY_SETTINGS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class StorePreloadTests {
+
+    @Test
+    public void testPreloadConfiguredExtensions() throws Exception {
+        ShardId shardId = new ShardId(new Index("index"), 1);
+        Store store = new Store(shardId, EMPTY_SETTINGS, null, new IndexSettingsService(shardId.index(), EMPTY_SETTINGS), new RamDirectoryService(shardId, EMPTY_SETTINGS));
+
+        writeFile(store, "_0.tis", 100);
+        writeFile(store, "_0.fdt", 1000);
+        writeFile(store, "_1.tis", 200000);
+
+        assertThat(store.preload(ImmutableSet.of("tis")), equalTo(200100l));
+        assertThat(store.preload(ImmutableSet.of("*")), equalTo(201100l));
+        assertThat(store.preload(ImmutableSet.of("tvx")), equalTo(0l));
+        store.close();
+    }
+
+    private void writeFile(Store store, String name, int length) throws Exception {
+        IndexOutput output = store.createOutputRaw(name);
+        for (int i = 0; i < length; i++) {
+            output.writeByte((byte) i);
+        }
+        output.close();
+    }
+}
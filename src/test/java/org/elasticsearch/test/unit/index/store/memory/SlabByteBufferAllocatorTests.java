@@ -0,0 +1,108 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.index.store.memory;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.bytebuffer.ByteBufferAllocator;
+import org.apache.lucene.store.bytebuffer.ByteBufferDirectory;
+import org.apache.lucene.store.bytebuffer.SlabByteBufferAllocator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ */
+public class SlabByteBufferAllocatorTests {
+
+    @Test
+    public void testReleasedBuffersAreReused() throws Exception {
+        SlabByteBufferAllocator allocator = new SlabByteBufferAllocator(true, 16, 64, 256, 1024);
+
+        ByteBuffer small = allocator.allocate(ByteBufferAllocator.Type.SMALL);
+        ByteBuffer large = allocator.allocate(ByteBufferAllocator.Type.LARGE);
+        assertThat(small.capacity(), equalTo(16));
+        assertThat(large.capacity(), equalTo(64));
+        assertThat(allocator.reservedSizeInBytes(), equalTo(512l));
+        assertThat(allocator.usedSizeInBytes(), equalTo(80l));
+
+        allocator.release(large);
+        assertThat(allocator.usedSizeInBytes(), equalTo(16l));
+        assertThat(allocator.allocate(ByteBufferAllocator.Type.LARGE), sameInstance(large));
+        assertThat(allocator.reservedSizeInBytes(), equalTo(512l));
+
+        allocator.release(small);
+        allocator.release(large);
+        assertThat(allocator.usedSizeInBytes(), equalTo(0l));
+        allocator.close();
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        SlabByteBufferAllocator allocator = new SlabByteBufferAllocator(true, 64, 64, 128, 256);
+        ByteBuffer[] buffers = new ByteBuffer[4];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = allocator.allocate(ByteBufferAllocator.Type.LARGE);
+        }
+        assertThat(allocator.reservedSizeInBytes(), equalTo(256l));
+        try {
+            allocator.allocate(ByteBufferAllocator.Type.SMALL);
+            assertThat("allocation should fail", false, equalTo(true));
+        } catch (IOException e) {
+            // all is well
+        }
+        allocator.release(buffers[0]);
+        assertThat(allocator.allocate(ByteBufferAllocator.Type.SMALL), sameInstance(buffers[0]));
+        allocator.close();
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        SlabByteBufferAllocator allocator = new SlabByteBufferAllocator(true, 8, 8, 64, 1024);
+        ByteBufferDirectory dir = new ByteBufferDirectory(allocator);
+
+        IndexOutput output = dir.createOutput("value1");
+        for (int i = 0; i < 10; i++) {
+            output.writeInt(i);
+        }
+        output.close();
+        assertThat(dir.sizeInBytes(), equalTo(40l));
+        assertThat(allocator.usedSizeInBytes(), equalTo(40l));
+
+        IndexInput input = dir.openInput("value1");
+        for (int i = 0; i < 10; i++) {
+            assertThat(input.readInt(), equalTo(i));
+        }
+        input.close();
+
+        dir.deleteFile("value1");
+        assertThat(dir.sizeInBytes(), equalTo(0l));
+        assertThat(allocator.usedSizeInBytes(), equalTo(0l));
+        assertThat(allocator.reservedSizeInBytes(), equalTo(64l));
+
+        dir.close();
+        allocator.close();
+    }
+}
@@ -73,6 +73,32 @@ public abstract class AbstractSimpleTranslogTests {
         assertThat(TranslogStreams.readSource(translog.read(loc3)).source.toBytesArray(), equalTo(new BytesArray(new byte[]{3})));
     }
 
+    @Test
+    public void testReadLargeOperation() throws IOException {
+        // larger than a single page of the stream the operation is serialized to
+        byte[] source = new byte[40000];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = (byte) i;
+        }
+        Translog.Location loc1 = translog.add(new Translog.Index("test", "1", source));
+        Translog.Location loc2 = translog.add(new Translog.Create("test", "2", new byte[]{2}));
+        assertThat(TranslogStreams.readSource(translog.read(loc1)).source.toBytes(), equalTo(source));
+        assertThat(TranslogStreams.readSource(translog.read(loc2)).source.toBytes(), equalTo(new byte[]{2}));
+        translog.sync();
+        assertThat(TranslogStreams.readSource(translog.read(loc1)).source.toBytes(), equalTo(source));
+        assertThat(TranslogStreams.readSource(translog.read(loc2)).source.toBytes(), equalTo(new byte[]{2}));
+
+        Translog.Snapshot snapshot = translog.snapshot();
+        assertThat(snapshot.hasNext(), equalTo(true));
+        Translog.Index index = (Translog.Index) snapshot.next();
+        assertThat(index.source().toBytes(), equalTo(source));
+        assertThat(snapshot.hasNext(), equalTo(true));
+        Translog.Create create = (Translog.Create) snapshot.next();
+        assertThat(create.source().toBytes(), equalTo(new byte[]{2}));
+        assertThat(snapshot.hasNext(), equalTo(false));
+        snapshot.release();
+    }
+
     @Test
     public void testTransientTranslog() {
         Translog.Snapshot snapshot = translog.snapshot();
@@ -0,0 +1,90 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.indices.store;
+
+import org.apache.lucene.store.StoreRateLimiting;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.indices.store.AdaptiveMergeThrottle;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@Test
+public class AdaptiveMergeThrottleTests {
+
+    private AdaptiveMergeThrottle newThrottle(StoreRateLimiting rateLimiting) {
+        AdaptiveMergeThrottle throttle = new AdaptiveMergeThrottle(Loggers.getLogger(AdaptiveMergeThrottleTests.class), rateLimiting,
+                new ByteSizeValue(5, ByteSizeUnit.MB), new ByteSizeValue(100, ByteSizeUnit.MB), TimeValue.timeValueMillis(100), 4.0);
+        throttle.reset(new ByteSizeValue(20, ByteSizeUnit.MB));
+        return throttle;
+    }
+
+    @Test
+    public void testIncreasesWhenMergesFallBehind() {
+        StoreRateLimiting rateLimiting = new StoreRateLimiting();
+        AdaptiveMergeThrottle throttle = newThrottle(rateLimiting);
+        long initial = throttle.rate();
+        assertThat(initial, equalTo(new ByteSizeValue(20, ByteSizeUnit.MB).bytes()));
+
+        throttle.adjust(10, 1, 0, 0, -1);
+        assertThat(throttle.rate(), equalTo(initial));
+        // segments keep growing while merging
+        throttle.adjust(12, 1, 0, 0, -1);
+        assertThat(throttle.rate(), greaterThan(initial));
+        assertThat(rateLimiting.getMaxRate().bytes(), equalTo(throttle.rate()));
+
+        // no merges running, nothing to catch up with
+        long rate = throttle.rate();
+        throttle.adjust(14, 0, 0, 0, -1);
+        assertThat(throttle.rate(), equalTo(rate));
+
+        for (int i = 0; i < 50; i++) {
+            throttle.adjust(20 + i, 1, 0, 0, -1);
+        }
+        assertThat(throttle.rate(), equalTo(new ByteSizeValue(100, ByteSizeUnit.MB).bytes()));
+    }
+
+    @Test
+    public void testDecreasesUnderSearchAndDiskPressure() {
+        AdaptiveMergeThrottle throttle = newThrottle(new StoreRateLimiting());
+        long initial = throttle.rate();
+
+        throttle.adjust(10, 1, 100, 1000, -1);
+        // 10 queries taking 500ms each, even though merges are behind
+        throttle.adjust(12, 1, 110, 6000, -1);
+        assertThat(throttle.rate(), lessThan(initial));
+
+        // fast queries, but a deep disk queue
+        long rate = throttle.rate();
+        throttle.adjust(12, 1, 120, 6010, 10);
+        assertThat(throttle.rate(), lessThan(rate));
+
+        for (int i = 0; i < 50; i++) {
+            throttle.adjust(12, 1, 120, 6010, 10);
+        }
+        assertThat(throttle.rate(), equalTo(new ByteSizeValue(5, ByteSizeUnit.MB).bytes()));
+    }
+}
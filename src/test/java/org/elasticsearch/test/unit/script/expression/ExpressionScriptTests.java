@@ -0,0 +1,120 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.script.expression;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.ScriptException;
+import org.elasticsearch.script.expression.CompiledExpression;
+import org.elasticsearch.script.expression.Expression;
+import org.elasticsearch.script.expression.ExpressionCompiler;
+import org.elasticsearch.script.expression.ExpressionScriptEngineService;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+/**
+ */
+@Test
+public class ExpressionScriptTests {
+
+    private final ExpressionScriptEngineService engine = new ExpressionScriptEngineService(ImmutableSettings.Builder.EMPTY_SETTINGS);
+
+    private double run(String script, Map<String, Object> vars) {
+        ExecutableScript executable = engine.executable(engine.compile(script), vars);
+        return ((Number) executable.run()).doubleValue();
+    }
+
+    @Test
+    public void testOperators() {
+        Map<String, Object> vars = ImmutableMap.<String, Object>of("a", 2, "b", 3.5f);
+        assertThat(run("1 + 2 * 3", null), equalTo(7.0));
+        assertThat(run("(1 + 2) * 3", null), equalTo(9.0));
+        assertThat(run("-a * b + 10 % 4", vars), equalTo(-5.0));
+        assertThat(run("a < b && !(a == b) ? a : b", vars), equalTo(2.0));
+        assertThat(run("a >= b || false", vars), equalTo(0.0));
+        assertThat(run("Math.max(a, b) + log10(100) + pow(a, 2)", vars), equalTo(9.5));
+        assertThat(run("1.5e1 / 3f", null), equalTo(5.0));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        CompiledExpression expression = (CompiledExpression) engine.compile("2 * sqrt(16) + (1 < 2 ? 1 : 0)");
+        assertThat(expression.expression(), instanceOf(Expression.Constant.class));
+        assertThat(expression.expression().evaluate(null), equalTo(9.0));
+    }
+
+    @Test
+    public void testCompiled() {
+        CompiledExpression expression = (CompiledExpression) engine.compile("a * 2 + 1");
+        assertThat(expression.expression(), instanceOf(ExpressionCompiler.Generated.class));
+
+        // NaN compares as false, but is true as a condition
+        Map<String, Object> vars = ImmutableMap.<String, Object>of("a", Double.NaN, "b", 1);
+        assertThat(run("a < b", vars), equalTo(0.0));
+        assertThat(run("a <= b", vars), equalTo(0.0));
+        assertThat(run("a > b", vars), equalTo(0.0));
+        assertThat(run("a >= b", vars), equalTo(0.0));
+        assertThat(run("a == a", vars), equalTo(0.0));
+        assertThat(run("a != a", vars), equalTo(1.0));
+        assertThat(run("!a", vars), equalTo(0.0));
+        assertThat(run("a ? 1 : 2", vars), equalTo(1.0));
+        assertThat(run("a && b", vars), equalTo(1.0));
+        assertThat(run("b - 1 || a", vars), equalTo(1.0));
+        assertThat(run("b - 1 || !a", vars), equalTo(0.0));
+        assertThat(run("b - 1 && a", vars), equalTo(0.0));
+
+        vars = ImmutableMap.<String, Object>of("a", -2.5, "b", 4);
+        assertThat(run("b <= 4 && b >= 4 && b == 4 && !(b != 4) && a < b && b > a", vars), equalTo(1.0));
+        assertThat(run("abs(a) + floor(a) + ceil(a) + signum(a) + sqrt(b) + min(a, b) + max(a, b) + hypot(3, b)", vars),
+                equalTo(2.5 - 3 - 2 - 1 + 2 - 2.5 + 4 + 5));
+        assertThat(run("-a % 2 + b / 8 - a * 2", vars), equalTo(0.5 + 0.5 + 5));
+        assertThat(run("a > 0 ? a : b > 3 ? b * 10 : 0", vars), equalTo(40.0));
+    }
+
+    @Test
+    public void testVariables() {
+        ExecutableScript executable = engine.executable(engine.compile("x * factor"), ImmutableMap.<String, Object>of("factor", 2));
+        executable.setNextVar("x", 5);
+        assertThat(((Number) executable.run()).doubleValue(), equalTo(10.0));
+        executable.setNextVar("x", 1L);
+        assertThat(((Number) executable.run()).doubleValue(), equalTo(2.0));
+    }
+
+    @Test(expectedExceptions = ScriptException.class)
+    public void testUnknownVariable() {
+        run("x + 1", null);
+    }
+
+    @Test(expectedExceptions = ScriptException.class)
+    public void testParseFailure() {
+        engine.compile("1 + * 2");
+    }
+
+    @Test(expectedExceptions = ScriptException.class)
+    public void testFieldsNeedSearch() {
+        engine.executable(engine.compile("doc['price'].value * 2"), null);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.facet.datehistogram;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.apache.lucene.document.NumericField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.joda.TimeZoneRounding;
+import org.elasticsearch.common.lucene.DocumentBuilder;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.field.data.longs.LongFieldData;
+import org.elasticsearch.search.facet.datehistogram.CountDateHistogramFacetCollector;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.elasticsearch.common.lucene.DocumentBuilder.doc;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+@Test
+public class CountDateHistogramFacetCollectorTests {
+
+    private static final long HOUR = TimeValue.timeValueHours(1).millis();
+
+    @Test
+    public void testLastOrdinalInBucket() {
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(TimeValue.timeValueHours(1)).build();
+        // ordinal 0 is the no value placeholder
+        long[] values = new long[]{0, 0, 1, HOUR - 1, HOUR, 2 * HOUR, 2 * HOUR + 1, 5 * HOUR};
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 1, 0), equalTo(3));
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 2, 0), equalTo(3));
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 3, 0), equalTo(3));
+        // single ordinal buckets
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 4, HOUR), equalTo(4));
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 5, 2 * HOUR), equalTo(6));
+        // last ordinal
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 7, 5 * HOUR), equalTo(7));
+        // all the ordinals in the same bucket
+        values = new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, 1, 0), equalTo(10));
+    }
+
+    @Test
+    public void testLastOrdinalInBucketMatchesLinearScan() {
+        Random random = new Random();
+        TimeZoneRounding tzRounding = TimeZoneRounding.builder(TimeValue.timeValueHours(1)).build();
+        for (int iter = 0; iter < 100; iter++) {
+            long[] values = new long[1 + random.nextInt(200)];
+            for (int i = 1; i < values.length; i++) {
+                values[i] = values[i - 1] + 1 + random.nextInt((int) HOUR / 4);
+            }
+            for (int ordinal = 1; ordinal < values.length; ordinal++) {
+                long key = tzRounding.calc(values[ordinal]);
+                int expected = ordinal;
+                while (expected + 1 < values.length && tzRounding.calc(values[expected + 1]) == key) {
+                    expected++;
+                }
+                assertThat(CountDateHistogramFacetCollector.lastOrdinalInBucket(tzRounding, values, ordinal, key), equalTo(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testProcMatchesPerValueRounding() throws Exception {
+        Random random = new Random();
+        Directory dir = new RAMDirectory();
+        IndexWriter indexWriter = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        int numDocs = 2000;
+        for (int i = 0; i < numDocs; i++) {
+            DocumentBuilder doc = doc();
+            // some docs have no value, some several of them
+            int numValues = random.nextInt(3);
+            for (int j = 0; j < numValues; j++) {
+                doc.add(new NumericField("svalue").setLongValue(random.nextInt(1000) * 10 * 60 * 1000l));
+            }
+            indexWriter.addDocument(doc.build());
+        }
+        IndexReader reader = IndexReader.open(indexWriter, true);
+        LongFieldData fieldData = LongFieldData.load(reader, "svalue");
+
+        TimeZoneRounding[] roundings = new TimeZoneRounding[]{
+                TimeZoneRounding.builder(TimeValue.timeValueHours(1)).build(),
+                TimeZoneRounding.builder(TimeValue.timeValueHours(7)).build(),
+                TimeZoneRounding.builder(ISOChronology.getInstanceUTC().dayOfMonth()).preZone(DateTimeZone.forOffsetHours(-2)).build()
+        };
+        // sparse collections visit the hit ordinals only, dense ones all of them
+        int[] collectEvery = new int[]{1, 3, 50, 500, numDocs + 1};
+        for (TimeZoneRounding tzRounding : roundings) {
+            for (int every : collectEvery) {
+                CountDateHistogramFacetCollector.DateHistogramProc proc = new CountDateHistogramFacetCollector.DateHistogramProc(tzRounding);
+                PerValueProc expected = new PerValueProc(tzRounding);
+                // collected twice, as the proc is reused across segments
+                for (int run = 0; run < 2; run++) {
+                    proc.reset(fieldData);
+                    for (int doc = run; doc < numDocs; doc += every) {
+                        fieldData.forEachOrdinalInDoc(doc, proc);
+                        fieldData.forEachValueInDoc(doc, expected);
+                    }
+                    proc.flush();
+                }
+                proc.release();
+                assertThat(proc.counts(), equalTo(expected.counts));
+            }
+        }
+        reader.close();
+        indexWriter.close();
+    }
+
+    /**
+     * Rounds each collected value, as the collector used to.
+     */
+    private static class PerValueProc implements LongFieldData.ValueInDocProc {
+
+        final TLongLongHashMap counts = new TLongLongHashMap();
+
+        final TimeZoneRounding tzRounding;
+
+        PerValueProc(TimeZoneRounding tzRounding) {
+            this.tzRounding = tzRounding;
+        }
+
+        @Override
+        public void onValue(int docId, long value) {
+            counts.adjustOrPutValue(tzRounding.calc(value), 1, 1);
+        }
+
+        @Override
+        public void onMissing(int docId) {
+        }
+    }
+}
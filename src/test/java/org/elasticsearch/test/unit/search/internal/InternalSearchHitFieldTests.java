@@ -0,0 +1,96 @@
+/*
+ * Licensed to ElasticSearch and Shay Banon under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. ElasticSearch licenses this
+ * file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.test.unit.search.internal;
+
+import com.google.common.collect.Lists;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.internal.InternalSearchHitField;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.elasticsearch.search.internal.InternalSearchHitField.readSearchHitField;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ *
+ */
+@Test
+public class InternalSearchHitFieldTests {
+
+    private final List<Object> values = Lists.<Object>newArrayList("value", "élève 中文", "", 1, 2l, 1.5d, true);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        InternalSearchHitField field = new InternalSearchHitField("field", values);
+        byte[] bytes = write(field, Version.CURRENT);
+
+        InternalSearchHitField read = read(bytes, Version.CURRENT);
+        assertThat(read.name(), equalTo("field"));
+        assertThat(read.values(), equalTo(values));
+        assertThat(read.value(), equalTo((Object) "value"));
+    }
+
+    @Test
+    public void testPassThrough() throws Exception {
+        byte[] bytes = write(new InternalSearchHitField("field", values), Version.CURRENT);
+
+        // not accessed, string values are written back as the utf8 bytes they were read as
+        InternalSearchHitField passThrough = read(bytes, Version.CURRENT);
+        byte[] passThroughBytes = write(passThrough, Version.CURRENT);
+        assertThat(passThroughBytes, equalTo(bytes));
+
+        // and read back to the same values on the other side
+        InternalSearchHitField read = read(passThroughBytes, Version.CURRENT);
+        assertThat(read.values(), equalTo(values));
+
+        // once accessed, the decoded values are written back the same way
+        assertThat(write(read, Version.CURRENT), equalTo(bytes));
+        assertThat(read.values(), equalTo(values));
+    }
+
+    @Test
+    public void testPreviousVersion() throws Exception {
+        byte[] bytes = write(new InternalSearchHitField("field", values), Version.V_0_19_10);
+        InternalSearchHitField read = read(bytes, Version.V_0_19_10);
+        assertThat(read.values(), equalTo(values));
+
+        // values read from a current stream are written as generic values to previous versions
+        InternalSearchHitField passThrough = read(write(new InternalSearchHitField("field", values), Version.CURRENT), Version.CURRENT);
+        assertThat(write(passThrough, Version.V_0_19_10), equalTo(bytes));
+    }
+
+    private static byte[] write(InternalSearchHitField field, Version version) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        field.writeTo(out);
+        return out.bytes().toBytes();
+    }
+
+    private static InternalSearchHitField read(byte[] bytes, Version version) throws IOException {
+        BytesStreamInput in = new BytesStreamInput(bytes, false);
+        in.setVersion(version);
+        return readSearchHitField(in);
+    }
+}
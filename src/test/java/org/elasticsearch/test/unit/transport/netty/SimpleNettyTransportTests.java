@@ -22,12 +22,14 @@ package org.elasticsearch.test.unit.transport.netty;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.test.unit.transport.AbstractSimpleTransportTests;
-import org.elasticsearch.transport.ConnectTransportException;
-import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
 import org.elasticsearch.transport.netty.NettyTransport;
 import org.testng.annotations.Test;
 
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
 @Test
 public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
@@ -51,4 +53,43 @@ public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
             // all is well
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testActionStats() throws Exception {
+        serviceA.registerHandler("sayNothing", new BaseTransportRequestHandler<TransportRequest.Empty>() {
+            @Override
+            public TransportRequest.Empty newInstance() {
+                return TransportRequest.Empty.INSTANCE;
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.GENERIC;
+            }
+
+            @Override
+            public void messageReceived(TransportRequest.Empty request, TransportChannel channel) throws Exception {
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            serviceB.submitRequest(serviceANode, "sayNothing", TransportRequest.Empty.INSTANCE, new EmptyTransportResponseHandler(ThreadPool.Names.GENERIC)).txGet();
+        }
+
+        TransportActionStats stats = null;
+        for (TransportActionStats actionStats : serviceA.stats().actions()) {
+            if (actionStats.action().equals("sayNothing")) {
+                stats = actionStats;
+            }
+        }
+        assertThat(stats, notNullValue());
+        assertThat(stats.count(), equalTo(3l));
+        assertThat(stats.failed(), equalTo(0l));
+        assertThat(stats.requestSize().bytes(), greaterThan(0l));
+        assertThat(stats.responseSize().bytes(), greaterThan(0l));
+        assertThat(serviceB.stats().slowestInFlight().length, equalTo(0));
+
+        serviceA.removeHandler("sayNothing");
+    }
+}